@@ -26,8 +26,14 @@ import java.util.Map;
  */
 @SuppressWarnings("serial")
 public class EDBObject extends HashMap<String, EDBObjectEntry> {
-    private static final String OID_CONST = "oid";
-    private static final String DELETED_CONST = "isDeleted";
+    /**
+     * The key of the entry which contains the OID of an EDBObject.
+     */
+    public static final String OID_CONST = "oid";
+    /**
+     * The key of the entry which marks an EDBObject as deleted.
+     */
+    public static final String DELETED_CONST = "isDeleted";
 
     /**
      * Create an EDBObject with a specified OID.
@@ -50,6 +50,12 @@ public interface EngineeringDatabaseService {
      */
     List<EDBObject> getObjects(List<String> oids) throws EDBException;
 
+    /**
+     * Retrieve the state of the objects with the specified OIDs for the given timestamp. Objects which didn't exist or
+     * were deleted at this timestamp are not contained in the result.
+     */
+    List<EDBObject> getObjects(List<String> oids, Long timestamp) throws EDBException;
+
     /**
      * Retrieve the current state - a list of all EDBObjects currently available.
      */
@@ -81,6 +87,21 @@ public interface EngineeringDatabaseService {
      */
     List<EDBObject> query(QueryRequest request) throws EDBException;
 
+    /**
+     * Retrieves one page of the full state for a provided timestamp. The objects are ordered by their OIDs and only
+     * objects with an OID greater than afterOid are returned (all objects if afterOid is null), at most maxResults of
+     * them. A whole head can be read page by page by passing the OID of the last object of the previous page.
+     */
+    List<EDBObject> getHead(long timestamp, String afterOid, int maxResults) throws EDBException;
+
+    /**
+     * Queries for one page of EDBObjects based on the given query request object. The objects are ordered by their
+     * OIDs and only objects with an OID greater than afterOid are returned (all objects if afterOid is null), at most
+     * maxResults of them. A big result can be read page by page by passing the OID of the last object of the previous
+     * page.
+     */
+    List<EDBObject> query(QueryRequest request, String afterOid, int maxResults) throws EDBException;
+
     /**
      * Convenience function to query for a commit with a single matching key-value pair.
      */
@@ -102,6 +123,12 @@ public interface EngineeringDatabaseService {
      */
     EDBCommit getCommit(Long from) throws EDBException;
 
+    /**
+     * Returns the timestamp of the newest commit of the EDB, or null if there is no commit so far. The timestamp is
+     * kept in memory by the EDB, so it is cheap to call this method for every query.
+     */
+    Long getLastCommitTimestamp() throws EDBException;
+
     /**
      * Convenience function to get a commit for a given revision string. If there is no commit for the given revision
      * string or if a database error occurs, an EDBException is thrown.
@@ -128,6 +155,12 @@ public interface EngineeringDatabaseService {
      */
     List<String> getResurrectedOIDs() throws EDBException;
 
+    /**
+     * Returns the distinct values of all entries in the whole history of the EDB which start with the given prefix.
+     * This scans all entries of the EDB and is therefore only meant for maintenance tasks running in the background.
+     */
+    List<String> getEntryValuesByPrefix(String prefix) throws EDBException;
+
     /**
      * Fixed-Complex-Query - Get all objects at the state of last commit which matches the provided query.
      */
@@ -0,0 +1,80 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.api;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An IndexCommitQueue accepts IndexCommits and merges them into the index asynchronously. A commit is stored durably
+ * before {@link #enqueue(IndexCommit)} returns, so commits that were not yet indexed survive a restart. A commit that
+ * can not be indexed is reported as failed, and the index is not consistent with the EDB until it was repaired.
+ */
+public interface IndexCommitQueue {
+
+    /**
+     * Durably stores the given commit and schedules it for indexing.
+     * 
+     * @param commit the commit to index
+     * @throws EDBIndexException if the commit could not be stored
+     */
+    void enqueue(IndexCommit commit) throws EDBIndexException;
+
+    /**
+     * Returns the number of commits that were enqueued but not yet indexed.
+     * 
+     * @return the number of pending commits
+     */
+    int getPendingCommitCount();
+
+    /**
+     * Returns the time in milliseconds the oldest pending commit has been waiting to be indexed, or 0 if there are no
+     * pending commits.
+     * 
+     * @return the indexing lag in milliseconds
+     */
+    long getLag();
+
+    /**
+     * Returns the number of commits that could not be indexed. As long as this is not 0 the index is missing changes of
+     * the EDB.
+     * 
+     * @return the number of failed commits
+     */
+    int getFailedCommitCount();
+
+    /**
+     * Returns the highest timestamp of all commits that were indexed, or 0 if no commit was indexed yet. If there are
+     * neither pending nor failed commits, the index contains every EDB commit up to this timestamp.
+     * 
+     * @return the highest indexed commit timestamp in milliseconds
+     */
+    long getIndexedTimestamp();
+
+    /**
+     * Blocks until the commit with the given id and all commits enqueued before it have been indexed, or the timeout
+     * elapses. Returns immediately if the commit is not pending.
+     * 
+     * @param commitId the id of the commit to wait for
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return true if the commit was indexed, false if the timeout elapsed or the commit or one of the commits it
+     *         waited for could not be indexed
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     */
+    boolean awaitIndexed(UUID commitId, long timeout, TimeUnit unit) throws InterruptedException;
+}
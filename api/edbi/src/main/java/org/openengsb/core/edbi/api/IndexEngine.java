@@ -98,4 +98,25 @@ public interface IndexEngine {
      * @throws EDBIndexException propagated underlying non-runtime exceptions
      */
     void commit(IndexCommit commit) throws EDBIndexException;
+
+    /**
+     * Executes the given query and returns the matching models. Only the fields of the index are set in the returned
+     * models. Fields that reference other models are not restored, since the index only stores their ids.
+     * 
+     * @param query the query to execute
+     * @return the matching models
+     * @throws IndexNotFoundException if the index of the query does not exist
+     */
+    <T> List<T> query(IndexQuery<T> query) throws IndexNotFoundException;
+
+    /**
+     * Executes the given query on the history data and returns the revisions of the matching models, that is the latest
+     * revision of each matching model at the revision timestamp of the query (or now, if no timestamp is set). Models
+     * that were deleted at that timestamp are not returned.
+     * 
+     * @param query the query to execute
+     * @return the revisions of the matching models
+     * @throws IndexNotFoundException if the index of the query does not exist
+     */
+    List<IndexRevision> queryRevisions(IndexQuery<?> query) throws IndexNotFoundException;
 }
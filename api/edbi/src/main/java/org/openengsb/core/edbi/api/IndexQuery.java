@@ -0,0 +1,278 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Fluent interface for querying the data of an Index. Predicates refer to index fields by their name and are joined
+ * with a logical AND. By default a query reads the current state of the models. If a revision timestamp or a context
+ * is given, the query reads the latest version of each model at that timestamp from the history data instead.
+ * 
+ * @param <T> the type of the model
+ */
+public class IndexQuery<T> {
+
+    /**
+     * The comparison operators a predicate can use.
+     */
+    public enum Operator {
+        EQUAL, NOT_EQUAL, LESS_THAN, LESS_THAN_OR_EQUAL, GREATER_THAN, GREATER_THAN_OR_EQUAL, LIKE, IN, BETWEEN, IS_NULL
+    }
+
+    private Index<T> index;
+
+    private List<Predicate> predicates;
+    private List<Order> orders;
+
+    private int offset;
+    private int limit;
+
+    private Date revision;
+    private String contextId;
+
+    public IndexQuery(Index<T> index) {
+        this.index = index;
+        this.predicates = new ArrayList<>();
+        this.orders = new ArrayList<>();
+        this.offset = 0;
+        this.limit = -1;
+    }
+
+    /**
+     * Creates a new query for the given index.
+     * 
+     * @param index the index to query
+     * @return a new query instance
+     */
+    public static <T> IndexQuery<T> from(Index<T> index) {
+        return new IndexQuery<>(index);
+    }
+
+    public IndexQuery<T> equal(String field, Object value) {
+        return where(field, Operator.EQUAL, value);
+    }
+
+    public IndexQuery<T> notEqual(String field, Object value) {
+        return where(field, Operator.NOT_EQUAL, value);
+    }
+
+    public IndexQuery<T> lessThan(String field, Object value) {
+        return where(field, Operator.LESS_THAN, value);
+    }
+
+    public IndexQuery<T> lessThanOrEqual(String field, Object value) {
+        return where(field, Operator.LESS_THAN_OR_EQUAL, value);
+    }
+
+    public IndexQuery<T> greaterThan(String field, Object value) {
+        return where(field, Operator.GREATER_THAN, value);
+    }
+
+    public IndexQuery<T> greaterThanOrEqual(String field, Object value) {
+        return where(field, Operator.GREATER_THAN_OR_EQUAL, value);
+    }
+
+    /**
+     * Adds a predicate that matches the field against the given SQL LIKE pattern.
+     * 
+     * @param field the name of the index field
+     * @param pattern the pattern, where % matches any sequence and _ exactly one character
+     * @return this for chaining
+     */
+    public IndexQuery<T> like(String field, String pattern) {
+        return where(field, Operator.LIKE, pattern);
+    }
+
+    public IndexQuery<T> in(String field, Collection<?> values) {
+        predicates.add(new Predicate(field, Operator.IN, new ArrayList<Object>(values)));
+        return this;
+    }
+
+    /**
+     * Adds a predicate that matches all values between the given bounds, including the bounds themselves.
+     * 
+     * @param field the name of the index field
+     * @param from the lower bound
+     * @param to the upper bound
+     * @return this for chaining
+     */
+    public IndexQuery<T> between(String field, Object from, Object to) {
+        predicates.add(new Predicate(field, Operator.BETWEEN, Arrays.asList(from, to)));
+        return this;
+    }
+
+    public IndexQuery<T> isNull(String field) {
+        predicates.add(new Predicate(field, Operator.IS_NULL, Collections.emptyList()));
+        return this;
+    }
+
+    public IndexQuery<T> ascending(String field) {
+        orders.add(new Order(field, true));
+        return this;
+    }
+
+    public IndexQuery<T> descending(String field) {
+        orders.add(new Order(field, false));
+        return this;
+    }
+
+    /**
+     * Skips the given number of results.
+     * 
+     * @param offset the number of results to skip
+     * @return this for chaining
+     */
+    public IndexQuery<T> offset(int offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Limits the query to the given number of results.
+     * 
+     * @param limit the maximum number of results
+     * @return this for chaining
+     */
+    public IndexQuery<T> limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Queries the state of the models as it was at the given timestamp.
+     * 
+     * @param timestamp the revision timestamp
+     * @return this for chaining
+     */
+    public IndexQuery<T> asOf(Date timestamp) {
+        this.revision = timestamp;
+        return this;
+    }
+
+    /**
+     * Restricts the query to models that were committed in the given context.
+     * 
+     * @param contextId the context id
+     * @return this for chaining
+     */
+    public IndexQuery<T> inContext(String contextId) {
+        this.contextId = contextId;
+        return this;
+    }
+
+    private IndexQuery<T> where(String field, Operator operator, Object value) {
+        predicates.add(new Predicate(field, operator, Collections.singletonList(value)));
+        return this;
+    }
+
+    public Index<T> getIndex() {
+        return index;
+    }
+
+    public List<Predicate> getPredicates() {
+        return predicates;
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the maximum number of results, or -1 if the query is not limited.
+     * 
+     * @return the limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    public Date getRevision() {
+        return revision;
+    }
+
+    public String getContextId() {
+        return contextId;
+    }
+
+    /**
+     * Returns true if the query has to be executed on the history data, i.e. if a revision timestamp or a context is
+     * set.
+     * 
+     * @return true if the history data is queried
+     */
+    public boolean isHistoryQuery() {
+        return revision != null || contextId != null;
+    }
+
+    /**
+     * A condition on the value of an index field.
+     */
+    public static class Predicate {
+        private final String field;
+        private final Operator operator;
+        private final List<Object> values;
+
+        public Predicate(String field, Operator operator, List<Object> values) {
+            this.field = field;
+            this.operator = operator;
+            this.values = values;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public Operator getOperator() {
+            return operator;
+        }
+
+        public List<Object> getValues() {
+            return values;
+        }
+    }
+
+    /**
+     * The ordering of the results by an index field.
+     */
+    public static class Order {
+        private final String field;
+        private final boolean ascending;
+
+        public Order(String field, boolean ascending) {
+            this.field = field;
+            this.ascending = ascending;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public boolean isAscending() {
+            return ascending;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.api;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * The revision of a model in an Index, i.e. the id of the model together with the meta data of the commit that created
+ * the version of the model.
+ */
+public class IndexRevision {
+
+    private Object modelId;
+    private String contextId;
+    private UUID commitId;
+    private Date timestamp;
+    private String operation;
+
+    public IndexRevision(Object modelId, String contextId, UUID commitId, Date timestamp, String operation) {
+        this.modelId = modelId;
+        this.contextId = contextId;
+        this.commitId = commitId;
+        this.timestamp = timestamp;
+        this.operation = operation;
+    }
+
+    /**
+     * Returns the value of the {@code @OpenEngSBModelId} field of the model.
+     * 
+     * @return the model id
+     */
+    public Object getModelId() {
+        return modelId;
+    }
+
+    public String getContextId() {
+        return contextId;
+    }
+
+    public UUID getCommitId() {
+        return commitId;
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the operation of the commit, which is one of INSERT, UPDATE and DELETE.
+     * 
+     * @return the commit operation
+     */
+    public String getOperation() {
+        return operation;
+    }
+}
@@ -37,6 +37,7 @@ public class EKBCommit {
     private String comment;
     private UUID revisionNumber;
     private UUID parentRevisionNumber;
+    private Long timestamp;
 
     public EKBCommit() {
         inserts = new ArrayList<OpenEngSBModel>();
@@ -228,4 +229,15 @@ public class EKBCommit {
     public void setComment(String comment) {
         this.comment = comment;
     }
+
+    /**
+     * Returns the timestamp of the EDB commit this commit was persisted with, or null if it wasn't persisted yet.
+     */
+    public Long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Long timestamp) {
+        this.timestamp = timestamp;
+    }
 }
@@ -49,6 +49,13 @@ public interface QueryInterface {
      */
     <T> List<T> query(Class<T> model, QueryRequest request);
 
+    /**
+     * Queries for models which are fitting to the parameters given by the query request object. In contrast to the
+     * query method, the result is not loaded at once. The returned iterable loads and converts the models in pages of
+     * the given size while iterating, so the needed memory does not depend on the size of the result.
+     */
+    <T> Iterable<T> queryInPages(Class<T> model, QueryRequest request, int pageSize);
+
     /**
      * Queries for models which are fitting to the parameters given by the query string.
      */
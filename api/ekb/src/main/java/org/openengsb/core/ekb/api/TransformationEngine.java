@@ -17,10 +17,12 @@
 
 package org.openengsb.core.ekb.api;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.openengsb.core.api.model.ModelDescription;
 import org.openengsb.core.ekb.api.transformation.TransformationDescription;
+import org.openengsb.core.ekb.api.transformation.TransformationResult;
 
 /**
  * The transformation engine does the actual conversation work. It uses the transformation descriptions it got to
@@ -86,6 +88,24 @@ public interface TransformationEngine {
     Object performTransformation(ModelDescription sourceModel, ModelDescription targetModel, Object source,
             Object target, List<String> ids);
 
+    /**
+     * Transforms all source objects of the source model type to the target model type. The transformation path is
+     * resolved only once for all objects. The returned list contains the results in the order of the source objects. If
+     * the transformation of an object fails, its result contains the exception and the other objects are still
+     * transformed.
+     */
+    List<TransformationResult> performTransformations(ModelDescription sourceModel, ModelDescription targetModel,
+            Collection<?> sources);
+
+    /**
+     * Transforms all source objects of the source model type to the target model type with a path where
+     * transformations with all given ids are used. The transformation path is resolved only once for all objects. The
+     * returned list contains the results in the order of the source objects. If the transformation of an object fails,
+     * its result contains the exception and the other objects are still transformed.
+     */
+    List<TransformationResult> performTransformations(ModelDescription sourceModel, ModelDescription targetModel,
+            Collection<?> sources, List<String> ids);
+
     /**
      * Returns true if there is a transformation possible from source to target model. Returns false if not.
      */
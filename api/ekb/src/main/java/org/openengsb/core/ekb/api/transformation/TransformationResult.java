@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.ekb.api.transformation;
+
+import com.google.common.base.Objects;
+
+/**
+ * The result of the transformation of one object in a batch transformation. Contains either the transformed object or
+ * the exception which aborted the transformation of the object.
+ */
+public final class TransformationResult {
+    private final Object source;
+    private final Object result;
+    private final Exception error;
+
+    private TransformationResult(Object source, Object result, Exception error) {
+        this.source = source;
+        this.result = result;
+        this.error = error;
+    }
+
+    /**
+     * Creates the result of a successful transformation of the given source object.
+     */
+    public static TransformationResult success(Object source, Object result) {
+        return new TransformationResult(source, result, null);
+    }
+
+    /**
+     * Creates the result of a transformation of the given source object which failed with the given exception.
+     */
+    public static TransformationResult failure(Object source, Exception error) {
+        return new TransformationResult(source, null, error);
+    }
+
+    public Object getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the transformed object, or null if the transformation failed.
+     */
+    public Object getResult() {
+        return result;
+    }
+
+    /**
+     * Returns the exception which aborted the transformation, or null if the transformation was successful.
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(getClass()).add("source", source).add("result", result).add("error", error)
+            .toString();
+    }
+}
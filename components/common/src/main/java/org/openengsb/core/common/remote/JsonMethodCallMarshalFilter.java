@@ -50,7 +50,7 @@ public class JsonMethodCallMarshalFilter extends AbstractFilterChainElement<Stri
 
     @Override
     public String doFilter(String input, Map<String, Object> metadata) throws FilterException {
-        ObjectMapper objectMapper = JsonUtils.createObjectMapperWithIntroSpectors();
+        ObjectMapper objectMapper = JsonUtils.getObjectMapperWithIntroSpectors();
         MethodCallMessage callMessage;
         try {
             callMessage = objectMapper.readValue(input, MethodCallMessage.class);
@@ -60,7 +60,7 @@ public class JsonMethodCallMarshalFilter extends AbstractFilterChainElement<Stri
                 String className = call.getClasses().get(i);
                 Class<?> parameterClass;
                 try {
-                    parameterClass = getClass().getClassLoader().loadClass(className);
+                    parameterClass = JsonUtils.findClass(className, getClass().getClassLoader());
                 } catch (ClassNotFoundException e) {
                     throw new FilterException(e);
                 }
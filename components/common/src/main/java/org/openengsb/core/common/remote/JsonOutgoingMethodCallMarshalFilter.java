@@ -52,7 +52,7 @@ public class JsonOutgoingMethodCallMarshalFilter extends
 
     @Override
     public MethodResultMessage doFilter(MethodCallMessage input, Map<String, Object> metadata) throws FilterException {
-        ObjectMapper objectMapper = JsonUtils.createObjectMapperWithIntroSpectors();
+        ObjectMapper objectMapper = JsonUtils.getObjectMapperWithIntroSpectors();
         MethodResultMessage resultMessage;
         try {
             String jsonString = objectMapper.writeValueAsString(input);
@@ -70,7 +70,7 @@ public class JsonOutgoingMethodCallMarshalFilter extends
         } else {
             Class<?> resultType;
             try {
-                resultType = Class.forName(result.getClassName());
+                resultType = JsonUtils.findClass(result.getClassName(), getClass().getClassLoader());
             } catch (ClassNotFoundException e) {
                 throw new FilterException(e);
             }
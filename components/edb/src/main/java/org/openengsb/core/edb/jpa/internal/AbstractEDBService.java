@@ -18,15 +18,25 @@
 package org.openengsb.core.edb.jpa.internal;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.persistence.EntityManager;
 
 import org.openengsb.core.edb.api.EDBCommit;
 import org.openengsb.core.edb.api.EDBException;
-import org.openengsb.core.edb.api.EDBObject;
 import org.openengsb.core.edb.api.EngineeringDatabaseService;
 import org.openengsb.core.edb.api.hooks.EDBBeginCommitHook;
+import org.openengsb.core.edb.api.hooks.EDBCommitProgressHook;
 import org.openengsb.core.edb.api.hooks.EDBErrorHook;
 import org.openengsb.core.edb.api.hooks.EDBPostCommitHook;
 import org.openengsb.core.edb.api.hooks.EDBPreCommitHook;
@@ -36,10 +46,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The AbstractEDBService is used to encapsulate the commit logic of the EDB.
+ * The AbstractEDBService is used to encapsulate the commit logic of the EDB. Writers are serialized through a
+ * dedicated commit lock, so readers never have to wait for a running commit. Every write runs in a transaction of its
+ * own which is committed before the commit lock is released, so a commit is durable when its timestamp is returned and
+ * the post commit hooks are run. If group commit is enabled (group commit size bigger than 1), commits which are
+ * waiting for the lock are written together in one transaction by the thread which currently holds the lock.
  */
 public abstract class AbstractEDBService implements EngineeringDatabaseService {
+    protected static final int OID_LOOKUP_SIZE = 500;
     protected EntityManager entityManager;
+    private final Lock commitLock = new ReentrantLock(true);
+    private final Queue<PendingCommit> pendingCommits = new ConcurrentLinkedQueue<>();
+    private int groupCommitSize = 1;
+    private int bulkChunkSize;
+    private List<EDBCommitProgressHook> progressHooks = new ArrayList<>();
+    private EDBTransactionRunner transactionRunner;
+    private long lastCommitTimestamp;
+    private boolean headTableInitialized;
     private final Logger logger;
     private final Boolean revisionCheckEnabled;
     private final List<EDBErrorHook> errorHooks;
@@ -88,57 +111,265 @@ public abstract class AbstractEDBService implements EngineeringDatabaseService {
      * EDBException if an error occurs.
      */
     private Long performCommit(JPACommit commit) throws EDBException {
-        synchronized (entityManager) {
-            long timestamp = System.currentTimeMillis();
+        PendingCommit pending = new PendingCommit(commit);
+        if (groupCommitSize <= 1) {
+            commitLock.lock();
             try {
-                beginTransaction();
-                persistCommitChanges(commit, timestamp);
-                commitTransaction();
-            } catch (Exception ex) {
-                try {
-                    rollbackTransaction();
-                } catch (Exception e) {
-                    throw new EDBException("Failed to rollback transaction to EDB", e);
+                writeCommitGroup(Arrays.asList(pending));
+            } finally {
+                commitLock.unlock();
+            }
+            return pending.getTimestamp();
+        }
+        pendingCommits.add(pending);
+        commitLock.lock();
+        try {
+            while (!pending.isDone()) {
+                writeCommitGroup(pollCommitGroup());
+            }
+        } finally {
+            commitLock.unlock();
+        }
+        return pending.getTimestamp();
+    }
+
+    /**
+     * Removes up to group commit size pending commits from the queue of waiting commits. Must only be called while
+     * holding the commit lock.
+     */
+    private List<PendingCommit> pollCommitGroup() {
+        List<PendingCommit> group = new ArrayList<>();
+        PendingCommit next;
+        while (group.size() < groupCommitSize && (next = pendingCommits.poll()) != null) {
+            group.add(next);
+        }
+        return group;
+    }
+
+    /**
+     * Writes all given commits in one transaction. The commits are only marked as completed after the transaction has
+     * been committed. If the transaction of a group of several commits fails, each commit of the group is written again
+     * in a transaction of its own, so that only the commits which fail on their own are marked as failed. Must only be
+     * called while holding the commit lock.
+     */
+    private void writeCommitGroup(final List<PendingCommit> group) {
+        if (group.isEmpty()) {
+            return;
+        }
+        final List<Long> timestamps = new ArrayList<>();
+        headTableUpdateStarted();
+        try {
+            runInNewTransaction(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    initializeHeadTable();
+                    for (PendingCommit pending : group) {
+                        long timestamp = nextCommitTimestamp();
+                        persistCommitChanges(pending.getCommit(), timestamp);
+                        timestamps.add(timestamp);
+                    }
+                    return null;
                 }
-                throw new EDBException("Failed to commit transaction to EDB", ex);
+            });
+        } catch (Exception ex) {
+            headTableUpdated(null);
+            if (group.size() > 1) {
+                logger.warn("Failed to write a group of {} commits, writing them one by one", group.size(), ex);
+                for (PendingCommit pending : group) {
+                    resetCommit(pending.getCommit());
+                    writeCommitGroup(Arrays.asList(pending));
+                }
+                return;
+            }
+            EDBException exception = new EDBException("Failed to commit transaction to EDB", ex);
+            for (PendingCommit pending : group) {
+                pending.fail(exception);
+            }
+            return;
+        }
+        headTableInitialized = true;
+        headTableUpdated(timestamps.get(timestamps.size() - 1));
+        if (group.size() > 1) {
+            logger.debug("wrote {} commits in one transaction", group.size());
+        }
+        for (int i = 0; i < group.size(); i++) {
+            group.get(i).complete(timestamps.get(i));
+        }
+    }
+
+    /**
+     * Runs the given work in a new transaction which is committed before this method returns. If a transaction runner
+     * is set, the transaction is demarcated by the runner, otherwise by the begin, commit and rollback methods of this
+     * class. If the rollback fails too, the rollback failure is added as suppressed exception to the original one.
+     */
+    private <T> T runInNewTransaction(Callable<T> work) throws Exception {
+        if (transactionRunner != null) {
+            return transactionRunner.runInNewTransaction(work);
+        }
+        beginTransaction();
+        T result;
+        try {
+            result = work.call();
+            commitTransaction();
+        } catch (Exception ex) {
+            try {
+                rollbackTransaction();
+            } catch (Exception e) {
+                logger.error("Failed to rollback transaction to EDB", e);
+                ex.addSuppressed(e);
+            }
+            throw ex;
+        }
+        return result;
+    }
+
+    /**
+     * Resets the state which a rolled back write left in the given commit, so that the commit can be written again.
+     */
+    private void resetCommit(JPACommit commit) {
+        commit.setCommitted(false);
+        commit.setTimestamp(null);
+        resetGeneratedValues(commit);
+        for (JPAObject object : commit.getJPAObjects()) {
+            resetGeneratedValues(object);
+            for (JPAEntry entry : object.getEntries()) {
+                resetGeneratedValues(entry);
             }
-            return timestamp;
         }
     }
 
+    private static void resetGeneratedValues(VersionedEntity entity) {
+        entity.setId(null);
+        entity.setVersion(null);
+    }
+
+    /**
+     * Returns the timestamp for the next commit. The timestamps are strictly increasing, so that commits which are
+     * written directly after each other (e.g. in one commit group) can still be distinguished by their timestamp. If
+     * the clock is set back, the timestamps run ahead of it until it catches up again, instead of waiting for it. Must
+     * only be called while holding the commit lock.
+     */
+    private long nextCommitTimestamp() {
+        long timestamp = Math.max(System.currentTimeMillis(), lastCommitTimestamp + 1);
+        lastCommitTimestamp = timestamp;
+        return timestamp;
+    }
+
     /**
-     * Add all the changes which are done through the given commit object to the entity manager.
+     * Add all the changes which are done through the given commit object to the entity manager. If the commit contains
+     * more objects than the bulk chunk size, the objects are written, flushed and detached in chunks and the progress
+     * is reported to the commit progress hooks after every chunk.
      */
     private void persistCommitChanges(JPACommit commit, Long timestamp) {
         commit.setTimestamp(timestamp);
-        addModifiedObjectsToEntityManager(commit.getJPAObjects(), timestamp);
+        List<JPAObject> objects = commit.getJPAObjects();
+        for (String oid : commit.getDeletions()) {
+            objects.add(EDBUtils.createDeletedJPAObject(oid, timestamp));
+        }
+        int total = objects.size();
+        boolean bulk = bulkChunkSize > 0 && total > bulkChunkSize;
+        int chunkSize = bulk ? bulkChunkSize : Math.max(total, 1);
+        long start = System.currentTimeMillis();
+        for (int from = 0; from < total; from += chunkSize) {
+            List<JPAObject> chunk = objects.subList(from, Math.min(total, from + chunkSize));
+            addObjectsToEntityManager(chunk, timestamp);
+            if (bulk) {
+                // the flushed objects are detached, so the persistence context doesn't grow with the commit size
+                entityManager.flush();
+                entityManager.clear();
+                runProgressHooks(commit, from + chunk.size(), total, System.currentTimeMillis() - start);
+            }
+        }
         commit.setCommitted(true);
         logger.debug("persisting JPACommit");
         entityManager.persist(commit);
-        logger.debug("mark the deleted elements as deleted");
-        updateDeletedObjectsThroughEntityManager(commit.getDeletions(), timestamp);
     }
 
     /**
-     * Updates all modified EDBObjects with the timestamp and persist them through the entity manager.
+     * Updates all given objects with the timestamp, persist them through the entity manager and sets them as the
+     * newest versions in the head table.
+     */
+    private void addObjectsToEntityManager(List<JPAObject> objects, Long timestamp) {
+        Map<String, JPAHeadObject> heads = loadHeadObjects(objects);
+        for (JPAObject object : objects) {
+            object.setTimestamp(timestamp);
+            entityManager.persist(object);
+            JPAHeadObject head = heads.get(object.getOID());
+            if (head == null) {
+                head = new JPAHeadObject(object);
+                entityManager.persist(head);
+                heads.put(object.getOID(), head);
+            } else {
+                head.setObject(object);
+            }
+        }
+    }
+
+    /**
+     * Loads the existing head table entries of the given objects, mapped by their oids.
+     */
+    private Map<String, JPAHeadObject> loadHeadObjects(List<JPAObject> objects) {
+        Map<String, JPAHeadObject> heads = new HashMap<>();
+        List<String> oids = new ArrayList<>();
+        for (JPAObject object : objects) {
+            oids.add(object.getOID());
+        }
+        for (int from = 0; from < oids.size(); from += OID_LOOKUP_SIZE) {
+            List<String> part = oids.subList(from, Math.min(oids.size(), from + OID_LOOKUP_SIZE));
+            for (JPAHeadObject head : entityManager.createQuery("SELECT h FROM JPAHeadObject h WHERE h.oid IN :oids",
+                JPAHeadObject.class).setParameter("oids", part).getResultList()) {
+                heads.put(head.getOID(), head);
+            }
+        }
+        return heads;
+    }
+
+    /**
+     * Fills the materialized head table from the JPAObject history if the head table is still empty, e.g. because the
+     * EDB data was written by a version of the EDB without head table. Must only be called inside a transaction while
+     * holding the commit lock. The caller marks the head table as initialized once the transaction is committed.
      */
-    private void addModifiedObjectsToEntityManager(List<JPAObject> modified, Long timestamp) {
-        for (JPAObject update : modified) {
-            update.setTimestamp(timestamp);
-            entityManager.persist(update);
+    private void initializeHeadTable() {
+        if (headTableInitialized) {
+            return;
+        }
+        Long heads = entityManager.createQuery("SELECT COUNT(h) FROM JPAHeadObject h", Long.class).getSingleResult();
+        if (heads == 0) {
+            List<JPAObject> newest = entityManager.createQuery("SELECT o FROM JPAObject o WHERE o.timestamp = "
+                    + "(SELECT MAX(p.timestamp) FROM JPAObject p WHERE p.oid = o.oid)", JPAObject.class)
+                .getResultList();
+            logger.info("initializing EDB head table with {} objects", newest.size());
+            for (JPAObject object : newest) {
+                entityManager.persist(new JPAHeadObject(object));
+            }
         }
     }
 
     /**
-     * Updates all deleted objects with the timestamp, mark them as deleted and persist them through the entity manager.
+     * Removes the head table entries of the given oids, so that the versions they point to can be deleted.
      */
-    private void updateDeletedObjectsThroughEntityManager(List<String> oids, Long timestamp) {
-        for (String id : oids) {
-            EDBObject o = new EDBObject(id);
-            o.updateTimestamp(timestamp);
-            o.setDeleted(true);
-            JPAObject j = EDBUtils.convertEDBObjectToJPAObject(o);
-            entityManager.persist(j);
+    private void removeHeadTableEntries(Set<String> oids) {
+        for (String oid : oids) {
+            JPAHeadObject head = entityManager.find(JPAHeadObject.class, oid);
+            if (head != null) {
+                entityManager.remove(head);
+            }
+        }
+        entityManager.flush();
+    }
+
+    /**
+     * Adds head table entries for the given oids pointing to their newest remaining version. Oids without any remaining
+     * version are left out of the head table.
+     */
+    private void restoreHeadTableEntries(Set<String> oids) {
+        for (String oid : oids) {
+            List<JPAObject> newest = entityManager.createQuery("SELECT o FROM JPAObject o WHERE o.oid = :oid "
+                    + "ORDER BY o.timestamp DESC", JPAObject.class).setParameter("oid", oid).setMaxResults(1)
+                .getResultList();
+            if (!newest.isEmpty()) {
+                entityManager.persist(new JPAHeadObject(newest.get(0)));
+            }
         }
     }
 
@@ -208,6 +439,24 @@ public abstract class AbstractEDBService implements EngineeringDatabaseService {
         throw exception;
     }
 
+    /**
+     * Runs all registered commit progress hooks and logs the throughput of the commit. Logs exceptions which occurs in
+     * the hooks, except for ServiceUnavailableExceptions.
+     */
+    private void runProgressHooks(EDBCommit commit, int written, int total, long elapsed) {
+        logger.info("wrote {} of {} objects of a bulk commit ({} objects/s)",
+            new Object[]{ written, total, elapsed > 0 ? written * 1000L / elapsed : written });
+        for (EDBCommitProgressHook hook : progressHooks) {
+            try {
+                hook.onCommitProgress(commit, written, total, elapsed);
+            } catch (ServiceUnavailableException e) {
+                // Ignore
+            } catch (Exception e) {
+                logger.error("Error while performing EDBCommitProgressHook", e);
+            }
+        }
+    }
+
     /**
      * Runs all registered post commit hooks on the EDBCommit object. Logs exceptions which occurs in the hooks, except
      * for ServiceUnavailableExceptions.
@@ -224,24 +473,34 @@ public abstract class AbstractEDBService implements EngineeringDatabaseService {
         }
     }
 
-    protected void performDeleteLogic(JPACommit commit, List<JPAObject> deletedObjects) {
-        synchronized (entityManager) {
-            try {
-                beginTransaction();
-                for (JPAObject deletedObject : deletedObjects) {
-                    entityManager.remove(deletedObject);
-                }
-                entityManager.remove(commit);
-                commitTransaction();
-                logger.info("Deleted commit " + commit.getRevisionNumber());
-            } catch (Exception ex) {
-                try {
-                    rollbackTransaction();
-                } catch (Exception e) {
-                    throw new EDBException("Failed to rollback transaction to EDB", e);
+    protected void performDeleteLogic(final JPACommit commit, final List<JPAObject> deletedObjects) {
+        commitLock.lock();
+        headTableUpdateStarted();
+        try {
+            runInNewTransaction(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    Set<String> oids = new HashSet<>(commit.getDeletions());
+                    for (JPAObject object : commit.getJPAObjects()) {
+                        oids.add(object.getOID());
+                    }
+                    removeHeadTableEntries(oids);
+                    for (JPAObject deletedObject : deletedObjects) {
+                        entityManager.remove(entityManager.contains(deletedObject) ? deletedObject
+                            : entityManager.merge(deletedObject));
+                    }
+                    entityManager.remove(entityManager.contains(commit) ? commit : entityManager.merge(commit));
+                    entityManager.flush();
+                    restoreHeadTableEntries(oids);
+                    return null;
                 }
-                throw new EDBException("Failed to commit transaction to EDB", ex);
-            }
+            });
+            logger.info("Deleted commit " + commit.getRevisionNumber());
+        } catch (Exception ex) {
+            throw new EDBException("Failed to commit transaction to EDB", ex);
+        } finally {
+            headTableUpdated(null);
+            commitLock.unlock();
         }
     }
 
@@ -254,11 +513,104 @@ public abstract class AbstractEDBService implements EngineeringDatabaseService {
     protected void rollbackTransaction() {
     }
 
+    /**
+     * Called while holding the commit lock before the head table is changed.
+     */
+    protected void headTableUpdateStarted() {
+    }
+
+    /**
+     * Called while holding the commit lock after the change of the head table has been committed or rolled back, with
+     * the newest timestamp written to the head table or null if it is unknown.
+     */
+    protected void headTableUpdated(Long newestTimestamp) {
+    }
+
     public void setEntityManager(EntityManager entityManager) {
         this.entityManager = entityManager;
     }
 
+    /**
+     * Sets the maximum number of commits which are written together in one transaction. A value of 1 (the default)
+     * disables group commit, so that every commit is written in a transaction of its own.
+     */
+    public void setGroupCommitSize(int groupCommitSize) {
+        this.groupCommitSize = groupCommitSize;
+    }
+
+    public int getGroupCommitSize() {
+        return groupCommitSize;
+    }
+
+    /**
+     * Sets the number of objects from which on a commit is written in bulk mode. In bulk mode the objects are written
+     * and flushed in chunks of this size and the progress is reported to the commit progress hooks. A value of 0
+     * disables the bulk mode.
+     */
+    public void setBulkChunkSize(int bulkChunkSize) {
+        this.bulkChunkSize = bulkChunkSize;
+    }
+
+    public int getBulkChunkSize() {
+        return bulkChunkSize;
+    }
+
+    /**
+     * Sets the runner which demarcates the transactions of the writes. If no runner is set, the begin, commit and
+     * rollback methods of this class are used.
+     */
+    public void setTransactionRunner(EDBTransactionRunner transactionRunner) {
+        this.transactionRunner = transactionRunner;
+    }
+
+    public void setProgressHooks(List<EDBCommitProgressHook> progressHooks) {
+        this.progressHooks = progressHooks != null ? progressHooks : new ArrayList<EDBCommitProgressHook>();
+    }
+
+    /**
+     * Returns the number of commits which are waiting to be written by the thread holding the commit lock.
+     */
+    int getQueuedCommitCount() {
+        return pendingCommits.size();
+    }
+
     public Logger getLogger() {
         return logger;
     }
+
+    /**
+     * A commit which waits to be written by the thread holding the commit lock.
+     */
+    private static final class PendingCommit {
+        private final JPACommit commit;
+        private Long timestamp;
+        private EDBException exception;
+
+        private PendingCommit(JPACommit commit) {
+            this.commit = commit;
+        }
+
+        public JPACommit getCommit() {
+            return commit;
+        }
+
+        public void complete(Long timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        public void fail(EDBException exception) {
+            this.exception = exception;
+        }
+
+        public boolean isDone() {
+            return timestamp != null || exception != null;
+        }
+
+        public Long getTimestamp() throws EDBException {
+            if (exception != null) {
+                throw exception;
+            }
+            return timestamp;
+        }
+    }
 }
@@ -17,9 +17,8 @@
 
 package org.openengsb.core.edb.jpa.internal;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -28,9 +27,15 @@ import org.openengsb.core.edb.api.EDBEntry;
 import org.openengsb.core.edb.api.EDBException;
 import org.openengsb.core.edb.api.EDBObject;
 import org.openengsb.core.edb.api.EDBObjectDiff;
+import org.openengsb.core.edb.api.EngineeringDatabaseService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * The Diff compares the objects of two states of the EDB. The states are indexed by their oids, so the diff can be
+ * created in linear time. The states may either be complete heads or only contain the objects which have been changed
+ * between the two commits. In the latter case, the complete heads are loaded lazily if they are requested.
+ */
 public class Diff implements EDBDiff {
     private static final Logger LOGGER = LoggerFactory.getLogger(Diff.class);
     private JPACommit startCommit;
@@ -38,6 +43,9 @@ public class Diff implements EDBDiff {
     private List<EDBObject> startState;
     private List<EDBObject> endState;
     private HashMap<String, EDBObjectDiff> diff;
+    private EngineeringDatabaseService edbService;
+    private Long startTimestamp;
+    private Long endTimestamp;
 
     public Diff(JPACommit startCommit, JPACommit endCommit, List<EDBObject> startState,
             List<EDBObject> endState) throws EDBException {
@@ -53,32 +61,54 @@ public class Diff implements EDBDiff {
             this.endState = endState;
         }
 
-        createObjectDiffs();
+        createObjectDiffs(this.startState, this.endState);
+        LOGGER.debug("Diff created. Difference count = {}", diff.size());
+    }
+
+    /**
+     * Creates a diff out of the objects which have been changed between the start and the end timestamp. The complete
+     * states at the start and the end timestamp are only loaded from the given EDB service if they are requested.
+     */
+    public Diff(JPACommit startCommit, JPACommit endCommit, Long startTimestamp, Long endTimestamp,
+            List<EDBObject> changedStartObjects, List<EDBObject> changedEndObjects,
+            EngineeringDatabaseService edbService) throws EDBException {
+        this.startCommit = startCommit;
+        this.endCommit = endCommit;
+        this.startTimestamp = startTimestamp;
+        this.endTimestamp = endTimestamp;
+        this.edbService = edbService;
+
+        createObjectDiffs(changedStartObjects, changedEndObjects);
         LOGGER.debug("Diff created. Difference count = {}", diff.size());
     }
 
     /**
-     * Analyzes the start and end state and creates for every object that is different an objectdiff entry
+     * Analyzes the start and end objects and creates for every object that is different an objectdiff entry
      */
-    private void createObjectDiffs() throws EDBException {
+    private void createObjectDiffs(List<EDBObject> startObjects, List<EDBObject> endObjects) throws EDBException {
         diff = new HashMap<String, EDBObjectDiff>();
-        List<EDBObject> tempList = new ArrayList<EDBObject>();
-        for (EDBObject o : this.endState) {
-            tempList.add(o);
+        Map<String, EDBObject> remaining = new LinkedHashMap<String, EDBObject>();
+        for (EDBObject o : endObjects) {
+            remaining.put(o.getOID(), o);
         }
 
-        addModifiedOrDeletedObjects(tempList);
-        addNewObjects(tempList);
+        addModifiedOrDeletedObjects(startObjects, remaining);
+        addNewObjects(remaining);
     }
 
     /**
      * add all modified or deleted objects to the diff collection. As base to indicate if something changed the start
-     * state and the list of elements from the end state is taken.
+     * objects and the index of objects from the end state is taken. The found end state objects are removed from the
+     * index.
      */
-    private void addModifiedOrDeletedObjects(List<EDBObject> tempList) {
-        for (EDBObject a : this.startState) {
+    private void addModifiedOrDeletedObjects(List<EDBObject> startObjects, Map<String, EDBObject> remaining) {
+        for (EDBObject a : startObjects) {
             String oid = a.getOID();
-            EDBObject b = removeIfExist(oid, tempList);
+            EDBObject b = remaining.remove(oid);
+            if (b == null) {
+                LOGGER.debug(oid + " wasn't found in the list of end state objects");
+                b = new EDBObject(oid);
+            }
             ObjectDiff odiff = new ObjectDiff(this.startCommit, this.endCommit, a, b);
             if (odiff.getDifferenceCount() > 0) {
                 diff.put(oid, odiff);
@@ -87,36 +117,19 @@ public class Diff implements EDBDiff {
     }
 
     /**
-     * add all new object to the diff collection. As base to indicate if an object is new, the list of elements from the
-     * end state which are left is taken.
+     * add all new object to the diff collection. As base to indicate if an object is new, the objects from the end
+     * state which are left in the index is taken.
      */
-    private void addNewObjects(List<EDBObject> tempList) {
-        for (EDBObject b : tempList) {
+    private void addNewObjects(Map<String, EDBObject> remaining) {
+        for (EDBObject b : remaining.values()) {
             String oid = b.getOID();
-            ObjectDiff odiff = new ObjectDiff(this.startCommit, this.endCommit, null, b);
+            ObjectDiff odiff = new ObjectDiff(this.startCommit, this.endCommit, new EDBObject(oid), b);
             if (odiff.getDifferenceCount() > 0) {
                 diff.put(oid, odiff);
             }
         }
     }
 
-    /**
-     * Removes the element with the given oid if it exists in the list and returns it. If it not exists, null will be
-     * returned.
-     */
-    private EDBObject removeIfExist(String oid, List<EDBObject> tempList) {
-        Iterator<EDBObject> iterator = tempList.iterator();
-        while (iterator.hasNext()) {
-            EDBObject obj = iterator.next();
-            if (obj.getOID().equals(oid)) {
-                iterator.remove();
-                return obj;
-            }
-        }
-        LOGGER.debug(oid + " wasn't found in the list of end state objects");
-        return null;
-    }
-
     @Override
     public Map<String, EDBObjectDiff> getObjectDiffs() {
         return diff;
@@ -134,11 +147,17 @@ public class Diff implements EDBDiff {
 
     @Override
     public List<EDBObject> getStartState() {
+        if (startState == null) {
+            startState = edbService.getHead(startTimestamp);
+        }
         return startState;
     }
 
     @Override
     public List<EDBObject> getEndState() {
+        if (endState == null) {
+            endState = edbService.getHead(endTimestamp);
+        }
         return endState;
     }
 
@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edb.jpa.internal;
+
+import org.openengsb.core.edb.api.EDBObject;
+import org.openengsb.core.edb.api.EDBObjectEntry;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+/**
+ * Caches the versions of EDBObjects. Every version is identified by its oid and the timestamp of the commit which
+ * created it. Since a committed version never changes, cached versions never need to be invalidated. The size of the
+ * cache is bounded by the total number of entries of the cached objects. Since EDBObjects are mutable, the cache only
+ * stores and hands out copies.
+ */
+public class EDBObjectCache {
+    private final Cache<VersionKey, EDBObject> versions;
+
+    public EDBObjectCache(long maximumEntries) {
+        versions = CacheBuilder.newBuilder()
+            .maximumWeight(maximumEntries)
+            .weigher(new Weigher<VersionKey, EDBObject>() {
+                @Override
+                public int weigh(VersionKey key, EDBObject value) {
+                    return value.size() + 1;
+                }
+            })
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Returns a copy of the cached version of the object with the given oid which was created at the given timestamp.
+     * Returns null if this version is not cached.
+     */
+    public EDBObject get(String oid, Long timestamp) {
+        EDBObject cached = versions.getIfPresent(new VersionKey(oid, timestamp));
+        return cached != null ? copy(cached) : null;
+    }
+
+    /**
+     * Adds a copy of the given object to the cache. Objects without timestamp are ignored.
+     */
+    public void put(EDBObject object) {
+        if (object.getTimestamp() != null) {
+            versions.put(new VersionKey(object.getOID(), object.getTimestamp()), copy(object));
+        }
+    }
+
+    /**
+     * Removes all cached versions.
+     */
+    public void invalidateAll() {
+        versions.invalidateAll();
+    }
+
+    /**
+     * Returns the hit and miss statistics of the cache.
+     */
+    public CacheStats getStatistics() {
+        return versions.stats();
+    }
+
+    private static EDBObject copy(EDBObject object) {
+        EDBObject result = new EDBObject(object.getOID());
+        for (EDBObjectEntry entry : object.values()) {
+            result.put(entry.getKey(), new EDBObjectEntry(entry.getKey(), entry.getValue(), entry.getType()));
+        }
+        return result;
+    }
+
+    /**
+     * The key of a version of an object in the cache.
+     */
+    private static final class VersionKey {
+        private final String oid;
+        private final Long timestamp;
+
+        private VersionKey(String oid, Long timestamp) {
+            this.oid = oid;
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof VersionKey)) {
+                return false;
+            }
+            VersionKey other = (VersionKey) o;
+            return Objects.equal(oid, other.oid) && Objects.equal(timestamp, other.timestamp);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(oid, timestamp);
+        }
+    }
+}
@@ -18,6 +18,7 @@
 package org.openengsb.core.edb.jpa.internal;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,12 +40,16 @@ import org.openengsb.core.edb.api.hooks.EDBPreCommitHook;
 import org.openengsb.core.edb.jpa.internal.dao.JPADao;
 import org.openengsb.core.edb.jpa.internal.util.EDBUtils;
 
+import com.google.common.cache.CacheStats;
+
 /**
  * The implementation of the EngineeringDatabaseService, extending the AbstractEDBService
  */
 public class EDBService extends AbstractEDBService {
+    private static final long DEFAULT_OBJECT_CACHE_SIZE = 100000;
     private final JPADao dao;
     private final AuthenticationContext authenticationContext;
+    private EDBObjectCache objectCache = new EDBObjectCache(DEFAULT_OBJECT_CACHE_SIZE);
 
     public EDBService(JPADao dao, AuthenticationContext authenticationContext,
             List<EDBBeginCommitHook> beginCommitHooks, List<EDBPreCommitHook> preCommitHooks,
@@ -63,21 +68,70 @@ public class EDBService extends AbstractEDBService {
     @Override
     public EDBObject getObject(String oid) throws EDBException {
         getLogger().debug("loading newest JPAObject with the oid {}", oid);
-        JPAObject temp = dao.getJPAObject(oid);
-        return EDBUtils.convertJPAObjectToEDBObject(temp);
+        return loadObjectVersion(oid, null);
     }
 
     @Override
     public EDBObject getObject(String oid, Long timestamp) throws EDBException {
         getLogger().debug("loading JPAObject with the oid {} for timestamp {}", oid, timestamp);
-        JPAObject temp = dao.getJPAObject(oid, timestamp);
-        return EDBUtils.convertJPAObjectToEDBObject(temp);
+        return loadObjectVersion(oid, timestamp);
+    }
+
+    /**
+     * Loads the version of the object with the given oid which was active at the given timestamp (or the newest
+     * version if the timestamp is null). Only the timestamp of this version is queried if the version is cached.
+     */
+    private EDBObject loadObjectVersion(String oid, Long timestamp) throws EDBException {
+        Long version = dao.getVersionTimestamps(Arrays.asList(oid), timestamp).get(oid);
+        if (version == null) {
+            throw new EDBException("Failed to query existing object");
+        }
+        EDBObject result = objectCache.get(oid, version);
+        if (result == null) {
+            result = EDBUtils.convertJPAObjectToEDBObject(dao.getJPAObject(oid, version));
+            objectCache.put(result);
+        }
+        return result;
     }
 
     @Override
     public List<EDBObject> getObjects(List<String> oids) throws EDBException {
-        List<JPAObject> objects = dao.getJPAObjects(oids);
-        return EDBUtils.convertJPAObjectsToEDBObjects(objects);
+        return loadObjectVersions(oids, null);
+    }
+
+    @Override
+    public List<EDBObject> getObjects(List<String> oids, Long timestamp) throws EDBException {
+        getLogger().debug("loading {} JPAObjects for timestamp {}", oids.size(), timestamp);
+        return loadObjectVersions(oids, timestamp);
+    }
+
+    /**
+     * Loads the versions of the objects with the given oids which were active at the given timestamp (or the newest
+     * versions if the timestamp is null). Only the versions which are not cached are loaded from the database.
+     */
+    private List<EDBObject> loadObjectVersions(List<String> oids, Long timestamp) throws EDBException {
+        Map<String, Long> versions = dao.getVersionTimestamps(oids, timestamp);
+        List<EDBObject> result = new ArrayList<EDBObject>();
+        List<String> missing = new ArrayList<String>();
+        for (Map.Entry<String, Long> version : versions.entrySet()) {
+            EDBObject cached = objectCache.get(version.getKey(), version.getValue());
+            if (cached != null) {
+                if (timestamp == null || !cached.isDeleted()) {
+                    result.add(cached);
+                }
+            } else {
+                missing.add(version.getKey());
+            }
+        }
+        if (!missing.isEmpty()) {
+            List<JPAObject> objects = timestamp == null ? dao.getJPAObjects(missing)
+                    : dao.getJPAObjects(missing, timestamp);
+            for (EDBObject object : EDBUtils.convertJPAObjectsToEDBObjects(objects)) {
+                objectCache.put(object);
+                result.add(object);
+            }
+        }
+        return result;
     }
 
     @Override
@@ -137,6 +191,24 @@ public class EDBService extends AbstractEDBService {
         }
     }
 
+    @Override
+    public List<EDBObject> getHead(long timestamp, String afterOid, int maxResults) throws EDBException {
+        getLogger().debug("load at most {} elements after the oid {} of the head with the timestamp {}",
+            new Object[]{ maxResults, afterOid, timestamp });
+        return query(QueryRequest.create().setTimestamp(timestamp), afterOid, maxResults);
+    }
+
+    @Override
+    public List<EDBObject> query(QueryRequest request, String afterOid, int maxResults) throws EDBException {
+        getLogger().debug("Query for at most {} objects after the oid {} based on the request: {}",
+            new Object[]{ maxResults, afterOid, request });
+        try {
+            return EDBUtils.convertJPAObjectsToEDBObjects(dao.query(request, afterOid, maxResults));
+        } catch (Exception ex) {
+            throw new EDBException("Failed to query for objects with the given map", ex);
+        }
+    }
+
     @Override
     public List<EDBCommit> getCommitsByKeyValue(String key, Object value) throws EDBException {
         Map<String, Object> queryMap = new HashMap<String, Object>();
@@ -189,6 +261,11 @@ public class EDBService extends AbstractEDBService {
         return null;
     }
 
+    @Override
+    public Long getLastCommitTimestamp() throws EDBException {
+        return dao.getLastCommitTimestamp();
+    }
+
     @Override
     public JPACommit getCommit(Long from) throws EDBException {
         List<JPACommit> commits = dao.getJPACommit(from);
@@ -207,10 +284,31 @@ public class EDBService extends AbstractEDBService {
 
     @Override
     public Diff getDiff(Long firstTimestamp, Long secondTimestamp) throws EDBException {
-        List<EDBObject> headA = getHead(firstTimestamp);
-        List<EDBObject> headB = getHead(secondTimestamp);
+        // like the Diff constructor, which orders the commits by their timestamps, the diff always goes from the
+        // older to the newer state, no matter in which order the timestamps are given
+        Long startTimestamp = Math.min(firstTimestamp, secondTimestamp);
+        Long endTimestamp = Math.max(firstTimestamp, secondTimestamp);
+        getLogger().debug("creating the diff between the timestamps {} and {}", startTimestamp, endTimestamp);
+        JPACommit startCommit = getCommit(startTimestamp);
+        JPACommit endCommit = getCommit(endTimestamp);
+
+        List<String> changed = dao.getChangedOIDs(startTimestamp, endTimestamp);
+        List<EDBObject> startObjects = EDBUtils.convertJPAObjectsToEDBObjects(loadObjects(changed, startTimestamp));
+        List<EDBObject> endObjects = EDBUtils.convertJPAObjectsToEDBObjects(loadObjects(changed, endTimestamp));
+        return new Diff(startCommit, endCommit, startTimestamp, endTimestamp, startObjects, endObjects, this);
+    }
 
-        return new Diff(getCommit(firstTimestamp), getCommit(secondTimestamp), headA, headB);
+    /**
+     * Loads the objects with the given oids which were active at the given timestamp. The oids are queried in chunks,
+     * so that the IN clauses of the queries stay below the parameter limits of the databases.
+     */
+    private List<JPAObject> loadObjects(List<String> oids, long timestamp) {
+        List<JPAObject> result = new ArrayList<>();
+        for (int from = 0; from < oids.size(); from += OID_LOOKUP_SIZE) {
+            List<String> part = oids.subList(from, Math.min(oids.size(), from + OID_LOOKUP_SIZE));
+            result.addAll(dao.getJPAObjects(part, timestamp));
+        }
+        return result;
     }
 
     @Override
@@ -218,6 +316,11 @@ public class EDBService extends AbstractEDBService {
         return dao.getResurrectedOIDs();
     }
 
+    @Override
+    public List<String> getEntryValuesByPrefix(String prefix) throws EDBException {
+        return dao.getEntryValuesByPrefix(prefix);
+    }
+
     @Override
     public List<EDBObject> getStateOfLastCommitMatching(
             Map<String, Object> queryMap) throws EDBException {
@@ -246,6 +349,21 @@ public class EDBService extends AbstractEDBService {
         return commit;
     }
 
+    /**
+     * Sets the maximum number of object entries which are held by the cache of object versions. A size of 0 disables
+     * the cache.
+     */
+    public void setObjectCacheSize(long objectCacheSize) {
+        objectCache = new EDBObjectCache(objectCacheSize);
+    }
+
+    /**
+     * Returns the hit and miss statistics of the cache of object versions.
+     */
+    public CacheStats getObjectCacheStatistics() {
+        return objectCache.getStatistics();
+    }
+
     /**
      * Returns the actual authenticated user.
      */
@@ -273,5 +391,16 @@ public class EDBService extends AbstractEDBService {
         }
         List<JPAObject> deletedObjects = dao.query(request);
         performDeleteLogic(commit, deletedObjects);
+        objectCache.invalidateAll();
+    }
+
+    @Override
+    protected void headTableUpdateStarted() {
+        dao.headTableUpdateStarted();
+    }
+
+    @Override
+    protected void headTableUpdated(Long newestTimestamp) {
+        dao.headTableUpdated(newestTimestamp);
     }
 }
@@ -0,0 +1,33 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.edb.jpa.internal;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Runs work of the EDB in a transaction of its own. The transaction is committed before the runner returns, so the
+ * written data is durable as soon as the work returned successfully.
+ */
+public interface EDBTransactionRunner {
+
+    /**
+     * Runs the given work in a new transaction and returns its result. If the work or the commit of the transaction
+     * fails, the transaction is rolled back and the exception is thrown.
+     */
+    <T> T runInNewTransaction(Callable<T> work) throws Exception;
+}
@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edb.jpa.internal;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.OneToOne;
+
+import org.apache.openjpa.persistence.jdbc.Index;
+
+/**
+ * A JPAHeadObject is a row of the materialized head table of the EDB. For every oid it points to the newest version
+ * (including deletion markers) of the JPAObject with this oid. The table is maintained in the same transaction as the
+ * commit which changes the head, so reads of the current state don't need to search the newest version in the
+ * versioned JPAObject history.
+ */
+@SuppressWarnings("serial")
+@Entity
+public class JPAHeadObject implements Serializable {
+    @Id
+    @Column(name = "OID")
+    private String oid;
+    @Index
+    @Column(name = "TIME")
+    private Long timestamp;
+    @OneToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "OBJECT_ID")
+    private JPAObject object;
+
+    public JPAHeadObject() {
+    }
+
+    public JPAHeadObject(JPAObject object) {
+        this.oid = object.getOID();
+        setObject(object);
+    }
+
+    public String getOID() {
+        return oid;
+    }
+
+    public Long getTimestamp() {
+        return timestamp;
+    }
+
+    public JPAObject getObject() {
+        return object;
+    }
+
+    /**
+     * Sets the given JPAObject as newest version of the oid of this head object.
+     */
+    public void setObject(JPAObject object) {
+        this.object = object;
+        this.timestamp = object.getTimestamp();
+    }
+}
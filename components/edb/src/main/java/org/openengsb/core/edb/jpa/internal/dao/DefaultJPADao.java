@@ -18,8 +18,10 @@
 package org.openengsb.core.edb.jpa.internal.dao;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
@@ -27,6 +29,7 @@ import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Subquery;
@@ -36,7 +39,9 @@ import org.openengsb.core.api.model.CommitQueryRequest;
 import org.openengsb.core.api.model.QueryRequest;
 import org.openengsb.core.edb.api.EDBException;
 import org.openengsb.core.edb.jpa.internal.JPACommit;
+import org.openengsb.core.edb.jpa.internal.JPAEntry;
 import org.openengsb.core.edb.jpa.internal.JPAHead;
+import org.openengsb.core.edb.jpa.internal.JPAHeadObject;
 import org.openengsb.core.edb.jpa.internal.JPAObject;
 import org.openengsb.core.edb.jpa.internal.util.QueryRequestCriteriaBuilder;
 import org.slf4j.Logger;
@@ -44,9 +49,24 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Iterables;
 
+/**
+ * The JPA based implementation of the JPADao. The DAO does not lock the entity manager. In the container, the entity
+ * manager is a managed proxy which delegates to the entity manager of the current transaction, so reads never have to
+ * wait for a running EDB commit.
+ */
 public class DefaultJPADao implements JPADao {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultJPADao.class);
     private EntityManager entityManager;
+    private static final long UNKNOWN = -1;
+
+    /**
+     * Incremented when the EDB starts and when it finishes to change the head table, so it is odd while a change is
+     * running. A head loaded out of the head table is only used if the version didn't change in the meantime.
+     */
+    private final AtomicLong headTableVersion = new AtomicLong();
+    private volatile long headTableTimestamp = UNKNOWN;
+    private volatile long lastCommitTimestamp = UNKNOWN;
+    private volatile Boolean headTableInitialized;
 
     public DefaultJPADao() {
     }
@@ -58,303 +78,492 @@ public class DefaultJPADao implements JPADao {
     @SuppressWarnings({ "unchecked", "rawtypes" })
     @Override
     public JPAHead getJPAHead(long timestamp) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Loading head for timestamp {}", timestamp);
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
-            Root<JPAObject> from = query.from(JPAObject.class);
+        LOGGER.debug("Loading head for timestamp {}", timestamp);
+        long version = headTableVersion.get();
+        if (isHeadTableValidFor(timestamp, version)) {
+            JPAHead head = getCurrentJPAHead(timestamp);
+            if (headTableVersion.get() == version) {
+                return head;
+            }
+            LOGGER.debug("The head table changed while loading the head, loading it from the history");
+        }
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
+        Root<JPAObject> from = query.from(JPAObject.class);
+
+        query.select(from);
+
+        Subquery<Number> subquery = query.subquery(Number.class);
+        Root maxTime = subquery.from(JPAObject.class);
+        subquery.select(criteriaBuilder.max(maxTime.get("timestamp")));
+        Predicate subPredicate1 = criteriaBuilder.le(maxTime.get("timestamp"), timestamp);
+        Predicate subPredicate2 = criteriaBuilder.equal(maxTime.get("oid"), from.get("oid"));
+        subquery.where(criteriaBuilder.and(subPredicate1, subPredicate2));
+
+        Predicate predicate1 = criteriaBuilder.equal(from.get("timestamp"), subquery);
+        Predicate predicate2 = criteriaBuilder.notEqual(from.get("isDeleted"), Boolean.TRUE);
+        query.where(criteriaBuilder.and(predicate1, predicate2));
+
+        TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
+        List<JPAObject> resultList = typedQuery.getResultList();
+
+        JPAHead head = new JPAHead();
+        head.setJPAObjects(resultList);
+        head.setTimestamp(timestamp);
+        return head;
+    }
+
+    /**
+     * Loads the head for the given timestamp out of the materialized head table. Must only be called if the head table
+     * is valid for the given timestamp.
+     */
+    private JPAHead getCurrentJPAHead(long timestamp) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
+        Root<JPAHeadObject> from = query.from(JPAHeadObject.class);
+        Join<JPAHeadObject, JPAObject> object = from.join("object");
+        query.select(object);
+        query.where(criteriaBuilder.notEqual(object.get("isDeleted"), Boolean.TRUE));
+
+        JPAHead head = new JPAHead();
+        head.setJPAObjects(entityManager.createQuery(query).getResultList());
+        head.setTimestamp(timestamp);
+        return head;
+    }
+
+    /**
+     * Returns true if the materialized head table represents the state of the EDB at the given timestamp. This is the
+     * case if the head table is in use, not being changed and no object has been changed after the given timestamp.
+     * The newest timestamp of the head table is only queried if it is not known from the last change.
+     */
+    private boolean isHeadTableValidFor(long timestamp, long version) {
+        if (version % 2 != 0 || !isHeadTableInitialized()) {
+            return false;
+        }
+        long newest = headTableTimestamp;
+        if (newest == UNKNOWN) {
+            newest = loadHeadTableTimestamp(version);
+        }
+        return newest <= timestamp;
+    }
+
+    private synchronized long loadHeadTableTimestamp(long version) {
+        Long newest = entityManager.createQuery("SELECT MAX(h.timestamp) FROM JPAHeadObject h", Long.class)
+            .getSingleResult();
+        long result = newest == null ? 0 : newest;
+        if (headTableVersion.get() == version) {
+            headTableTimestamp = result;
+        }
+        return result;
+    }
 
-            query.select(from);
+    /**
+     * Returns true if the materialized head table is in use. It is not in use as long as it is empty while the EDB
+     * already contains objects, which is the case for data written by a version of the EDB without head table until the
+     * next commit fills it. The result is cached, the next change of the head table marks it as in use.
+     */
+    private boolean isHeadTableInitialized() {
+        Boolean initialized = headTableInitialized;
+        if (initialized == null) {
+            Long heads = entityManager.createQuery("SELECT COUNT(h) FROM JPAHeadObject h", Long.class)
+                .getSingleResult();
+            Long objects = entityManager.createQuery("SELECT COUNT(o) FROM JPAObject o", Long.class)
+                .getSingleResult();
+            initialized = heads > 0 || objects == 0;
+            synchronized (this) {
+                if (headTableInitialized == null) {
+                    headTableInitialized = initialized;
+                }
+            }
+        }
+        return initialized;
+    }
 
-            Subquery<Number> subquery = query.subquery(Number.class);
-            Root maxTime = subquery.from(JPAObject.class);
-            subquery.select(criteriaBuilder.max(maxTime.get("timestamp")));
-            Predicate subPredicate1 = criteriaBuilder.le(maxTime.get("timestamp"), timestamp);
-            Predicate subPredicate2 = criteriaBuilder.equal(maxTime.get("oid"), from.get("oid"));
-            subquery.where(criteriaBuilder.and(subPredicate1, subPredicate2));
+    @Override
+    public synchronized void headTableUpdateStarted() {
+        headTableVersion.incrementAndGet();
+        headTableTimestamp = UNKNOWN;
+    }
 
-            Predicate predicate1 = criteriaBuilder.equal(from.get("timestamp"), subquery);
-            Predicate predicate2 = criteriaBuilder.notEqual(from.get("isDeleted"), Boolean.TRUE);
-            query.where(criteriaBuilder.and(predicate1, predicate2));
+    @Override
+    public synchronized void headTableUpdated(Long newestTimestamp) {
+        if (newestTimestamp != null) {
+            headTableTimestamp = newestTimestamp;
+            lastCommitTimestamp = newestTimestamp;
+            headTableInitialized = true;
+        } else {
+            // the change failed or removed a commit, so the newest commit is loaded again on the next request
+            lastCommitTimestamp = UNKNOWN;
+        }
+        headTableVersion.incrementAndGet();
+    }
 
-            TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
-            List<JPAObject> resultList = typedQuery.getResultList();
+    @Override
+    public Long getLastCommitTimestamp() throws EDBException {
+        long last = lastCommitTimestamp;
+        if (last == UNKNOWN) {
+            last = loadLastCommitTimestamp(headTableVersion.get());
+        }
+        return last == 0 ? null : last;
+    }
 
-            JPAHead head = new JPAHead();
-            head.setJPAObjects(resultList);
-            head.setTimestamp(timestamp);
-            return head;
+    private synchronized long loadLastCommitTimestamp(long version) {
+        Long newest = entityManager.createQuery("SELECT MAX(c.timestamp) FROM JPACommit c", Long.class)
+            .getSingleResult();
+        long result = newest == null ? 0 : newest;
+        if (version % 2 == 0 && headTableVersion.get() == version) {
+            lastCommitTimestamp = result;
         }
+        return result;
     }
 
     @Override
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public List<JPAObject> getJPAObjectHistory(String oid) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Loading the history for the object {}", oid);
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
-            Root from = query.from(JPAObject.class);
-            query.select(from);
-            query.where(criteriaBuilder.equal(from.get("oid"), oid));
-            query.orderBy(criteriaBuilder.asc(from.get("timestamp")));
-
-            TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
-            return typedQuery.getResultList();
-        }
+        LOGGER.debug("Loading the history for the object {}", oid);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
+        Root from = query.from(JPAObject.class);
+        query.select(from);
+        query.where(criteriaBuilder.equal(from.get("oid"), oid));
+        query.orderBy(criteriaBuilder.asc(from.get("timestamp")));
+
+        TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
+        return typedQuery.getResultList();
     }
 
     @Override
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public List<JPAObject> getJPAObjectHistory(String oid, long from, long to) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Loading the history for the object {} from {} to {}", new Object[]{ oid, from, to });
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
-            Root f = query.from(JPAObject.class);
-            query.select(f);
-
-            Predicate predicate1 = criteriaBuilder.equal(f.get("oid"), oid);
-            Predicate predicate2 = criteriaBuilder.between(f.get("timestamp"), from, to);
-            query.where(criteriaBuilder.and(predicate1, predicate2));
-            query.orderBy(criteriaBuilder.asc(f.get("timestamp")));
-
-            TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
-            return typedQuery.getResultList();
-        }
+        LOGGER.debug("Loading the history for the object {} from {} to {}", new Object[]{ oid, from, to });
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
+        Root f = query.from(JPAObject.class);
+        query.select(f);
+
+        Predicate predicate1 = criteriaBuilder.equal(f.get("oid"), oid);
+        Predicate predicate2 = criteriaBuilder.between(f.get("timestamp"), from, to);
+        query.where(criteriaBuilder.and(predicate1, predicate2));
+        query.orderBy(criteriaBuilder.asc(f.get("timestamp")));
+
+        TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
+        return typedQuery.getResultList();
     }
 
     @Override
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public JPAObject getJPAObject(String oid, long timestamp) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Loading object {} for the time {}", oid, timestamp);
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
-            Root from = query.from(JPAObject.class);
+        LOGGER.debug("Loading object {} for the time {}", oid, timestamp);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
+        Root from = query.from(JPAObject.class);
 
-            query.select(from);
+        query.select(from);
 
-            Predicate predicate1 = criteriaBuilder.equal(from.get("oid"), oid);
-            Predicate predicate2 = criteriaBuilder.le(from.get("timestamp"), timestamp);
-            query.where(criteriaBuilder.and(predicate1, predicate2));
-            query.orderBy(criteriaBuilder.desc(from.get("timestamp")));
+        Predicate predicate1 = criteriaBuilder.equal(from.get("oid"), oid);
+        Predicate predicate2 = criteriaBuilder.le(from.get("timestamp"), timestamp);
+        query.where(criteriaBuilder.and(predicate1, predicate2));
+        query.orderBy(criteriaBuilder.desc(from.get("timestamp")));
 
-            TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query).setMaxResults(1);
-            List<JPAObject> resultList = typedQuery.getResultList();
-
-            if (resultList.size() < 1) {
-                throw new EDBException("Failed to query existing object");
-            } else if (resultList.size() > 1) {
-                throw new EDBException("Received more than 1 object which should not be possible!");
-            }
+        TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query).setMaxResults(1);
+        List<JPAObject> resultList = typedQuery.getResultList();
 
-            return resultList.get(0);
+        if (resultList.size() < 1) {
+            throw new EDBException("Failed to query existing object");
+        } else if (resultList.size() > 1) {
+            throw new EDBException("Received more than 1 object which should not be possible!");
         }
+
+        return resultList.get(0);
     }
 
     @Override
     public JPAObject getJPAObject(String oid) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Loading newest object {}", oid);
+        LOGGER.debug("Loading newest object {}", oid);
+        if (!isHeadTableInitialized()) {
             return getJPAObject(oid, System.currentTimeMillis());
         }
+        JPAHeadObject head = entityManager.find(JPAHeadObject.class, oid);
+        if (head == null) {
+            throw new EDBException("Failed to query existing object");
+        }
+        return head.getObject();
     }
 
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @Override
     public List<JPAObject> getJPAObjects(List<String> oid) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Loading newest object {}", oid);
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        LOGGER.debug("Loading newest object {}", oid);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        if (isHeadTableInitialized()) {
             CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
-            Root<JPAObject> from = query.from(JPAObject.class);
+            Root<JPAHeadObject> from = query.from(JPAHeadObject.class);
+            query.select(from.<JPAHeadObject, JPAObject> join("object"));
+            query.where(criteriaBuilder.in(from.get("oid")).value(oid));
+            return entityManager.createQuery(query).getResultList();
+        }
+        CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
+        Root<JPAObject> from = query.from(JPAObject.class);
+
+        query.select(from);
 
-            query.select(from);
+        Subquery<Number> subquery = query.subquery(Number.class);
+        Root maxTime = subquery.from(JPAObject.class);
+        subquery.select(criteriaBuilder.max(maxTime.get("timestamp")));
+        subquery.where(criteriaBuilder.equal(from.get("oid"), maxTime.get("oid")));
 
-            Subquery<Number> subquery = query.subquery(Number.class);
-            Root maxTime = subquery.from(JPAObject.class);
-            subquery.select(criteriaBuilder.max(maxTime.get("timestamp")));
-            subquery.where(criteriaBuilder.equal(from.get("oid"), maxTime.get("oid")));
+        Predicate predicate1 = criteriaBuilder.in(from.get("oid")).value(oid);
+        Predicate predicate2 = criteriaBuilder.equal(from.get("timestamp"), subquery);
 
-            Predicate predicate1 = criteriaBuilder.in(from.get("oid")).value(oid);
-            Predicate predicate2 = criteriaBuilder.equal(from.get("timestamp"), subquery);
+        query.where(criteriaBuilder.and(predicate1, predicate2));
 
-            query.where(criteriaBuilder.and(predicate1, predicate2));
+        TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
+        List<JPAObject> resultList = typedQuery.getResultList();
+        return resultList;
+    }
 
-            TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
-            List<JPAObject> resultList = typedQuery.getResultList();
-            return resultList;
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Override
+    public List<JPAObject> getJPAObjects(List<String> oids, long timestamp) throws EDBException {
+        LOGGER.debug("Loading objects {} for the time {}", oids, timestamp);
+        if (oids.isEmpty()) {
+            return new ArrayList<>();
         }
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPAObject> query = criteriaBuilder.createQuery(JPAObject.class);
+        Root<JPAObject> from = query.from(JPAObject.class);
+
+        query.select(from);
+
+        Subquery<Number> subquery = query.subquery(Number.class);
+        Root maxTime = subquery.from(JPAObject.class);
+        subquery.select(criteriaBuilder.max(maxTime.get("timestamp")));
+        Predicate subPredicate1 = criteriaBuilder.le(maxTime.get("timestamp"), timestamp);
+        Predicate subPredicate2 = criteriaBuilder.equal(maxTime.get("oid"), from.get("oid"));
+        subquery.where(criteriaBuilder.and(subPredicate1, subPredicate2));
+
+        Predicate predicate1 = criteriaBuilder.in(from.get("oid")).value(oids);
+        Predicate predicate2 = criteriaBuilder.equal(from.get("timestamp"), subquery);
+        Predicate predicate3 = criteriaBuilder.notEqual(from.get("isDeleted"), Boolean.TRUE);
+        query.where(criteriaBuilder.and(predicate1, predicate2, predicate3));
+
+        TypedQuery<JPAObject> typedQuery = entityManager.createQuery(query);
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public Map<String, Long> getVersionTimestamps(List<String> oids, Long timestamp) throws EDBException {
+        LOGGER.debug("Loading the version timestamps of the objects {} for the time {}", oids, timestamp);
+        Map<String, Long> result = new HashMap<>();
+        if (oids.isEmpty()) {
+            return result;
+        }
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        if (timestamp == null && isHeadTableInitialized()) {
+            Root<JPAHeadObject> from = query.from(JPAHeadObject.class);
+            query.multiselect(from.get("oid"), from.get("timestamp"));
+            query.where(from.get("oid").in(oids));
+        } else {
+            Root<JPAObject> from = query.from(JPAObject.class);
+            Expression<Long> maxTimestamp = criteriaBuilder.max(from.<Long> get("timestamp"));
+            query.multiselect(from.get("oid"), maxTimestamp);
+            Predicate predicate = from.get("oid").in(oids);
+            if (timestamp != null) {
+                predicate = criteriaBuilder.and(predicate, criteriaBuilder.le(from.<Long> get("timestamp"), timestamp));
+            }
+            query.where(predicate);
+            query.groupBy(from.get("oid"));
+        }
+        for (Object[] row : entityManager.createQuery(query).getResultList()) {
+            result.put((String) row[0], (Long) row[1]);
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> getChangedOIDs(long from, long to) throws EDBException {
+        LOGGER.debug("Loading the oids of all objects changed after {} until {}", from, to);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<String> query = criteriaBuilder.createQuery(String.class);
+        Root<JPAObject> f = query.from(JPAObject.class);
+        query.select(f.<String> get("oid")).distinct(true);
+
+        Predicate predicate1 = criteriaBuilder.gt(f.<Long> get("timestamp"), from);
+        Predicate predicate2 = criteriaBuilder.le(f.<Long> get("timestamp"), to);
+        query.where(criteriaBuilder.and(predicate1, predicate2));
+
+        TypedQuery<String> typedQuery = entityManager.createQuery(query);
+        return typedQuery.getResultList();
     }
 
     @Override
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public List<JPACommit> getJPACommit(String oid, long from, long to) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Loading all commits which involve object {} from {} to {}", new Object[]{ oid, from, to });
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
-            Root<JPACommit> f = query.from(JPACommit.class);
-            query.select(f);
-
-            Subquery<JPAObject> subquery = query.subquery(JPAObject.class);
-            Root fromJPAObject = subquery.from(JPAObject.class);
-            subquery.select(fromJPAObject.get("timestamp"));
-            Predicate predicate1 = criteriaBuilder.equal(fromJPAObject.get("oid"), oid);
-            Predicate predicate2 = criteriaBuilder.between(fromJPAObject.get("timestamp"), from, to);
-            subquery.where(criteriaBuilder.and(predicate1, predicate2));
-
-            query.where(criteriaBuilder.in(f.get("timestamp")).value(subquery));
-            query.orderBy(criteriaBuilder.asc(f.get("timestamp")));
-
-            TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query);
-            return typedQuery.getResultList();
-        }
+        LOGGER.debug("Loading all commits which involve object {} from {} to {}", new Object[]{ oid, from, to });
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
+        Root<JPACommit> f = query.from(JPACommit.class);
+        query.select(f);
+
+        Subquery<JPAObject> subquery = query.subquery(JPAObject.class);
+        Root fromJPAObject = subquery.from(JPAObject.class);
+        subquery.select(fromJPAObject.get("timestamp"));
+        Predicate predicate1 = criteriaBuilder.equal(fromJPAObject.get("oid"), oid);
+        Predicate predicate2 = criteriaBuilder.between(fromJPAObject.get("timestamp"), from, to);
+        subquery.where(criteriaBuilder.and(predicate1, predicate2));
+
+        query.where(criteriaBuilder.in(f.get("timestamp")).value(subquery));
+        query.orderBy(criteriaBuilder.asc(f.get("timestamp")));
+
+        TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query);
+        return typedQuery.getResultList();
     }
 
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @Override
     public List<String> getResurrectedOIDs() throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("get resurrected JPA objects");
-
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<String> query = criteriaBuilder.createQuery(String.class);
-            Root from = query.from(JPAObject.class);
-            query.select(from.get("oid"));
-
-            Subquery<JPAObject> sub = query.subquery(JPAObject.class);
-            Root f = sub.from(JPAObject.class);
-            sub.select(f);
-            Predicate subPredicate1 = criteriaBuilder.equal(from.get("oid"), f.get("oid"));
-            Predicate subPredicate2 = criteriaBuilder.equal(f.get("isDeleted"), Boolean.TRUE);
-            Predicate subPredicate3 = criteriaBuilder.gt(from.get("timestamp"), f.get("timestamp"));
-            sub.where(criteriaBuilder.and(subPredicate1, subPredicate2, subPredicate3));
-
-            Predicate predicate1 = criteriaBuilder.notEqual(from.get("isDeleted"), Boolean.TRUE);
-            Predicate predicate2 = criteriaBuilder.exists(sub);
-            query.where(predicate1, predicate2);
-
-            TypedQuery<String> typedQuery = entityManager.createQuery(query);
-            return typedQuery.getResultList();
-        }
+        LOGGER.debug("get resurrected JPA objects");
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<String> query = criteriaBuilder.createQuery(String.class);
+        Root from = query.from(JPAObject.class);
+        query.select(from.get("oid"));
+
+        Subquery<JPAObject> sub = query.subquery(JPAObject.class);
+        Root f = sub.from(JPAObject.class);
+        sub.select(f);
+        Predicate subPredicate1 = criteriaBuilder.equal(from.get("oid"), f.get("oid"));
+        Predicate subPredicate2 = criteriaBuilder.equal(f.get("isDeleted"), Boolean.TRUE);
+        Predicate subPredicate3 = criteriaBuilder.gt(from.get("timestamp"), f.get("timestamp"));
+        sub.where(criteriaBuilder.and(subPredicate1, subPredicate2, subPredicate3));
+
+        Predicate predicate1 = criteriaBuilder.notEqual(from.get("isDeleted"), Boolean.TRUE);
+        Predicate predicate2 = criteriaBuilder.exists(sub);
+        query.where(predicate1, predicate2);
+
+        TypedQuery<String> typedQuery = entityManager.createQuery(query);
+        return typedQuery.getResultList();
+    }
+
+    @Override
+    public List<String> getEntryValuesByPrefix(String prefix) throws EDBException {
+        LOGGER.debug("Loading the values of all entries starting with {}", prefix);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<String> query = criteriaBuilder.createQuery(String.class);
+        Root<JPAEntry> from = query.from(JPAEntry.class);
+        query.select(from.<String> get("value")).distinct(true);
+        String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        query.where(criteriaBuilder.like(from.<String> get("value"), pattern, '\\'));
+
+        TypedQuery<String> typedQuery = entityManager.createQuery(query);
+        return typedQuery.getResultList();
     }
 
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @Override
     public List<JPACommit> getJPACommit(long timestamp) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Load the commit for the timestamp {}", timestamp);
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
-            Root<JPACommit> from = query.from(JPACommit.class);
-            query.select(from);
-
-            Subquery<Number> subquery = query.subquery(Number.class);
-            Root maxTime = subquery.from(JPACommit.class);
-            subquery.select(criteriaBuilder.max(maxTime.get("timestamp")));
-            subquery.where(criteriaBuilder.le(maxTime.get("timestamp"), timestamp));
-
-            query.where(criteriaBuilder.equal(from.get("timestamp"), subquery));
-
-            TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query);
-            return typedQuery.getResultList();
-        }
+        LOGGER.debug("Load the commit for the timestamp {}", timestamp);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
+        Root<JPACommit> from = query.from(JPACommit.class);
+        query.select(from);
+
+        Subquery<Number> subquery = query.subquery(Number.class);
+        Root maxTime = subquery.from(JPACommit.class);
+        subquery.select(criteriaBuilder.max(maxTime.get("timestamp")));
+        subquery.where(criteriaBuilder.le(maxTime.get("timestamp"), timestamp));
+
+        query.where(criteriaBuilder.equal(from.get("timestamp"), subquery));
+
+        TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query);
+        return typedQuery.getResultList();
     }
 
     @Override
     public JPACommit getJPACommit(String revision) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Get commit for the revision {}", revision);
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
-            Root<JPACommit> from = query.from(JPACommit.class);
-            query.select(from).where(criteriaBuilder.equal(from.get("revision"), revision));
-            TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query);
-            List<JPACommit> result = typedQuery.getResultList();
-            switch (result.size()) {
-                case 0:
-                    throw new EDBException("There is no commit with the given revision " + revision);
-                case 1:
-                    return result.get(0);
-                default:
-                    throw new EDBException("More than one commit with the given revision found!");
-            }
+        LOGGER.debug("Get commit for the revision {}", revision);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
+        Root<JPACommit> from = query.from(JPACommit.class);
+        query.select(from).where(criteriaBuilder.equal(from.get("revision"), revision));
+        TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query);
+        List<JPACommit> result = typedQuery.getResultList();
+        switch (result.size()) {
+            case 0:
+                throw new EDBException("There is no commit with the given revision " + revision);
+            case 1:
+                return result.get(0);
+            default:
+                throw new EDBException("More than one commit with the given revision found!");
         }
     }
 
     @Override
     public List<JPACommit> getCommits(Map<String, Object> param) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Get commits which are given to a param map with {} elements", param.size());
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
-            Root<JPACommit> from = query.from(JPACommit.class);
-
-            query.select(from);
-            Predicate[] predicates = analyzeParamMap(criteriaBuilder, from, param);
-            query.where(criteriaBuilder.and(predicates));
-
-            TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query);
-            return typedQuery.getResultList();
-        }
+        LOGGER.debug("Get commits which are given to a param map with {} elements", param.size());
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
+        Root<JPACommit> from = query.from(JPACommit.class);
+
+        query.select(from);
+        Predicate[] predicates = analyzeParamMap(criteriaBuilder, from, param);
+        query.where(criteriaBuilder.and(predicates));
+
+        TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query);
+        return typedQuery.getResultList();
     }
 
     @Override
     public JPACommit getLastCommit(Map<String, Object> param) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Get last commit which are given to a param map with {} elements", param.size());
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
-            Root<JPACommit> from = query.from(JPACommit.class);
-
-            query.select(from);
-            Predicate[] predicates = analyzeParamMap(criteriaBuilder, from, param);
-            query.where(criteriaBuilder.and(predicates));
-            query.orderBy(criteriaBuilder.desc(from.get("timestamp")));
-
-            TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query).setMaxResults(1);
-            try {
-                return typedQuery.getSingleResult();
-            } catch (NoResultException ex) {
-                throw new EDBException("there was no Object found with the given query parameters", ex);
-            }
+        LOGGER.debug("Get last commit which are given to a param map with {} elements", param.size());
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<JPACommit> query = criteriaBuilder.createQuery(JPACommit.class);
+        Root<JPACommit> from = query.from(JPACommit.class);
+
+        query.select(from);
+        Predicate[] predicates = analyzeParamMap(criteriaBuilder, from, param);
+        query.where(criteriaBuilder.and(predicates));
+        query.orderBy(criteriaBuilder.desc(from.get("timestamp")));
+
+        TypedQuery<JPACommit> typedQuery = entityManager.createQuery(query).setMaxResults(1);
+        try {
+            return typedQuery.getSingleResult();
+        } catch (NoResultException ex) {
+            throw new EDBException("there was no Object found with the given query parameters", ex);
         }
     }
 
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @Override
     public List<CommitMetaInfo> getRevisionsOfMatchingCommits(CommitQueryRequest request) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Get matching revisions for the request {}", request);
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery query = criteriaBuilder.createQuery();
-            Root<JPACommit> from = query.from(JPACommit.class);
-            query.multiselect(from.get("committer"), from.get("timestamp"), from.get("context"), from.get("comment"),
-                from.get("revision"), from.get("parent"), from.get("domainId"), from.get("connectorId"),
-                from.get("instanceId"));
-
-            Predicate[] predicates = convertCommitRequestToPredicates(criteriaBuilder, from, request);
-            query.where(criteriaBuilder.and(predicates));
-            query.orderBy(criteriaBuilder.asc(from.get("timestamp")));
-            TypedQuery<Object[]> typedQuery = entityManager.createQuery(query);
-            List<CommitMetaInfo> infos = new ArrayList<>();
-            for (Object[] row : typedQuery.getResultList()) {
-                CommitMetaInfo info = new CommitMetaInfo();
-                info.setCommitter(row[0] != null ? row[0].toString() : null);
-                info.setTimestamp(row[1] != null ? Long.valueOf(row[1].toString()) : null);
-                info.setContext(row[2] != null ? row[2].toString() : null);
-                info.setComment(row[3] != null ? row[3].toString() : null);
-                info.setRevision(row[4] != null ? row[4].toString() : null);
-                info.setParent(row[5] != null ? row[5].toString() : null);
-                info.setDomainId(row[6] != null ? row[6].toString() : null);
-                info.setConnectorId(row[7] != null ? row[7].toString() : null);
-                info.setInstanceId(row[8] != null ? row[8].toString() : null);
-                infos.add(info);
-            }
-            return infos;
+        LOGGER.debug("Get matching revisions for the request {}", request);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery query = criteriaBuilder.createQuery();
+        Root<JPACommit> from = query.from(JPACommit.class);
+        query.multiselect(from.get("committer"), from.get("timestamp"), from.get("context"), from.get("comment"),
+            from.get("revision"), from.get("parent"), from.get("domainId"), from.get("connectorId"),
+            from.get("instanceId"));
+
+        Predicate[] predicates = convertCommitRequestToPredicates(criteriaBuilder, from, request);
+        query.where(criteriaBuilder.and(predicates));
+        query.orderBy(criteriaBuilder.asc(from.get("timestamp")));
+        TypedQuery<Object[]> typedQuery = entityManager.createQuery(query);
+        List<CommitMetaInfo> infos = new ArrayList<>();
+        for (Object[] row : typedQuery.getResultList()) {
+            CommitMetaInfo info = new CommitMetaInfo();
+            info.setCommitter(row[0] != null ? row[0].toString() : null);
+            info.setTimestamp(row[1] != null ? Long.valueOf(row[1].toString()) : null);
+            info.setContext(row[2] != null ? row[2].toString() : null);
+            info.setComment(row[3] != null ? row[3].toString() : null);
+            info.setRevision(row[4] != null ? row[4].toString() : null);
+            info.setParent(row[5] != null ? row[5].toString() : null);
+            info.setDomainId(row[6] != null ? row[6].toString() : null);
+            info.setConnectorId(row[7] != null ? row[7].toString() : null);
+            info.setInstanceId(row[8] != null ? row[8].toString() : null);
+            infos.add(info);
         }
+        return infos;
     }
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
@@ -400,35 +609,63 @@ public class DefaultJPADao implements JPADao {
 
     @Override
     public Integer getVersionOfOid(String oid) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("loading version of model under the oid {}", oid);
+        LOGGER.debug("loading version of model under the oid {}", oid);
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<JPAObject> from = query.from(JPAObject.class);
+        Expression<Long> maxExpression = criteriaBuilder.count(from.get("oid"));
+        query.select(maxExpression);
+        query.where(criteriaBuilder.equal(from.get("oid"), oid));
+
+        TypedQuery<Long> typedQuery = entityManager.createQuery(query);
+        try {
+            return (int) typedQuery.getSingleResult().longValue();
+        } catch (NoResultException ex) {
+            LOGGER.debug("no model under the oid {}. Returning 0", oid);
+            return 0;
+        }
+    }
 
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
-            Root<JPAObject> from = query.from(JPAObject.class);
-            Expression<Long> maxExpression = criteriaBuilder.count(from.get("oid"));
-            query.select(maxExpression);
-            query.where(criteriaBuilder.equal(from.get("oid"), oid));
-
-            TypedQuery<Long> typedQuery = entityManager.createQuery(query);
-            try {
-                return (int) typedQuery.getSingleResult().longValue();
-            } catch (NoResultException ex) {
-                LOGGER.debug("no model under the oid {}. Returning 0", oid);
-                return 0;
+    @Override
+    public List<JPAObject> query(QueryRequest request) throws EDBException {
+        LOGGER.debug("Perform query with the query object: {}", request);
+        long version = headTableVersion.get();
+        if (isHeadTableValidFor(request.getTimestamp(), version)) {
+            List<JPAObject> result =
+                entityManager.createQuery(createCriteriaBuilder(request, true).buildQuery()).getResultList();
+            if (headTableVersion.get() == version) {
+                return result;
             }
+            LOGGER.debug("The head table changed while querying it, querying the history");
         }
+        return entityManager.createQuery(createCriteriaBuilder(request, false).buildQuery()).getResultList();
     }
 
     @Override
-    public List<JPAObject> query(QueryRequest request) throws EDBException {
-        synchronized (entityManager) {
-            LOGGER.debug("Perform query with the query object: {}", request);
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            QueryRequestCriteriaBuilder builder = new QueryRequestCriteriaBuilder(request, criteriaBuilder);
-            TypedQuery<JPAObject> typedQuery = entityManager.createQuery(builder.buildQuery());
-            return typedQuery.getResultList();
+    public List<JPAObject> query(QueryRequest request, String afterOid, int maxResults) throws EDBException {
+        LOGGER.debug("Perform query for at most {} objects after the oid {} with the query object: {}",
+            new Object[]{ maxResults, afterOid, request });
+        long version = headTableVersion.get();
+        if (isHeadTableValidFor(request.getTimestamp(), version)) {
+            List<JPAObject> result = entityManager.createQuery(createCriteriaBuilder(request, true)
+                .buildPageQuery(afterOid)).setMaxResults(maxResults).getResultList();
+            if (headTableVersion.get() == version) {
+                return result;
+            }
+            LOGGER.debug("The head table changed while querying it, querying the history");
         }
+        return entityManager.createQuery(createCriteriaBuilder(request, false).buildPageQuery(afterOid))
+            .setMaxResults(maxResults).getResultList();
+    }
+
+    /**
+     * Creates the builder of the criteria queries for the given request, which either query the head table or the
+     * history of the objects. Like the head, a query result out of the head table is only used if the version of the
+     * head table didn't change while querying.
+     */
+    private QueryRequestCriteriaBuilder createCriteriaBuilder(QueryRequest request, boolean useHeadTable) {
+        return new QueryRequestCriteriaBuilder(request, entityManager.getCriteriaBuilder(), useHeadTable);
     }
 
     public void setEntityManager(EntityManager entityManager) {
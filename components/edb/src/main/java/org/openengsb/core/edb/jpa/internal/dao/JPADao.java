@@ -38,6 +38,18 @@ public interface JPADao {
      */
     JPAHead getJPAHead(long timestamp) throws EDBException;
 
+    /**
+     * Notifies the dao that the head table is about to be changed. Until {@link #headTableUpdated(Long)} is called,
+     * heads are not loaded from the head table.
+     */
+    void headTableUpdateStarted();
+
+    /**
+     * Notifies the dao that the change of the head table has been committed or rolled back. The given timestamp is at
+     * least the newest timestamp of the objects in the head table, or null if it is unknown.
+     */
+    void headTableUpdated(Long newestTimestamp);
+
     /**
      * Returns the history (all objects) of a given object.
      */
@@ -63,6 +75,25 @@ public interface JPADao {
      */
     List<JPAObject> getJPAObjects(List<String> oids) throws EDBException;
 
+    /**
+     * Returns the JPAObjects with the given oids which were active at the given timestamp. Objects which were deleted
+     * or not yet existing at the given timestamp are not part of the result.
+     */
+    List<JPAObject> getJPAObjects(List<String> oids, long timestamp) throws EDBException;
+
+    /**
+     * Returns for every given oid the timestamp of its newest version at the given timestamp, or of its newest version
+     * at all if the given timestamp is null. Oids without such a version are not contained in the result. Only the
+     * timestamps are loaded, not the objects themselves.
+     */
+    Map<String, Long> getVersionTimestamps(List<String> oids, Long timestamp) throws EDBException;
+
+    /**
+     * Returns the oids of all objects which have been changed by a commit after the timestamp from and until the
+     * timestamp to (inclusive).
+     */
+    List<String> getChangedOIDs(long from, long to) throws EDBException;
+
     /**
      * Returns all commits which are involved with the given oid which are between from and to
      */
@@ -79,6 +110,17 @@ public interface JPADao {
      */
     List<String> getResurrectedOIDs() throws EDBException;
 
+    /**
+     * Returns the distinct values of all JPAEntries which start with the given prefix
+     */
+    List<String> getEntryValuesByPrefix(String prefix) throws EDBException;
+
+    /**
+     * Returns the timestamp of the newest JPACommit, or null if there is none. The timestamp is only loaded from the
+     * database if it is not known from the last change of the head table.
+     */
+    Long getLastCommitTimestamp() throws EDBException;
+
     /**
      * Loads a JPACommit with the given timestamp
      */
@@ -105,6 +147,12 @@ public interface JPADao {
      */
     List<JPAObject> query(QueryRequest request) throws EDBException;
 
+    /**
+     * Returns at most maxResults JPAObjects which match to the parameters in the given query request, ordered by their
+     * oids. Only objects with an oid greater than afterOid are returned, or all matching objects if afterOid is null.
+     */
+    List<JPAObject> query(QueryRequest request, String afterOid, int maxResults) throws EDBException;
+
     /**
      * Returns the version of the element under the given oid. If oid isn't existing, 0 is returned.
      */
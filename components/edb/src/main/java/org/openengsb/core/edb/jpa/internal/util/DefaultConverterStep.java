@@ -17,8 +17,13 @@
 
 package org.openengsb.core.edb.jpa.internal.util;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.beanutils.MethodUtils;
 import org.openengsb.core.edb.api.EDBObjectEntry;
@@ -36,6 +41,23 @@ import org.springframework.util.ClassUtils;
 public class DefaultConverterStep implements EDBConverterStep {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultConverterStep.class);
 
+    /**
+     * The information how to instantiate a type, attached to the classes of the types.
+     */
+    private static final ClassValue<TypeInfo> TYPE_INFOS = new ClassValue<TypeInfo>() {
+        @Override
+        protected TypeInfo computeValue(Class<?> type) {
+            return new TypeInfo(type);
+        }
+    };
+
+    /**
+     * The classes which were loaded by the class loader of the EDB per type name. The classes are held weakly, so that
+     * classes of an uninstalled bundle which were loaded through a dynamic import can still be unloaded.
+     */
+    private final ConcurrentMap<String, WeakReference<Class<?>>> classes =
+        new ConcurrentHashMap<String, WeakReference<Class<?>>>();
+
     @Override
     public Boolean doesStepFit(String classname) {
         return true;
@@ -62,11 +84,11 @@ public class DefaultConverterStep implements EDBConverterStep {
      */
     public Object getEntryValue(JPAEntry entry) {
         try {
-            Class<?> typeClass = loadClass(entry.getType());
-            if (typeClass == null) {
+            TypeInfo typeInfo = getTypeInfo(entry.getType());
+            if (typeInfo == null) {
                 return entry.getValue();
             }
-            if (typeClass == Character.class) {
+            if (typeInfo.typeClass == Character.class) {
                 if (entry.getValue().length() > 1) {
                     LOGGER.warn("Too many chars in the string for a character type: " + entry.getValue());
                     LOGGER.warn("The first char of the string will be used.");
@@ -75,13 +97,14 @@ public class DefaultConverterStep implements EDBConverterStep {
                     return entry.getValue().charAt(0);
                 }
             }
-            Object result = invokeValueOf(typeClass, entry.getValue());
-            if (result != null) {
-                return result;
+            if (typeInfo.valueOf != null) {
+                Object result = typeInfo.valueOf.invoke(null, entry.getValue());
+                if (result != null) {
+                    return result;
+                }
             }
-            Constructor<?> constructor = ClassUtils.getConstructorIfAvailable(typeClass, String.class);
-            if (constructor != null) {
-                return constructor.newInstance(entry.getValue());
+            if (typeInfo.constructor != null) {
+                return typeInfo.constructor.newInstance(entry.getValue());
             }
             LOGGER.debug("DefaultConverterStep didn't find any possibility to convert entry {}. "
                     + "The simple string value will be returned", entry);
@@ -97,13 +120,30 @@ public class DefaultConverterStep implements EDBConverterStep {
         return entry.getType();
     }
 
+    /**
+     * Returns the information how to instantiate the type with the given name, or null if the class of the type can't
+     * be loaded. The information is resolved only once per class.
+     */
+    private TypeInfo getTypeInfo(String className) {
+        Class<?> typeClass = loadClass(className);
+        return typeClass == null ? null : TYPE_INFOS.get(typeClass);
+    }
+
     /**
      * Tries to load the class with the given name. Returns the class object if the class can be loaded. Returns null if
-     * the class could not be loaded.
+     * the class could not be loaded. Classes which could not be loaded are not remembered, since they may become
+     * available later on.
      */
     private Class<?> loadClass(String className) {
+        WeakReference<Class<?>> reference = classes.get(className);
+        Class<?> typeClass = reference == null ? null : reference.get();
+        if (typeClass != null) {
+            return typeClass;
+        }
         try {
-            return EDBUtils.class.getClassLoader().loadClass(className);
+            typeClass = EDBUtils.class.getClassLoader().loadClass(className);
+            classes.put(className, new WeakReference<Class<?>>(typeClass));
+            return typeClass;
         } catch (ClassNotFoundException e) {
             LOGGER.debug("Class {} can not be found by the EDB. This object type is not supported by the EDB."
                 + " Maybe the conversion need to be done at model level.", className);
@@ -112,16 +152,19 @@ public class DefaultConverterStep implements EDBConverterStep {
     }
 
     /**
-     * Tries to invoke the method valueOf of the given class object. If this method can be called, the result will be
-     * given back based on the given value which is used as parameter for the method. If this method can't be called
-     * null will be given back.
+     * Contains the class of a type together with its static valueOf method and its constructor with a string
+     * parameter, if they exist.
      */
-    private Object invokeValueOf(Class<?> clazz, String value) throws IllegalAccessException,
-        InvocationTargetException {
-        try {
-            return MethodUtils.invokeExactStaticMethod(clazz, "valueOf", value);
-        } catch (NoSuchMethodException e) {
-            return null;
+    private static final class TypeInfo {
+        private final Class<?> typeClass;
+        private final Method valueOf;
+        private final Constructor<?> constructor;
+
+        private TypeInfo(Class<?> typeClass) {
+            this.typeClass = typeClass;
+            Method method = MethodUtils.getAccessibleMethod(typeClass, "valueOf", String.class);
+            this.valueOf = method != null && Modifier.isStatic(method.getModifiers()) ? method : null;
+            this.constructor = ClassUtils.getConstructorIfAvailable(typeClass, String.class);
         }
     }
 
@@ -20,7 +20,10 @@ package org.openengsb.core.edb.jpa.internal.util;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import org.openengsb.core.edb.api.EDBConstants;
 import org.openengsb.core.edb.api.EDBObject;
 import org.openengsb.core.edb.api.EDBObjectEntry;
 import org.openengsb.core.edb.jpa.internal.JPAEntry;
@@ -28,13 +31,20 @@ import org.openengsb.core.edb.jpa.internal.JPAObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
 /**
  * The EDBUtils class contains functions needed in the whole EDB implementation.
  */
 public final class EDBUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(EDBUtils.class);
     private static List<EDBConverterStep> steps = new ArrayList<EDBConverterStep>(Arrays.asList(
-        new StringConverterStep(), new DateConverterStep(), new DefaultConverterStep()));
+        new StringConverterStep(), new DateConverterStep(), new PrimitiveConverterStep(),
+        new DefaultConverterStep()));
+    private static ConcurrentMap<String, EDBConverterStep> stepsByType =
+        new ConcurrentHashMap<String, EDBConverterStep>();
+    private static Interner<String> typeNames = Interners.newWeakInterner();
 
     private EDBUtils() {
     }
@@ -46,27 +56,43 @@ public final class EDBUtils {
      * object with a string parameter is used. If that didn't work either, the simple string will be set in the entry.
      */
     public static EDBObjectEntry convertJPAEntryToEDBObjectEntry(JPAEntry entry) {
-        for (EDBConverterStep step : steps) {
-            if (step.doesStepFit(entry.getType())) {
-                LOGGER.debug("EDBConverterStep {} fit for type {}", step.getClass().getName(), entry.getType());
-                return step.convertToEDBObjectEntry(entry);
-            }
+        EDBConverterStep step = getConverterStep(entry.getType());
+        if (step == null) {
+            LOGGER.error("No EDBConverterStep fit for JPAEntry {}", entry);
+            return null;
         }
-        LOGGER.error("No EDBConverterStep fit for JPAEntry {}", entry);
-        return null;
+        EDBObjectEntry result = step.convertToEDBObjectEntry(entry);
+        result.setType(typeNames.intern(result.getType()));
+        return result;
     }
 
     /**
      * Converts a JPAEntry object into an EDBObjectEntry.
      */
     public static JPAEntry convertEDBObjectEntryToJPAEntry(EDBObjectEntry entry, JPAObject owner) {
-        for (EDBConverterStep step : steps) {
-            if (step.doesStepFit(entry.getType())) {
-                LOGGER.debug("EDBConverterStep {} fit for type {}", step.getClass().getName(), entry.getType());
-                return step.convertToJPAEntry(entry, owner);
+        EDBConverterStep step = getConverterStep(entry.getType());
+        if (step == null) {
+            LOGGER.error("No EDBConverterStep fit for EDBObjectEntry {}", entry);
+            return null;
+        }
+        return step.convertToJPAEntry(entry, owner);
+    }
+
+    /**
+     * Returns the first converter step which fits for the given type. The step is looked up only once per type.
+     */
+    private static EDBConverterStep getConverterStep(String type) {
+        EDBConverterStep step = stepsByType.get(type);
+        if (step != null) {
+            return step;
+        }
+        for (EDBConverterStep candidate : steps) {
+            if (candidate.doesStepFit(type)) {
+                LOGGER.debug("EDBConverterStep {} fit for type {}", candidate.getClass().getName(), type);
+                stepsByType.putIfAbsent(type, candidate);
+                return candidate;
             }
         }
-        LOGGER.error("No EDBConverterStep fit for EDBObjectEntry {}", entry);
         return null;
     }
 
@@ -102,6 +128,23 @@ public final class EDBUtils {
         return result;
     }
 
+    /**
+     * Creates the JPAObject which marks the object with the given oid as deleted at the given timestamp. The result is
+     * the same as converting a deleted EDBObject with this oid and timestamp, without creating the EDBObject.
+     */
+    public static JPAObject createDeletedJPAObject(String oid, Long timestamp) {
+        JPAObject result = new JPAObject();
+        result.setOID(oid);
+        result.setTimestamp(timestamp);
+        result.setDeleted(true);
+        result.addEntry(new JPAEntry(EDBObject.OID_CONST, oid, String.class.getName(), result));
+        result.addEntry(new JPAEntry(EDBConstants.MODEL_TIMESTAMP, timestamp.toString(), Long.class.getName(),
+            result));
+        result.addEntry(new JPAEntry(EDBObject.DELETED_CONST, Boolean.TRUE.toString(), Boolean.class.getName(),
+            result));
+        return result;
+    }
+
     /**
      * Converts a list of EDBObjects into a list of JPAObjects
      */
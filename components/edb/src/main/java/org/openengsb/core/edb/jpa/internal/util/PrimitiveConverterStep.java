@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.edb.jpa.internal.util;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.openengsb.core.edb.api.EDBObjectEntry;
+import org.openengsb.core.edb.jpa.internal.JPAEntry;
+import org.openengsb.core.edb.jpa.internal.JPAObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The PrimitiveConverterStep is the step which shall be used if the entry type is the wrapper class of a numeric or
+ * boolean primitive type. The values are parsed directly instead of looking up their valueOf method by reflection.
+ */
+public class PrimitiveConverterStep implements EDBConverterStep {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrimitiveConverterStep.class);
+    private static final Set<String> SUPPORTED_TYPES = new HashSet<String>(Arrays.asList(Integer.class.getName(),
+        Long.class.getName(), Short.class.getName(), Byte.class.getName(), Double.class.getName(),
+        Float.class.getName(), Boolean.class.getName()));
+
+    @Override
+    public Boolean doesStepFit(String classname) {
+        return SUPPORTED_TYPES.contains(classname);
+    }
+
+    @Override
+    public JPAEntry convertToJPAEntry(EDBObjectEntry entry, JPAObject owner) {
+        return new JPAEntry(entry.getKey(), entry.getValue().toString(), entry.getType(), owner);
+    }
+
+    @Override
+    public EDBObjectEntry convertToEDBObjectEntry(JPAEntry entry) {
+        Object value;
+        try {
+            value = parseValue(entry.getType(), entry.getValue());
+        } catch (NumberFormatException e) {
+            LOGGER.warn("The value {} can't be parsed as {}. The simple string value will be used.",
+                entry.getValue(), entry.getType());
+            value = entry.getValue();
+        }
+        return new EDBObjectEntry(entry.getKey(), value, entry.getType());
+    }
+
+    /**
+     * Parses the given value as the given primitive wrapper type.
+     */
+    private static Object parseValue(String type, String value) {
+        switch (type) {
+            case "java.lang.Integer":
+                return Integer.valueOf(value);
+            case "java.lang.Long":
+                return Long.valueOf(value);
+            case "java.lang.Short":
+                return Short.valueOf(value);
+            case "java.lang.Byte":
+                return Byte.valueOf(value);
+            case "java.lang.Double":
+                return Double.valueOf(value);
+            case "java.lang.Float":
+                return Float.valueOf(value);
+            default:
+                return Boolean.valueOf(value);
+        }
+    }
+}
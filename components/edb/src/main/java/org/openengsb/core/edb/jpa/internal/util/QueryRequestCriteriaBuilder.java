@@ -25,6 +25,7 @@ import java.util.Set;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.From;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Subquery;
@@ -32,52 +33,84 @@ import javax.persistence.criteria.Subquery;
 import org.openengsb.core.api.model.QueryRequest;
 import org.openengsb.core.edb.api.EDBConstants;
 import org.openengsb.core.edb.jpa.internal.JPAEntry;
+import org.openengsb.core.edb.jpa.internal.JPAHeadObject;
 import org.openengsb.core.edb.jpa.internal.JPAObject;
 
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
 /**
- * Converts a QueryRequest into a CriteriaQuery.
- * 
+ * Converts a QueryRequest into a CriteriaQuery. If the materialized head table represents the state at the timestamp of
+ * the request, the newest versions are read directly from the head table. Otherwise the newest version of every object
+ * is searched in the JPAObject history.
  */
 public class QueryRequestCriteriaBuilder {
 
     private final CriteriaBuilder builder;
     private final QueryRequest request;
+    private final boolean useHeadTable;
 
     public QueryRequestCriteriaBuilder(QueryRequest request, CriteriaBuilder builder) {
+        this(request, builder, false);
+    }
+
+    public QueryRequestCriteriaBuilder(QueryRequest request, CriteriaBuilder builder, boolean useHeadTable) {
         this.builder = builder;
         this.request = request;
+        this.useHeadTable = useHeadTable;
     }
 
-    @SuppressWarnings({ "rawtypes", "unchecked" })
     public CriteriaQuery<JPAObject> buildQuery() {
-        CriteriaQuery<JPAObject> criteriaQuery = builder.createQuery(JPAObject.class);
-        criteriaQuery.distinct(!request.isAndJoined());
-        Root from = criteriaQuery.from(JPAObject.class);
+        return buildQuery(false, null);
+    }
 
-        Subquery<Long> subquery = criteriaQuery.subquery(Long.class);
-        Root subFrom = subquery.from(JPAObject.class);
-        Expression<Long> maxExpression = builder.max(subFrom.get("timestamp"));
-        subquery.select(maxExpression);
-        Predicate p1 = builder.equal(subFrom.get("oid"), from.get("oid"));
-        Predicate p2 = builder.le(subFrom.get("timestamp"), request.getTimestamp());
-        subquery.where(builder.and(p1, p2));
+    /**
+     * Builds a query which returns the matching objects ordered by their oids. If afterOid is not null, only objects
+     * with a greater oid are returned, so the result can be fetched page by page.
+     */
+    public CriteriaQuery<JPAObject> buildPageQuery(String afterOid) {
+        return buildQuery(true, afterOid);
+    }
 
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private CriteriaQuery<JPAObject> buildQuery(boolean ordered, String afterOid) {
+        CriteriaQuery<JPAObject> criteriaQuery = builder.createQuery(JPAObject.class);
+        criteriaQuery.distinct(!request.isAndJoined());
         List<Predicate> predicates = new ArrayList<>();
+        From from;
+        if (useHeadTable) {
+            Root<JPAHeadObject> head = criteriaQuery.from(JPAHeadObject.class);
+            from = head.join("object");
+        } else {
+            from = criteriaQuery.from(JPAObject.class);
+            Subquery<Long> subquery = criteriaQuery.subquery(Long.class);
+            Root subFrom = subquery.from(JPAObject.class);
+            Expression<Long> maxExpression = builder.max(subFrom.get("timestamp"));
+            subquery.select(maxExpression);
+            Predicate p1 = builder.equal(subFrom.get("oid"), from.get("oid"));
+            Predicate p2 = builder.le(subFrom.get("timestamp"), request.getTimestamp());
+            subquery.where(builder.and(p1, p2));
+            predicates.add(builder.equal(from.get("timestamp"), subquery));
+        }
+        criteriaQuery.select(from);
+
         if (request.getContextId() != null) {
             predicates.add(builder.like(from.get("oid"), request.getContextId() + "/%"));
         }
         predicates.add(builder.notEqual(from.get("isDeleted"), !request.isDeleted()));
-        predicates.add(builder.equal(from.get("timestamp"), subquery));
         if (request.getModelClassName() != null) {
             Subquery<JPAEntry> subquery2 =
                 buildJPAEntrySubquery(EDBConstants.MODEL_TYPE, request.getModelClassName(), from, criteriaQuery);
             predicates.add(builder.exists(subquery2));
         }
         predicates.add(convertParametersToPredicate(from, criteriaQuery));
+        if (afterOid != null) {
+            predicates.add(builder.greaterThan(from.get("oid"), afterOid));
+        }
         criteriaQuery.where(Iterables.toArray(predicates, Predicate.class));
+        if (ordered) {
+            criteriaQuery.orderBy(builder.asc(from.get("oid")));
+        }
         return criteriaQuery;
     }
 
@@ -86,7 +119,7 @@ public class QueryRequestCriteriaBuilder {
      * the criteria query.
      */
     @SuppressWarnings({ "unchecked" })
-    private Predicate convertParametersToPredicate(Root<?> from, CriteriaQuery<?> query) {
+    private Predicate convertParametersToPredicate(From<?, ?> from, CriteriaQuery<?> query) {
         List<Predicate> predicates = new ArrayList<>();
         for (Map.Entry<String, Set<Object>> value : request.getParameters().entrySet()) {
             Subquery<JPAEntry> subquery = buildJPAEntrySubquery(value.getKey(), value.getValue(), from, query);
@@ -100,7 +133,7 @@ public class QueryRequestCriteriaBuilder {
     }
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
-    private Subquery buildJPAEntrySubquery(String key, Object value, Root<?> from, CriteriaQuery<?> query) {
+    private Subquery buildJPAEntrySubquery(String key, Object value, From<?, ?> from, CriteriaQuery<?> query) {
         Subquery<JPAEntry> subquery = query.subquery(JPAEntry.class);
         Root subFrom = subquery.from(JPAEntry.class);
         subquery.select(subFrom);
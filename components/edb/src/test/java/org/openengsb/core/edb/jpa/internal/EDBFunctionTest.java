@@ -20,24 +20,43 @@ package org.openengsb.core.edb.jpa.internal;
 import static org.hamcrest.CoreMatchers.anyOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.openengsb.core.api.model.QueryRequest;
+import org.openengsb.core.api.security.AuthenticationContext;
 import org.openengsb.core.edb.api.EDBCommit;
 import org.openengsb.core.edb.api.EDBConstants;
 import org.openengsb.core.edb.api.EDBException;
 import org.openengsb.core.edb.api.EDBLogEntry;
 import org.openengsb.core.edb.api.EDBObject;
 import org.openengsb.core.edb.api.EDBObjectEntry;
+import org.openengsb.core.edb.api.hooks.EDBCommitProgressHook;
+import org.openengsb.core.edb.jpa.internal.dao.DefaultJPADao;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -437,6 +456,19 @@ public class EDBFunctionTest extends AbstractEDBTest {
         assertThat((Boolean) value, is(Boolean.TRUE));
     }
 
+    @Test
+    public void testIfOtherTypesThanStringWorks_shouldProcessLongAndDouble() throws Exception {
+        EDBObject object = new EDBObject("test/type/numbers");
+        object.putEDBObjectEntry("long", Long.valueOf(4200000000L));
+        object.putEDBObjectEntry("double", Double.valueOf(4.2));
+        commitObjects(Arrays.asList(object), null, null);
+        object = db.getObject("test/type/numbers");
+        assertThat(object.getObject("long").getClass().getName(), is(Long.class.getName()));
+        assertThat((Long) object.getObject("long"), is(4200000000L));
+        assertThat(object.getObject("double").getClass().getName(), is(Double.class.getName()));
+        assertThat((Double) object.getObject("double"), is(4.2));
+    }
+
     @Test
     public void testIfOtherTypesThanStringWorks_shouldProcessDate() throws Exception {
         EDBObject object = new EDBObject("test/type/date");
@@ -506,4 +538,288 @@ public class EDBFunctionTest extends AbstractEDBTest {
     public void testDeleteCommitWithWrongRevision_shouldThrowException() {
         db.deleteCommit(UUID.randomUUID());
     }
+
+    @Test
+    public void testCommitsInTheSameMillisecond_shouldGetDistinctTimestamps() throws Exception {
+        Long first = commitObjects(Lists.newArrayList(createRandomTestObject("timestampTest/1")), null, null);
+        Long second = commitObjects(Lists.newArrayList(createRandomTestObject("timestampTest/2")), null, null);
+
+        assertThat(second > first, is(true));
+        assertThat(db.getCommit(first).getTimestamp(), is(first));
+        assertThat(db.getCommit(second).getTimestamp(), is(second));
+    }
+
+    @Test
+    public void testCommitWithGroupCommitEnabled_shouldWork() throws Exception {
+        db.setGroupCommitSize(10);
+        commitObjects(Lists.newArrayList(createRandomTestObject("groupCommitTest/1")), null, null);
+        commitObjects(Lists.newArrayList(createRandomTestObject("groupCommitTest/2")), null, null);
+
+        assertThat(db.getObject("groupCommitTest/1"), notNullValue());
+        assertThat(db.getObject("groupCommitTest/2"), notNullValue());
+        assertThat(db.getHead().size(), is(2));
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentCommitsWithGroupCommitEnabled_shouldBeWrittenInOneTransaction() throws Exception {
+        final AtomicInteger transactions = new AtomicInteger();
+        final TestEDBService service = new TestEDBService(new DefaultJPADao(db.entityManager),
+            mock(AuthenticationContext.class), null, null, null, null, false, db.entityManager) {
+            @Override
+            protected void commitTransaction() {
+                super.commitTransaction();
+                transactions.incrementAndGet();
+            }
+        };
+        service.open();
+        service.setGroupCommitSize(10);
+        service.setBulkChunkSize(1);
+        final CountDownLatch firstCommitWriting = new CountDownLatch(1);
+        final CountDownLatch othersQueued = new CountDownLatch(1);
+        service.setProgressHooks(Arrays.<EDBCommitProgressHook> asList(new EDBCommitProgressHook() {
+            @Override
+            public void onCommitProgress(EDBCommit commit, int written, int total, long elapsedMillis) {
+                if (written == 1) {
+                    firstCommitWriting.countDown();
+                    try {
+                        othersQueued.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }));
+        final List<EDBCommit> commits = new ArrayList<>();
+        commits.add(db.createEDBCommit(Lists.newArrayList(createRandomTestObject("concurrentGroupTest/1"),
+            createRandomTestObject("concurrentGroupTest/2")), null, null));
+        commits.add(db.createEDBCommit(Lists.newArrayList(createRandomTestObject("concurrentGroupTest/3")),
+            null, null));
+        commits.add(db.createEDBCommit(Lists.newArrayList(createRandomTestObject("concurrentGroupTest/4")),
+            null, null));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<Future<Long>> timestamps = new ArrayList<>();
+        timestamps.add(executor.submit(commitTask(service, commits.get(0))));
+        firstCommitWriting.await();
+        timestamps.add(executor.submit(commitTask(service, commits.get(1))));
+        timestamps.add(executor.submit(commitTask(service, commits.get(2))));
+        while (service.getQueuedCommitCount() < 2) {
+            Thread.yield();
+        }
+        othersQueued.countDown();
+        Set<Long> distinct = new HashSet<>();
+        for (Future<Long> timestamp : timestamps) {
+            distinct.add(timestamp.get());
+        }
+        executor.shutdown();
+
+        assertThat(distinct.size(), is(3));
+        assertThat(transactions.get(), is(2));
+        assertThat(db.getObject("concurrentGroupTest/1"), notNullValue());
+        assertThat(db.getObject("concurrentGroupTest/3"), notNullValue());
+        assertThat(db.getObject("concurrentGroupTest/4"), notNullValue());
+    }
+
+    @Test(timeout = 30000)
+    public void testFailingCommitInCommitGroup_shouldOnlyFailThisCommit() throws Exception {
+        final List<EDBCommit> commits = new ArrayList<>();
+        final TestEDBService service = new TestEDBService(new DefaultJPADao(db.entityManager),
+            mock(AuthenticationContext.class), null, null, null, null, false, db.entityManager) {
+            @Override
+            protected void commitTransaction() {
+                if (entityManager.contains(commits.get(1))) {
+                    throw new IllegalStateException("commit 2 can't be written");
+                }
+                super.commitTransaction();
+            }
+        };
+        service.open();
+        service.setGroupCommitSize(10);
+        service.setBulkChunkSize(1);
+        final CountDownLatch firstCommitWriting = new CountDownLatch(1);
+        final CountDownLatch othersQueued = new CountDownLatch(1);
+        service.setProgressHooks(Arrays.<EDBCommitProgressHook> asList(new EDBCommitProgressHook() {
+            @Override
+            public void onCommitProgress(EDBCommit commit, int written, int total, long elapsedMillis) {
+                if (written == 1) {
+                    firstCommitWriting.countDown();
+                    try {
+                        othersQueued.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }));
+        commits.add(db.createEDBCommit(Lists.newArrayList(createRandomTestObject("failingGroupTest/1"),
+            createRandomTestObject("failingGroupTest/2")), null, null));
+        commits.add(db.createEDBCommit(Lists.newArrayList(createRandomTestObject("failingGroupTest/3")),
+            null, null));
+        commits.add(db.createEDBCommit(Lists.newArrayList(createRandomTestObject("failingGroupTest/4")),
+            null, null));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<Future<Long>> timestamps = new ArrayList<>();
+        timestamps.add(executor.submit(commitTask(service, commits.get(0))));
+        firstCommitWriting.await();
+        timestamps.add(executor.submit(commitTask(service, commits.get(1))));
+        timestamps.add(executor.submit(commitTask(service, commits.get(2))));
+        while (service.getQueuedCommitCount() < 2) {
+            Thread.yield();
+        }
+        othersQueued.countDown();
+
+        assertThat(timestamps.get(0).get(), notNullValue());
+        assertThat(timestamps.get(2).get(), notNullValue());
+        try {
+            timestamps.get(1).get();
+            fail("the failing commit was reported as written");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(EDBException.class));
+        }
+        executor.shutdown();
+        assertThat(db.getObject("failingGroupTest/4"), notNullValue());
+    }
+
+    private static Callable<Long> commitTask(final TestEDBService service, final EDBCommit commit) {
+        return new Callable<Long>() {
+            @Override
+            public Long call() {
+                return service.commit(commit);
+            }
+        };
+    }
+
+    @Test
+    public void testCommitInBulkMode_shouldWriteInChunksAndReportProgress() throws Exception {
+        commitObjects(Lists.newArrayList(createRandomTestObject("bulkTest/deleted")), null, null);
+        EDBCommitProgressHook hook = mock(EDBCommitProgressHook.class);
+        db.setProgressHooks(Arrays.asList(hook));
+        db.setBulkChunkSize(2);
+        List<EDBObject> inserts = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            inserts.add(createRandomTestObject("bulkTest/" + i));
+        }
+        commitObjects(inserts, null, Lists.newArrayList(db.getObject("bulkTest/deleted")));
+
+        assertThat(db.getHead().size(), is(4));
+        assertThat(db.getObject("bulkTest/3"), notNullValue());
+        List<EDBObject> history = db.getHistory("bulkTest/deleted");
+        assertThat(history.get(history.size() - 1).isDeleted(), is(true));
+        verify(hook).onCommitProgress(any(EDBCommit.class), eq(2), eq(5), anyLong());
+        verify(hook).onCommitProgress(any(EDBCommit.class), eq(4), eq(5), anyLong());
+        verify(hook).onCommitProgress(any(EDBCommit.class), eq(5), eq(5), anyLong());
+    }
+
+    @Test
+    public void testGetObjectAfterDeletingNewestCommit_shouldReturnPreviousVersion() throws Exception {
+        EDBObject v1 = new EDBObject("headTableTest/1");
+        v1.putEDBObjectEntry("Key", "Value 1");
+        commitObjects(Lists.newArrayList(v1), null, null);
+        EDBObject v2 = new EDBObject("headTableTest/1");
+        v2.putEDBObjectEntry("Key", "Value 2");
+        commitObjects(null, Lists.newArrayList(v2), null);
+
+        assertThat(db.getObject("headTableTest/1").getString("Key"), is("Value 2"));
+        db.deleteCommit(db.getCurrentRevisionNumber());
+
+        assertThat(db.getObject("headTableTest/1").getString("Key"), is("Value 1"));
+        assertThat(db.query(QueryRequest.query("Key", "Value 1")).size(), is(1));
+        assertThat(db.query(QueryRequest.query("Key", "Value 2")).size(), is(0));
+    }
+
+    @Test
+    public void testGetHeadBeforeNewestCommit_shouldNotUseTheCachedHeadTable() throws Exception {
+        EDBObject first = new EDBObject("headCacheTest/1");
+        first.putEDBObjectEntry("Key", "Value");
+        Long time1 = commitObjects(Lists.newArrayList(first), null, null);
+        int headSize = db.getHead(time1).size();
+
+        EDBObject second = new EDBObject("headCacheTest/2");
+        second.putEDBObjectEntry("Key", "Value");
+        commitObjects(Lists.newArrayList(second), null, null);
+
+        assertThat(db.getHead(time1).size(), is(headSize));
+        assertThat(db.getHead().size(), is(headSize + 1));
+    }
+
+    @Test
+    public void testDiffWithInsertedAndDeletedObjects_shouldContainOnlyChangedObjects() throws Exception {
+        EDBObject unchanged = new EDBObject("diffTest/unchanged");
+        unchanged.putEDBObjectEntry("Key", "Value");
+        EDBObject deleted = new EDBObject("diffTest/deleted");
+        deleted.putEDBObjectEntry("Key", "Value");
+        Long time1 = commitObjects(Lists.newArrayList(unchanged, deleted), null, null);
+
+        EDBObject inserted = new EDBObject("diffTest/inserted");
+        inserted.putEDBObjectEntry("Key", "Value");
+        Long time2 = commitObjects(Lists.newArrayList(inserted), null, Lists.newArrayList(deleted));
+
+        Diff diff = db.getDiff(time1, time2);
+
+        assertThat(diff.getDifferenceCount(), is(2));
+        assertThat(diff.getDiff("diffTest/inserted"), notNullValue());
+        assertThat(diff.getDiff("diffTest/deleted"), notNullValue());
+        assertThat(diff.getStartState().size(), is(2));
+        assertThat(diff.getEndState().size(), is(2));
+    }
+
+    @Test
+    public void testDiffWithMoreChangedObjectsThanOneLookup_shouldContainAllChangedObjects() throws Exception {
+        EDBObject unchanged = new EDBObject("bigDiffTest/unchanged");
+        unchanged.putEDBObjectEntry("Key", "Value");
+        Long time1 = commitObjects(Lists.newArrayList(unchanged), null, null);
+        List<EDBObject> inserts = new ArrayList<EDBObject>();
+        for (int i = 0; i < 600; i++) {
+            EDBObject object = new EDBObject("bigDiffTest/" + i);
+            object.putEDBObjectEntry("Key", "Value");
+            inserts.add(object);
+        }
+        Long time2 = commitObjects(inserts, null, null);
+
+        Diff diff = db.getDiff(time2, time1);
+
+        assertThat(diff.getDifferenceCount(), is(600));
+        assertThat(diff.getStartState().size(), is(1));
+    }
+
+    @Test
+    public void testGetEntryValuesByPrefix_shouldReturnValuesOfAllVersions() throws Exception {
+        EDBObject object = new EDBObject("prefixTest/1");
+        object.putEDBObjectEntry("Key", "prefix_1");
+        commitObjects(Lists.newArrayList(object), null, null);
+        object = db.getObject("prefixTest/1");
+        object.putEDBObjectEntry("Key", "prefix_2");
+        object.putEDBObjectEntry("Other", "prefixA");
+        commitObjects(null, Lists.newArrayList(object), null);
+
+        List<String> values = db.getEntryValuesByPrefix("prefix_");
+
+        assertThat(values.size(), is(2));
+        assertThat(values.contains("prefix_1"), is(true));
+        assertThat(values.contains("prefix_2"), is(true));
+    }
+
+    @Test
+    public void testGetLastCommitTimestamp_shouldReturnTheTimestampOfTheNewestCommit() throws Exception {
+        EDBObject object = new EDBObject("lastCommitTest/1");
+        object.putEDBObjectEntry("Key", "Value");
+        Long time = commitObjects(Lists.newArrayList(object), null, null);
+
+        assertThat(db.getLastCommitTimestamp(), is(time));
+        assertThat(new DefaultJPADao(db.entityManager).getLastCommitTimestamp(), is(time));
+    }
+
+    @Test
+    public void testLoadObjectTwice_shouldBeServedFromCacheTheSecondTime() throws Exception {
+        EDBObject object = new EDBObject("cacheTest/1");
+        object.putEDBObjectEntry("Key", "Value");
+        Long time = commitObjects(Lists.newArrayList(object), null, null);
+
+        EDBObject first = db.getObject("cacheTest/1");
+        first.putEDBObjectEntry("Key", "Changed");
+        EDBObject second = db.getObject("cacheTest/1", time);
+
+        assertThat(second.getString("Key"), is("Value"));
+        assertThat(db.getObjectCacheStatistics().hitCount(), is(1L));
+        assertThat(db.getObjectCacheStatistics().missCount(), is(1L));
+    }
 }
@@ -22,6 +22,7 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -579,4 +580,27 @@ public class EDBQueryTest extends AbstractEDBTest {
         result = db.query(request.deleted());
         assertThat(result.size(), is(1));
     }
+
+    @Test
+    public void testQueryInPages_shouldReturnAllObjectsOrderedByOid() throws Exception {
+        List<EDBObject> objects = new ArrayList<>();
+        for (int i = 4; i >= 0; i--) {
+            EDBObject object = new EDBObject("pageTest/" + i);
+            object.putEDBObjectEntry("Page", "Test");
+            objects.add(object);
+        }
+        commitObjects(objects, null, null);
+
+        QueryRequest request = QueryRequest.query("Page", "Test");
+        List<EDBObject> page1 = db.query(request, null, 2);
+        List<EDBObject> page2 = db.query(request, page1.get(1).getOID(), 2);
+        List<EDBObject> page3 = db.query(request, page2.get(1).getOID(), 2);
+
+        assertThat(page1.size(), is(2));
+        assertThat(page1.get(0).getOID(), is("pageTest/0"));
+        assertThat(page2.get(0).getOID(), is("pageTest/2"));
+        assertThat(page3.size(), is(1));
+        assertThat(page3.get(0).getOID(), is("pageTest/4"));
+        assertThat(db.getHead(System.currentTimeMillis(), "pageTest/3", 10).size(), is(1));
+    }
 }
@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.edb.jpa.internal.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.beanutils.MethodUtils;
+import org.junit.Test;
+import org.openengsb.core.edb.api.EDBObject;
+import org.openengsb.core.edb.api.EDBObjectEntry;
+import org.openengsb.core.edb.jpa.internal.JPAEntry;
+import org.openengsb.core.edb.jpa.internal.JPAObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Measures the conversion of loaded JPAObjects into EDBObjects. The current conversion through EDBUtils is compared
+ * with the converter chain as it was before the conversion was cached, which walked the String, Date and default
+ * steps for every entry and resolved the type class and its valueOf method on every call. Both run the same fixed
+ * number of objects after a warm-up, and the throughput of each is logged. Runs only with the benchmarks profile.
+ */
+public class EDBConversionBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EDBConversionBenchmark.class);
+
+    private static final int WARMUP_OBJECTS = 20000;
+    private static final int OBJECTS = 100000;
+
+    private static final List<EDBConverterStep> LEGACY_STEPS = Arrays.<EDBConverterStep> asList(
+        new StringConverterStep(), new DateConverterStep());
+
+    private final JPAObject object = createObject();
+
+    @Test
+    public void testConversionOfLoadedObjects_shouldGiveTheSameValuesAsTheLegacyConverterChain() throws Exception {
+        assertSameValues(EDBUtils.convertJPAObjectToEDBObject(object), convertLegacy(object));
+        run(WARMUP_OBJECTS, false);
+        run(WARMUP_OBJECTS, true);
+
+        long legacy = run(OBJECTS, false);
+        long current = run(OBJECTS, true);
+
+        LOGGER.info("legacy converter chain: {} objects/s", throughput(legacy));
+        LOGGER.info("current conversion: {} objects/s", throughput(current));
+    }
+
+    private long run(int objects, boolean current) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < objects; i++) {
+            EDBObject result = current ? EDBUtils.convertJPAObjectToEDBObject(object) : convertLegacy(object);
+            assertThat(result.getObject("unit"), is((Object) TimeUnit.SECONDS));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void assertSameValues(EDBObject actual, EDBObject expected) {
+        assertThat(actual.keySet(), is(expected.keySet()));
+        for (EDBObjectEntry entry : expected.values()) {
+            assertThat(actual.get(entry.getKey()).getValue(), is(entry.getValue()));
+            assertThat(actual.get(entry.getKey()).getType(), is(entry.getType()));
+        }
+    }
+
+    private static JPAObject createObject() {
+        JPAObject object = new JPAObject();
+        object.setOID("conversionBenchmark/1");
+        object.setTimestamp(1L);
+        addEntry(object, "name", "a name", String.class);
+        addEntry(object, "created", String.valueOf(System.currentTimeMillis()), Date.class);
+        addEntry(object, "count", "42", Integer.class);
+        addEntry(object, "size", "4200000000", Long.class);
+        addEntry(object, "ratio", "0.75", Double.class);
+        addEntry(object, "enabled", "true", Boolean.class);
+        addEntry(object, "price", "19.99", BigDecimal.class);
+        addEntry(object, "unit", "SECONDS", TimeUnit.class);
+        return object;
+    }
+
+    private static void addEntry(JPAObject object, String key, String value, Class<?> type) {
+        object.addEntry(new JPAEntry(key, value, type.getName(), object));
+    }
+
+    private static EDBObject convertLegacy(JPAObject object) throws Exception {
+        EDBObject result = new EDBObject(object.getOID());
+        for (JPAEntry entry : object.getEntries()) {
+            result.put(entry.getKey(), convertLegacy(entry));
+        }
+        result.setDeleted(object.isDeleted());
+        result.updateTimestamp(object.getTimestamp());
+        return result;
+    }
+
+    private static EDBObjectEntry convertLegacy(JPAEntry entry) throws Exception {
+        for (EDBConverterStep step : LEGACY_STEPS) {
+            if (step.doesStepFit(entry.getType())) {
+                return step.convertToEDBObjectEntry(entry);
+            }
+        }
+        Class<?> typeClass = EDBUtils.class.getClassLoader().loadClass(entry.getType());
+        Object value;
+        try {
+            value = MethodUtils.invokeExactStaticMethod(typeClass, "valueOf", entry.getValue());
+        } catch (NoSuchMethodException e) {
+            Constructor<?> constructor = ClassUtils.getConstructorIfAvailable(typeClass, String.class);
+            value = constructor.newInstance(entry.getValue());
+        }
+        return new EDBObjectEntry(entry.getKey(), value, entry.getType());
+    }
+
+    private static long throughput(long nanos) {
+        return OBJECTS * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+}
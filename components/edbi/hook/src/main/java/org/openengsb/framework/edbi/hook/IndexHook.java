@@ -19,6 +19,7 @@ package org.openengsb.framework.edbi.hook;
 import org.openengsb.core.api.context.ContextHolder;
 import org.openengsb.core.api.security.AuthenticationContext;
 import org.openengsb.core.edbi.api.IndexCommit;
+import org.openengsb.core.edbi.api.IndexCommitQueue;
 import org.openengsb.core.edbi.api.IndexEngine;
 import org.openengsb.core.ekb.api.EKBCommit;
 import org.openengsb.core.ekb.api.hooks.EKBPostCommitHook;
@@ -28,7 +29,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * EKBPostCommitHook implementation responsible for extracting model information and calling {@code IndexService} to
- * create indices for model types.
+ * create indices for model types. If an {@code IndexCommitQueue} is set, commits are handed to the queue and indexed
+ * asynchronously, otherwise they are indexed directly.
  */
 public class IndexHook implements EKBPostCommitHook {
 
@@ -36,6 +38,7 @@ public class IndexHook implements EKBPostCommitHook {
 
     private IndexEngine indexEngine;
     private AuthenticationContext authenticationContext;
+    private IndexCommitQueue indexCommitQueue;
 
     @Override
     public void onPostCommit(EKBCommit ekbCommit) {
@@ -45,7 +48,11 @@ public class IndexHook implements EKBPostCommitHook {
 
         IndexCommit commit = commitConverter.convert(ekbCommit);
 
-        indexEngine.commit(commit);
+        if (indexCommitQueue != null) {
+            indexCommitQueue.enqueue(commit);
+        } else {
+            indexEngine.commit(commit);
+        }
     }
 
     public ContextHolder getContextHolder() {
@@ -67,4 +74,12 @@ public class IndexHook implements EKBPostCommitHook {
     public void setIndexEngine(IndexEngine indexEngine) {
         this.indexEngine = indexEngine;
     }
+
+    public IndexCommitQueue getIndexCommitQueue() {
+        return indexCommitQueue;
+    }
+
+    public void setIndexCommitQueue(IndexCommitQueue indexCommitQueue) {
+        this.indexCommitQueue = indexCommitQueue;
+    }
 }
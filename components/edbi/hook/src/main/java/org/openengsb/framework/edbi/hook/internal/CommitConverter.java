@@ -65,7 +65,7 @@ public class CommitConverter {
         commit.setConnectorId(ekbCommit.getConnectorId());
         commit.setDomainId(ekbCommit.getDomainId());
         commit.setInstanceId(ekbCommit.getInstanceId());
-        commit.setTimestamp(new Date());
+        commit.setTimestamp(ekbCommit.getTimestamp() != null ? new Date(ekbCommit.getTimestamp()) : new Date());
 
         commit.setUser(getUser());
         commit.setContextId(getContextId());
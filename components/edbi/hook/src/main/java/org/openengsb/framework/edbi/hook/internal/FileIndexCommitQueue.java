@@ -0,0 +1,539 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.framework.edbi.hook.internal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openengsb.core.edbi.api.EDBIndexException;
+import org.openengsb.core.edbi.api.IndexCommit;
+import org.openengsb.core.edbi.api.IndexCommitQueue;
+import org.openengsb.core.edbi.api.IndexEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * IndexCommitQueue implementation that journals every commit as a file before it is handed to the IndexEngine by a pool
+ * of workers. Each commit is indexed as a whole by a single call to {@link IndexEngine#commit(IndexCommit)}, so it is
+ * applied to the index atomically. A commit is not started before all previously enqueued commits that touch one of its
+ * model classes were indexed, so the commits of one model class are indexed in the order they were enqueued while
+ * commits of disjoint model classes are indexed in parallel.
+ * <p/>
+ * The journal file of a commit is written and forced to disk before {@link #enqueue(IndexCommit)} returns and is
+ * removed once the commit was indexed. If indexing fails, the commit is retried with an exponential backoff. If it
+ * still fails after the configured number of attempts, its journal file is renamed to {@code .failed} and its model
+ * classes are stalled: every later commit touching one of them fails as well, since it can not be applied consistently.
+ * Stalled model classes stay stalled after a restart as long as the {@code .failed} files exist. To recover, remove the
+ * cause of the failure, rename the {@code .failed} files back to {@code .json} and restart the bundle, which replays
+ * them in their original order. Journal files that are left over are replayed on startup. The highest indexed commit
+ * timestamp is stored on shutdown, after a crash it is only known again once the next commit was indexed. If the
+ * configured directory is not absolute it is assumed to be a subdirectory of ${karaf.data}.
+ */
+public class FileIndexCommitQueue implements IndexCommitQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileIndexCommitQueue.class);
+
+    private static final Pattern JOURNAL_FILE_PATTERN = Pattern.compile("(\\d+)-(.*)\\.json");
+    private static final Pattern FAILED_FILE_PATTERN = Pattern.compile("(\\d+)-(.*)\\.json\\.failed");
+
+    private static final String INDEXED_TIMESTAMP_FILE = "indexed-timestamp";
+
+    private static final long SHUTDOWN_TIMEOUT = 30;
+
+    private IndexEngine indexEngine;
+    private IndexCommitSerializer serializer;
+    private File directory;
+
+    private int maxAttempts = 5;
+    private long retryDelay = 1000;
+    private long maxRetryDelay = 60000;
+
+    private ScheduledThreadPoolExecutor workers;
+
+    private AtomicLong nextSequence = new AtomicLong();
+
+    /**
+     * Journaled commits by sequence number that wait until all commits with a lower sequence number were journaled. A
+     * null value marks a sequence number whose commit could not be journaled. Guarded by {@code this}.
+     */
+    private Map<Long, PendingCommit> journaled = new HashMap<>();
+    private long nextScheduledSequence;
+
+    /**
+     * The last scheduled commit per model class name. A failed commit stays here to stall its model class. Guarded by
+     * {@code this}.
+     */
+    private Map<String, PendingCommit> lastByModelClass = new HashMap<>();
+
+    private ConcurrentNavigableMap<Long, PendingCommit> pendingBySequence = new ConcurrentSkipListMap<>();
+    private Map<UUID, PendingCommit> pendingById = new ConcurrentHashMap<>();
+    private Set<UUID> failedCommitIds = Collections.newSetFromMap(new ConcurrentHashMap<UUID, Boolean>());
+    private volatile int failedCommitCount;
+    private volatile long indexedTimestamp;
+
+    public FileIndexCommitQueue(IndexEngine indexEngine, String directory, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker is required, was " + workers);
+        }
+        this.indexEngine = indexEngine;
+        this.serializer = new IndexCommitSerializer(getClass().getClassLoader());
+
+        File file = new File(directory);
+        if (!file.isAbsolute()) {
+            file = new File(System.getProperty("karaf.data"), directory);
+        }
+        this.directory = file;
+
+        this.workers = new ScheduledThreadPoolExecutor(workers, new ThreadFactoryBuilder()
+            .setNameFormat("edbi-index-%d").setDaemon(true).build());
+        // pending retries are dropped on shutdown, their commits are replayed from the journal on the next startup
+        this.workers.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Creates the journal directory, stalls the model classes of commits that failed before and replays all commits
+     * that were journaled but not indexed before the last shutdown.
+     * 
+     * @throws IOException if the journal directory can not be created
+     */
+    public synchronized void init() throws IOException {
+        Files.createDirectories(directory.toPath());
+        LOG.info("Journaling index commits in {}", directory.getAbsolutePath());
+
+        File timestampFile = new File(directory, INDEXED_TIMESTAMP_FILE);
+        if (timestampFile.exists()) {
+            try {
+                indexedTimestamp = Long.parseLong(new String(Files.readAllBytes(timestampFile.toPath()), "UTF-8"));
+            } catch (IOException | NumberFormatException e) {
+                LOG.warn("Unable to read the indexed commit timestamp", e);
+            }
+            // a crash must not leave a stale timestamp behind, it is written again on shutdown
+            Files.delete(timestampFile.toPath());
+        }
+
+        for (File file : listFiles(FAILED_FILE_PATTERN)) {
+            long sequence = getSequence(file, FAILED_FILE_PATTERN);
+            nextSequence.set(Math.max(nextSequence.get(), sequence + 1));
+            addFailedCommit(getCommitId(file, FAILED_FILE_PATTERN));
+
+            try {
+                PendingCommit failed = new PendingCommit(sequence, serializer.read(file), file, file.lastModified());
+                failed.completed = true;
+                failed.failed = true;
+                for (String modelClass : failed.modelClasses) {
+                    lastByModelClass.put(modelClass, failed);
+                }
+                LOG.warn("Index commit {} failed before, its model classes {} are stalled", failed.commit
+                    .getCommitId(), failed.modelClasses);
+            } catch (IOException e) {
+                LOG.error("Unable to read failed index commit " + file.getName(), e);
+            }
+        }
+
+        for (File file : listFiles(JOURNAL_FILE_PATTERN)) {
+            long sequence = getSequence(file, JOURNAL_FILE_PATTERN);
+            nextSequence.set(Math.max(nextSequence.get(), sequence + 1));
+
+            IndexCommit commit;
+            try {
+                commit = serializer.read(file);
+            } catch (IOException e) {
+                LOG.error("Unable to replay journaled index commit " + file.getName(), e);
+                markFailed(file);
+                addFailedCommit(getCommitId(file, JOURNAL_FILE_PATTERN));
+                continue;
+            }
+
+            LOG.info("Replaying journaled index commit {}", commit.getCommitId());
+            schedule(new PendingCommit(sequence, commit, file, file.lastModified()));
+        }
+
+        nextScheduledSequence = nextSequence.get();
+    }
+
+    /**
+     * Stops the workers. Commits that were not indexed until then remain in the journal and are replayed on the next
+     * startup.
+     */
+    public void destroy() {
+        workers.shutdown();
+        try {
+            workers.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdownNow();
+
+        if (indexedTimestamp > 0) {
+            try {
+                Files.write(new File(directory, INDEXED_TIMESTAMP_FILE).toPath(),
+                    Long.toString(indexedTimestamp).getBytes("UTF-8"));
+            } catch (IOException e) {
+                LOG.warn("Unable to store the indexed commit timestamp", e);
+            }
+        }
+    }
+
+    @Override
+    public void enqueue(IndexCommit commit) throws EDBIndexException {
+        long sequence = nextSequence.getAndIncrement();
+        File file = new File(directory, String.format("%019d-%s.json", sequence, commit.getCommitId()));
+
+        try {
+            write(commit, file);
+        } catch (IOException e) {
+            release(sequence, null);
+            throw new EDBIndexException("Unable to journal index commit " + commit.getCommitId(), e);
+        }
+
+        LOG.debug("Enqueued index commit {} as {}", commit.getCommitId(), file.getName());
+        release(sequence, new PendingCommit(sequence, commit, file, System.currentTimeMillis()));
+    }
+
+    @Override
+    public int getPendingCommitCount() {
+        return pendingBySequence.size();
+    }
+
+    @Override
+    public long getLag() {
+        Map.Entry<Long, PendingCommit> oldest = pendingBySequence.firstEntry();
+        if (oldest == null) {
+            return 0;
+        }
+        return Math.max(0, System.currentTimeMillis() - oldest.getValue().enqueued);
+    }
+
+    @Override
+    public int getFailedCommitCount() {
+        return failedCommitCount;
+    }
+
+    @Override
+    public long getIndexedTimestamp() {
+        return indexedTimestamp;
+    }
+
+    @Override
+    public boolean awaitIndexed(UUID commitId, long timeout, TimeUnit unit) throws InterruptedException {
+        PendingCommit target = pendingById.get(commitId);
+        if (target == null) {
+            return !failedCommitIds.contains(commitId);
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (PendingCommit pending : pendingBySequence.headMap(target.sequence, true).values()) {
+            long remaining = deadline - System.nanoTime();
+            if (!pending.done.await(remaining, TimeUnit.NANOSECONDS) || pending.failed) {
+                return false;
+            }
+        }
+        return !target.failed;
+    }
+
+    /**
+     * Writes the journal file of the given commit and forces it to disk. The commit is written to a temporary file
+     * first, so a crash never leaves a partially written journal file behind.
+     */
+    private void write(IndexCommit commit, File file) throws IOException {
+        File temp = new File(directory, file.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            serializer.write(commit, out);
+            out.getChannel().force(true);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // some platforms (e.g. Windows) can not open directories, the rename is flushed by the file system then
+            LOG.trace("Unable to force journal directory to disk", e);
+        }
+    }
+
+    /**
+     * Hands the commit with the given sequence number over to {@link #schedule(PendingCommit)} once all commits with a
+     * lower sequence number were handed over, so commits are scheduled in the order they were enqueued even though
+     * their journal files are written concurrently.
+     */
+    private synchronized void release(long sequence, PendingCommit pending) {
+        if (pending != null) {
+            register(pending);
+        }
+        journaled.put(sequence, pending);
+        while (journaled.containsKey(nextScheduledSequence)) {
+            PendingCommit next = journaled.remove(nextScheduledSequence++);
+            if (next != null) {
+                schedule(next);
+            }
+        }
+    }
+
+    /**
+     * Registers the given commit and submits it to the workers as soon as all previously scheduled commits that touch
+     * one of its model classes are indexed. Fails the commit right away if one of its model classes is stalled.
+     */
+    private synchronized void schedule(PendingCommit pending) {
+        register(pending);
+
+        PendingCommit failedPredecessor = null;
+        for (String modelClass : pending.modelClasses) {
+            PendingCommit predecessor = lastByModelClass.put(modelClass, pending);
+            if (predecessor == null) {
+                continue;
+            }
+            if (predecessor.failed) {
+                failedPredecessor = predecessor;
+            } else if (!predecessor.completed) {
+                predecessor.dependents.add(pending);
+                pending.blockers++;
+            }
+        }
+
+        if (failedPredecessor != null) {
+            LOG.error("Not indexing commit {} since its model classes are stalled by the failed commit {}",
+                pending.commit.getCommitId(), failedPredecessor.commit.getCommitId());
+            complete(pending, false);
+        } else if (pending.modelClasses.isEmpty()) {
+            complete(pending, true);
+        } else if (pending.blockers == 0) {
+            submit(pending, 0);
+        }
+    }
+
+    private void register(PendingCommit pending) {
+        pendingBySequence.put(pending.sequence, pending);
+        if (pending.commit.getCommitId() != null) {
+            pendingById.put(pending.commit.getCommitId(), pending);
+        }
+    }
+
+    private void submit(final PendingCommit pending, long delay) {
+        try {
+            workers.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    index(pending);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Queue is stopped, commit {} stays in the journal", pending.commit.getCommitId());
+        }
+    }
+
+    private void index(PendingCommit pending) {
+        try {
+            indexEngine.commit(pending.commit);
+        } catch (RuntimeException e) {
+            int attempt = ++pending.attempts;
+            if (attempt < maxAttempts) {
+                long delay = Math.min(maxRetryDelay, retryDelay << Math.min(attempt - 1, 30));
+                LOG.warn(String.format("Unable to index commit %s (attempt %d of %d), retrying in %d ms",
+                    pending.commit.getCommitId(), attempt, maxAttempts, delay), e);
+                submit(pending, delay);
+            } else {
+                LOG.error(String.format("Unable to index commit %s after %d attempts, stalling its model classes %s",
+                    pending.commit.getCommitId(), attempt, pending.modelClasses), e);
+                complete(pending, false);
+            }
+            return;
+        }
+        complete(pending, true);
+    }
+
+    /**
+     * Completes the given commit and submits the commits waiting for it. If the commit failed, the commits waiting for
+     * it fail as well.
+     */
+    private synchronized void complete(PendingCommit commit, boolean indexed) {
+        Deque<PendingCommit> failed = new ArrayDeque<>();
+        if (indexed) {
+            finish(commit, true);
+        } else {
+            failed.add(commit);
+        }
+
+        while (!failed.isEmpty()) {
+            PendingCommit pending = failed.poll();
+            if (pending.completed) {
+                continue;
+            }
+            finish(pending, false);
+            for (PendingCommit dependent : pending.dependents) {
+                if (!dependent.completed) {
+                    LOG.error("Not indexing commit {} since it depends on the failed commit {}",
+                        dependent.commit.getCommitId(), pending.commit.getCommitId());
+                    failed.add(dependent);
+                }
+            }
+        }
+    }
+
+    private void finish(PendingCommit pending, boolean indexed) {
+        pending.completed = true;
+        pending.failed = !indexed;
+
+        if (indexed) {
+            if (pending.commit.getTimestamp() != null) {
+                indexedTimestamp = Math.max(indexedTimestamp, pending.commit.getTimestamp().getTime());
+            }
+            if (!pending.file.delete()) {
+                LOG.warn("Unable to remove journal file {}", pending.file);
+            }
+            for (String modelClass : pending.modelClasses) {
+                if (lastByModelClass.get(modelClass) == pending) {
+                    lastByModelClass.remove(modelClass);
+                }
+            }
+            for (PendingCommit dependent : pending.dependents) {
+                if (!dependent.completed && --dependent.blockers == 0) {
+                    submit(dependent, 0);
+                }
+            }
+        } else {
+            markFailed(pending.file);
+            addFailedCommit(pending.commit.getCommitId());
+        }
+
+        if (pending.commit.getCommitId() != null) {
+            pendingById.remove(pending.commit.getCommitId());
+        }
+        pendingBySequence.remove(pending.sequence);
+        pending.done.countDown();
+    }
+
+    private synchronized void addFailedCommit(UUID commitId) {
+        if (commitId != null) {
+            failedCommitIds.add(commitId);
+        }
+        failedCommitCount++;
+    }
+
+    private File[] listFiles(final Pattern pattern) {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return pattern.matcher(name).matches();
+            }
+        });
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return Long.compare(getSequence(o1, pattern), getSequence(o2, pattern));
+            }
+        });
+        return files;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public void setRetryDelay(long retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    public void setMaxRetryDelay(long maxRetryDelay) {
+        this.maxRetryDelay = maxRetryDelay;
+    }
+
+    private static void markFailed(File file) {
+        File failed = new File(file.getParentFile(), file.getName() + ".failed");
+        if (!file.renameTo(failed)) {
+            LOG.warn("Unable to mark journal file {} as failed", file);
+        }
+    }
+
+    private static long getSequence(File file, Pattern pattern) {
+        Matcher matcher = pattern.matcher(file.getName());
+        matcher.matches();
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static UUID getCommitId(File file, Pattern pattern) {
+        Matcher matcher = pattern.matcher(file.getName());
+        matcher.matches();
+        try {
+            return UUID.fromString(matcher.group(2));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A journaled commit that has not yet been indexed. The scheduling state is guarded by the queue.
+     */
+    private static class PendingCommit {
+        private final long sequence;
+        private final IndexCommit commit;
+        private final File file;
+        private final long enqueued;
+        private final Set<String> modelClasses = new HashSet<>();
+
+        private final List<PendingCommit> dependents = new ArrayList<>();
+        private int blockers;
+        private boolean completed;
+        private volatile int attempts;
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean failed;
+
+        PendingCommit(long sequence, IndexCommit commit, File file, long enqueued) {
+            this.sequence = sequence;
+            this.commit = commit;
+            this.file = file;
+            this.enqueued = enqueued;
+
+            if (commit.getModelClasses() != null) {
+                for (Class<?> modelClass : commit.getModelClasses()) {
+                    modelClasses.add(modelClass.getName());
+                }
+            }
+        }
+    }
+}
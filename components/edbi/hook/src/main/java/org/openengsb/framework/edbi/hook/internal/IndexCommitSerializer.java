@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.framework.edbi.hook.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.openengsb.core.api.model.OpenEngSBModel;
+import org.openengsb.core.edbi.api.IndexCommit;
+import org.openengsb.core.util.JsonUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Writes IndexCommits to and reads them from JSON files. Every model is stored together with the name of its class,
+ * which is loaded again through the given ClassLoader when the commit is read.
+ */
+public class IndexCommitSerializer {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private ClassLoader classLoader;
+
+    public IndexCommitSerializer(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Writes the given commit as JSON into the given file.
+     * 
+     * @param commit the commit to write
+     * @param file the target file
+     * @throws IOException if the file could not be written
+     */
+    public void write(IndexCommit commit, File file) throws IOException {
+        MAPPER.writeValue(file, toJson(commit));
+    }
+
+    /**
+     * Writes the given commit as JSON to the given stream. The stream is not closed.
+     * 
+     * @param commit the commit to write
+     * @param out the target stream
+     * @throws IOException if the commit could not be written
+     */
+    public void write(IndexCommit commit, OutputStream out) throws IOException {
+        out.write(MAPPER.writeValueAsBytes(toJson(commit)));
+    }
+
+    private ObjectNode toJson(IndexCommit commit) {
+        ObjectNode node = MAPPER.createObjectNode();
+
+        node.put("commitId", toString(commit.getCommitId()));
+        node.put("parentCommitId", toString(commit.getParentCommitId()));
+        if (commit.getTimestamp() != null) {
+            node.put("timestamp", commit.getTimestamp().getTime());
+        }
+        node.put("user", commit.getUser());
+        node.put("contextId", commit.getContextId());
+        node.put("connectorId", commit.getConnectorId());
+        node.put("domainId", commit.getDomainId());
+        node.put("instanceId", commit.getInstanceId());
+
+        node.put("inserts", writeModels(commit.getInserts()));
+        node.put("updates", writeModels(commit.getUpdates()));
+        node.put("deletes", writeModels(commit.getDeletes()));
+
+        return node;
+    }
+
+    /**
+     * Reads a commit previously written by {@link #write(IndexCommit, File)} from the given file.
+     * 
+     * @param file the file to read
+     * @return the commit
+     * @throws IOException if the file could not be read or a model class could not be loaded
+     */
+    public IndexCommit read(File file) throws IOException {
+        JsonNode node = MAPPER.readTree(file);
+        IndexCommit commit = new IndexCommit();
+
+        commit.setCommitId(toUUID(node.get("commitId")));
+        commit.setParentCommitId(toUUID(node.get("parentCommitId")));
+        if (node.hasNonNull("timestamp")) {
+            commit.setTimestamp(new Date(node.get("timestamp").asLong()));
+        }
+        commit.setUser(toText(node.get("user")));
+        commit.setContextId(toText(node.get("contextId")));
+        commit.setConnectorId(toText(node.get("connectorId")));
+        commit.setDomainId(toText(node.get("domainId")));
+        commit.setInstanceId(toText(node.get("instanceId")));
+
+        Set<Class<?>> modelClasses = new HashSet<>();
+        commit.setInserts(readModels(node.get("inserts"), modelClasses));
+        commit.setUpdates(readModels(node.get("updates"), modelClasses));
+        commit.setDeletes(readModels(node.get("deletes"), modelClasses));
+        commit.setModelClasses(modelClasses);
+
+        return commit;
+    }
+
+    private ArrayNode writeModels(Map<Class<?>, List<OpenEngSBModel>> models) {
+        ArrayNode array = MAPPER.createArrayNode();
+        if (models == null) {
+            return array;
+        }
+        for (Map.Entry<Class<?>, List<OpenEngSBModel>> entry : models.entrySet()) {
+            for (OpenEngSBModel model : entry.getValue()) {
+                ObjectNode modelNode = array.addObject();
+                modelNode.put("type", entry.getKey().getName());
+                modelNode.put("model", MAPPER.valueToTree(model));
+            }
+        }
+        return array;
+    }
+
+    private Map<Class<?>, List<OpenEngSBModel>> readModels(JsonNode array, Set<Class<?>> modelClasses)
+        throws IOException {
+        Map<Class<?>, List<OpenEngSBModel>> models = new HashMap<>();
+        if (array == null) {
+            return models;
+        }
+        for (JsonNode modelNode : array) {
+            Class<?> type = loadClass(modelNode.get("type").asText());
+            OpenEngSBModel model = (OpenEngSBModel) JsonUtils.convertObject(modelNode.get("model").toString(), type);
+
+            if (!models.containsKey(type)) {
+                models.put(type, new ArrayList<OpenEngSBModel>());
+            }
+            models.get(type).add(model);
+            modelClasses.add(type);
+        }
+        return models;
+    }
+
+    private Class<?> loadClass(String name) throws IOException {
+        try {
+            return classLoader.loadClass(name);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unable to load model class " + name, e);
+        }
+    }
+
+    private static String toString(UUID uuid) {
+        return uuid == null ? null : uuid.toString();
+    }
+
+    private static UUID toUUID(JsonNode node) {
+        return node == null || node.isNull() ? null : UUID.fromString(node.asText());
+    }
+
+    private static String toText(JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+}
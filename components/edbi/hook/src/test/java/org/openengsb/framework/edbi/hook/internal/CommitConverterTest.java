@@ -17,12 +17,12 @@
 package org.openengsb.framework.edbi.hook.internal;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -64,6 +64,7 @@ public class CommitConverterTest {
         commit.setDomainId("testDomain");
         commit.setInstanceId("testInstance");
         commit.setRevisionNumber(UUID.fromString("550e8400-e29b-41d4-a716-446655440000"));
+        commit.setTimestamp(1234L);
 
         OpenEngSBModel insert1 = new TestModelA();
         OpenEngSBModel insert2 = new TestModelA();
@@ -87,7 +88,7 @@ public class CommitConverterTest {
         assertEquals("testDomain", convertedCommit.getDomainId());
         assertEquals("testInstance", convertedCommit.getInstanceId());
         assertEquals("550e8400-e29b-41d4-a716-446655440000", convertedCommit.getCommitId().toString());
-        assertNotNull(convertedCommit.getTimestamp());
+        assertEquals(new Date(1234L), convertedCommit.getTimestamp());
 
         assertEquals("testContext", convertedCommit.getContextId());
         assertEquals("testUser", convertedCommit.getUser());
@@ -0,0 +1,238 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.framework.edbi.hook.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openengsb.core.api.model.OpenEngSBModel;
+import org.openengsb.core.edbi.api.EDBIndexException;
+import org.openengsb.core.edbi.api.IndexCommit;
+import org.openengsb.core.edbi.api.IndexEngine;
+import org.openengsb.framework.edbi.hook.models.TestModelA;
+import org.openengsb.framework.edbi.hook.models.TestModelB;
+
+public class FileIndexCommitQueueTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private IndexEngine indexEngine;
+    private FileIndexCommitQueue queue;
+
+    @Before
+    public void setUp() throws Exception {
+        indexEngine = mock(IndexEngine.class);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (queue != null) {
+            queue.destroy();
+        }
+    }
+
+    @Test
+    public void enqueue_indexesCommitAsWhole() throws Exception {
+        queue = createQueue();
+        IndexCommit commit = createCommit(new TestModelA("a", "a"), new TestModelB("b", "b"));
+
+        queue.enqueue(commit);
+
+        assertTrue(queue.awaitIndexed(commit.getCommitId(), 10, TimeUnit.SECONDS));
+        verify(indexEngine, times(1)).commit(commit);
+        assertEquals(0, queue.getPendingCommitCount());
+        assertEquals(0, queue.getFailedCommitCount());
+        assertEquals(0, queue.getLag());
+        assertEquals(0, folder.getRoot().listFiles().length);
+    }
+
+    @Test
+    public void enqueue_commitsOfSameModelClass_areIndexedInOrder() throws Exception {
+        final IndexCommit first = createCommit(new TestModelA("a", "first"));
+        final IndexCommit other = createCommit(new TestModelB("b", "other"));
+        IndexCommit second = createCommit(new TestModelA("a", "second"), new TestModelB("b", "second"));
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch otherIndexed = new CountDownLatch(1);
+        final List<UUID> indexed = Collections.synchronizedList(new ArrayList<UUID>());
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                IndexCommit commit = (IndexCommit) invocation.getArguments()[0];
+                if (commit == first) {
+                    release.await();
+                }
+                indexed.add(commit.getCommitId());
+                if (commit == other) {
+                    otherIndexed.countDown();
+                }
+                return null;
+            }
+        }).when(indexEngine).commit(any(IndexCommit.class));
+        queue = createQueue();
+
+        queue.enqueue(first);
+        queue.enqueue(other);
+        queue.enqueue(second);
+
+        assertTrue(otherIndexed.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(other.getCommitId()), indexed);
+
+        release.countDown();
+
+        assertTrue(queue.awaitIndexed(second.getCommitId(), 10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(other.getCommitId(), first.getCommitId(), second.getCommitId()), indexed);
+    }
+
+    @Test
+    public void init_replaysJournaledCommits() throws Exception {
+        IndexCommit commit = createCommit(new TestModelA("a", "journaled"));
+        new IndexCommitSerializer(getClass().getClassLoader())
+            .write(commit, new File(folder.getRoot(), "0000000000000000042-" + commit.getCommitId() + ".json"));
+
+        queue = createQueue();
+
+        assertTrue(queue.awaitIndexed(commit.getCommitId(), 10, TimeUnit.SECONDS));
+        ArgumentCaptor<IndexCommit> captor = ArgumentCaptor.forClass(IndexCommit.class);
+        verify(indexEngine).commit(captor.capture());
+
+        IndexCommit replayed = captor.getValue();
+        assertEquals(commit.getCommitId(), replayed.getCommitId());
+        assertEquals(commit.getTimestamp(), replayed.getTimestamp());
+        assertEquals("testUser", replayed.getUser());
+        OpenEngSBModel model = replayed.getInserts().get(TestModelA.class).get(0);
+        assertEquals("a", model.retrieveInternalModelId());
+        assertEquals("journaled", ((TestModelA) (Object) model).getName());
+        assertEquals(0, folder.getRoot().listFiles().length);
+    }
+
+    @Test
+    public void enqueue_temporarilyFailingCommit_isRetried() throws Exception {
+        doThrow(new EDBIndexException("test")).doNothing().when(indexEngine).commit(any(IndexCommit.class));
+        queue = createQueue();
+        IndexCommit commit = createCommit(new TestModelA("a", "a"));
+
+        queue.enqueue(commit);
+
+        assertTrue(queue.awaitIndexed(commit.getCommitId(), 10, TimeUnit.SECONDS));
+        verify(indexEngine, times(2)).commit(commit);
+        assertEquals(0, queue.getFailedCommitCount());
+        assertEquals(0, folder.getRoot().listFiles().length);
+    }
+
+    @Test
+    public void enqueue_failingCommit_stallsItsModelClasses() throws Exception {
+        IndexCommit failing = createCommit(new TestModelA("a", "failing"));
+        IndexCommit later = createCommit(new TestModelA("a", "later"));
+        IndexCommit unrelated = createCommit(new TestModelB("b", "unrelated"));
+        doThrow(new EDBIndexException("test")).when(indexEngine).commit(failing);
+        queue = createQueue();
+
+        queue.enqueue(failing);
+        assertFalse(queue.awaitIndexed(failing.getCommitId(), 10, TimeUnit.SECONDS));
+        queue.enqueue(later);
+        queue.enqueue(unrelated);
+
+        assertFalse(queue.awaitIndexed(later.getCommitId(), 10, TimeUnit.SECONDS));
+        assertTrue(queue.awaitIndexed(unrelated.getCommitId(), 10, TimeUnit.SECONDS));
+        verify(indexEngine, times(3)).commit(failing);
+        verify(indexEngine, never()).commit(later);
+        verify(indexEngine).commit(unrelated);
+        assertEquals(2, queue.getFailedCommitCount());
+
+        File[] files = folder.getRoot().listFiles();
+        assertEquals(2, files.length);
+        for (File file : files) {
+            assertTrue(file.getName().endsWith(".json.failed"));
+        }
+    }
+
+    @Test
+    public void init_withFailedJournalFile_keepsModelClassStalled() throws Exception {
+        IndexCommit failed = createCommit(new TestModelA("a", "failed"));
+        new IndexCommitSerializer(getClass().getClassLoader()).write(failed,
+            new File(folder.getRoot(), "0000000000000000007-" + failed.getCommitId() + ".json.failed"));
+        doNothing().when(indexEngine).commit(any(IndexCommit.class));
+
+        queue = createQueue();
+        IndexCommit later = createCommit(new TestModelA("a", "later"));
+        queue.enqueue(later);
+
+        assertFalse(queue.awaitIndexed(failed.getCommitId(), 10, TimeUnit.SECONDS));
+        assertFalse(queue.awaitIndexed(later.getCommitId(), 10, TimeUnit.SECONDS));
+        verify(indexEngine, never()).commit(any(IndexCommit.class));
+        assertEquals(2, queue.getFailedCommitCount());
+        assertTrue(new File(folder.getRoot(), "0000000000000000008-" + later.getCommitId() + ".json.failed").exists());
+    }
+
+    private FileIndexCommitQueue createQueue() throws Exception {
+        FileIndexCommitQueue result = new FileIndexCommitQueue(indexEngine, folder.getRoot().getAbsolutePath(), 2);
+        result.setMaxAttempts(3);
+        result.setRetryDelay(1);
+        result.init();
+        return result;
+    }
+
+    private IndexCommit createCommit(Object... inserts) {
+        IndexCommit commit = new IndexCommit();
+        commit.setCommitId(UUID.randomUUID());
+        commit.setTimestamp(new Date());
+        commit.setUser("testUser");
+        commit.setContextId("testContext");
+
+        Map<Class<?>, List<OpenEngSBModel>> insertMap = new HashMap<>();
+        for (Object model : inserts) {
+            insertMap.put(model.getClass(), new ArrayList<>(Arrays.asList((OpenEngSBModel) model)));
+        }
+        commit.setModelClasses(new HashSet<>(insertMap.keySet()));
+        commit.setInserts(insertMap);
+        commit.setUpdates(new HashMap<Class<?>, List<OpenEngSBModel>>());
+        commit.setDeletes(new HashMap<Class<?>, List<OpenEngSBModel>>());
+        return commit;
+    }
+}
@@ -16,10 +16,15 @@
  */
 package org.openengsb.core.edbi.jdbc;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.sql.DataSource;
 
@@ -32,6 +37,7 @@ import org.openengsb.core.edbi.jdbc.api.TableEngine;
 import org.openengsb.core.edbi.jdbc.api.TableExistsException;
 import org.openengsb.core.edbi.jdbc.api.TableFactory;
 import org.openengsb.core.edbi.jdbc.api.TypeMap;
+import org.openengsb.core.edbi.jdbc.driver.Driver;
 import org.openengsb.core.edbi.jdbc.operation.DeleteOperation;
 import org.openengsb.core.edbi.jdbc.operation.IndexOperation;
 import org.openengsb.core.edbi.jdbc.operation.InsertOperation;
@@ -42,6 +48,7 @@ import org.openengsb.core.edbi.jdbc.sql.Table;
 import org.openengsb.core.edbi.jdbc.sql.TableElementCompiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
 
 /**
  * AbstractTableEngine
@@ -50,12 +57,22 @@ public abstract class AbstractTableEngine extends JdbcService implements TableEn
 
     private static final Logger LOG = LoggerFactory.getLogger(AbstractTableEngine.class);
 
+    private static final String[] TABLE_TYPES = { "TABLE" };
+
     private TypeMap typeMap;
     private NameTranslator<Index<?>> tableNameTranslator;
     private NameTranslator<IndexField<?>> columnNameTranslator;
 
+    private Driver driver;
+
     private Map<JdbcIndex<?>, Table> registry;
 
+    /**
+     * Names of tables that are known to exist, either because they were created by this engine or because they were
+     * found in the database meta data.
+     */
+    private Set<String> knownTables;
+
     protected AbstractTableEngine(DataSource dataSource, TypeMap typeMap, NameTranslator<Index<?>> tableNameTranslator,
             NameTranslator<IndexField<?>> columnNameTranslator) {
         super(dataSource);
@@ -64,7 +81,8 @@ public abstract class AbstractTableEngine extends JdbcService implements TableEn
         this.tableNameTranslator = tableNameTranslator;
         this.columnNameTranslator = columnNameTranslator;
 
-        this.registry = new HashMap<>();
+        this.registry = new ConcurrentHashMap<>();
+        this.knownTables = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     }
 
     @Override
@@ -74,8 +92,16 @@ public abstract class AbstractTableEngine extends JdbcService implements TableEn
         }
         String tableName = getTableNameTranslator().translate(index);
 
-        // TODO: sql independence
-        return count("`INFORMATION_SCHEMA`.`TABLES`", "TABLE_SCHEMA = 'PUBLIC' AND TABLE_NAME = ?", tableName) > 0;
+        if (knownTables.contains(tableName)) {
+            return true;
+        }
+
+        if (existsInMetaData(tableName)) {
+            knownTables.add(tableName);
+            return true;
+        }
+
+        return false;
     }
 
     @Override
@@ -102,14 +128,19 @@ public abstract class AbstractTableEngine extends JdbcService implements TableEn
             throw new TableExistsException("Table for index " + index.getName() + " exists");
         }
 
-        // TODO: sql independence
-        String sql =
-            String.format("CREATE TABLE `%s` ( %s );", table.getName(), new TableElementCompiler(table).toSql());
+        TableElementCompiler compiler = createTableElementCompiler(table);
+        String sql = String.format("CREATE TABLE \"%s\" ( %s )", table.getName(), compiler.toSql());
 
         LOG.info("Creating table for Index {}. SQL is: {}", index.getName(), sql);
 
         jdbc().execute(sql);
 
+        for (String indexSql : compiler.compileIndexes()) {
+            LOG.info("Creating secondary index for Index {}. SQL is: {}", index.getName(), indexSql);
+            jdbc().execute(indexSql);
+        }
+
+        knownTables.add(table.getName());
         registry.put(index, table);
 
         return table;
@@ -127,7 +158,8 @@ public abstract class AbstractTableEngine extends JdbcService implements TableEn
             throw new NoSuchTableException("Table name for index " + index + " could not be resolved. Can not drop.");
         }
 
-        jdbc().update("DROP TABLE " + tableName);
+        jdbc().update("DROP TABLE \"" + tableName + "\"");
+        knownTables.remove(tableName);
         registry.remove(index);
     }
 
@@ -180,12 +212,54 @@ public abstract class AbstractTableEngine extends JdbcService implements TableEn
         return records;
     }
 
+    /**
+     * Looks up the table with the given name in the meta data of the database.
+     * 
+     * @param tableName the exact name of the table
+     * @return true if the table exists
+     */
+    protected boolean existsInMetaData(final String tableName) {
+        return jdbc().execute(new ConnectionCallback<Boolean>() {
+            @Override
+            public Boolean doInConnection(Connection connection) throws SQLException {
+                // the name is a search pattern, where '_' matches any character
+                try (ResultSet tables = connection.getMetaData().getTables(null, null, tableName, TABLE_TYPES)) {
+                    while (tables.next()) {
+                        if (tableName.equals(tables.getString("TABLE_NAME"))) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Creates the compiler for the table-element definitions of the given table, in the dialect of the driver if one
+     * is set.
+     * 
+     * @param table the table to compile
+     * @return a new compiler
+     */
+    protected TableElementCompiler createTableElementCompiler(Table table) {
+        return (driver != null) ? driver.createTableElementCompiler(table) : new TableElementCompiler(table);
+    }
+
     protected abstract TableFactory getTableFactory();
 
     protected Map<JdbcIndex<?>, Table> getRegistry() {
         return registry;
     }
 
+    public Driver getDriver() {
+        return driver;
+    }
+
+    public void setDriver(Driver driver) {
+        this.driver = driver;
+    }
+
     public TypeMap getTypeMap() {
         return typeMap;
     }
@@ -27,6 +27,7 @@ import org.openengsb.core.edbi.jdbc.api.TypeMap;
 import org.openengsb.core.edbi.jdbc.sql.Column;
 import org.openengsb.core.edbi.jdbc.sql.DataType;
 import org.openengsb.core.edbi.jdbc.sql.Table;
+import org.openengsb.core.edbi.jdbc.sql.TableIndex;
 import org.openengsb.core.edbi.jdbc.util.Introspector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -80,6 +81,7 @@ public abstract class AbstractTableFactory implements TableFactory {
                 Column column = new Column(getColumnNameTranslator().translate(field), type);
 
                 table.addElement(column);
+                visitIndexedField(table, column, field);
                 onAfterFieldVisit(table, column, field);
             }
         });
@@ -118,10 +120,41 @@ public abstract class AbstractTableFactory implements TableFactory {
 
         Column column = new Column(getColumnNameTranslator().translate(field), type);
         table.addElement(column); // will hold the models OID
+        visitIndexedField(table, column, field);
 
         onAfterFieldVisit(table, column, field);
     }
 
+    private void visitIndexedField(Table table, Column column, IndexField<?> field) {
+        if (field instanceof JdbcIndexField && ((JdbcIndexField<?>) field).isIndexed()) {
+            onIndexedFieldVisit(table, column, (JdbcIndexField<?>) field);
+        }
+    }
+
+    /**
+     * Called for fields that are annotated with {@code @Indexed}, directly after their column was added to the table.
+     * Adds a secondary index on the column, which is unique if the field is.
+     * 
+     * @param table the table being created
+     * @param column the column that was created based on the field name
+     * @param field the field being visited
+     */
+    protected void onIndexedFieldVisit(Table table, Column column, JdbcIndexField<?> field) {
+        table.addIndex(new TableIndex(getIndexName(table, column), field.isUnique(), column.getName()));
+    }
+
+    /**
+     * Returns the name of the secondary index on the given column. As index names are unique within the whole schema,
+     * the name contains the table name.
+     * 
+     * @param table the table being created
+     * @param column the indexed column
+     * @return an index name
+     */
+    protected String getIndexName(Table table, Column column) {
+        return "IDX_" + table.getName() + "_" + column.getName();
+    }
+
     /**
      * Called directly after the (empty) Table object was instantiated.
      * 
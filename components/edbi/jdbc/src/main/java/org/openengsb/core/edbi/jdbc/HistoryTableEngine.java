@@ -37,8 +37,10 @@ import org.openengsb.core.edbi.jdbc.operation.DeleteOperation;
 import org.openengsb.core.edbi.jdbc.operation.InsertOperation;
 import org.openengsb.core.edbi.jdbc.operation.UpdateOperation;
 import org.openengsb.core.edbi.jdbc.sql.Column;
+import org.openengsb.core.edbi.jdbc.sql.DataType;
 import org.openengsb.core.edbi.jdbc.sql.PrimaryKeyConstraint;
 import org.openengsb.core.edbi.jdbc.sql.Table;
+import org.openengsb.core.edbi.jdbc.sql.TableIndex;
 
 /**
  * Implementation of a TableEngine, that manages the 'history' table of models. It contains a factory for creating those
@@ -73,21 +75,21 @@ public class HistoryTableEngine extends AbstractTableEngine {
 
     @Override
     public void execute(final InsertOperation operation) {
-        execute(operation, new CommitIndexRecordCallback(operation.getCommit(), "INSERT"));
+        execute(operation, new CommitIndexRecordCallback(operation.getCommit(), "INSERT", getCommitIdType()));
     }
 
     @Override
     public void execute(UpdateOperation operation) {
         final InsertOperation insert = new InsertOperation(operation);
 
-        execute(insert, new CommitIndexRecordCallback(insert.getCommit(), "UPDATE"));
+        execute(insert, new CommitIndexRecordCallback(insert.getCommit(), "UPDATE", getCommitIdType()));
     }
 
     @Override
     public void execute(DeleteOperation operation) {
         final InsertOperation insert = new InsertOperation(operation);
 
-        execute(insert, new CommitIndexRecordCallback(insert.getCommit(), "DELETE"));
+        execute(insert, new CommitIndexRecordCallback(insert.getCommit(), "DELETE", getCommitIdType()));
     }
 
     @Override
@@ -95,20 +97,31 @@ public class HistoryTableEngine extends AbstractTableEngine {
         return tableFactory;
     }
 
+    /**
+     * Returns the SQL type the REV_COMMIT column was created with, as the uuid types of some databases don't accept
+     * VARCHAR parameters.
+     */
+    private int getCommitIdType() {
+        DataType type = getTypeMap().getType(UUID.class);
+        return (type == null) ? Types.VARCHAR : type.getType();
+    }
+
     protected static class CommitIndexRecordCallback implements IndexRecordCallback {
         private final String operation;
         private final IndexCommit commit;
+        private final int commitIdType;
 
-        public CommitIndexRecordCallback(IndexCommit commit, String operation) {
+        public CommitIndexRecordCallback(IndexCommit commit, String operation, int commitIdType) {
             this.commit = commit;
             this.operation = operation;
+            this.commitIdType = commitIdType;
         }
 
         @Override
         public void call(IndexRecord record) {
             record.addValue("REV_OPERATION", operation, Types.VARCHAR);
 
-            record.addValue("REV_COMMIT", commit.getCommitId(), Types.VARCHAR);
+            record.addValue("REV_COMMIT", commit.getCommitId(), commitIdType);
             record.addValue("REV_TIMESTAMP", commit.getTimestamp(), Types.TIMESTAMP);
             record.addValue("REV_USER", commit.getUser(), Types.VARCHAR);
             record.addValue("REV_CONTEXTID", commit.getContextId(), Types.VARCHAR);
@@ -151,5 +164,11 @@ public class HistoryTableEngine extends AbstractTableEngine {
 
             index.setHistoryTableName(table.getName());
         }
+
+        @Override
+        protected void onIndexedFieldVisit(Table table, Column column, JdbcIndexField<?> field) {
+            // the history holds every revision of a model, so values are never unique here
+            table.addIndex(new TableIndex(getIndexName(table, column), false, column.getName()));
+        }
     }
 }
@@ -16,11 +16,14 @@
  */
 package org.openengsb.core.edbi.jdbc;
 
+import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.openengsb.core.api.model.annotation.Indexed;
 import org.openengsb.core.edbi.api.ClassNameTranslator;
 import org.openengsb.core.edbi.api.IndexField;
 import org.openengsb.core.edbi.jdbc.util.Introspector;
@@ -78,11 +81,22 @@ public class IndexBuilder {
         properties = Introspector.getPropertyTypeMap(index.getModelClass(), getExcludedProperties());
         fields = new ArrayList<>(properties.size());
 
+        Map<String, Indexed> indexed = new HashMap<>();
+        for (Field field : Introspector.getAnnotatedFields(index.getModelClass(), Indexed.class)) {
+            indexed.put(field.getName(), field.getAnnotation(Indexed.class));
+        }
+
         for (Map.Entry<String, Class<?>> entry : properties.entrySet()) {
             JdbcIndexField field = new JdbcIndexField(index);
             field.setName(entry.getKey());
             field.setType(entry.getValue());
 
+            Indexed annotation = indexed.get(entry.getKey());
+            if (annotation != null) {
+                field.setIndexed(true);
+                field.setUnique(annotation.unique());
+            }
+
             fields.add(field);
         }
 
@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.jdbc;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.commons.lang.ClassUtils;
+import org.openengsb.core.edbi.api.EDBIndexException;
+import org.openengsb.core.edbi.api.IndexField;
+import org.openengsb.core.edbi.jdbc.util.Introspector;
+import org.openengsb.core.util.ModelAccessorPlan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * RowMapper that creates a model instance of an index from a row of its head or history table. Only the fields of the
+ * index that hold a value of the model itself are restored, fields referencing other models are left empty.
+ * 
+ * @param <T> the model type
+ */
+public class IndexModelRowMapper<T> implements RowMapper<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IndexModelRowMapper.class);
+
+    private final Class<T> modelClass;
+    private final Map<String, ModelAccessorPlan.Property> properties;
+
+    public IndexModelRowMapper(JdbcIndex<T> index) {
+        this.modelClass = index.getModelClass();
+        this.properties = new HashMap<>();
+
+        Map<String, ModelAccessorPlan.Property> byName = new HashMap<>();
+        for (ModelAccessorPlan.Property property : ModelAccessorPlan.forClass(modelClass).getProperties()) {
+            byName.put(property.getName(), property);
+        }
+
+        for (IndexField<?> field : index.getFields()) {
+            ModelAccessorPlan.Property property = byName.get(field.getName());
+            if (property != null && !Introspector.isModelClass(property.getParameterType())) {
+                properties.put(field.getMappedName(), property);
+            }
+        }
+    }
+
+    @Override
+    public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        T model;
+        try {
+            model = modelClass.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new EDBIndexException("Unable to instantiate model " + modelClass.getName(), e);
+        }
+
+        for (Map.Entry<String, ModelAccessorPlan.Property> entry : properties.entrySet()) {
+            ModelAccessorPlan.Property property = entry.getValue();
+            Object value = convert(rs.getObject(entry.getKey()), property.getParameterType());
+
+            if (value == null) {
+                continue;
+            }
+            try {
+                property.getSetter().invoke(model, value);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new EDBIndexException("Unable to set property " + property.getName() + " of " + modelClass, e);
+            }
+        }
+
+        return model;
+    }
+
+    /**
+     * Converts a value read by the JDBC driver to the given property type. Returns null if the value is null or can not
+     * be converted.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected Object convert(Object value, Class<?> type) {
+        if (value == null) {
+            return null;
+        }
+
+        Class<?> target = type.isPrimitive() ? ClassUtils.primitiveToWrapper(type) : type;
+
+        if (value instanceof Number && Number.class.isAssignableFrom(target) && !target.isInstance(value)) {
+            Number number = (Number) value;
+            if (target == Integer.class) {
+                return number.intValue();
+            } else if (target == Long.class) {
+                return number.longValue();
+            } else if (target == Short.class) {
+                return number.shortValue();
+            } else if (target == Byte.class) {
+                return number.byteValue();
+            } else if (target == Double.class) {
+                return number.doubleValue();
+            } else if (target == Float.class) {
+                return number.floatValue();
+            }
+        } else if (target == Date.class && value instanceof Date) {
+            return new Date(((Date) value).getTime());
+        } else if (target == UUID.class && value instanceof String) {
+            return UUID.fromString((String) value);
+        } else if (target.isEnum() && value instanceof String) {
+            return Enum.valueOf((Class<? extends Enum>) target, (String) value);
+        } else if (target.isInstance(value)) {
+            return value;
+        }
+
+        LOG.debug("Can not convert value of type {} to {}", value.getClass(), type);
+        return null;
+    }
+}
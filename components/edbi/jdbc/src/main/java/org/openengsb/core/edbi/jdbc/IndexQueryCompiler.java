@@ -0,0 +1,210 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.jdbc;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.openengsb.core.edbi.api.IndexField;
+import org.openengsb.core.edbi.api.IndexQuery;
+import org.openengsb.core.edbi.jdbc.util.Introspector;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+/**
+ * Compiles an IndexQuery into a SELECT statement with named parameters on the tables of a JdbcIndex. Queries for the
+ * current state read from the head table. History queries select the latest revision of each model (and context) up to
+ * the revision timestamp from the history table and skip models whose latest revision is a deletion.
+ */
+public class IndexQueryCompiler {
+
+    private final IndexQuery<?> query;
+    private final JdbcIndex<?> index;
+
+    private final MapSqlParameterSource parameters;
+
+    public IndexQueryCompiler(IndexQuery<?> query, JdbcIndex<?> index) {
+        this.query = query;
+        this.index = index;
+        this.parameters = new MapSqlParameterSource();
+    }
+
+    /**
+     * Compiles the query into SQL. The parameters referenced in the statement are available through
+     * {@link #getParameters()} afterwards.
+     * 
+     * @param history whether the history table should be queried even if the query has no revision or context
+     * @return the SQL statement
+     * @throws IllegalArgumentException if the query refers to a field that is not part of the index
+     */
+    public String toSql(boolean history) {
+        StringBuilder sql = new StringBuilder(256);
+        StringBuilder where = new StringBuilder();
+
+        if (history || query.isHistoryQuery()) {
+            String table = index.getHistoryTableName();
+            String id = getIdColumn();
+
+            sql.append(String.format("SELECT * FROM \"%s\" t", table));
+
+            where.append(String.format("t.REV_ID = (SELECT MAX(s.REV_ID) FROM \"%s\" s WHERE s.%s = t.%s", table, id,
+                id));
+            where.append(" AND (s.REV_CONTEXTID = t.REV_CONTEXTID");
+            where.append(" OR (s.REV_CONTEXTID IS NULL AND t.REV_CONTEXTID IS NULL))");
+            if (query.getRevision() != null) {
+                where.append(" AND s.REV_TIMESTAMP <= :revision");
+                parameters.addValue("revision", query.getRevision());
+            }
+            where.append(") AND t.REV_OPERATION <> 'DELETE'");
+
+            if (query.getContextId() != null) {
+                where.append(" AND t.REV_CONTEXTID = :contextId");
+                parameters.addValue("contextId", query.getContextId());
+            }
+        } else {
+            sql.append(String.format("SELECT * FROM \"%s\" t", index.getHeadTableName()));
+        }
+
+        List<IndexQuery.Predicate> predicates = query.getPredicates();
+        for (int i = 0; i < predicates.size(); i++) {
+            if (where.length() > 0) {
+                where.append(" AND ");
+            }
+            appendPredicate(where, predicates.get(i), "p" + i);
+        }
+
+        if (where.length() > 0) {
+            sql.append(" WHERE ").append(where);
+        }
+
+        appendOrders(sql);
+
+        if (query.getLimit() >= 0) {
+            sql.append(" LIMIT :limit");
+            parameters.addValue("limit", query.getLimit());
+        }
+        if (query.getOffset() > 0) {
+            if (query.getLimit() < 0) {
+                // most databases only allow OFFSET together with LIMIT
+                sql.append(" LIMIT :limit");
+                parameters.addValue("limit", Integer.MAX_VALUE);
+            }
+            sql.append(" OFFSET :offset");
+            parameters.addValue("offset", query.getOffset());
+        }
+
+        return sql.toString();
+    }
+
+    public MapSqlParameterSource getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Returns the column of the {@code @OpenEngSBModelId} field of the model.
+     * 
+     * @return the mapped name of the id field
+     * @throws IllegalArgumentException if the model has no id field
+     */
+    public String getIdColumn() {
+        String idProperty = Introspector.getOpenEngSBModelIdProperty(index.getModelClass());
+        if (idProperty == null) {
+            throw new IllegalArgumentException("Model of index " + index.getName() + " has no @OpenEngSBModelId");
+        }
+        return getColumn(idProperty);
+    }
+
+    private void appendPredicate(StringBuilder where, IndexQuery.Predicate predicate, String parameter) {
+        String column = "t." + getColumn(predicate.getField());
+        List<Object> values = predicate.getValues();
+
+        switch (predicate.getOperator()) {
+            case EQUAL:
+                appendComparison(where, column, "=", parameter, values);
+                break;
+            case NOT_EQUAL:
+                appendComparison(where, column, "<>", parameter, values);
+                break;
+            case LESS_THAN:
+                appendComparison(where, column, "<", parameter, values);
+                break;
+            case LESS_THAN_OR_EQUAL:
+                appendComparison(where, column, "<=", parameter, values);
+                break;
+            case GREATER_THAN:
+                appendComparison(where, column, ">", parameter, values);
+                break;
+            case GREATER_THAN_OR_EQUAL:
+                appendComparison(where, column, ">=", parameter, values);
+                break;
+            case LIKE:
+                appendComparison(where, column, "LIKE", parameter, values);
+                break;
+            case IN:
+                if (values.isEmpty()) {
+                    where.append("1 = 0");
+                } else {
+                    where.append(column).append(" IN (:").append(parameter).append(")");
+                    parameters.addValue(parameter, values);
+                }
+                break;
+            case BETWEEN:
+                where.append(column).append(" BETWEEN :").append(parameter).append("a AND :").append(parameter)
+                    .append("b");
+                parameters.addValue(parameter + "a", values.get(0));
+                parameters.addValue(parameter + "b", values.get(1));
+                break;
+            case IS_NULL:
+                where.append(column).append(" IS NULL");
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported operator " + predicate.getOperator());
+        }
+    }
+
+    private void appendComparison(StringBuilder where, String column, String operator, String parameter,
+            List<Object> values) {
+        where.append(column).append(' ').append(operator).append(" :").append(parameter);
+        parameters.addValue(parameter, values.get(0));
+    }
+
+    private void appendOrders(StringBuilder sql) {
+        Iterator<IndexQuery.Order> iterator = query.getOrders().iterator();
+        if (!iterator.hasNext()) {
+            return;
+        }
+
+        sql.append(" ORDER BY ");
+        while (iterator.hasNext()) {
+            IndexQuery.Order order = iterator.next();
+            sql.append("t.").append(getColumn(order.getField()));
+            sql.append(order.isAscending() ? " ASC" : " DESC");
+
+            if (iterator.hasNext()) {
+                sql.append(", ");
+            }
+        }
+    }
+
+    private String getColumn(String fieldName) {
+        for (IndexField<?> field : index.getFields()) {
+            if (field.getName().equals(fieldName)) {
+                return field.getMappedName();
+            }
+        }
+        throw new IllegalArgumentException("Index " + index.getName() + " has no field " + fieldName);
+    }
+}
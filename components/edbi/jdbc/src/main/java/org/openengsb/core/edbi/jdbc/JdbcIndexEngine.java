@@ -19,14 +19,17 @@ package org.openengsb.core.edbi.jdbc;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.sql.DataSource;
 
@@ -39,8 +42,11 @@ import org.openengsb.core.edbi.api.IndexEngine;
 import org.openengsb.core.edbi.api.IndexExistsException;
 import org.openengsb.core.edbi.api.IndexField;
 import org.openengsb.core.edbi.api.IndexNotFoundException;
+import org.openengsb.core.edbi.api.IndexQuery;
+import org.openengsb.core.edbi.api.IndexRevision;
 import org.openengsb.core.edbi.jdbc.api.SchemaMapper;
-import org.openengsb.core.edbi.jdbc.driver.h2.SchemaCreateCommand;
+import org.openengsb.core.edbi.jdbc.driver.Driver;
+import org.openengsb.core.edbi.jdbc.driver.SchemaCreateCommand;
 import org.openengsb.core.edbi.jdbc.names.ClassNameIndexTranslator;
 import org.openengsb.core.edbi.jdbc.operation.DeleteOperation;
 import org.openengsb.core.edbi.jdbc.operation.InsertOperation;
@@ -51,6 +57,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 
 /**
  * IndexEngine implementation that uses JDBC as underlying persistence method. Manages Index objects and their
@@ -64,13 +72,19 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
 
     private ClassNameTranslator translator;
     private SchemaMapper schemaMapper;
+    private Driver driver;
 
     public JdbcIndexEngine(DataSource dataSource, SchemaMapper schemaMapper) {
+        this(dataSource, schemaMapper, new org.openengsb.core.edbi.jdbc.driver.h2.Driver(dataSource));
+    }
+
+    public JdbcIndexEngine(DataSource dataSource, SchemaMapper schemaMapper, Driver driver) {
         super(dataSource);
 
         this.translator = new ClassNameIndexTranslator();
-        this.registry = new HashMap<>();
+        this.registry = new ConcurrentHashMap<>();
         this.schemaMapper = schemaMapper;
+        this.driver = driver;
     }
 
     @Override
@@ -151,16 +165,16 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
     }
 
     @Override
-    public void commit(IndexCommit commit) throws EDBIndexException {
-        // TODO: transactional!
+    public void commit(final IndexCommit commit) throws EDBIndexException {
         LOG.info("Committing, id: {}", commit.getCommitId());
 
-        Set<Class<?>> modelClasses = commit.getModelClasses();
+        final Set<Class<?>> modelClasses = commit.getModelClasses();
 
         if (modelClasses == null) {
             throw new IllegalArgumentException("Commit has no model class information");
         }
 
+        // schema changes are not transactional in most databases, so missing indexes are created up front
         LOG.debug("Checking if index exists for classes {}", modelClasses);
         for (Class<?> modelClass : modelClasses) {
             if (!indexExists(modelClass)) {
@@ -169,26 +183,72 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
         }
 
         LOG.debug("Executing operations");
-        for (Class<?> modelClass : modelClasses) {
-            JdbcIndex<?> index = getIndex(modelClass);
+        long start = System.currentTimeMillis();
 
-            List<OpenEngSBModel> inserts = commit.getInserts().get(modelClass);
-            if (!isEmpty(inserts)) {
-                schemaMapper.execute(new InsertOperation(commit, index, inserts));
+        transaction().execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                for (Class<?> modelClass : modelClasses) {
+                    execute(commit, modelClass);
+                }
             }
+        });
 
-            List<OpenEngSBModel> updates = commit.getUpdates().get(modelClass);
-            if (!isEmpty(updates)) {
-                schemaMapper.execute(new UpdateOperation(commit, index, updates));
-            }
+        LOG.debug("Committed {} in {} ms", commit.getCommitId(), System.currentTimeMillis() - start);
+    }
 
-            List<OpenEngSBModel> deletes = commit.getDeletes().get(modelClass);
-            if (!isEmpty(deletes)) {
-                schemaMapper.execute(new DeleteOperation(commit, index, deletes));
-            }
+    private void execute(IndexCommit commit, Class<?> modelClass) {
+        JdbcIndex<?> index = getIndex(modelClass);
+
+        List<OpenEngSBModel> inserts = commit.getInserts().get(modelClass);
+        if (!isEmpty(inserts)) {
+            schemaMapper.execute(new InsertOperation(commit, index, inserts));
+        }
+
+        List<OpenEngSBModel> updates = commit.getUpdates().get(modelClass);
+        if (!isEmpty(updates)) {
+            schemaMapper.execute(new UpdateOperation(commit, index, updates));
+        }
+
+        List<OpenEngSBModel> deletes = commit.getDeletes().get(modelClass);
+        if (!isEmpty(deletes)) {
+            schemaMapper.execute(new DeleteOperation(commit, index, deletes));
         }
     }
 
+    @Override
+    public <T> List<T> query(IndexQuery<T> query) throws IndexNotFoundException {
+        JdbcIndex<T> index = getIndex(query.getIndex().getModelClass());
+
+        IndexQueryCompiler compiler = new IndexQueryCompiler(query, index);
+        String sql = compiler.toSql(false);
+
+        LOG.debug("Querying index {}: {}", index.getName(), sql);
+        return jdbcn().query(sql, compiler.getParameters(), new IndexModelRowMapper<>(index));
+    }
+
+    @Override
+    public List<IndexRevision> queryRevisions(IndexQuery<?> query) throws IndexNotFoundException {
+        JdbcIndex<?> index = getIndex(query.getIndex().getModelClass());
+
+        IndexQueryCompiler compiler = new IndexQueryCompiler(query, index);
+        String sql = compiler.toSql(true);
+        final String idColumn = compiler.getIdColumn();
+
+        LOG.debug("Querying revisions of index {}: {}", index.getName(), sql);
+        return jdbcn().query(sql, compiler.getParameters(), new RowMapper<IndexRevision>() {
+            @Override
+            public IndexRevision mapRow(ResultSet rs, int rowNum) throws SQLException {
+                String commitId = rs.getString("REV_COMMIT");
+                Timestamp timestamp = rs.getTimestamp("REV_TIMESTAMP");
+
+                return new IndexRevision(rs.getObject(idColumn), rs.getString("REV_CONTEXTID"),
+                    commitId == null ? null : UUID.fromString(commitId),
+                    timestamp == null ? null : new Date(timestamp.getTime()), rs.getString("REV_OPERATION"));
+            }
+        });
+    }
+
     @Override
     public List<Index<?>> getAll() {
         List<Index<?>> indexes = new ArrayList<>();
@@ -217,11 +277,11 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
      * Creates the necessary relations to save Index and IndexField instances.
      */
     public void install() {
-        new SchemaCreateCommand(getDataSource()).execute(); // TODO: sql independence
+        new SchemaCreateCommand(getDataSource(), driver.getSchemaResource()).execute();
     }
 
     protected synchronized boolean existsInDb(String name) {
-        return count("INDEX_INFORMATION", "NAME = ?", name) > 0;
+        return count("\"INDEX_INFORMATION\"", "NAME = ?", name) > 0;
     }
 
     /**
@@ -250,7 +310,7 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
             throw new IndexExistsException("Index " + index.getName() + " already exists");
         }
 
-        String sql = "INSERT INTO `INDEX_INFORMATION` VALUES (?, ?, ?, ?)";
+        String sql = "INSERT INTO \"INDEX_INFORMATION\" VALUES (?, ?, ?, ?)";
         Object[] args = new Object[]{
             index.getName(),
             index.getModelClass().getCanonicalName(),
@@ -263,7 +323,7 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
     }
 
     protected void persistFields(final JdbcIndex<?> index) {
-        String sql = "INSERT INTO `INDEX_FIELD_INFORMATION` VALUES (?, ?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO \"INDEX_FIELD_INFORMATION\" VALUES (?, ?, ?, ?, ?, ?, ?)";
         Collection<IndexField<?>> fields = index.getFields();
 
         jdbc().batchUpdate(sql, fields, fields.size(), new ParameterizedPreparedStatementSetter<IndexField<?>>() {
@@ -293,7 +353,7 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
     protected <T> JdbcIndex<T> load(final String name, final Class<T> modelClass) {
         LOG.info("Loading Index {} (with class {})", name, modelClass);
 
-        String sql = "SELECT TABLE_HEAD, TABLE_HISTORY FROM INDEX_INFORMATION WHERE NAME = ?";
+        String sql = "SELECT TABLE_HEAD, TABLE_HISTORY FROM \"INDEX_INFORMATION\" WHERE NAME = ?";
 
         try {
             return jdbc().queryForObject(sql, new RowMapper<JdbcIndex<T>>() {
@@ -318,7 +378,7 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
     }
 
     protected List<JdbcIndexField<?>> loadFields(final JdbcIndex<?> index) {
-        String sql = "SELECT * FROM INDEX_FIELD_INFORMATION WHERE INDEX_NAME = ?";
+        String sql = "SELECT * FROM \"INDEX_FIELD_INFORMATION\" WHERE INDEX_NAME = ?";
 
         try {
             return jdbc().query(sql, new RowMapper<JdbcIndexField<?>>() {
@@ -350,7 +410,7 @@ public class JdbcIndexEngine extends JdbcService implements IndexEngine {
     }
 
     protected List<String> getAllIndexNames() {
-        return jdbc().queryForList("SELECT NAME FROM INDEX_INFORMATION", String.class);
+        return jdbc().queryForList("SELECT NAME FROM \"INDEX_INFORMATION\"", String.class);
     }
 
     protected void deleteIndeInformation(Index<?> index) {
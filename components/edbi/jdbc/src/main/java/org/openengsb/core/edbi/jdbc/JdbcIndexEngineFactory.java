@@ -19,7 +19,6 @@ package org.openengsb.core.edbi.jdbc;
 import javax.sql.DataSource;
 
 import org.openengsb.core.edbi.jdbc.api.SchemaMapper;
-import org.openengsb.core.edbi.jdbc.api.TableEngine;
 import org.openengsb.core.edbi.jdbc.api.TypeMap;
 import org.openengsb.core.edbi.jdbc.driver.Driver;
 import org.slf4j.Logger;
@@ -44,11 +43,13 @@ public class JdbcIndexEngineFactory {
         TypeMap typeMap = driver.getTypeMap();
         DataSource dataSource = driver.getDataSource();
 
-        TableEngine headTableEngine = new HeadTableEngine(dataSource, typeMap);
-        TableEngine historyTableEngine = new HistoryTableEngine(dataSource, typeMap);
+        HeadTableEngine headTableEngine = new HeadTableEngine(dataSource, typeMap);
+        headTableEngine.setDriver(driver);
+        HistoryTableEngine historyTableEngine = new HistoryTableEngine(dataSource, typeMap);
+        historyTableEngine.setDriver(driver);
 
         SchemaMapper schemaMapper = new DefaultSchemaMapper(headTableEngine, historyTableEngine);
 
-        return new JdbcIndexEngine(dataSource, schemaMapper);
+        return new JdbcIndexEngine(dataSource, schemaMapper, driver);
     }
 }
@@ -32,6 +32,8 @@ public class JdbcIndexField<T> implements IndexField<T> {
     private String mappedName;
     private DataType mappedType;
     private ClassLoader classLoader;
+    private boolean indexed;
+    private boolean unique;
 
     JdbcIndexField() {
 
@@ -85,6 +87,25 @@ public class JdbcIndexField<T> implements IndexField<T> {
         return typeName;
     }
 
+    /**
+     * Returns whether the column of this field should get a secondary index, i.e. whether the model field is annotated
+     * with {@code @Indexed}. Only available on fields built from a model class.
+     * 
+     * @return true if the column should be indexed
+     */
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    /**
+     * Returns whether the values of this field are unique among the current models.
+     * 
+     * @return true if the secondary index of the column should be unique
+     */
+    public boolean isUnique() {
+        return unique;
+    }
+
     void setIndex(JdbcIndex<?> index) {
         this.index = index;
     }
@@ -109,4 +130,12 @@ public class JdbcIndexField<T> implements IndexField<T> {
         this.typeName = typeName;
     }
 
+    void setIndexed(boolean indexed) {
+        this.indexed = indexed;
+    }
+
+    void setUnique(boolean unique) {
+        this.unique = unique;
+    }
+
 }
@@ -17,9 +17,14 @@
 
 package org.openengsb.core.edbi.jdbc;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
@@ -29,6 +34,8 @@ import org.openengsb.core.edbi.jdbc.sql.Table;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * JdbcService holds a DataSource and provides several helper methods for spring-jdbc.
@@ -38,9 +45,11 @@ public class JdbcService {
 
     private JdbcTemplate jdbc;
     private NamedParameterJdbcTemplate jdbcn;
+    private final TransactionTemplate transaction;
 
     public JdbcService(DataSource dataSource) {
         this.dataSource = dataSource;
+        this.transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
     }
 
     public JdbcTemplate jdbc() {
@@ -59,6 +68,16 @@ public class JdbcService {
         return jdbcn;
     }
 
+    /**
+     * Returns a TransactionTemplate for the DataSource. All statements of JdbcServices that share the same DataSource
+     * and are executed within a callback of this template run in the same JDBC transaction.
+     * 
+     * @return a TransactionTemplate for the DataSource
+     */
+    public TransactionTemplate transaction() {
+        return transaction;
+    }
+
     public DataSource getDataSource() {
         return dataSource;
     }
@@ -85,7 +104,7 @@ public class JdbcService {
 
     public int insert(String table, String columns, Object... args) {
         String sql =
-            String.format("INSERT INTO `%s` (%s) VALUES (%s)", table, columns,
+            String.format("INSERT INTO \"%s\" (%s) VALUES (%s)", table, columns,
                 StringUtils.repeat("?", ",", args.length));
 
         return jdbc().update(sql, args);
@@ -96,7 +115,7 @@ public class JdbcService {
     }
 
     public int insert(String table, Object... args) {
-        String sql = String.format("INSERT INTO `%s` VALUES (%s)", table, StringUtils.repeat("?", ",", args.length));
+        String sql = String.format("INSERT INTO \"%s\" VALUES (%s)", table, StringUtils.repeat("?", ",", args.length));
 
         return jdbc().update(sql, args);
     }
@@ -104,7 +123,7 @@ public class JdbcService {
     public int[] insert(String table, Collection<String> columns, SqlParameterSource[] records) {
         String columnList = StringUtils.join(columns, ",");
         String placeholders = ":" + StringUtils.join(columns, ",:");
-        String sql = String.format("INSERT INTO `%s` (%s) VALUES (%s)", table, columnList, placeholders);
+        String sql = String.format("INSERT INTO \"%s\" (%s) VALUES (%s)", table, columnList, placeholders);
 
         return jdbcn().batchUpdate(sql, records);
     }
@@ -117,25 +136,53 @@ public class JdbcService {
 
     public int[] update(String table, Collection<String> columns, String whereClause, SqlParameterSource[] records) {
         String setClauseList = makeNamedSetClauseList(columns);
-        String sql = String.format("UPDATE `%s` SET %s WHERE %s", table, setClauseList, whereClause);
+        String sql = String.format("UPDATE \"%s\" SET %s WHERE %s", table, setClauseList, whereClause);
 
         return jdbcn().batchUpdate(sql, records);
     }
 
+    /**
+     * Updates the given records in the given table. The SET clause of each record only contains the columns the record
+     * carries values for, so records are grouped by their column set and each group is executed as one batch update.
+     * 
+     * @param table the table to update
+     * @param records the records to update
+     * @return the number of rows affected by the update of each record, in the order of the given records
+     */
     public int[] update(Table table, List<IndexRecord> records) {
         List<String> columns = table.getColumns().getColumnNames();
         String whereClause = makeWhereClause(table.getPrimaryKey());
 
-        // FIXME: find an elegant solution for a dynamic SET clause within an UPDATE statement for batch updates
-        // either column exclusions or find subsets of columns within the list of IndexRecords
-        IndexRecord record = records.get(0);
-        columns.retainAll(record.getValues().keySet());
+        Map<Set<String>, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            Set<String> columnSet = new HashSet<>(records.get(i).getValues().keySet());
+            if (!groups.containsKey(columnSet)) {
+                groups.put(columnSet, new ArrayList<Integer>());
+            }
+            groups.get(columnSet).add(i);
+        }
+
+        int[] result = new int[records.size()];
+        for (Map.Entry<Set<String>, List<Integer>> group : groups.entrySet()) {
+            List<String> setColumns = new ArrayList<>(columns);
+            setColumns.retainAll(group.getKey());
+
+            List<IndexRecord> groupRecords = new ArrayList<>(group.getValue().size());
+            for (Integer i : group.getValue()) {
+                groupRecords.add(records.get(i));
+            }
+
+            int[] counts = update(table.getName(), setColumns, whereClause, toParameterSourceArray(groupRecords));
+            for (int i = 0; i < counts.length; i++) {
+                result[group.getValue().get(i)] = counts[i];
+            }
+        }
 
-        return update(table.getName(), columns, whereClause, toParameterSourceArray(records));
+        return result;
     }
 
     public int[] delete(String table, String whereClause, SqlParameterSource[] records) {
-        String sql = String.format("DELETE FROM `%s` WHERE %s", table, whereClause);
+        String sql = String.format("DELETE FROM \"%s\" WHERE %s", table, whereClause);
 
         return jdbcn().batchUpdate(sql, records);
     }
@@ -147,7 +194,7 @@ public class JdbcService {
     }
 
     public int delete(String table, String whereClause, Object... args) {
-        return jdbc().update(String.format("DELETE FROM `%s` WHERE %s", table, whereClause), args);
+        return jdbc().update(String.format("DELETE FROM \"%s\" WHERE %s", table, whereClause), args);
     }
 
     protected SqlParameterSource[] toParameterSourceArray(List<? extends SqlParameterSource> list) {
@@ -19,6 +19,8 @@ package org.openengsb.core.edbi.jdbc.driver;
 import javax.sql.DataSource;
 
 import org.openengsb.core.edbi.jdbc.api.TypeMap;
+import org.openengsb.core.edbi.jdbc.sql.Table;
+import org.openengsb.core.edbi.jdbc.sql.TableElementCompiler;
 
 /**
  * DBMS Driver for the EDBI. Provides everything database specific to bootstrap a JdbcIndexEngine.
@@ -38,4 +40,21 @@ public interface Driver {
      * @return the type map
      */
     TypeMap getTypeMap();
+
+    /**
+     * Returns the name of the classpath resource that contains the (idempotent) DDL script which creates the tables
+     * holding the Index meta data.
+     * 
+     * @return a resource name
+     */
+    String getSchemaResource();
+
+    /**
+     * Creates a compiler that builds the table-element definitions and index statements for the given Table in the SQL
+     * dialect of the dbms.
+     * 
+     * @param table the table to compile
+     * @return a new compiler
+     */
+    TableElementCompiler createTableElementCompiler(Table table);
 }
@@ -14,7 +14,7 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package org.openengsb.core.edbi.jdbc.driver.h2;
+package org.openengsb.core.edbi.jdbc.driver;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -26,16 +26,17 @@ import org.apache.commons.io.IOUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 /**
- * Idempotent action on a DataSource that creates the necessary underlying schema for the IndexEngine.
+ * Idempotent action on a DataSource that creates the necessary underlying schema for the IndexEngine. The DDL is read
+ * from a classpath resource provided by the {@link Driver} of the dbms.
  */
 public class SchemaCreateCommand {
 
-    private static final String SCHEMA_FILE = "index-schema.h2.sql";
-
     private DataSource dataSource;
+    private String schemaResource;
 
-    public SchemaCreateCommand(DataSource dataSource) {
+    public SchemaCreateCommand(DataSource dataSource, String schemaResource) {
         this.dataSource = dataSource;
+        this.schemaResource = schemaResource;
     }
 
     /**
@@ -43,18 +44,18 @@ public class SchemaCreateCommand {
      */
     public void execute() {
         try {
-            new JdbcTemplate(dataSource).execute(readResourceContent(SCHEMA_FILE)); // TODO: sql independence
+            new JdbcTemplate(dataSource).execute(readResourceContent(getSchemaResource()));
         } catch (IOException e) {
             throw new RuntimeException("Could not create schema for EDBI Index", e);
         }
     }
 
     protected String getSchemaResource() {
-        return SCHEMA_FILE;
+        return schemaResource;
     }
 
     private String readResourceContent(String resource) throws IOException {
-        try (InputStream stream = getClass().getClassLoader().getResourceAsStream(getSchemaResource())) {
+        try (InputStream stream = getClass().getClassLoader().getResourceAsStream(resource)) {
             if (stream == null) {
                 throw new IllegalArgumentException("Stream for resource " + resource + " is null");
             }
@@ -19,9 +19,13 @@ package org.openengsb.core.edbi.jdbc.driver.h2;
 import javax.sql.DataSource;
 
 import org.openengsb.core.edbi.jdbc.api.TypeMap;
+import org.openengsb.core.edbi.jdbc.sql.Table;
+import org.openengsb.core.edbi.jdbc.sql.TableElementCompiler;
 
 public class Driver implements org.openengsb.core.edbi.jdbc.driver.Driver {
 
+    private static final String SCHEMA_RESOURCE = "index-schema.h2.sql";
+
     private TypeMap typeMap;
     private DataSource dataSource;
 
@@ -44,6 +48,16 @@ public class Driver implements org.openengsb.core.edbi.jdbc.driver.Driver {
         return typeMap;
     }
 
+    @Override
+    public String getSchemaResource() {
+        return SCHEMA_RESOURCE;
+    }
+
+    @Override
+    public TableElementCompiler createTableElementCompiler(Table table) {
+        return new TableElementCompiler(table);
+    }
+
     public void setDataSource(DataSource dataSource) {
         this.dataSource = dataSource;
     }
@@ -0,0 +1,46 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.jdbc.driver.postgresql;
+
+import java.sql.Types;
+
+import org.openengsb.core.edbi.jdbc.sql.Column;
+import org.openengsb.core.edbi.jdbc.sql.Table;
+import org.openengsb.core.edbi.jdbc.sql.TableElementCompiler;
+
+/**
+ * TableElementCompiler for PostgreSQL, which has no <code>AUTO_INCREMENT</code> column option. Auto incrementing
+ * columns are declared with the serial types instead, which create and attach the sequence implicitly.
+ */
+public class PostgreSQLTableElementCompiler extends TableElementCompiler {
+
+    public PostgreSQLTableElementCompiler(Table table) {
+        super(table);
+    }
+
+    @Override
+    protected String compile(Column element) {
+        if (!element.hasOption(Column.Option.AUTO_INCREMENT)) {
+            return super.compile(element);
+        }
+
+        String type = (element.getType().getType() == Types.BIGINT) ? "BIGSERIAL" : "SERIAL";
+
+        return element.getName() + " " + type;
+    }
+
+}
@@ -26,6 +26,7 @@ import java.util.List;
 public class Table {
     private String name;
     private List<TableElement> elements;
+    private List<TableIndex> indexes = new ArrayList<>();
 
     public Table() {
         this(null);
@@ -64,6 +65,23 @@ public class Table {
         this.elements = elements;
     }
 
+    public void addIndex(TableIndex index) {
+        this.indexes.add(index);
+    }
+
+    /**
+     * Returns the secondary indexes that are created alongside the table.
+     * 
+     * @return a list of indexes
+     */
+    public List<TableIndex> getIndexes() {
+        return indexes;
+    }
+
+    public void setIndexes(List<TableIndex> indexes) {
+        this.indexes = indexes;
+    }
+
     public void accept(TableElementVisitor visitor) {
         for (TableElement element : elements) {
             element.accept(visitor);
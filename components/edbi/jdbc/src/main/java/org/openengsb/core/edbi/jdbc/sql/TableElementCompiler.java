@@ -57,6 +57,21 @@ public class TableElementCompiler implements TableElementVisitor {
         return StringUtils.join(compile(), ",");
     }
 
+    /**
+     * Compiles the secondary indexes of the table.
+     * 
+     * @return a list of Strings, each containing an SQL <code>CREATE INDEX</code> statement.
+     */
+    public List<String> compileIndexes() {
+        List<String> statements = new ArrayList<>(table.getIndexes().size());
+
+        for (TableIndex index : table.getIndexes()) {
+            statements.add(compile(index));
+        }
+
+        return statements;
+    }
+
     @Override
     public void visit(Column element) {
         elements.add(compile(element));
@@ -102,6 +117,13 @@ public class TableElementCompiler implements TableElementVisitor {
         return str.toString();
     }
 
+    protected String compile(TableIndex index) {
+        String unique = index.isUnique() ? "UNIQUE " : "";
+        String columns = getJoinedColumns(index.getColumns());
+
+        return String.format("CREATE %sINDEX %s ON \"%s\" (%s)", unique, index.getName(), table.getName(), columns);
+    }
+
     protected String compile(UniqueConstraint element) {
         return "UNIQUE (" + getJoinedColumns(element) + ")";
     }
@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.jdbc.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A secondary index on one or more columns of a Table. Indexes are not part of the table-element definition, they are
+ * created by separate <code>CREATE INDEX</code> statements after the table was created.
+ */
+public class TableIndex {
+
+    /**
+     * The name of the index, which has to be unique within the schema.
+     */
+    private String name;
+
+    /**
+     * Whether the index enforces unique values.
+     */
+    private boolean unique;
+
+    /**
+     * The indexed columns.
+     */
+    private List<String> columns;
+
+    public TableIndex(String name, boolean unique, String... columns) {
+        this(name, unique, new ArrayList<>(Arrays.asList(columns)));
+    }
+
+    public TableIndex(String name, boolean unique, List<String> columns) {
+        this.name = name;
+        this.unique = unique;
+        this.columns = columns;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+}
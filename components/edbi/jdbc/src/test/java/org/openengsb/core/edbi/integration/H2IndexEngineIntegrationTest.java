@@ -21,6 +21,8 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.Before;
@@ -28,6 +30,8 @@ import org.junit.Test;
 import org.openengsb.core.edbi.api.Index;
 import org.openengsb.core.edbi.api.IndexCommit;
 import org.openengsb.core.edbi.api.IndexCommitBuilder;
+import org.openengsb.core.edbi.api.IndexQuery;
+import org.openengsb.core.edbi.api.IndexRevision;
 import org.openengsb.core.edbi.jdbc.AbstractH2DatabaseTest;
 import org.openengsb.core.edbi.jdbc.JdbcIndex;
 import org.openengsb.core.edbi.jdbc.JdbcIndexEngine;
@@ -246,6 +250,62 @@ public class H2IndexEngineIntegrationTest extends AbstractH2DatabaseTest {
         assertEquals(Short.MAX_VALUE, record.get("PRIMITIVESHORT"));
     }
 
+    @Test
+    public void query_withPredicateOrderAndPaging_returnsMatchingModels() throws Exception {
+        engine.commit(newTestCommit()
+            .insert(new TestModel("foo", 1))
+            .insert(new TestModel("bar", 2))
+            .insert(new TestModel("baz", 3))
+            .get());
+
+        Index<TestModel> index = engine.getIndex(TestModel.class);
+
+        List<TestModel> result =
+            engine.query(IndexQuery.from(index).greaterThan("testInteger", 1).descending("testInteger"));
+
+        assertEquals(2, result.size());
+        assertEquals("baz", result.get(0).getTestId());
+        assertEquals(Integer.valueOf(3), result.get(0).getTestInteger());
+        assertEquals("bar", result.get(1).getTestId());
+
+        result = engine.query(IndexQuery.from(index).ascending("testId").offset(1).limit(1));
+
+        assertEquals(1, result.size());
+        assertEquals("baz", result.get(0).getTestId());
+    }
+
+    @Test
+    public void queryRevisions_asOf_returnsRevisionsValidAtTimestamp() throws Exception {
+        TestModel entity = new TestModel("foo", 1);
+
+        IndexCommit insertCommit = newTestCommit().timestamp(new Date(1000)).insert(entity).get();
+        engine.commit(insertCommit);
+
+        entity.setTestInteger(42);
+        engine.commit(newTestCommit().timestamp(new Date(2000)).update(entity).get());
+        engine.commit(newTestCommit().timestamp(new Date(3000)).delete(entity).get());
+
+        Index<TestModel> index = engine.getIndex(TestModel.class);
+
+        List<IndexRevision> revisions =
+            engine.queryRevisions(IndexQuery.from(index).equal("testInteger", 1).asOf(new Date(1500)));
+        assertEquals(1, revisions.size());
+        assertEquals("foo", revisions.get(0).getModelId());
+        assertEquals("testContext", revisions.get(0).getContextId());
+        assertEquals(insertCommit.getCommitId(), revisions.get(0).getCommitId());
+        assertEquals("INSERT", revisions.get(0).getOperation());
+
+        assertTrue(engine.queryRevisions(IndexQuery.from(index).equal("testInteger", 1).asOf(new Date(2500)))
+            .isEmpty());
+        assertEquals(1, engine.queryRevisions(IndexQuery.from(index).equal("testInteger", 42).asOf(new Date(2500)))
+            .size());
+        assertTrue(engine.queryRevisions(IndexQuery.from(index).asOf(new Date(3500))).isEmpty());
+
+        List<TestModel> models = engine.query(IndexQuery.from(index).asOf(new Date(2500)));
+        assertEquals(1, models.size());
+        assertEquals(Integer.valueOf(42), models.get(0).getTestInteger());
+    }
+
     private IndexCommitBuilder newTestCommit() {
         return IndexCommitBuilder.create()
             .context("testContext")
@@ -0,0 +1,120 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.edbi.integration;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openengsb.core.edbi.api.Index;
+import org.openengsb.core.edbi.api.IndexCommit;
+import org.openengsb.core.edbi.api.IndexCommitBuilder;
+import org.openengsb.core.edbi.jdbc.AbstractH2DatabaseTest;
+import org.openengsb.core.edbi.jdbc.JdbcIndexEngine;
+import org.openengsb.core.edbi.jdbc.JdbcIndexEngineFactory;
+import org.openengsb.core.edbi.jdbc.driver.h2.Driver;
+import org.openengsb.core.edbi.models.TestModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the index throughput of large commits against H2. Inserts, updates and deletes of 10k models each run as
+ * one commit after a smaller warm-up commit of each kind, and the rows per second of every commit are logged. Runs
+ * only with the benchmarks profile.
+ */
+public class H2IndexThroughputBenchmark extends AbstractH2DatabaseTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(H2IndexThroughputBenchmark.class);
+
+    private static final int WARMUP_ROWS = 1000;
+    private static final int ROWS = 10000;
+
+    @Override
+    protected String[] getInitScriptResourceNames() {
+        return new String[]{
+            "index-schema.h2.sql"
+        };
+    }
+
+    JdbcIndexEngine engine;
+
+    @Before
+    public void setUp() throws Exception {
+        engine = new JdbcIndexEngineFactory(new Driver(getDataSource())).create();
+    }
+
+    @Test
+    public void commit_tenThousandRows_indexesAllRows() throws Exception {
+        runCommits("warmup", WARMUP_ROWS);
+        runCommits("benchmark", ROWS);
+
+        Index<TestModel> index = engine.getIndex(TestModel.class);
+        assertEquals(0, jdbc().queryForInt("SELECT COUNT(*) FROM " + index.getHeadTableName()));
+        assertEquals(3 * (WARMUP_ROWS + ROWS),
+            jdbc().queryForInt("SELECT COUNT(*) FROM " + index.getHistoryTableName()));
+    }
+
+    private void runCommits(String name, int rows) throws Exception {
+        List<TestModel> models = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            models.add(new TestModel(name + "/" + i, i));
+        }
+
+        IndexCommitBuilder insert = newTestCommit();
+        for (TestModel model : models) {
+            insert.insert(model);
+        }
+        commit(name + " insert", insert.get(), rows);
+        assertEquals(rows, jdbc().queryForInt("SELECT COUNT(*) FROM "
+                + engine.getIndex(TestModel.class).getHeadTableName() + " WHERE TESTID LIKE ?", name + "/%"));
+
+        IndexCommitBuilder update = newTestCommit();
+        for (TestModel model : models) {
+            model.setTestInteger(model.getTestInteger() + rows);
+            update.update(model);
+        }
+        commit(name + " update", update.get(), rows);
+
+        IndexCommitBuilder delete = newTestCommit();
+        for (TestModel model : models) {
+            delete.delete(model);
+        }
+        commit(name + " delete", delete.get(), rows);
+    }
+
+    private void commit(String name, IndexCommit commit, int rows) {
+        long start = System.nanoTime();
+        engine.commit(commit);
+        long elapsed = System.nanoTime() - start;
+        LOGGER.info("{}: {} rows in {}ms, {} rows/s", new Object[]{ name, rows,
+            TimeUnit.NANOSECONDS.toMillis(elapsed), rows * TimeUnit.SECONDS.toNanos(1) / elapsed });
+    }
+
+    private IndexCommitBuilder newTestCommit() {
+        return IndexCommitBuilder.create()
+            .context("testContext")
+            .user("testUser")
+            .domain("testDomain")
+            .connector("testConnector")
+            .instance("testInstance");
+    }
+
+}
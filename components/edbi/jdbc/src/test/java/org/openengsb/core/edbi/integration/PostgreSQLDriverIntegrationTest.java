@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.edbi.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.openengsb.core.edbi.api.Index;
+import org.openengsb.core.edbi.jdbc.AbstractH2DatabaseTest;
+import org.openengsb.core.edbi.jdbc.JdbcIndex;
+import org.openengsb.core.edbi.jdbc.JdbcIndexEngine;
+import org.openengsb.core.edbi.jdbc.JdbcIndexEngineFactory;
+import org.openengsb.core.edbi.jdbc.driver.postgresql.Driver;
+import org.openengsb.core.edbi.models.TestModel;
+
+/**
+ * Runs the DDL of the PostgreSQL driver against an embedded H2 database in PostgreSQL compatibility mode.
+ */
+public class PostgreSQLDriverIntegrationTest extends AbstractH2DatabaseTest {
+
+    JdbcIndexEngineFactory factory;
+    JdbcIndexEngine engine;
+
+    @Override
+    protected DataSource createDataSource() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+
+        dataSource.setURL("jdbc:h2:mem:postgresql;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("");
+        dataSource.setPassword("");
+
+        return dataSource;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        factory = new JdbcIndexEngineFactory(new Driver(getDataSource()));
+        engine = factory.create();
+        engine.install();
+    }
+
+    @Test
+    public void install_createsIndexInformationTables() throws Exception {
+        assertEquals(0, jdbc().queryForInt("SELECT COUNT(*) FROM \"INDEX_INFORMATION\""));
+        assertEquals(0, jdbc().queryForInt("SELECT COUNT(*) FROM \"INDEX_FIELD_INFORMATION\""));
+    }
+
+    @Test
+    public void install_isIdempotent() throws Exception {
+        engine.install();
+    }
+
+    @Test
+    public void createIndex_createsTablesAndSecondaryIndexes() throws Exception {
+        Index<TestModel> index = engine.createIndex(TestModel.class);
+
+        assertTrue(hasIndex(index.getHeadTableName(), "IDX_" + index.getHeadTableName() + "_TESTINTEGER"));
+        assertTrue(hasIndex(index.getHistoryTableName(), "IDX_" + index.getHistoryTableName() + "_TESTINTEGER"));
+        assertFalse(hasIndex(index.getHeadTableName(), "IDX_" + index.getHeadTableName() + "_TESTID"));
+    }
+
+    @Test
+    public void getIndex_fromNewEngine_loadsIndexInformation() throws Exception {
+        Index<TestModel> index = engine.createIndex(TestModel.class);
+
+        JdbcIndexEngine other = factory.create();
+        JdbcIndex<TestModel> loaded = other.getIndex(TestModel.class);
+
+        assertEquals(index.getHeadTableName(), loaded.getHeadTableName());
+        assertEquals(index.getHistoryTableName(), loaded.getHistoryTableName());
+        assertEquals(index.getFields().size(), loaded.getFields().size());
+    }
+
+    private boolean hasIndex(String table, String name) throws SQLException {
+        try (Connection c = getDataSource().getConnection();
+                ResultSet rs = c.getMetaData().getIndexInfo(null, null, table, false, false)) {
+            while (rs.next()) {
+                if (name.equals(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+}
@@ -70,6 +70,7 @@ public abstract class AbstractTableEngineTest extends AbstractH2DatabaseTest {
         JdbcIndexField<Integer> testInteger = new JdbcIndexField<>(testIndex);
         testInteger.setName("testInteger");
         testInteger.setType(Integer.class);
+        testInteger.setIndexed(true);
 
         JdbcIndexField<SubTestModel> subModel = new JdbcIndexField<>(testIndex);
         subModel.setName("subModel");
@@ -104,6 +104,30 @@ public class HeadTableEngineTest extends AbstractTableEngineTest {
     }
 
     @Test
+    public void create_withIndexedField_createsSecondaryIndex() throws Exception {
+        engine.create(testIndex);
+
+        List<String> indexedColumns = new ArrayList<>();
+        try (ResultSet rs = connection.getMetaData().getIndexInfo(null, null, "HEAD_TABLE", false, false)) {
+            while (rs.next()) {
+                if ("IDX_HEAD_TABLE_TESTINTEGER".equals(rs.getString("INDEX_NAME"))) {
+                    assertTrue(rs.getBoolean("NON_UNIQUE"));
+                    indexedColumns.add(rs.getString("COLUMN_NAME"));
+                }
+            }
+        }
+
+        assertEquals(Arrays.asList("TESTINTEGER"), indexedColumns);
+    }
+
+    @Test
+    public void exists_onTableCreatedByOtherEngine_returnsTrue() throws Exception {
+        jdbc().execute("CREATE TABLE HEAD_TABLE (TESTID VARCHAR PRIMARY KEY)");
+
+        assertTrue(engine.exists(testIndex));
+    }
+
+        @Test
     public void drop_works() throws Exception {
         long cnt;
         String sql = "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = ?";
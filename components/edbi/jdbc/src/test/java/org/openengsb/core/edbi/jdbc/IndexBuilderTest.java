@@ -17,6 +17,7 @@
 package org.openengsb.core.edbi.jdbc;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.util.Arrays;
 import java.util.Comparator;
@@ -70,4 +71,16 @@ public class IndexBuilderTest {
         assertEquals("testInteger", fields[2].getName());
         assertEquals(Integer.class, fields[2].getType());
     }
+
+    @Test
+    public void buildIndex_withIndexedField_marksField() throws Exception {
+        JdbcIndex<TestModel> index = builder.buildIndex(TestModel.class);
+
+        for (IndexField<?> field : index.getFields()) {
+            JdbcIndexField<?> jdbcField = (JdbcIndexField<?>) field;
+
+            assertEquals(field.getName().equals("testInteger"), jdbcField.isIndexed());
+            assertFalse(jdbcField.isUnique());
+        }
+    }
 }
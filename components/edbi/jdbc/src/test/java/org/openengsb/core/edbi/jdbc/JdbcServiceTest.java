@@ -16,12 +16,15 @@
  */
 package org.openengsb.core.edbi.jdbc;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -34,6 +37,8 @@ import org.openengsb.core.edbi.jdbc.sql.PrimaryKeyConstraint;
 import org.openengsb.core.edbi.jdbc.sql.Table;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 
 public class JdbcServiceTest extends AbstractH2DatabaseTest {
 
@@ -117,6 +122,55 @@ public class JdbcServiceTest extends AbstractH2DatabaseTest {
         assertEquals(44, row.get("AGE"));
     }
 
+    @Test
+    public void update_recordsWithDifferentColumns_onlyUpdatesColumnsOfEachRecord() throws Exception {
+        List<IndexRecord> records = getRecords();
+        service.insert(table, records);
+
+        JdbcIndex<?> index = mock(JdbcIndex.class);
+
+        IndexRecord record1 = new IndexRecord(index);
+        record1.addValue("ID", 1L, Types.BIGINT);
+        record1.addValue("NAME", "Zaphod", Types.VARCHAR);
+
+        IndexRecord record2 = new IndexRecord(index);
+        record2.addValue("ID", 2L, Types.BIGINT);
+        record2.addValue("AGE", 44, Types.INTEGER);
+
+        int[] counts = service.update(table, Arrays.asList(record1, record2));
+
+        assertArrayEquals(new int[]{ 1, 1 }, counts);
+
+        List<Map<String, Object>> rows = jdbc.queryForList("SELECT * FROM `TEST`");
+        Map<String, Object> row;
+
+        row = rows.get(0);
+        assertEquals("Zaphod", row.get("NAME"));
+        assertEquals(42, row.get("AGE"));
+
+        row = rows.get(1);
+        assertEquals("Ford", row.get("NAME"));
+        assertEquals(44, row.get("AGE"));
+    }
+
+    @Test
+    public void transaction_onException_rollsBackAllStatements() throws Exception {
+        try {
+            service.transaction().execute(new TransactionCallbackWithoutResult() {
+                @Override
+                protected void doInTransactionWithoutResult(TransactionStatus status) {
+                    service.insert(table, getRecords());
+                    throw new IllegalStateException("test");
+                }
+            });
+            fail("Expected exception was not thrown");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        assertEquals(0, service.count("TEST"));
+    }
+
     private List<IndexRecord> getRecords() {
         JdbcIndex<?> index = mock(JdbcIndex.class);
 
@@ -23,6 +23,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.sql.Types;
+import java.util.List;
 
 /**
  * TableElementCompilerTest
@@ -74,6 +75,19 @@ public class TableElementCompilerTest {
         compileAndAssert("COL VARCHAR NOT NULL,COL2 VARCHAR,COL3 INT AUTO_INCREMENT", table);
     }
 
+    @Test
+    public void compileIndexes_returnsCreateIndexStatements() throws Exception {
+        Table table = new Table("FOO", new Column("A", INT), new Column("B", INT));
+        table.addIndex(new TableIndex("IDX_FOO_A", false, "A"));
+        table.addIndex(new TableIndex("IDX_FOO_B", true, "A", "B"));
+
+        List<String> statements = new TableElementCompiler(table).compileIndexes();
+
+        assertEquals(2, statements.size());
+        assertEquals("CREATE INDEX IDX_FOO_A ON \"FOO\" (A)", statements.get(0));
+        assertEquals("CREATE UNIQUE INDEX IDX_FOO_B ON \"FOO\" (A,B)", statements.get(1));
+    }
+
     @Test
     public void toSql_withUniqueConstraint_returnsCorrectSql() throws Exception {
         Table table = new Table("FOO", new Column("A", INT), new Column("B", INT), new UniqueConstraint("A"));
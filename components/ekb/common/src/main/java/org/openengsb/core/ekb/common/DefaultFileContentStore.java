@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.ekb.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the content of files in a directory on the disk, with one file per content named by its hash. If the
+ * configured directory is not absolute it is assumed to be a subdirectory of ${karaf.data}. If no directory is
+ * configured the store is disabled.
+ */
+public class DefaultFileContentStore implements FileContentStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultFileContentStore.class);
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final File rootDirectory;
+
+    public DefaultFileContentStore(String directory) {
+        if (StringUtils.isBlank(directory)) {
+            rootDirectory = null;
+            LOGGER.info("no directory is configured for file contents, they are stored in the EDB");
+            return;
+        }
+        File file = new File(directory);
+        if (!file.isAbsolute()) {
+            file = new File(System.getProperty("karaf.data"), directory);
+        }
+        rootDirectory = file;
+        LOGGER.info("storing file contents in {}", rootDirectory.getAbsolutePath());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return rootDirectory != null;
+    }
+
+    /**
+     * Stores the given content if it isn't stored yet and returns the hash under which it can be loaded again. If the
+     * content is stored already, the modification time of its file is updated, so that it isn't removed as
+     * unreferenced content while the commit referencing it again is in progress.
+     */
+    @Override
+    public String store(byte[] content) throws IOException {
+        String hash = DigestUtils.sha256Hex(content);
+        Path target = getContentFile(hash).toPath();
+        if (Files.exists(target)) {
+            try {
+                Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+                return hash;
+            } catch (NoSuchFileException e) {
+                LOGGER.debug("the content with the hash {} was removed concurrently, storing it again", hash);
+            }
+        }
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            LOGGER.debug("the content with the hash {} was stored concurrently", hash);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return hash;
+    }
+
+    @Override
+    public byte[] load(String hash) throws IOException {
+        return Files.readAllBytes(getContentFile(hash).toPath());
+    }
+
+    @Override
+    public InputStream openStream(String hash) throws IOException {
+        return Files.newInputStream(getContentFile(hash).toPath());
+    }
+
+    /**
+     * Removes all contents whose hashes are not part of the given referenced hashes, together with temporary files
+     * left behind by interrupted store calls. Only files which were not modified during the given minimum age in
+     * milliseconds are removed.
+     */
+    @Override
+    public int removeUnreferenced(Set<String> referencedHashes, long minAge) throws IOException {
+        if (rootDirectory == null || !rootDirectory.isDirectory()) {
+            return 0;
+        }
+        long threshold = System.currentTimeMillis() - minAge;
+        int removed = 0;
+        try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(rootDirectory.toPath())) {
+            for (Path prefix : prefixes) {
+                if (!Files.isDirectory(prefix)) {
+                    continue;
+                }
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(prefix)) {
+                    for (Path file : files) {
+                        if (referencedHashes.contains(file.getFileName().toString())
+                                || Files.getLastModifiedTime(file).toMillis() > threshold) {
+                            continue;
+                        }
+                        if (Files.deleteIfExists(file)) {
+                            LOGGER.debug("removed the unreferenced file content {}", file);
+                            removed++;
+                        }
+                    }
+                }
+            }
+        }
+        LOGGER.info("removed {} unreferenced file contents from {}", removed, rootDirectory.getAbsolutePath());
+        return removed;
+    }
+
+    private File getContentFile(String hash) throws IOException {
+        if (rootDirectory == null) {
+            throw new IOException("no directory is configured for the file content store");
+        }
+        if (!HASH_PATTERN.matcher(hash).matches()) {
+            throw new IllegalArgumentException(String.format("%s is no valid content hash", hash));
+        }
+        return new File(new File(rootDirectory, hash.substring(0, 2)), hash);
+    }
+}
@@ -17,26 +17,21 @@
 
 package org.openengsb.core.ekb.common;
 
-import java.beans.BeanInfo;
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.lang.ClassUtils;
 import org.apache.commons.lang.reflect.FieldUtils;
 import org.openengsb.core.api.context.ContextHolder;
 import org.openengsb.core.api.model.FileWrapper;
@@ -51,12 +46,13 @@ import org.openengsb.core.edb.api.EngineeringDatabaseService;
 import org.openengsb.core.ekb.api.ConnectorInformation;
 import org.openengsb.core.ekb.api.EKBCommit;
 import org.openengsb.core.ekb.api.EKBException;
+import org.openengsb.core.util.ModelAccessorPlan;
+import org.openengsb.core.util.ModelAccessorPlan.Property;
+import org.openengsb.core.util.ModelAccessorPlan.PropertyKind;
 import org.openengsb.core.util.ModelUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.Lists;
-
 /**
  * The EDBConverter class responsibility is the converting between EDBObjects and models and the vice-versa.
  */
@@ -64,28 +60,43 @@ public class EDBConverter {
     private static final Logger LOGGER = LoggerFactory.getLogger(EDBConverter.class);
     
     public static final String FILEWRAPPER_FILENAME_SUFFIX = ".filename";
+    public static final String FILEWRAPPER_CONTENT_REFERENCE_PREFIX = "content:sha256:";
     public static final String REFERENCE_PREFIX = "refersTo_";
     private EngineeringDatabaseService edbService;
+    private FileContentStore fileContentStore;
 
     public EDBConverter(EngineeringDatabaseService edbService) {
         this.edbService = edbService;
     }
 
+    /**
+     * Sets the store for the content of FileWrapper properties. If no store is set or the store is disabled, the
+     * content is saved Base64 encoded in the EDBObjects.
+     */
+    public void setFileContentStore(FileContentStore fileContentStore) {
+        this.fileContentStore = fileContentStore;
+    }
+
     /**
      * Converts an EDBObject to a model of the given model type.
      */
     @SuppressWarnings("unchecked")
     public <T> T convertEDBObjectToModel(Class<T> model, EDBObject object) {
-        return (T) convertEDBObjectToUncheckedModel(model, object);
+        Map<ReferenceKey, EDBObject> referenced = loadReferencedObjects(model, Arrays.asList(object));
+        return (T) convertEDBObjectToUncheckedModel(model, object, referenced);
     }
 
     /**
-     * Converts a list of EDBObjects to a list of models of the given model type.
+     * Converts a list of EDBObjects to a list of models of the given model type. All sub-models referenced by the
+     * objects are loaded in batches before the conversion, level by level of the model hierarchy, instead of loading
+     * them one by one for every object.
      */
+    @SuppressWarnings("unchecked")
     public <T> List<T> convertEDBObjectsToModelObjects(Class<T> model, List<EDBObject> objects) {
+        Map<ReferenceKey, EDBObject> referenced = loadReferencedObjects(model, objects);
         List<T> models = new ArrayList<>();
         for (EDBObject object : objects) {
-            T instance = convertEDBObjectToModel(model, object);
+            T instance = (T) convertEDBObjectToUncheckedModel(model, object, referenced);
             if (instance != null) {
                 models.add(instance);
             }
@@ -93,6 +104,139 @@ public class EDBConverter {
         return models;
     }
 
+    /**
+     * Loads all EDBObjects which are referenced as sub-models by the given objects, and recursively the objects
+     * referenced by them. Every level of the model hierarchy is loaded with one request per commit timestamp of the
+     * referencing objects, so the number of requests doesn't depend on the number of objects. The result maps the
+     * reference keys to the loaded objects.
+     */
+    private Map<ReferenceKey, EDBObject> loadReferencedObjects(Class<?> model, List<EDBObject> objects) {
+        Map<ReferenceKey, EDBObject> loaded = new HashMap<>();
+        Map<EDBObject, Class<?>> level = new IdentityHashMap<>();
+        for (EDBObject object : objects) {
+            if (object != null) {
+                level.put(object, model);
+            }
+        }
+        while (!level.isEmpty()) {
+            Map<ReferenceKey, Class<?>> references = new HashMap<>();
+            for (Map.Entry<EDBObject, Class<?>> entry : level.entrySet()) {
+                collectReferences(entry.getValue(), entry.getKey(), references);
+            }
+            references.keySet().removeAll(loaded.keySet());
+            level = new IdentityHashMap<>();
+            for (Map.Entry<Long, List<String>> group : groupReferencesByTimestamp(references.keySet()).entrySet()) {
+                List<EDBObject> result = group.getKey() == null ? edbService.getObjects(group.getValue())
+                        : edbService.getObjects(group.getValue(), group.getKey());
+                if (result == null) {
+                    continue;
+                }
+                for (EDBObject object : result) {
+                    if (object == null) {
+                        continue;
+                    }
+                    ReferenceKey key = getReferenceKey(object.getOID(), group.getKey());
+                    loaded.put(key, object);
+                    level.put(object, references.get(key));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Adds the reference keys of all sub-models referenced by the given object, together with the class of the sub
+     * models, to the given map.
+     */
+    private void collectReferences(Class<?> model, EDBObject object, Map<ReferenceKey, Class<?>> references) {
+        for (Property property : ModelAccessorPlan.forClass(model).getProperties()) {
+            String propertyName = property.getName();
+            List<Class<?>> classes = property.getGenericClasses();
+            switch (property.getKind()) {
+                case MAP:
+                    for (int i = 0; object.containsKey(getEntryNameForMapKey(propertyName, i)); i++) {
+                        addReference(classes.get(0), object.getObject(getEntryNameForMapKey(propertyName, i)), null,
+                            references);
+                        addReference(classes.get(1), object.getObject(getEntryNameForMapValue(propertyName, i)), null,
+                            references);
+                    }
+                    break;
+                case LIST:
+                case ARRAY:
+                    for (int i = 0; object.getObject(getEntryNameForList(propertyName, i)) != null; i++) {
+                        addReference(classes.get(0), object.getObject(getEntryNameForList(propertyName, i)), null,
+                            references);
+                    }
+                    break;
+                case MODEL:
+                    addReference(property.getParameterType(), object.getObject(propertyName),
+                        getTimestampOfObject(object), references);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void addReference(Class<?> type, Object oid, Long timestamp, Map<ReferenceKey, Class<?>> references) {
+        if (oid != null && OpenEngSBModel.class.isAssignableFrom(type)) {
+            references.put(getReferenceKey(oid.toString(), timestamp), type);
+        }
+    }
+
+    /**
+     * Groups the given reference keys by the timestamp for which the referenced objects need to be loaded. The null
+     * key contains the references to the newest versions.
+     */
+    private Map<Long, List<String>> groupReferencesByTimestamp(Collection<ReferenceKey> referenceKeys) {
+        Map<Long, List<String>> groups = new HashMap<>();
+        for (ReferenceKey key : referenceKeys) {
+            if (!groups.containsKey(key.timestamp)) {
+                groups.put(key.timestamp, new ArrayList<String>());
+            }
+            groups.get(key.timestamp).add(key.oid);
+        }
+        return groups;
+    }
+
+    /**
+     * Returns the key under which a referenced object is stored after loading. The timestamp is null if the newest
+     * version of the object is referenced.
+     */
+    private static ReferenceKey getReferenceKey(String oid, Long timestamp) {
+        return new ReferenceKey(oid, timestamp);
+    }
+
+    /**
+     * Returns the referenced object with the given oid for the given timestamp (or the newest version if the timestamp
+     * is null). Already loaded objects are taken from the given map. Since the conversion removes the entries of the
+     * converted object, a copy of the loaded object is returned.
+     */
+    private EDBObject getReferencedObject(String oid, Long timestamp, Map<ReferenceKey, EDBObject> referenced) {
+        EDBObject object = referenced.get(getReferenceKey(oid, timestamp));
+        if (object != null) {
+            return new EDBObject(oid, object);
+        }
+        return timestamp == null ? edbService.getObject(oid) : edbService.getObject(oid, timestamp);
+    }
+
+    /**
+     * Returns the timestamp of the given object, which is the time for which the single sub-models of the object are
+     * loaded. If the object has no valid timestamp, null is returned and the newest versions of the sub-models are
+     * used.
+     */
+    private Long getTimestampOfObject(EDBObject object) {
+        Object timestamp = object.getObject(EDBConstants.MODEL_TIMESTAMP);
+        if (timestamp != null) {
+            try {
+                return Long.parseLong(timestamp.toString());
+            } catch (NumberFormatException e) {
+                LOGGER.warn("The model with the oid {} has an invalid timestamp.", object.getOID());
+            }
+        }
+        return null;
+    }
+
     /**
      * Tests if an EDBObject has the correct model class in which it should be converted. Returns false if the model
      * type is not fitting, returns true if the model type is fitting or model type is unknown.
@@ -113,25 +257,16 @@ public class EDBConverter {
      * Converts an EDBObject to a model by analyzing the object and trying to call the corresponding setters of the
      * model.
      */
-    private Object convertEDBObjectToUncheckedModel(Class<?> model, EDBObject object) {
+    private Object convertEDBObjectToUncheckedModel(Class<?> model, EDBObject object,
+            Map<ReferenceKey, EDBObject> referenced) {
         if (!checkEDBObjectModelType(object, model)) {
             return null;
         }
         filterEngineeringObjectInformation(object, model);
         List<OpenEngSBModelEntry> entries = new ArrayList<>();
-        for (PropertyDescriptor propertyDescriptor : getPropertyDescriptorsForClass(model)) {
-            if (propertyDescriptor.getWriteMethod() == null
-                    || propertyDescriptor.getName().equals(ModelUtils.MODEL_TAIL_FIELD_NAME)) {
-                continue;
-            }
-            Object value = getValueForProperty(propertyDescriptor, object);
-            Class<?> propertyClass = propertyDescriptor.getPropertyType();
-            if (propertyClass.isPrimitive()) {
-                entries.add(new OpenEngSBModelEntry(propertyDescriptor.getName(), value, ClassUtils
-                    .primitiveToWrapper(propertyClass)));
-            } else {
-                entries.add(new OpenEngSBModelEntry(propertyDescriptor.getName(), value, propertyClass));
-            }
+        for (Property property : ModelAccessorPlan.forClass(model).getProperties()) {
+            Object value = getValueForProperty(property, object, referenced);
+            entries.add(new OpenEngSBModelEntry(property.getName(), value, property.getEntryType()));
         }
 
         for (Map.Entry<String, EDBObjectEntry> objectEntry : object.entrySet()) {
@@ -147,104 +282,85 @@ public class EDBConverter {
         return ModelUtils.createModel(model, entries);
     }
 
-    /**
-     * Returns all property descriptors for a given class.
-     */
-    private List<PropertyDescriptor> getPropertyDescriptorsForClass(Class<?> clasz) {
-        try {
-            BeanInfo beanInfo = Introspector.getBeanInfo(clasz);
-            return Arrays.asList(beanInfo.getPropertyDescriptors());
-        } catch (IntrospectionException e) {
-            LOGGER.error("instantiation exception while trying to create instance of class {}", clasz.getName());
-        }
-        return Lists.newArrayList();
-    }
-
     /**
      * Generate the value for a specific property of a model out of an EDBObject.
      */
-    private Object getValueForProperty(PropertyDescriptor propertyDescriptor, EDBObject object) {
-        Method setterMethod = propertyDescriptor.getWriteMethod();
-        String propertyName = propertyDescriptor.getName();
+    private Object getValueForProperty(Property property, EDBObject object, Map<ReferenceKey, EDBObject> referenced) {
+        String propertyName = property.getName();
         Object value = object.getObject(propertyName);
-        Class<?> parameterType = setterMethod.getParameterTypes()[0];
-
-        // TODO: OPENENGSB-2719 do that in a better way than just an if-else series
-        if (Map.class.isAssignableFrom(parameterType)) {
-            List<Class<?>> classes = getGenericMapParameterClasses(setterMethod);
-            value = getMapValue(classes.get(0), classes.get(1), propertyName, object);
-        } else if (List.class.isAssignableFrom(parameterType)) {
-            Class<?> clazz = getGenericListParameterClass(setterMethod);
-            value = getListValue(clazz, propertyName, object);
-        } else if (parameterType.isArray()) {
-            Class<?> clazz = parameterType.getComponentType();
-            value = getArrayValue(clazz, propertyName, object);
-        } else if (value == null) {
-            return null;
-        } else if (OpenEngSBModel.class.isAssignableFrom(parameterType)) {
-            Object timestamp = object.getObject(EDBConstants.MODEL_TIMESTAMP);
-            Long time = System.currentTimeMillis();
-            if (timestamp != null) {
-                try {
-                    time = Long.parseLong(timestamp.toString());
-                } catch (NumberFormatException e) {
-                    LOGGER.warn("The model with the oid {} has an invalid timestamp.", object.getOID());
+        List<Class<?>> classes = property.getGenericClasses();
+
+        switch (property.getKind()) {
+            case MAP:
+                value = getMapValue(classes.get(0), classes.get(1), propertyName, object, referenced);
+                break;
+            case LIST:
+                value = getListValue(classes.get(0), propertyName, object, referenced);
+                break;
+            case ARRAY:
+                value = getArrayValue(classes.get(0), propertyName, object, referenced);
+                break;
+            default:
+                if (value == null || property.getKind() == PropertyKind.FILE) {
+                    return null;
                 }
-            }
-            EDBObject obj = edbService.getObject((String) value, time);
-            value = convertEDBObjectToUncheckedModel(parameterType, obj);
-            object.remove(propertyName);
-        } else if (parameterType.equals(FileWrapper.class)) {
-            FileWrapper wrapper = new FileWrapper();
-            String filename = object.getString(propertyName + FILEWRAPPER_FILENAME_SUFFIX);
-            String content = (String) value;
-            wrapper.setFilename(filename);
-            wrapper.setContent(Base64.decodeBase64(content));
-            value = wrapper;
-            object.remove(propertyName + FILEWRAPPER_FILENAME_SUFFIX);
-        } else if (parameterType.equals(File.class)) {
-            return null;
-        } else if (object.containsKey(propertyName)) {
-            if (parameterType.isEnum()) {
-                value = getEnumValue(parameterType, value);
-            }
+                value = getSingleValue(property, value, object, referenced);
+                break;
         }
         object.remove(propertyName);
         return value;
     }
 
     /**
-     * Get the type of the list parameter of a setter.
-     */
-    private Class<?> getGenericListParameterClass(Method setterMethod) {
-        return getGenericParameterClasses(setterMethod, 1).get(0);
-    }
-
-    /**
-     * Get the type of the map parameter of a setter
+     * Generate the value for a property which is neither a map, a list nor an array, and which is set in the
+     * EDBObject.
      */
-    private List<Class<?>> getGenericMapParameterClasses(Method setterMethod) {
-        return getGenericParameterClasses(setterMethod, 2);
+    private Object getSingleValue(Property property, Object value, EDBObject object,
+            Map<ReferenceKey, EDBObject> referenced) {
+        String propertyName = property.getName();
+        switch (property.getKind()) {
+            case MODEL:
+                EDBObject obj = getReferencedObject((String) value, getTimestampOfObject(object), referenced);
+                return convertEDBObjectToUncheckedModel(property.getParameterType(), obj, referenced);
+            case FILE_WRAPPER:
+                String filename = object.getString(propertyName + FILEWRAPPER_FILENAME_SUFFIX);
+                object.remove(propertyName + FILEWRAPPER_FILENAME_SUFFIX);
+                return getFileWrapper((String) value, filename);
+            case ENUM:
+                return getEnumValue(property.getParameterType(), value);
+            default:
+                return value;
+        }
     }
 
     /**
-     * Loads the generic parameter classes up to the given depth (1 for lists, 2 for maps)
+     * Creates the FileWrapper for the stored content of a FileWrapper property. The content is either a reference to
+     * the file content store or the Base64 encoded content itself.
      */
-    private List<Class<?>> getGenericParameterClasses(Method setterMethod, int depth) {
-        Type t = setterMethod.getGenericParameterTypes()[0];
-        ParameterizedType pType = (ParameterizedType) t;
-        List<Class<?>> classes = new ArrayList<>();
-        for (int i = 0; i < depth; i++) {
-            classes.add((Class<?>) pType.getActualTypeArguments()[i]);
+    private FileWrapper getFileWrapper(String content, String filename) {
+        if (!content.startsWith(FILEWRAPPER_CONTENT_REFERENCE_PREFIX)) {
+            FileWrapper wrapper = new FileWrapper();
+            wrapper.setFilename(filename);
+            wrapper.setContent(Base64.decodeBase64(content));
+            return wrapper;
         }
-        return classes;
+        if (fileContentStore == null) {
+            LOGGER.error("The content of the file {} is stored externally, but no file content store is configured",
+                filename);
+            FileWrapper wrapper = new FileWrapper();
+            wrapper.setFilename(filename);
+            return wrapper;
+        }
+        String hash = content.substring(FILEWRAPPER_CONTENT_REFERENCE_PREFIX.length());
+        return new StoredFileWrapper(fileContentStore, hash, filename);
     }
 
     /**
      * Gets a list object out of an EDBObject.
      */
     @SuppressWarnings("unchecked")
-    private <T> List<T> getListValue(Class<T> type, String propertyName, EDBObject object) {
+    private <T> List<T> getListValue(Class<T> type, String propertyName, EDBObject object,
+            Map<ReferenceKey, EDBObject> referenced) {
         List<T> temp = new ArrayList<>();
         for (int i = 0;; i++) {
             String property = getEntryNameForList(propertyName, i);
@@ -253,7 +369,8 @@ public class EDBConverter {
                 break;
             }
             if (OpenEngSBModel.class.isAssignableFrom(type)) {
-                obj = convertEDBObjectToUncheckedModel(type, edbService.getObject(object.getString(property)));
+                obj = convertEDBObjectToUncheckedModel(type,
+                    getReferencedObject(object.getString(property), null, referenced), referenced);
             }
             temp.add((T) obj);
             object.remove(property);
@@ -265,8 +382,9 @@ public class EDBConverter {
      * Gets an array object out of an EDBObject.
      */
     @SuppressWarnings("unchecked")
-    private <T> T[] getArrayValue(Class<T> type, String propertyName, EDBObject object) {
-        List<T> elements = getListValue(type, propertyName, object);
+    private <T> T[] getArrayValue(Class<T> type, String propertyName, EDBObject object,
+            Map<ReferenceKey, EDBObject> referenced) {
+        List<T> elements = getListValue(type, propertyName, object, referenced);
         T[] ar = (T[]) Array.newInstance(type, elements.size());
         return elements.toArray(ar);
     }
@@ -274,7 +392,8 @@ public class EDBConverter {
     /**
      * Gets a map object out of an EDBObject.
      */
-    private Object getMapValue(Class<?> keyType, Class<?> valueType, String propertyName, EDBObject object) {
+    private Object getMapValue(Class<?> keyType, Class<?> valueType, String propertyName, EDBObject object,
+            Map<ReferenceKey, EDBObject> referenced) {
         Map<Object, Object> temp = new HashMap<>();
         for (int i = 0;; i++) {
             String keyProperty = getEntryNameForMapKey(propertyName, i);
@@ -285,10 +404,12 @@ public class EDBConverter {
             Object key = object.getObject(keyProperty);
             Object value = object.getObject(valueProperty);
             if (OpenEngSBModel.class.isAssignableFrom(keyType)) {
-                key = convertEDBObjectToUncheckedModel(keyType, edbService.getObject(key.toString()));
+                key = convertEDBObjectToUncheckedModel(keyType, getReferencedObject(key.toString(), null, referenced),
+                    referenced);
             }
             if (OpenEngSBModel.class.isAssignableFrom(valueType)) {
-                value = convertEDBObjectToUncheckedModel(valueType, edbService.getObject(value.toString()));
+                value = convertEDBObjectToUncheckedModel(valueType,
+                    getReferencedObject(value.toString(), null, referenced), referenced);
             }
             temp.put(key, value);
             object.remove(keyProperty);
@@ -372,8 +493,7 @@ public class EDBConverter {
             } else if (entry.getType().equals(FileWrapper.class)) {
                 try {
                     FileWrapper wrapper = (FileWrapper) entry.getValue();
-                    String content = Base64.encodeBase64String(wrapper.getContent());
-                    object.putEDBObjectEntry(entry.getKey(), content, String.class);
+                    object.putEDBObjectEntry(entry.getKey(), getFileWrapperContent(wrapper), String.class);
                     object.putEDBObjectEntry(entry.getKey() + FILEWRAPPER_FILENAME_SUFFIX,
                         wrapper.getFilename(), String.class);
                 } catch (IOException e) {
@@ -458,6 +578,25 @@ public class EDBConverter {
         return oid;
     }
 
+    /**
+     * Returns the value under which the content of the given FileWrapper is saved in the EDB. If a file content store
+     * is configured, the content is saved there and only a reference to it is returned. Otherwise the content is
+     * returned Base64 encoded.
+     */
+    private String getFileWrapperContent(FileWrapper wrapper) throws IOException {
+        if (fileContentStore == null || !fileContentStore.isEnabled()) {
+            return Base64.encodeBase64String(wrapper.getContent());
+        }
+        String hash = null;
+        if (wrapper instanceof StoredFileWrapper) {
+            hash = ((StoredFileWrapper) wrapper).returnContentHash();
+        }
+        if (hash == null) {
+            hash = fileContentStore.store(wrapper.getContent());
+        }
+        return FILEWRAPPER_CONTENT_REFERENCE_PREFIX + hash;
+    }
+
     /**
      * Adds to the EDBObject special entries which mark that a model is referring to other models through
      * OpenEngSBForeignKey annotations
@@ -536,4 +675,31 @@ public class EDBConverter {
     public static String getEOReferenceStringFromAnnotation(OpenEngSBForeignKey key) {
         return String.format("%s%s:%s", REFERENCE_PREFIX, key.modelType(), key.modelVersion().toString());
     }
+
+    /**
+     * Identifies a referenced object by its oid and the timestamp it is loaded for.
+     */
+    private static final class ReferenceKey {
+        private final String oid;
+        private final Long timestamp;
+
+        private ReferenceKey(String oid, Long timestamp) {
+            this.oid = oid;
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ReferenceKey)) {
+                return false;
+            }
+            ReferenceKey other = (ReferenceKey) obj;
+            return oid.equals(other.oid) && Objects.equals(timestamp, other.timestamp);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(oid, timestamp);
+        }
+    }
 }
@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.ekb.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+/**
+ * Stores the content of files in a content-addressed way. Every content is stored only once under its SHA-256 hash,
+ * no matter how many model versions refer to it. The store is configured by the persist bundle of the EKB and
+ * exported as service, so all bundles converting models use the same store.
+ */
+public interface FileContentStore {
+
+    /**
+     * Returns true if a directory is configured for the store. If not, the content of FileWrapper properties is saved
+     * Base64 encoded in the EDB instead.
+     */
+    boolean isEnabled();
+
+    /**
+     * Stores the given content if it isn't stored yet and returns the hash under which it can be loaded again.
+     */
+    String store(byte[] content) throws IOException;
+
+    /**
+     * Loads the content with the given hash.
+     */
+    byte[] load(String hash) throws IOException;
+
+    /**
+     * Opens a stream to the content with the given hash, without loading the whole content into the memory.
+     */
+    InputStream openStream(String hash) throws IOException;
+
+    /**
+     * Removes all contents whose hashes are not part of the given referenced hashes. Only contents which were not
+     * stored during the given minimum age in milliseconds are removed, so that contents which are stored for a commit
+     * that is still in progress are kept. Returns the number of removed contents.
+     */
+    int removeUnreferenced(Set<String> referencedHashes, long minAge) throws IOException;
+}
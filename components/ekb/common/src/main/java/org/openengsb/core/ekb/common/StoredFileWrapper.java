@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.ekb.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.openengsb.core.api.model.FileWrapper;
+
+/**
+ * A FileWrapper whose content is stored in a {@link FileContentStore}. The content is only loaded when it is actually
+ * used. As long as the content isn't replaced, the wrapper can be persisted again by its hash without reading it.
+ */
+public class StoredFileWrapper extends FileWrapper {
+    private final FileContentStore store;
+    private final String contentHash;
+    private boolean loaded;
+    private boolean modified;
+
+    public StoredFileWrapper(FileContentStore store, String contentHash, String filename) {
+        this.store = store;
+        this.contentHash = contentHash;
+        setFilename(filename);
+    }
+
+    @Override
+    public byte[] getContent() throws IOException {
+        loadContent();
+        return super.getContent();
+    }
+
+    @Override
+    public void setContent(byte[] content) {
+        super.setContent(content);
+        loaded = true;
+        modified = true;
+    }
+
+    @Override
+    public void setFile(File file) {
+        super.setFile(file);
+        loaded = true;
+        modified = true;
+    }
+
+    @Override
+    public File returnFile() throws IOException {
+        loadContent();
+        return super.returnFile();
+    }
+
+    private void loadContent() throws IOException {
+        if (!loaded) {
+            super.setContent(store.load(contentHash));
+            loaded = true;
+        }
+    }
+
+    /**
+     * Opens a stream to the stored content, without loading the whole content into the memory.
+     */
+    public InputStream openContentStream() throws IOException {
+        if (modified) {
+            throw new IllegalStateException("the content of the wrapper was replaced and isn't stored yet");
+        }
+        return store.openStream(contentHash);
+    }
+
+    /**
+     * Returns the hash of the stored content, or null if the content was replaced. This method is not named as getter
+     * so that the hash isn't serialized together with the wrapper.
+     */
+    public String returnContentHash() {
+        return modified ? null : contentHash;
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.ekb.common;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DefaultFileContentStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileContentStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new DefaultFileContentStore(folder.getRoot().getAbsolutePath());
+    }
+
+    @Test
+    public void testStoreSameContentTwice_shouldStoreItOnlyOnce() throws Exception {
+        String hash = store.store("content".getBytes("UTF-8"));
+        String hash2 = store.store("content".getBytes("UTF-8"));
+
+        assertThat(hash2, is(hash));
+        assertThat(new File(folder.getRoot(), hash.substring(0, 2)).list().length, is(1));
+        assertThat(new String(store.load(hash), "UTF-8"), is("content"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadWithInvalidHash_shouldThrowException() throws Exception {
+        store.load("../../etc/passwd");
+    }
+
+    @Test
+    public void testStoredFileWrapper_shouldLoadContentLazily() throws Exception {
+        String hash = store.store("content".getBytes("UTF-8"));
+        StoredFileWrapper wrapper = new StoredFileWrapper(store, hash, "test.txt");
+
+        assertThat(wrapper.returnContentHash(), is(hash));
+        assertThat(new String(wrapper.getContent(), "UTF-8"), is("content"));
+        assertThat(wrapper.getFilename(), is("test.txt"));
+        wrapper.setContent("other".getBytes("UTF-8"));
+        assertThat(wrapper.returnContentHash(), nullValue());
+    }
+
+    @Test
+    public void testRemoveUnreferenced_shouldOnlyRemoveOldUnreferencedContents() throws Exception {
+        String referenced = store.store("referenced".getBytes("UTF-8"));
+        String orphaned = store.store("orphaned".getBytes("UTF-8"));
+        String recent = store.store("recent".getBytes("UTF-8"));
+        long old = System.currentTimeMillis() - 10000;
+        getContentFile(referenced).setLastModified(old);
+        getContentFile(orphaned).setLastModified(old);
+
+        int removed = store.removeUnreferenced(Collections.singleton(referenced), 5000);
+
+        assertThat(removed, is(1));
+        assertThat(getContentFile(referenced).exists(), is(true));
+        assertThat(getContentFile(orphaned).exists(), is(false));
+        assertThat(getContentFile(recent).exists(), is(true));
+    }
+
+    @Test
+    public void testStoreExistingContent_shouldKeepItFromBeingRemoved() throws Exception {
+        String hash = store.store("content".getBytes("UTF-8"));
+        getContentFile(hash).setLastModified(System.currentTimeMillis() - 10000);
+
+        store.store("content".getBytes("UTF-8"));
+        int removed = store.removeUnreferenced(Collections.<String> emptySet(), 5000);
+
+        assertThat(removed, is(0));
+        assertThat(getContentFile(hash).exists(), is(true));
+    }
+
+    @Test
+    public void testStoreWithoutDirectory_shouldBeDisabled() throws Exception {
+        assertThat(store.isEnabled(), is(true));
+        assertThat(new DefaultFileContentStore("").isEnabled(), is(false));
+    }
+
+    private File getContentFile(String hash) {
+        return new File(new File(folder.getRoot(), hash.substring(0, 2)), hash);
+    }
+}
@@ -17,11 +17,17 @@
 
 package org.openengsb.core.ekb.graph.orient.internal;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -32,6 +38,8 @@ import org.openengsb.core.ekb.api.transformation.TransformationDescription;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
 import com.orientechnologies.orient.core.Orient;
 import com.orientechnologies.orient.core.db.graph.OGraphDatabase;
 import com.orientechnologies.orient.core.index.OIndexes;
@@ -44,6 +52,9 @@ import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
  * It usually get filled by two components: the TransformationEngineService and the ModelRegistryService. The
  * TransformationEngineService inserts all transformations it get saved as new edges into the graph database. The
  * ModelRegistry notifies the graph whenever new models get available or models get unavailable.
+ *
+ * For the path search, the models and transformations are additionally kept in an in-memory adjacency index, which is
+ * searched breadth first. The resolved paths are cached until the next change of the graph.
  */
 public final class OrientModelGraph implements ModelGraph {
     private static final Logger LOGGER = LoggerFactory.getLogger(OrientModelGraph.class);
@@ -52,11 +63,21 @@ public final class OrientModelGraph implements ModelGraph {
     private AtomicLong counter;
     private ReadWriteLock lockingMechanism;
 
+    /** The active state of every model in the graph */
+    private Map<String, Boolean> activeModels;
+    /** The transformations by source and target model, in the order in which they were added */
+    private Map<String, Map<String, List<TransformationDescription>>> transformations;
+    /** The resolved paths, or absent if there is no path. Only changed under the write lock or filled by readers. */
+    private Map<PathKey, Optional<List<TransformationDescription>>> paths;
+
     public OrientModelGraph() {
         startup();
         descriptions = new HashMap<String, TransformationDescription>();
         counter = new AtomicLong(0L);
         lockingMechanism = new ReentrantReadWriteLock(true);
+        activeModels = new HashMap<String, Boolean>();
+        transformations = new HashMap<String, Map<String, List<TransformationDescription>>>();
+        paths = new ConcurrentHashMap<PathKey, Optional<List<TransformationDescription>>>();
     }
 
     private void startup() {
@@ -99,6 +120,10 @@ public final class OrientModelGraph implements ModelGraph {
             for (ODocument node : graph.browseVertices()) {
                 node.delete();
             }
+            descriptions.clear();
+            activeModels.clear();
+            transformations.clear();
+            paths.clear();
         } finally {
             lockingMechanism.writeLock().unlock();
         }
@@ -115,6 +140,8 @@ public final class OrientModelGraph implements ModelGraph {
             }
             OrientModelGraphUtils.setActiveFieldValue(node, true);
             node.save();
+            activeModels.put(model.toString(), true);
+            paths.clear();
             LOGGER.debug("Added model {} to the graph database", model);
         } finally {
             lockingMechanism.writeLock().unlock();
@@ -132,6 +159,8 @@ public final class OrientModelGraph implements ModelGraph {
             }
             OrientModelGraphUtils.setActiveFieldValue(node, false);
             node.save();
+            activeModels.put(model.toString(), false);
+            paths.clear();
             LOGGER.debug("Removed model {} from the graph database", model);
         } finally {
             lockingMechanism.writeLock().unlock();
@@ -153,6 +182,9 @@ public final class OrientModelGraph implements ModelGraph {
             OrientModelGraphUtils.fillEdgeWithPropertyConnections(edge, description);
             edge.save();
             descriptions.put(description.getId(), description);
+            getTransformationsBetweenModels(description.getSourceModel().toString(),
+                description.getTargetModel().toString()).add(description);
+            paths.clear();
             LOGGER.debug("Added transformation description {} to the graph database", description);
         } finally {
             lockingMechanism.writeLock().unlock();
@@ -169,20 +201,34 @@ public final class OrientModelGraph implements ModelGraph {
                 String id = OrientModelGraphUtils.getIdFieldValue(edge);
                 if (description.getId() == null && isInternalId(id)) {
                     edge.delete();
-                    descriptions.remove(id);
+                    removeDescription(source, target, id);
                     LOGGER.debug("Removed transformation description {} from the graph database", id);
                 } else if (id.equals(description.getId())) {
                     edge.delete();
-                    descriptions.remove(id);
+                    removeDescription(source, target, id);
                     LOGGER.debug("Removed transformation description {} from the graph database", id);
                     break;
                 }
             }
+            paths.clear();
         } finally {
             lockingMechanism.writeLock().unlock();
         }
     }
 
+    private void removeDescription(String source, String target, String id) {
+        TransformationDescription description = descriptions.remove(id);
+        Map<String, List<TransformationDescription>> targets = transformations.get(source);
+        if (description == null || targets == null || !targets.containsKey(target)) {
+            return;
+        }
+        List<TransformationDescription> between = targets.get(target);
+        between.remove(description);
+        if (between.isEmpty()) {
+            targets.remove(target);
+        }
+    }
+
     @Override
     public List<TransformationDescription> getTransformationsPerFileName(String filename) {
         lockingMechanism.readLock().lock();
@@ -204,16 +250,15 @@ public final class OrientModelGraph implements ModelGraph {
             List<String> ids) {
         lockingMechanism.readLock().lock();
         try {
-            if (ids == null) {
-                ids = new ArrayList<String>();
+            Set<String> idSet = ids == null ? Collections.<String> emptySet() : new HashSet<String>(ids);
+            PathKey key = new PathKey(source.toString(), target.toString(), idSet);
+            Optional<List<TransformationDescription>> path = paths.get(key);
+            if (path == null) {
+                path = Optional.fromNullable(searchShortestPath(source.toString(), target.toString(), idSet));
+                paths.put(key, path);
             }
-            List<ODocument> path = recursivePathSearch(source.toString(), target.toString(), ids, new ODocument[0]);
-            List<TransformationDescription> result = new ArrayList<TransformationDescription>();
-            if (path != null) {
-                for (ODocument edge : path) {
-                    result.add(descriptions.get(OrientModelGraphUtils.getIdFieldValue(edge)));
-                }
-                return result;
+            if (path.isPresent()) {
+                return new ArrayList<TransformationDescription>(path.get());
             }
             throw new IllegalArgumentException("No transformation description found");
         } finally {
@@ -260,15 +305,6 @@ public final class OrientModelGraph implements ModelGraph {
         return graph.query(new OSQLSynchQuery<ODocument>(query), from, to);
     }
 
-    /**
-     * Returns all neighbors of a model.
-     */
-    private List<ODocument> getNeighborsOfModel(String model) {
-        String query = String.format("select from Models where in.out.%s in [?]", OGraphDatabase.LABEL);
-        List<ODocument> neighbors = graph.query(new OSQLSynchQuery<ODocument>(query), model);
-        return neighbors;
-    }
-
     /**
      * Returns the model with the given name, or creates one if it isn't existing until then and returns the new one.
      */
@@ -279,94 +315,107 @@ public final class OrientModelGraph implements ModelGraph {
             OrientModelGraphUtils.setIdFieldValue(node, model.toString());
             OrientModelGraphUtils.setActiveFieldValue(node, false);
             node.save();
+            activeModels.put(model, false);
         }
         return node;
     }
 
     /**
-     * Returns the model with the given name.
+     * Returns the modifiable list of the transformations from the source to the target model in the adjacency index.
      */
-    private ODocument getModel(String model) {
-        String query = String.format("select from Models where %s = ?", OGraphDatabase.LABEL);
-        List<ODocument> from = graph.query(new OSQLSynchQuery<ODocument>(query), model);
-        if (from.size() > 0) {
-            return from.get(0);
-        } else {
-            return null;
+    private List<TransformationDescription> getTransformationsBetweenModels(String source, String target) {
+        Map<String, List<TransformationDescription>> targets = transformations.get(source);
+        if (targets == null) {
+            targets = new LinkedHashMap<String, List<TransformationDescription>>();
+            transformations.put(source, targets);
+        }
+        List<TransformationDescription> between = targets.get(target);
+        if (between == null) {
+            between = new ArrayList<TransformationDescription>();
+            targets.put(target, between);
         }
+        return between;
     }
 
     /**
-     * Recursive path search function. It performs a depth first search with integrated loop check to find a path from
-     * the start model to the end model. If the id list is not empty, then the function only returns a path as valid if
-     * all transformations defined with the id list are in the path. It also takes care of models which aren't
-     * available. Returns null if there is no path found.
+     * Breadth first search for the shortest path from the start model to the end model over active models. If the id
+     * list is not empty, then the function only returns a path as valid if all transformations defined with the id
+     * list are in the path, so a model may be visited again if more of these transformations were passed in between.
+     * Returns null if there is no path found.
      */
-    private List<ODocument> recursivePathSearch(String start, String end, List<String> ids, ODocument... steps) {
-        List<ODocument> neighbors = getNeighborsOfModel(start);
-        for (ODocument neighbor : neighbors) {
-            if (alreadyVisited(neighbor, steps) || !OrientModelGraphUtils.getActiveFieldValue(neighbor)) {
-                continue;
-            }
-            ODocument nextStep = getEdgeWithPossibleId(start, OrientModelGraphUtils.getIdFieldValue(neighbor), ids);
-            if (nextStep == null) {
+    private List<TransformationDescription> searchShortestPath(String start, String end, Set<String> ids) {
+        Deque<PathStep> queue = new ArrayDeque<PathStep>();
+        Map<String, Set<Set<String>>> visited = new HashMap<String, Set<Set<String>>>();
+        PathStep first = new PathStep(start, Collections.<String> emptySet(), null, null);
+        markVisited(visited, first);
+        queue.add(first);
+        while (!queue.isEmpty()) {
+            PathStep step = queue.poll();
+            Map<String, List<TransformationDescription>> targets = transformations.get(step.model);
+            if (targets == null) {
                 continue;
             }
-            if (OrientModelGraphUtils.getIdFieldValue(neighbor).equals(end)) {
-                List<ODocument> result = new ArrayList<ODocument>();
-                List<String> copyIds = new ArrayList<String>(ids);
-                for (ODocument step : steps) {
-                    String id = OrientModelGraphUtils.getIdFieldValue(step);
-                    if (id != null && copyIds.contains(id)) {
-                        copyIds.remove(id);
-                    }
-                    result.add(step);
-                }
-                String id = OrientModelGraphUtils.getIdFieldValue(nextStep);
-                if (id != null && copyIds.contains(id)) {
-                    copyIds.remove(id);
+            for (Map.Entry<String, List<TransformationDescription>> entry : targets.entrySet()) {
+                if (!Boolean.TRUE.equals(activeModels.get(entry.getKey()))) {
+                    continue;
                 }
-                result.add(nextStep);
-                if (copyIds.isEmpty()) {
-                    return result;
+                for (TransformationDescription transformation : selectTransformations(entry.getValue(), ids)) {
+                    Set<String> covered = step.coveredIds;
+                    if (ids.contains(transformation.getId()) && !covered.contains(transformation.getId())) {
+                        covered = new HashSet<String>(covered);
+                        covered.add(transformation.getId());
+                    }
+                    PathStep next = new PathStep(entry.getKey(), covered, step, transformation);
+                    if (next.model.equals(end) && covered.size() == ids.size()) {
+                        return next.toPath();
+                    }
+                    if (markVisited(visited, next)) {
+                        queue.add(next);
+                    }
                 }
             }
-            ODocument[] path = Arrays.copyOf(steps, steps.length + 1);
-            path[path.length - 1] = nextStep;
-            List<ODocument> check =
-                recursivePathSearch(OrientModelGraphUtils.getIdFieldValue(neighbor), end, ids, path);
-            if (check != null) {
-                return check;
-            }
         }
         return null;
     }
 
     /**
-     * Returns an edge between the start and the end model. If there is an edge which has an id which is contained in
-     * the given id list, then this transformation is returned. If not, then the first found is returned.
+     * Returns the transformations between two models which are worth following: those which are contained in the id
+     * list, or the first one if there are none of them.
      */
-    private ODocument getEdgeWithPossibleId(String start, String end, List<String> ids) {
-        List<ODocument> edges = getEdgesBetweenModels(start, end);
-        for (ODocument edge : edges) {
-            if (ids.contains(OrientModelGraphUtils.getIdFieldValue(edge))) {
-                return edge;
+    private List<TransformationDescription> selectTransformations(List<TransformationDescription> between,
+            Set<String> ids) {
+        List<TransformationDescription> result = new ArrayList<TransformationDescription>();
+        for (TransformationDescription transformation : between) {
+            if (ids.contains(transformation.getId())) {
+                result.add(transformation);
             }
         }
-        return edges.size() != 0 ? edges.get(0) : null;
+        if (result.isEmpty() && !between.isEmpty()) {
+            result.add(between.get(0));
+        }
+        return result;
+    }
+
+    private boolean markVisited(Map<String, Set<Set<String>>> visited, PathStep step) {
+        Set<Set<String>> states = visited.get(step.model);
+        if (states == null) {
+            states = new HashSet<Set<String>>();
+            visited.put(step.model, states);
+        }
+        return states.add(step.coveredIds);
     }
 
     /**
-     * Checks if a model is already visited in the path search algorithm. Needed for the loop detection.
+     * Returns the model with the given name.
      */
-    private boolean alreadyVisited(ODocument neighbor, ODocument[] steps) {
-        for (ODocument step : steps) {
-            ODocument out = graph.getOutVertex(step);
-            if (out.equals(neighbor)) {
-                return true;
-            }
+    private ODocument getModel(String model) {
+        String query = String.format("select from Models where %s = ?", OGraphDatabase.LABEL);
+        List<ODocument> from = graph.query(new OSQLSynchQuery<ODocument>(query), model);
+        if (from.size() > 0) {
+            return from.get(0);
+        } else {
+            return null;
         }
-        return false;
     }
 
     /**
@@ -381,4 +430,57 @@ public final class OrientModelGraph implements ModelGraph {
             lockingMechanism.readLock().unlock();
         }
     }
+
+    /**
+     * A model reached by the path search, with the ids of the transformations passed on the way.
+     */
+    private static final class PathStep {
+        private final String model;
+        private final Set<String> coveredIds;
+        private final PathStep previous;
+        private final TransformationDescription transformation;
+
+        private PathStep(String model, Set<String> coveredIds, PathStep previous,
+                TransformationDescription transformation) {
+            this.model = model;
+            this.coveredIds = coveredIds;
+            this.previous = previous;
+            this.transformation = transformation;
+        }
+
+        private List<TransformationDescription> toPath() {
+            List<TransformationDescription> path = new ArrayList<TransformationDescription>();
+            for (PathStep step = this; step.previous != null; step = step.previous) {
+                path.add(step.transformation);
+            }
+            Collections.reverse(path);
+            return Collections.unmodifiableList(path);
+        }
+    }
+
+    private static final class PathKey {
+        private final String source;
+        private final String target;
+        private final Set<String> ids;
+
+        private PathKey(String source, String target, Set<String> ids) {
+            this.source = source;
+            this.target = target;
+            this.ids = ids;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(source, target, ids);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PathKey)) {
+                return false;
+            }
+            PathKey other = (PathKey) obj;
+            return source.equals(other.source) && target.equals(other.target) && ids.equals(other.ids);
+        }
+    }
 }
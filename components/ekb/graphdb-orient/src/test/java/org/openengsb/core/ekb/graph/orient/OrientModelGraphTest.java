@@ -201,4 +201,49 @@ public class OrientModelGraphTest {
         assertThat(result.get("A-1"), is("B-1,B-2,B-3"));
         assertThat(result.get("A-2"), is("B-1,B-3"));
     }
+
+    @Test
+    public void testFindTransformationPathAfterAddingShortcut_shouldFindShortestPath() throws Exception {
+        TransformationDescription description = getDescriptionForModelAToModelB();
+        description.setId("test1");
+        graph.addTransformation(description);
+        description = getDescriptionForModelBToModelC();
+        description.setId("test2");
+        graph.addTransformation(description);
+        List<TransformationDescription> path1 =
+            graph.getTransformationPath(getModelADescription(), getModelCDescription(), null);
+        description = getDescriptionForModelAToModelC();
+        description.setId("test3");
+        graph.addTransformation(description);
+        List<TransformationDescription> path2 =
+            graph.getTransformationPath(getModelADescription(), getModelCDescription(), null);
+        graph.removeTransformation(description);
+        List<TransformationDescription> path3 =
+            graph.getTransformationPath(getModelADescription(), getModelCDescription(), null);
+
+        assertThat(path1.size(), is(2));
+        assertThat(path2.size(), is(1));
+        assertThat(path2.get(0).getId(), is("test3"));
+        assertThat(path3.size(), is(2));
+    }
+
+    @Test
+    public void testFindTransformationPathWithIdOffShortestPath_shouldUseTransformationWithId() throws Exception {
+        TransformationDescription description = getDescriptionForModelAToModelB();
+        description.setId("test1");
+        graph.addTransformation(description);
+        description = getDescriptionForModelBToModelC();
+        description.setId("test2");
+        graph.addTransformation(description);
+        description = getDescriptionForModelAToModelC();
+        description.setId("test3");
+        graph.addTransformation(description);
+
+        List<TransformationDescription> path =
+            graph.getTransformationPath(getModelADescription(), getModelCDescription(), Arrays.asList("test2"));
+
+        assertThat(path.size(), is(2));
+        assertThat(path.get(0).getId(), is("test1"));
+        assertThat(path.get(1).getId(), is("test2"));
+    }
 }
@@ -0,0 +1,104 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.ekb.persistence.persist.edb.internal;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.openengsb.core.edb.api.EngineeringDatabaseService;
+import org.openengsb.core.ekb.common.EDBConverter;
+import org.openengsb.core.ekb.common.FileContentStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Removes the contents from the file content store which are no longer referenced by any entry in the history of the
+ * EDB, e.g. because the commit which stored them failed. Collecting the references scans all entries of the EDB, so
+ * the cleanup runs in the background in the configured interval and not when the bundle is started.
+ */
+public class FileContentCleaner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileContentCleaner.class);
+    private static final long ORPHAN_MIN_AGE = TimeUnit.HOURS.toMillis(1);
+
+    private final EngineeringDatabaseService edbService;
+    private final FileContentStore fileContentStore;
+    private final long interval;
+    private ScheduledExecutorService executor;
+
+    /**
+     * Creates a cleaner which runs every interval hours. A cleaner with an interval of 0 or less never runs.
+     */
+    public FileContentCleaner(EngineeringDatabaseService edbService, FileContentStore fileContentStore,
+            long interval) {
+        this.edbService = edbService;
+        this.fileContentStore = fileContentStore;
+        this.interval = interval;
+    }
+
+    /**
+     * Schedules the cleanup, the first run happens one interval after the start. Does nothing if the file content
+     * store is disabled or the interval is 0 or less.
+     */
+    public synchronized void start() {
+        if (!fileContentStore.isEnabled() || interval <= 0) {
+            return;
+        }
+        executor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+            .setNameFormat("ekb-file-content-cleaner").setDaemon(true).build());
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                removeOrphanedFileContents();
+            }
+        }, interval, interval, TimeUnit.HOURS);
+        LOGGER.info("removing orphaned file contents every {} hours", interval);
+    }
+
+    /**
+     * Stops the scheduled cleanup.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Removes the contents which are not referenced by any entry in the whole history of the EDB. Contents which were
+     * stored during the last hour are kept, since the commit referencing them may still be in progress.
+     */
+    public void removeOrphanedFileContents() {
+        Set<String> referenced = new HashSet<>();
+        try {
+            for (String value : edbService.getEntryValuesByPrefix(EDBConverter.FILEWRAPPER_CONTENT_REFERENCE_PREFIX)) {
+                referenced.add(value.substring(EDBConverter.FILEWRAPPER_CONTENT_REFERENCE_PREFIX.length()));
+            }
+            fileContentStore.removeUnreferenced(referenced, ORPHAN_MIN_AGE);
+        } catch (IOException | RuntimeException e) {
+            // an exception would cancel the following runs of the scheduled cleanup
+            LOGGER.error("unable to remove the orphaned file contents", e);
+        }
+    }
+}
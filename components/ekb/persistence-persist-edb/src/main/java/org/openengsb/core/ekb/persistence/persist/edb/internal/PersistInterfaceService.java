@@ -294,7 +294,7 @@ public class PersistInterfaceService implements PersistInterface {
             ci.setConnectorId(source.getConnectorId());
             ci.setInstanceId(source.getInstanceId());
             ci.setComment(source.getComment());
-            edbService.commit(ci);
+            source.setTimestamp(edbService.commit(ci));
             source.setRevisionNumber(ci.getRevisionNumber());
             source.setParentRevisionNumber(ci.getParentRevisionNumber());
         } catch (EDBCheckException e) {
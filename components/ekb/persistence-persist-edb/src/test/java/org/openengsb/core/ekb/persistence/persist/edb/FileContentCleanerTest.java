@@ -0,0 +1,63 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.ekb.persistence.persist.edb;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.openengsb.core.edb.api.EngineeringDatabaseService;
+import org.openengsb.core.ekb.common.EDBConverter;
+import org.openengsb.core.ekb.common.FileContentStore;
+import org.openengsb.core.ekb.persistence.persist.edb.internal.FileContentCleaner;
+
+public class FileContentCleanerTest {
+
+    @Test
+    public void testRemoveOrphanedFileContents_shouldKeepReferencedContents() throws Exception {
+        EngineeringDatabaseService edbService = mock(EngineeringDatabaseService.class);
+        FileContentStore store = mock(FileContentStore.class);
+        when(edbService.getEntryValuesByPrefix(EDBConverter.FILEWRAPPER_CONTENT_REFERENCE_PREFIX)).thenReturn(
+            Arrays.asList(EDBConverter.FILEWRAPPER_CONTENT_REFERENCE_PREFIX + "abc"));
+        FileContentCleaner cleaner = new FileContentCleaner(edbService, store, 24);
+
+        cleaner.removeOrphanedFileContents();
+
+        verify(store).removeUnreferenced(Collections.singleton("abc"), 60 * 60 * 1000L);
+    }
+
+    @Test
+    public void testRemoveOrphanedFileContentsWhenEDBFails_shouldNotThrowException() throws Exception {
+        EngineeringDatabaseService edbService = mock(EngineeringDatabaseService.class);
+        FileContentStore store = mock(FileContentStore.class);
+        when(edbService.getEntryValuesByPrefix(EDBConverter.FILEWRAPPER_CONTENT_REFERENCE_PREFIX)).thenThrow(
+            new IllegalStateException("edb not available"));
+        FileContentCleaner cleaner = new FileContentCleaner(edbService, store, 24);
+
+        cleaner.removeOrphanedFileContents();
+
+        verify(store, never()).removeUnreferenced(anySetOf(String.class), anyLong());
+    }
+}
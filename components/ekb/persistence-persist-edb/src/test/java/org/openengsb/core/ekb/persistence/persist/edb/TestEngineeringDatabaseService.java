@@ -128,6 +128,11 @@ public class TestEngineeringDatabaseService implements EngineeringDatabaseServic
         return null;
     }
 
+    @Override
+    public Long getLastCommitTimestamp() throws EDBException {
+        return null;
+    }
+
     @Override
     public List<EDBCommit> getCommits(Map<String, Object> arg0) throws EDBException {
         return null;
@@ -153,6 +158,16 @@ public class TestEngineeringDatabaseService implements EngineeringDatabaseServic
         return null;
     }
 
+    @Override
+    public List<EDBObject> getHead(long arg0, String arg1, int arg2) throws EDBException {
+        return null;
+    }
+
+    @Override
+    public List<EDBObject> query(QueryRequest arg0, String arg1, int arg2) throws EDBException {
+        return null;
+    }
+
     @Override
     public List<EDBObject> getHistory(String arg0) throws EDBException {
         return null;
@@ -183,11 +198,21 @@ public class TestEngineeringDatabaseService implements EngineeringDatabaseServic
         return null;
     }
 
+    @Override
+    public List<EDBObject> getObjects(List<String> arg0, Long arg1) throws EDBException {
+        return null;
+    }
+
     @Override
     public List<String> getResurrectedOIDs() throws EDBException {
         return null;
     }
 
+    @Override
+    public List<String> getEntryValuesByPrefix(String prefix) throws EDBException {
+        return null;
+    }
+
     @Override
     public List<EDBObject> getStateOfLastCommitMatching(Map<String, Object> arg0) throws EDBException {
         return null;
@@ -18,6 +18,7 @@
 package org.openengsb.core.ekb.persistence.persist.edb;
 
 import java.lang.reflect.Field;
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.commons.lang.reflect.FieldUtils;
@@ -25,6 +26,7 @@ import org.openengsb.core.api.model.ModelDescription;
 import org.openengsb.core.ekb.api.EKBException;
 import org.openengsb.core.ekb.api.TransformationEngine;
 import org.openengsb.core.ekb.api.transformation.TransformationDescription;
+import org.openengsb.core.ekb.api.transformation.TransformationResult;
 import org.openengsb.core.util.ModelUtils;
 
 /**
@@ -98,6 +100,18 @@ public class TestTransformationEngine implements TransformationEngine {
         return null;
     }
 
+    @Override
+    public List<TransformationResult> performTransformations(ModelDescription arg0, ModelDescription arg1,
+            Collection<?> arg2) {
+        return null;
+    }
+
+    @Override
+    public List<TransformationResult> performTransformations(ModelDescription arg0, ModelDescription arg1,
+            Collection<?> arg2, List<String> arg3) {
+        return null;
+    }
+
     @Override
     public void saveDescription(TransformationDescription arg0) {
     }
@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.ekb.persistence.query.edb.internal;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang.ClassUtils;
+import org.openengsb.core.api.model.OpenEngSBModel;
+import org.openengsb.core.api.model.QueryRequest;
+import org.openengsb.core.api.model.annotation.Model;
+import org.openengsb.core.edb.api.EDBException;
+import org.openengsb.core.edb.api.EDBObject;
+import org.openengsb.core.edb.api.EngineeringDatabaseService;
+import org.openengsb.core.edbi.api.Index;
+import org.openengsb.core.edbi.api.IndexCommitQueue;
+import org.openengsb.core.edbi.api.IndexEngine;
+import org.openengsb.core.edbi.api.IndexField;
+import org.openengsb.core.edbi.api.IndexQuery;
+import org.openengsb.core.edbi.api.IndexRevision;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Answers query requests through the EDB index instead of the generic EDB query, if an index exists for the queried
+ * model and the request can be expressed as an index query. This is the case for AND joined, case sensitive requests
+ * without wildcards, where every parameter has exactly one value and refers to an indexed field that doesn't reference
+ * another model. The index only determines which objects match, the objects themselves are still loaded from the EDB.
+ * Since the index is maintained asynchronously, requests are only routed while the index is known to contain every EDB
+ * commit: no index commits may be pending or failed, and the latest EDB commit must have been indexed. Requests for the
+ * current state don't restrict the revision timestamp, so the index only has to find the latest revision of each
+ * model. The head table can't answer them, since it doesn't record the context that is part of every EDB object id.
+ * <p/>
+ * An EDB commit whose post commit hooks run after those of a later commit may still be missed for a short time, since
+ * the index then already contains the timestamp of the later commit.
+ */
+public class IndexQueryRouter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexQueryRouter.class);
+
+    private EngineeringDatabaseService edbService;
+    private List<IndexEngine> indexEngines = Collections.emptyList();
+    private List<IndexCommitQueue> indexCommitQueues = Collections.emptyList();
+
+    /**
+     * Returns the objects matching the request, or null if the request can't be answered through the index.
+     */
+    public List<EDBObject> query(Class<?> model, QueryRequest request) {
+        try {
+            IndexEngine indexEngine = getIndexEngine(model, request);
+            if (indexEngine == null) {
+                return null;
+            }
+            Long latestCommit = getIndexedLatestCommit();
+            if (latestCommit == null) {
+                LOGGER.debug("The index is not consistent with the EDB, the request {} is not routed to it", request);
+                return null;
+            }
+            IndexQuery<?> query = createQuery(indexEngine.getIndex(model), request, latestCommit);
+            if (query == null) {
+                return null;
+            }
+            List<String> oids = new ArrayList<>();
+            for (IndexRevision revision : indexEngine.queryRevisions(query)) {
+                oids.add(String.format("%s/%s", revision.getContextId(), revision.getModelId()));
+            }
+            LOGGER.debug("Found {} objects for the request {} in the index", oids.size(), request);
+            if (oids.isEmpty()) {
+                return new ArrayList<>();
+            }
+            return edbService.getObjects(oids, request.getTimestamp());
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to query the index of the model {}, falling back to the EDB", model.getName(), e);
+            return null;
+        }
+    }
+
+    private IndexEngine getIndexEngine(Class<?> model, QueryRequest request) {
+        if (indexEngines.isEmpty() || !request.isAndJoined() || request.isDeleted() || !request.isCaseSensitive()
+                || request.isWildcardAware()) {
+            return null;
+        }
+        IndexEngine indexEngine = indexEngines.get(0);
+        return indexEngine.indexExists(model) ? indexEngine : null;
+    }
+
+    /**
+     * Returns the timestamp of the latest EDB commit (0 if there is none) if the index is known to contain it and every
+     * commit before it, or null otherwise.
+     */
+    private Long getIndexedLatestCommit() {
+        long latestCommit;
+        try {
+            Long timestamp = edbService.getLastCommitTimestamp();
+            latestCommit = timestamp == null ? 0 : timestamp;
+        } catch (EDBException e) {
+            LOGGER.debug("Unable to determine the latest EDB commit", e);
+            return null;
+        }
+        for (IndexCommitQueue queue : indexCommitQueues) {
+            if (queue.getPendingCommitCount() > 0 || queue.getFailedCommitCount() > 0
+                    || queue.getIndexedTimestamp() < latestCommit) {
+                return null;
+            }
+        }
+        return latestCommit;
+    }
+
+    /**
+     * Translates the request into an index query, or returns null if this isn't possible. The query is restricted to
+     * the timestamp of the request only if this is before the given latest EDB commit.
+     */
+    private <T> IndexQuery<T> createQuery(Index<T> index, QueryRequest request, long latestCommit) {
+        IndexQuery<T> query = IndexQuery.from(index);
+        if (request.getTimestamp() < latestCommit) {
+            query.asOf(new Date(request.getTimestamp()));
+        }
+        if (request.getContextId() != null) {
+            query.inContext(request.getContextId());
+        }
+        for (Map.Entry<String, Set<Object>> parameter : request.getParameters().entrySet()) {
+            IndexField<?> field = getField(index, parameter.getKey());
+            if (field == null || parameter.getValue().size() != 1 || isModelType(field.getType())) {
+                return null;
+            }
+            Object value = convertValue(parameter.getValue().iterator().next(), field.getType());
+            if (value == null) {
+                return null;
+            }
+            query.equal(field.getName(), value);
+        }
+        return query;
+    }
+
+    private static IndexField<?> getField(Index<?> index, String name) {
+        for (IndexField<?> field : index.getFields()) {
+            if (field.getName().equals(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isModelType(Class<?> type) {
+        return OpenEngSBModel.class.isAssignableFrom(type) || type.isAnnotationPresent(Model.class);
+    }
+
+    /**
+     * Converts the given parameter value to the type of the field in the same way the EDB interprets it, or returns
+     * null if this isn't possible.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object convertValue(Object value, Class<?> type) {
+        Class<?> target = type.isPrimitive() ? ClassUtils.primitiveToWrapper(type) : type;
+        if (value == null || target.isInstance(value)) {
+            return value;
+        }
+        String string = value.toString();
+        try {
+            if (target == String.class) {
+                return string;
+            } else if (target.isEnum()) {
+                return Enum.valueOf((Class<? extends Enum>) target, string);
+            }
+            Method valueOf = target.getMethod("valueOf", String.class);
+            return target.isAssignableFrom(valueOf.getReturnType()) ? valueOf.invoke(null, string) : null;
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            LOGGER.debug("Unable to convert the value {} to {}", value, target.getName());
+            return null;
+        }
+    }
+
+    public void setEdbService(EngineeringDatabaseService edbService) {
+        this.edbService = edbService;
+    }
+
+    public void setIndexEngines(List<IndexEngine> indexEngines) {
+        this.indexEngines = indexEngines;
+    }
+
+    public void setIndexCommitQueues(List<IndexCommitQueue> indexCommitQueues) {
+        this.indexCommitQueues = indexCommitQueues;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.ekb.persistence.query.edb.internal;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.openengsb.core.api.model.QueryRequest;
+import org.openengsb.core.edb.api.EDBObject;
+import org.openengsb.core.edb.api.EngineeringDatabaseService;
+import org.openengsb.core.ekb.common.EDBConverter;
+
+/**
+ * The result of a paged query. Every iterator of this result loads the matching EDBObjects page by page from the EDB
+ * and converts only the current page into models. Since the timestamp of the query request is fixed, all pages show
+ * the same state of the EDB.
+ */
+public class PagedQueryResult<T> implements Iterable<T> {
+    private final Class<T> model;
+    private final QueryRequest request;
+    private final int pageSize;
+    private final EngineeringDatabaseService edbService;
+    private final EDBConverter edbConverter;
+
+    public PagedQueryResult(Class<T> model, QueryRequest request, int pageSize,
+            EngineeringDatabaseService edbService, EDBConverter edbConverter) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("The page size needs to be positive");
+        }
+        this.model = model;
+        this.request = request;
+        this.pageSize = pageSize;
+        this.edbService = edbService;
+        this.edbConverter = edbConverter;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new PageIterator();
+    }
+
+    private class PageIterator implements Iterator<T> {
+        private Iterator<T> page = Collections.emptyIterator();
+        private String lastOid;
+        private boolean lastPage;
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext() && !lastPage) {
+                loadNextPage();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("The result of a query can't be modified");
+        }
+
+        /**
+         * Loads the objects following the last loaded oid and converts them into models.
+         */
+        private void loadNextPage() {
+            List<EDBObject> objects = edbService.query(request, lastOid, pageSize);
+            if (objects.size() < pageSize) {
+                lastPage = true;
+            }
+            if (!objects.isEmpty()) {
+                lastOid = objects.get(objects.size() - 1).getOID();
+            }
+            page = edbConverter.convertEDBObjectsToModelObjects(model, objects).iterator();
+        }
+    }
+}
@@ -43,7 +43,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Implementation of the QueryInterface service. It's main responsibilities are the loading of elements from the EDB and
- * converting them to the correct format.
+ * converting them to the correct format. Queries which can be answered through the EDB index are routed to it by the
+ * IndexQueryRouter.
  */
 public class QueryInterfaceService implements QueryInterface {
     private static final Logger LOGGER = LoggerFactory.getLogger(QueryInterfaceService.class);
@@ -51,6 +52,7 @@ public class QueryInterfaceService implements QueryInterface {
     private EDBConverter edbConverter;
     private ModelRegistry modelRegistry;
     private List<QueryParser> queryParsers;
+    private IndexQueryRouter indexQueryRouter;
 
     @Override
     public <T> T getModel(Class<T> model, String oid) {
@@ -77,7 +79,18 @@ public class QueryInterfaceService implements QueryInterface {
     public <T> List<T> query(Class<T> model, QueryRequest request) {
         LOGGER.debug("Query for model {} with the request {}", model.getName(), request);
         request.setModelClassName(model.getName());
-        return edbConverter.convertEDBObjectsToModelObjects(model, edbService.query(request));
+        List<EDBObject> objects = indexQueryRouter != null ? indexQueryRouter.query(model, request) : null;
+        if (objects == null) {
+            objects = edbService.query(request);
+        }
+        return edbConverter.convertEDBObjectsToModelObjects(model, objects);
+    }
+
+    @Override
+    public <T> Iterable<T> queryInPages(Class<T> model, QueryRequest request, int pageSize) {
+        LOGGER.debug("Paged query for model {} with the request {}", model.getName(), request);
+        request.setModelClassName(model.getName());
+        return new PagedQueryResult<>(model, request, pageSize, edbService, edbConverter);
     }
 
     @Override
@@ -217,4 +230,8 @@ public class QueryInterfaceService implements QueryInterface {
     public void setQueryParsers(List<QueryParser> queryParsers) {
         this.queryParsers = queryParsers;
     }
+
+    public void setIndexQueryRouter(IndexQueryRouter indexQueryRouter) {
+        this.indexQueryRouter = indexQueryRouter;
+    }
 }
@@ -0,0 +1,174 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openengsb.core.ekb.persistence.query.edb;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.openengsb.core.api.model.QueryRequest;
+import org.openengsb.core.edb.api.EDBObject;
+import org.openengsb.core.edb.api.EngineeringDatabaseService;
+import org.openengsb.core.edbi.api.Index;
+import org.openengsb.core.edbi.api.IndexCommitQueue;
+import org.openengsb.core.edbi.api.IndexEngine;
+import org.openengsb.core.edbi.api.IndexField;
+import org.openengsb.core.edbi.api.IndexQuery;
+import org.openengsb.core.edbi.api.IndexRevision;
+import org.openengsb.core.ekb.persistence.query.edb.internal.IndexQueryRouter;
+import org.openengsb.core.ekb.persistence.query.edb.models.TestModel;
+
+public class IndexQueryRouterTest {
+    private IndexQueryRouter router;
+    private IndexEngine indexEngine;
+    private IndexCommitQueue indexCommitQueue;
+    private EngineeringDatabaseService edbService;
+
+    @Before
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void setup() {
+        edbService = mock(EngineeringDatabaseService.class);
+        indexEngine = mock(IndexEngine.class);
+        indexCommitQueue = mock(IndexCommitQueue.class);
+
+        IndexField nameField = mock(IndexField.class);
+        when(nameField.getName()).thenReturn("name");
+        when(nameField.getType()).thenReturn(String.class);
+        IndexField numberField = mock(IndexField.class);
+        when(numberField.getName()).thenReturn("number");
+        when(numberField.getType()).thenReturn(int.class);
+        Index index = mock(Index.class);
+        when(index.getFields()).thenReturn(Arrays.asList(nameField, numberField));
+
+        when(indexEngine.indexExists(TestModel.class)).thenReturn(true);
+        when(indexEngine.getIndex(TestModel.class)).thenReturn(index);
+
+        when(edbService.getLastCommitTimestamp()).thenReturn(2000L);
+        when(indexCommitQueue.getIndexedTimestamp()).thenReturn(2000L);
+
+        router = new IndexQueryRouter();
+        router.setEdbService(edbService);
+        router.setIndexEngines(Arrays.asList(indexEngine));
+        router.setIndexCommitQueues(Arrays.asList(indexCommitQueue));
+    }
+
+    @Test
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void testQueryWithIndexedFields_shouldLoadMatchingObjectsFromTheEdb() throws Exception {
+        when(indexEngine.queryRevisions(any(IndexQuery.class))).thenReturn(
+            Arrays.asList(new IndexRevision("testid", "testcontext", null, null, "INSERT")));
+        List<EDBObject> objects = Arrays.asList(new EDBObject("testcontext/testid"));
+        when(edbService.getObjects(Arrays.asList("testcontext/testid"), 1000L)).thenReturn(objects);
+
+        QueryRequest request = QueryRequest.query("name", "test").addParameter("number", "42").setTimestamp(1000L);
+        List<EDBObject> result = router.query(TestModel.class, request);
+
+        assertThat(result, is(objects));
+        ArgumentCaptor<IndexQuery> captor = ArgumentCaptor.forClass(IndexQuery.class);
+        verify(indexEngine).queryRevisions(captor.capture());
+        IndexQuery<?> query = captor.getValue();
+        assertThat(query.getRevision().getTime(), is(1000L));
+        assertThat(query.getPredicates().size(), is(2));
+        Collection<Object> values = new ArrayList<>();
+        for (IndexQuery.Predicate predicate : query.getPredicates()) {
+            assertThat(predicate.getOperator(), is(IndexQuery.Operator.EQUAL));
+            values.addAll(predicate.getValues());
+        }
+        assertThat(values.contains(42), is(true));
+        assertThat(values.contains("test"), is(true));
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    public void testQueryForTheCurrentState_shouldNotRestrictTheRevision() throws Exception {
+        when(indexEngine.queryRevisions(any(IndexQuery.class))).thenReturn(new ArrayList<IndexRevision>());
+
+        List<EDBObject> result = router.query(TestModel.class, QueryRequest.query("name", "test").setTimestamp(2000L));
+
+        assertThat(result.isEmpty(), is(true));
+        ArgumentCaptor<IndexQuery> captor = ArgumentCaptor.forClass(IndexQuery.class);
+        verify(indexEngine).queryRevisions(captor.capture());
+        assertThat(captor.getValue().getRevision(), nullValue());
+    }
+
+    @Test
+    public void testQueryWithFailedIndexCommits_shouldNotBeRouted() throws Exception {
+        when(indexCommitQueue.getFailedCommitCount()).thenReturn(1);
+
+        List<EDBObject> result = router.query(TestModel.class, QueryRequest.query("name", "test"));
+
+        assertThat(result, nullValue());
+        verify(indexEngine, never()).queryRevisions(any(IndexQuery.class));
+    }
+
+    @Test
+    public void testQueryWithLatestEdbCommitNotIndexedYet_shouldNotBeRouted() throws Exception {
+        when(indexCommitQueue.getIndexedTimestamp()).thenReturn(1500L);
+
+        List<EDBObject> result = router.query(TestModel.class, QueryRequest.query("name", "test"));
+
+        assertThat(result, nullValue());
+        verify(indexEngine, never()).queryRevisions(any(IndexQuery.class));
+    }
+
+    @Test
+    public void testQueryWithNotIndexedField_shouldNotBeRouted() throws Exception {
+        List<EDBObject> result = router.query(TestModel.class, QueryRequest.query("test", "value"));
+
+        assertThat(result, nullValue());
+        verify(indexEngine, never()).queryRevisions(any(IndexQuery.class));
+    }
+
+    @Test
+    public void testWildcardQuery_shouldNotBeRouted() throws Exception {
+        List<EDBObject> result = router.query(TestModel.class, QueryRequest.query("name", "te%").wildcardAware());
+
+        assertThat(result, nullValue());
+        verify(indexEngine, never()).queryRevisions(any(IndexQuery.class));
+    }
+
+    @Test
+    public void testQueryWithPendingIndexCommits_shouldNotBeRouted() throws Exception {
+        when(indexCommitQueue.getPendingCommitCount()).thenReturn(1);
+
+        List<EDBObject> result = router.query(TestModel.class, QueryRequest.query("name", "test"));
+
+        assertThat(result, nullValue());
+        verify(indexEngine, never()).queryRevisions(any(IndexQuery.class));
+    }
+
+    @Test
+    public void testQueryWithoutIndex_shouldNotBeRouted() throws Exception {
+        router.setIndexEngines(Collections.<IndexEngine> emptyList());
+
+        assertThat(router.query(TestModel.class, QueryRequest.query("name", "test")), nullValue());
+    }
+}
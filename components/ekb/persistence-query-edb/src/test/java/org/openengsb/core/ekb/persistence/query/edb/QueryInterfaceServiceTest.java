@@ -22,18 +22,28 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.openengsb.core.api.model.ModelWrapper;
+import org.openengsb.core.api.model.QueryRequest;
 import org.openengsb.core.api.model.OpenEngSBModelEntry;
 import org.openengsb.core.edb.api.EDBConstants;
 import org.openengsb.core.edb.api.EDBObject;
@@ -366,4 +376,57 @@ public class QueryInterfaceServiceTest {
         assertThat(model.getMap().get("keyC").toString(), is("valueC"));
     }
 
+    @Test
+    public void testQueryInPages_shouldLoadAllPages() throws Exception {
+        EngineeringDatabaseService edbService = mock(EngineeringDatabaseService.class);
+        when(edbService.query(any(QueryRequest.class), (String) isNull(), eq(2))).thenReturn(
+            Arrays.asList(createPagingTestObject("pageoid1"), createPagingTestObject("pageoid2")));
+        when(edbService.query(any(QueryRequest.class), eq("pageoid2"), eq(2))).thenReturn(
+            Arrays.asList(createPagingTestObject("pageoid3")));
+        service.setEdbService(edbService);
+        service.setEdbConverter(new EDBConverter(edbService));
+
+        List<String> names = new ArrayList<>();
+        for (TestModel model : service.queryInPages(TestModel.class, QueryRequest.create(), 2)) {
+            names.add(model.getName());
+        }
+
+        assertThat(names, is(Arrays.asList("pageoid1", "pageoid2", "pageoid3")));
+        verify(edbService, times(2)).query(any(QueryRequest.class), anyString(), anyInt());
+    }
+
+    @Test
+    public void testQueryModelsWithSubModels_shouldLoadSubModelsInOneBatch() throws Exception {
+        EngineeringDatabaseService edbService = mock(EngineeringDatabaseService.class);
+        EDBObject first = createPagingTestObject("batchoid1");
+        first.putEDBObjectEntry("sub", "batchsub1", SubModel.class);
+        EDBObject second = createPagingTestObject("batchoid2");
+        second.putEDBObjectEntry("sub", "batchsub2", SubModel.class);
+        when(edbService.query(any(QueryRequest.class))).thenReturn(Arrays.asList(first, second));
+        EDBObject sub1 = new EDBObject("batchsub1");
+        sub1.putEDBObjectEntry("value", "value1");
+        sub1.putEDBObjectEntry(EDBConstants.MODEL_TYPE, SubModel.class.getName());
+        EDBObject sub2 = new EDBObject("batchsub2");
+        sub2.putEDBObjectEntry("value", "value2");
+        sub2.putEDBObjectEntry(EDBConstants.MODEL_TYPE, SubModel.class.getName());
+        when(edbService.getObjects(anyListOf(String.class))).thenReturn(Arrays.asList(sub1, sub2));
+        service.setEdbService(edbService);
+        service.setEdbConverter(new EDBConverter(edbService));
+
+        List<TestModel> models = service.query(TestModel.class, QueryRequest.create());
+
+        assertThat(models.size(), is(2));
+        assertThat(models.get(0).getSub().getValue(), is("value1"));
+        assertThat(models.get(1).getSub().getValue(), is("value2"));
+        verify(edbService, times(1)).getObjects(anyListOf(String.class));
+        verify(edbService, never()).getObject(anyString());
+        verify(edbService, never()).getObject(anyString(), anyLong());
+    }
+
+    private EDBObject createPagingTestObject(String oid) {
+        EDBObject object = new EDBObject(oid);
+        object.putEDBObjectEntry("name", oid);
+        object.putEDBObjectEntry(EDBConstants.MODEL_TYPE, TestModel.class.getName());
+        return object;
+    }
 }
@@ -18,7 +18,14 @@
 package org.openengsb.core.ekb.transformation.wonderland.internal;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import org.openengsb.core.api.model.ModelDescription;
 import org.openengsb.core.ekb.api.ModelGraph;
@@ -26,7 +33,9 @@ import org.openengsb.core.ekb.api.ModelRegistry;
 import org.openengsb.core.ekb.api.TransformationEngine;
 import org.openengsb.core.ekb.api.transformation.TransformationDescription;
 import org.openengsb.core.ekb.api.transformation.TransformationOperationLoader;
+import org.openengsb.core.ekb.api.transformation.TransformationResult;
 import org.openengsb.core.ekb.transformation.wonderland.internal.performer.TransformationPerformer;
+import org.openengsb.core.ekb.transformation.wonderland.internal.performer.TransformationPlan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,10 +45,20 @@ import org.slf4j.LoggerFactory;
  */
 public class TransformationEngineService implements TransformationEngine {
     private static final Logger LOGGER = LoggerFactory.getLogger(TransformationEngineService.class);
+    private static final int MIN_BATCH_SIZE = 64;
     private ModelRegistry modelRegistry;
     private ModelGraph graphDb;
     private PropertyConnectionCalculator calculator;
     private TransformationOperationLoader operationLoader;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int parallelThreshold = 1000;
+    private ForkJoinPool forkJoinPool;
+
+    /**
+     * The compiled plans of the descriptions by description id. A plan is only used for the description instance it
+     * was compiled from, so a description which was saved again under the same id never runs with an outdated plan.
+     */
+    private final ConcurrentMap<String, TransformationPlan> plans = new ConcurrentHashMap<>();
 
     @Override
     public void saveDescription(TransformationDescription description) {
@@ -60,6 +79,29 @@ public class TransformationEngineService implements TransformationEngine {
     public void deleteDescription(TransformationDescription description) {
         LOGGER.debug("Deleted transformation description {} from transformation engine service", description);
         graphDb.removeTransformation(description);
+        invalidatePlans(description);
+    }
+
+    /**
+     * Removes the plans of the descriptions which are removed together with the given description. A description
+     * without id removes all descriptions with generated ids between its source and target model, so in this case all
+     * plans between these models are removed.
+     */
+    private void invalidatePlans(TransformationDescription description) {
+        if (description.getId() != null) {
+            plans.remove(description.getId());
+            return;
+        }
+        String source = description.getSourceModel().toString();
+        String target = description.getTargetModel().toString();
+        Iterator<TransformationPlan> iterator = plans.values().iterator();
+        while (iterator.hasNext()) {
+            TransformationDescription planned = iterator.next().getDescription();
+            if (planned.getSourceModel().toString().equals(source)
+                    && planned.getTargetModel().toString().equals(target)) {
+                iterator.remove();
+            }
+        }
     }
 
     @Override
@@ -95,21 +137,7 @@ public class TransformationEngineService implements TransformationEngine {
     public Object performTransformation(ModelDescription sourceModel, ModelDescription targetModel, Object source,
             Object target, List<String> ids) {
         try {
-            List<TransformationDescription> result = graphDb.getTransformationPath(sourceModel, targetModel, ids);
-            if (result == null || result.isEmpty()) {
-                return source;
-            }
-            for (int i = 0; i < result.size(); i++) {
-                TransformationDescription step = result.get(i);
-                if (i != result.size() - 1) {
-                    TransformationPerformer performer = new TransformationPerformer(modelRegistry, operationLoader);
-                    source = performer.transformObject(step, source);
-                } else {
-                    TransformationPerformer performer = new TransformationPerformer(modelRegistry, operationLoader);
-                    source = performer.transformObject(step, source, target);
-                }
-            }
-            return source;
+            return transformObject(getTransformationPlans(sourceModel, targetModel, ids), source, target);
         } catch (InstantiationException e) {
             LOGGER.error("Instantiation exception while trying to perform transformations", e);
         } catch (IllegalAccessException e) {
@@ -120,6 +148,86 @@ public class TransformationEngineService implements TransformationEngine {
         throw new IllegalArgumentException("No transformation description for the given parameters defined");
     }
 
+    @Override
+    public List<TransformationResult> performTransformations(ModelDescription sourceModel,
+            ModelDescription targetModel, Collection<?> sources) {
+        return performTransformations(sourceModel, targetModel, sources, new ArrayList<String>());
+    }
+
+    @Override
+    public List<TransformationResult> performTransformations(ModelDescription sourceModel,
+            ModelDescription targetModel, Collection<?> sources, List<String> ids) {
+        List<TransformationPlan> path = getTransformationPlans(sourceModel, targetModel, ids);
+        List<Object> objects = new ArrayList<Object>(sources);
+        TransformationBatch batch = new TransformationBatch(path, objects, 0, objects.size());
+        if (objects.size() < parallelThreshold) {
+            return batch.compute();
+        }
+        return getForkJoinPool().invoke(batch);
+    }
+
+    /**
+     * Shuts down the threads used for parallel batch transformations.
+     */
+    public synchronized void shutdown() {
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+            forkJoinPool = null;
+        }
+    }
+
+    private synchronized ForkJoinPool getForkJoinPool() {
+        if (forkJoinPool == null) {
+            forkJoinPool = new ForkJoinPool(parallelism);
+        }
+        return forkJoinPool;
+    }
+
+    /**
+     * Returns the compiled plans of the transformation path from the source model to the target model. The list is
+     * empty if no path is defined.
+     */
+    private List<TransformationPlan> getTransformationPlans(ModelDescription sourceModel,
+            ModelDescription targetModel, List<String> ids) {
+        List<TransformationDescription> path = graphDb.getTransformationPath(sourceModel, targetModel, ids);
+        if (path == null || path.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<TransformationPlan> result = new ArrayList<TransformationPlan>(path.size());
+        for (TransformationDescription description : path) {
+            result.add(getPlan(description));
+        }
+        return result;
+    }
+
+    /**
+     * Transforms the source object along the given plans. The target object is only used as base for the last plan.
+     */
+    private Object transformObject(List<TransformationPlan> path, Object source, Object target)
+        throws InstantiationException, IllegalAccessException, ClassNotFoundException {
+        for (int i = 0; i < path.size(); i++) {
+            TransformationPerformer performer = new TransformationPerformer(modelRegistry, operationLoader);
+            source = performer.transformObject(path.get(i), source, i == path.size() - 1 ? target : null);
+        }
+        return source;
+    }
+
+    /**
+     * Returns the compiled plan of the given description, which is compiled on the first use of the description.
+     */
+    private TransformationPlan getPlan(TransformationDescription description) {
+        String id = description.getId();
+        TransformationPlan plan = id == null ? null : plans.get(id);
+        if (plan != null && plan.getDescription() == description) {
+            return plan;
+        }
+        plan = TransformationPlan.compile(description);
+        if (id != null) {
+            plans.put(id, plan);
+        }
+        return plan;
+    }
+
     @Override
     public Boolean isTransformationPossible(ModelDescription sourceModel, ModelDescription targetModel) {
         return isTransformationPossible(sourceModel, targetModel, new ArrayList<String>());
@@ -143,4 +251,57 @@ public class TransformationEngineService implements TransformationEngine {
     public void setOperationLoader(TransformationOperationLoader operationLoader) {
         this.operationLoader = operationLoader;
     }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets the number of source objects from which on a batch transformation is split up and performed in parallel.
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Transforms a range of the source objects of a batch transformation. Ranges which are larger than the minimal
+     * batch size are split up into two halves which are transformed in parallel.
+     */
+    @SuppressWarnings("serial")
+    private class TransformationBatch extends RecursiveTask<List<TransformationResult>> {
+        private final List<TransformationPlan> path;
+        private final List<Object> sources;
+        private final int start;
+        private final int end;
+
+        public TransformationBatch(List<TransformationPlan> path, List<Object> sources, int start, int end) {
+            this.path = path;
+            this.sources = sources;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected List<TransformationResult> compute() {
+            if (end - start > MIN_BATCH_SIZE && inForkJoinPool()) {
+                int middle = (start + end) >>> 1;
+                TransformationBatch second = new TransformationBatch(path, sources, middle, end);
+                second.fork();
+                List<TransformationResult> results = new TransformationBatch(path, sources, start, middle).compute();
+                results.addAll(second.join());
+                return results;
+            }
+            List<TransformationResult> results = new ArrayList<TransformationResult>(end - start);
+            for (int i = start; i < end; i++) {
+                Object source = sources.get(i);
+                try {
+                    results.add(TransformationResult.success(source, transformObject(path, source, null)));
+                } catch (Exception e) {
+                    LOGGER.debug("Unable to transform object {} of the batch", source, e);
+                    results.add(TransformationResult.failure(source, e));
+                }
+            }
+            return results;
+        }
+    }
 }
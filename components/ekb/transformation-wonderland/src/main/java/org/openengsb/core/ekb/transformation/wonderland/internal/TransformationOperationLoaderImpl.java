@@ -18,6 +18,8 @@
 package org.openengsb.core.ekb.transformation.wonderland.internal;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.openengsb.core.api.OsgiUtilsService;
 import org.openengsb.core.ekb.api.transformation.TransformationOperation;
@@ -26,17 +28,48 @@ import org.openengsb.core.ekb.api.transformation.TransformationOperationLoader;
 import org.openengsb.core.util.DefaultOsgiUtilsService;
 import org.openengsb.core.util.FilterUtils;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
 
 /**
- * Standard implementation of the transformation operation loader.
+ * Standard implementation of the transformation operation loader. Operations loaded by name are cached until a
+ * transformation operation service is registered, modified or unregistered.
  */
 public class TransformationOperationLoaderImpl implements TransformationOperationLoader {
     private OsgiUtilsService service;
+    private BundleContext context;
+
+    /**
+     * Replaced by a new map on every service event, so lookups which were started before the event only fill the
+     * discarded map.
+     */
+    private volatile ConcurrentMap<String, TransformationOperation> operations =
+        new ConcurrentHashMap<String, TransformationOperation>();
+
+    private final ServiceListener invalidator = new ServiceListener() {
+        @Override
+        public void serviceChanged(ServiceEvent event) {
+            operations = new ConcurrentHashMap<String, TransformationOperation>();
+        }
+    };
 
     public TransformationOperationLoaderImpl(BundleContext context) {
+        this.context = context;
         service = new DefaultOsgiUtilsService(context);
     }
 
+    public void init() throws InvalidSyntaxException {
+        context.addServiceListener(invalidator,
+            String.format("(objectClass=%s)", TransformationOperation.class.getName()));
+        operations = new ConcurrentHashMap<String, TransformationOperation>();
+    }
+
+    public void destroy() {
+        context.removeServiceListener(invalidator);
+        operations = new ConcurrentHashMap<String, TransformationOperation>();
+    }
+
     @Override
     public List<TransformationOperation> loadActiveTransformationOperations() {
         return service.listServices(TransformationOperation.class);
@@ -45,8 +78,14 @@ public class TransformationOperationLoaderImpl implements TransformationOperatio
     @Override
     public TransformationOperation loadTransformationOperationByName(String operationName)
         throws TransformationOperationException {
-        return (TransformationOperation) service.getService(FilterUtils.makeFilter(TransformationOperation.class,
-            String.format("(transformation.operation=%s)", operationName)));
+        ConcurrentMap<String, TransformationOperation> cache = operations;
+        TransformationOperation operation = cache.get(operationName);
+        if (operation == null) {
+            operation = (TransformationOperation) service.getService(FilterUtils.makeFilter(
+                TransformationOperation.class, String.format("(transformation.operation=%s)", operationName)));
+            cache.put(operationName, operation);
+        }
+        return operation;
     }
 
 }
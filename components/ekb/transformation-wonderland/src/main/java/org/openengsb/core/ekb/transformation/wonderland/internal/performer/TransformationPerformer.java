@@ -17,19 +17,22 @@
 
 package org.openengsb.core.ekb.transformation.wonderland.internal.performer;
 
+import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.reflect.FieldUtils;
 import org.openengsb.core.ekb.api.ModelRegistry;
 import org.openengsb.core.ekb.api.transformation.TransformationDescription;
 import org.openengsb.core.ekb.api.transformation.TransformationOperation;
 import org.openengsb.core.ekb.api.transformation.TransformationOperationLoader;
-import org.openengsb.core.ekb.api.transformation.TransformationStep;
-import org.osgi.framework.Version;
+import org.openengsb.core.ekb.transformation.wonderland.internal.performer.TransformationPlan.FieldPath;
+import org.openengsb.core.ekb.transformation.wonderland.internal.performer.TransformationPlan.PlannedStep;
+import org.openengsb.core.ekb.transformation.wonderland.internal.performer.TransformationPlan.TargetField;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,6 +41,19 @@ import org.slf4j.LoggerFactory;
  */
 public class TransformationPerformer {
     private static final Logger LOGGER = LoggerFactory.getLogger(TransformationPerformer.class);
+
+    /**
+     * The accessible fields per class and field name. The fields are attached to their classes through a
+     * {@link ClassValue}, so the fields of classes from an uninstalled bundle don't keep its class loader alive.
+     */
+    private static final ClassValue<ConcurrentMap<String, Field>> FIELDS =
+        new ClassValue<ConcurrentMap<String, Field>>() {
+            @Override
+            protected ConcurrentMap<String, Field> computeValue(Class<?> clazz) {
+                return new ConcurrentHashMap<String, Field>();
+            }
+        };
+
     private Map<String, Object> temporaryFields;
     private Object source;
     private Object target;
@@ -50,31 +66,6 @@ public class TransformationPerformer {
         this.operationLoader = operationLoader;
     }
 
-    /**
-     * Does the checking of all necessary values of the TransformationDescription which are needed to process the
-     * description
-     */
-    private void checkNeededValues(TransformationDescription description) {
-        String message = "The TransformationDescription doesn't contain a %s. Description loading aborted";
-        if (description.getSourceModel().getModelClassName() == null) {
-            throw new IllegalArgumentException(String.format(message, "source class"));
-        }
-        if (description.getTargetModel().getModelClassName() == null) {
-            throw new IllegalArgumentException(String.format(message, "target class"));
-        }
-        String message2 = "The version string of the %s is not a correct version string. Description loading aborted";
-        try {
-            Version.parseVersion(description.getSourceModel().getVersionString());
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException(String.format(message2, "source class"), e);            
-        }
-        try {
-            Version.parseVersion(description.getTargetModel().getVersionString());
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException(String.format(message2, "target class"), e);            
-        }
-    }
-
     /**
      * Transforms the given object based on the given TransformationDescription.
      */
@@ -89,7 +80,16 @@ public class TransformationPerformer {
      */
     public Object transformObject(TransformationDescription description, Object source, Object target)
         throws InstantiationException, IllegalAccessException, ClassNotFoundException {
-        checkNeededValues(description);
+        return transformObject(TransformationPlan.compile(description), source, target);
+    }
+
+    /**
+     * Performs a transformation based merge of the given source object with the given target object based on the given
+     * compiled TransformationPlan. If the target object is null, a new instance of the target model is created.
+     */
+    public Object transformObject(TransformationPlan plan, Object source, Object target)
+        throws InstantiationException, IllegalAccessException, ClassNotFoundException {
+        TransformationDescription description = plan.getDescription();
         Class<?> sourceClass = modelRegistry.loadModel(description.getSourceModel());
         Class<?> targetClass = modelRegistry.loadModel(description.getTargetModel());
         if (!sourceClass.isAssignableFrom(source.getClass())) {
@@ -101,7 +101,7 @@ public class TransformationPerformer {
         } else {
             this.target = target;
         }
-        for (TransformationStep step : description.getTransformingSteps()) {
+        for (PlannedStep step : plan.getSteps()) {
             performTransformationStep(step);
         }
         return this.target;
@@ -110,28 +110,29 @@ public class TransformationPerformer {
     /**
      * Performs one transformation step
      */
-    private void performTransformationStep(TransformationStep step) throws IllegalAccessException {
+    private void performTransformationStep(PlannedStep step) throws IllegalAccessException {
         try {
             TransformationOperation operation =
-                operationLoader.loadTransformationOperationByName(step.getOperationName());
-            Object value = operation.performOperation(getSourceFieldValues(step), step.getOperationParams());
+                operationLoader.loadTransformationOperationByName(step.getStep().getOperationName());
+            Object value = operation.performOperation(getSourceFieldValues(step), step.getStep().getOperationParams());
             setObjectToTargetField(step.getTargetField(), value);
         } catch (TransformationStepException e) {
             LOGGER.debug(e.getMessage(), e);
         } catch (Exception e) {
-            LOGGER.error("Unable to perform transformation step {}.", step, e);
+            LOGGER.error("Unable to perform transformation step {}.", step.getStep(), e);
         }
     }
 
     /**
      * Returns a list of actual field values from the sources of the given transformation step
      */
-    private List<Object> getSourceFieldValues(TransformationStep step) throws Exception {
-        List<Object> sources = new ArrayList<Object>();
-        for (String sourceField : step.getSourceFields()) {
+    private List<Object> getSourceFieldValues(PlannedStep step) throws Exception {
+        List<Object> sources = new ArrayList<Object>(step.getSourceFields().size());
+        for (FieldPath sourceField : step.getSourceFields()) {
             Object object = getObjectValue(sourceField, true);
             if (object == null) {
-                String message = String.format("The source field %s is null. Step will be be ignored", sourceField);
+                String message = String.format("The source field %s is null. Step will be be ignored",
+                    sourceField.getPath());
                 throw new TransformationStepException(message);
             }
             sources.add(object);
@@ -140,48 +141,42 @@ public class TransformationPerformer {
     }
 
     /**
-     * Sets the given value object to the field with the field name of the target object. Is also aware of temporary
-     * fields.
+     * Sets the given value object to the given field of the target object. Is also aware of temporary fields.
      */
-    private void setObjectToTargetField(String fieldname, Object value) throws Exception {
+    private void setObjectToTargetField(TargetField field, Object value) throws Exception {
         Object toWrite = null;
-        if (fieldname.contains(".")) {
-            String path = StringUtils.substringBeforeLast(fieldname, ".");
-            toWrite = getObjectValue(path, false);
+        if (field.getParent() != null) {
+            toWrite = getObjectValue(field.getParent(), false);
         }
-        if (toWrite == null && isTemporaryField(fieldname)) {
-            String mapKey = StringUtils.substringAfter(fieldname, "#");
-            mapKey = StringUtils.substringBefore(mapKey, ".");
-            temporaryFields.put(mapKey, value);
+        if (toWrite == null && field.getTemporaryKey() != null) {
+            temporaryFields.put(field.getTemporaryKey(), value);
             return;
         }
-        String realFieldName = fieldname.contains(".") ? StringUtils.substringAfterLast(fieldname, ".") : fieldname;
-        writeObjectToField(realFieldName, value, toWrite, target);
+        writeObjectToField(field.getFieldName(), value, toWrite, target);
     }
 
     /**
-     * Gets the value of the field with the field name either from the source object or the target object, depending on
+     * Gets the value of the field with the field path either from the source object or the target object, depending on
      * the parameters. Is also aware of temporary fields.
      */
-    private Object getObjectValue(String fieldname, boolean fromSource) throws Exception {
+    private Object getObjectValue(FieldPath path, boolean fromSource) throws Exception {
         Object sourceObject = fromSource ? source : target;
         Object result = null;
-        for (String part : StringUtils.split(fieldname, ".")) {
-            if (isTemporaryField(part)) {
-                result = loadObjectFromTemporary(part, fieldname);
+        for (int i = 0; i < path.size(); i++) {
+            if (path.isTemporary(i)) {
+                result = loadObjectFromTemporary(path.getName(i), path.getPath());
             } else {
-                result = loadObjectFromField(part, result, sourceObject);
+                result = loadObjectFromField(path.getName(i), result, sourceObject);
             }
         }
         return result;
     }
 
     /**
-     * Loads the object for the given field name from the temporary fields. If an error occurs, the complete path
-     * (inclusive nested names) are given in an exception.
+     * Loads the object for the given temporary field name from the temporary fields. If an error occurs, the complete
+     * path (inclusive nested names) are given in an exception.
      */
-    private Object loadObjectFromTemporary(String fieldname, String complete) throws Exception {
-        String realName = fieldname.substring(1);
+    private Object loadObjectFromTemporary(String realName, String complete) throws Exception {
         if (!temporaryFields.containsKey(realName)) {
             String message = String.format("The temporary field %s doesn't exist.", complete);
             throw new IllegalArgumentException(message);
@@ -196,7 +191,7 @@ public class TransformationPerformer {
     private Object loadObjectFromField(String fieldname, Object object, Object alternative) throws Exception {
         Object source = object != null ? object : alternative;
         try {
-            return FieldUtils.readField(source, fieldname, true);
+            return getField(source.getClass(), fieldname).get(source);
         } catch (Exception e) {
             throw new IllegalArgumentException(String.format("Unable to load field '%s' from object '%s'", fieldname,
                 source.getClass().getName()));
@@ -211,7 +206,7 @@ public class TransformationPerformer {
         throws Exception {
         Object target = object != null ? object : alternative;
         try {
-            FieldUtils.writeField(target, fieldname, value, true);
+            getField(target.getClass(), fieldname).set(target, value);
         } catch (Exception e) {
             throw new IllegalArgumentException(String.format("Unable to write value '%s' to field '%s' of object %s",
                 value.toString(), fieldname, target.getClass().getName()));
@@ -219,9 +214,19 @@ public class TransformationPerformer {
     }
 
     /**
-     * Returns true if the given field name points to a temporary field. Returns false if not.
+     * Returns the accessible field with the given name of the given class or one of its super classes and interfaces.
+     * The lookup is done only once per class and field name.
      */
-    private boolean isTemporaryField(String fieldname) {
-        return fieldname.startsWith("#");
+    private static Field getField(Class<?> clazz, String fieldname) {
+        ConcurrentMap<String, Field> fields = FIELDS.get(clazz);
+        Field field = fields.get(fieldname);
+        if (field == null) {
+            field = FieldUtils.getField(clazz, fieldname, true);
+            if (field == null) {
+                throw new IllegalArgumentException(String.format("Cannot locate field %s on %s", fieldname, clazz));
+            }
+            fields.put(fieldname, field);
+        }
+        return field;
     }
 }
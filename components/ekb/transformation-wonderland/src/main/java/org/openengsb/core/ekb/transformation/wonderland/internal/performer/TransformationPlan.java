@@ -0,0 +1,209 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.ekb.transformation.wonderland.internal.performer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.openengsb.core.ekb.api.transformation.TransformationDescription;
+import org.openengsb.core.ekb.api.transformation.TransformationStep;
+import org.osgi.framework.Version;
+
+/**
+ * A TransformationDescription which is checked and prepared for execution. The field paths of all steps are parsed
+ * once, so that the TransformationPerformer doesn't need to split and inspect them for every transformed object.
+ */
+public final class TransformationPlan {
+    private final TransformationDescription description;
+    private final List<PlannedStep> steps;
+
+    private TransformationPlan(TransformationDescription description) {
+        this.description = description;
+        List<PlannedStep> planned = new ArrayList<PlannedStep>();
+        for (TransformationStep step : description.getTransformingSteps()) {
+            planned.add(new PlannedStep(step));
+        }
+        steps = Collections.unmodifiableList(planned);
+    }
+
+    /**
+     * Checks the given description and compiles it into a plan. Throws an IllegalArgumentException if the description
+     * misses values which are needed to process it.
+     */
+    public static TransformationPlan compile(TransformationDescription description) {
+        checkNeededValues(description);
+        return new TransformationPlan(description);
+    }
+
+    /**
+     * Does the checking of all necessary values of the TransformationDescription which are needed to process the
+     * description
+     */
+    private static void checkNeededValues(TransformationDescription description) {
+        String message = "The TransformationDescription doesn't contain a %s. Description loading aborted";
+        if (description.getSourceModel().getModelClassName() == null) {
+            throw new IllegalArgumentException(String.format(message, "source class"));
+        }
+        if (description.getTargetModel().getModelClassName() == null) {
+            throw new IllegalArgumentException(String.format(message, "target class"));
+        }
+        String message2 = "The version string of the %s is not a correct version string. Description loading aborted";
+        try {
+            Version.parseVersion(description.getSourceModel().getVersionString());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format(message2, "source class"), e);
+        }
+        try {
+            Version.parseVersion(description.getTargetModel().getVersionString());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format(message2, "target class"), e);
+        }
+    }
+
+    public TransformationDescription getDescription() {
+        return description;
+    }
+
+    public List<PlannedStep> getSteps() {
+        return steps;
+    }
+
+    /**
+     * Returns true if the given field name points to a temporary field. Returns false if not.
+     */
+    private static boolean isTemporaryField(String fieldname) {
+        return fieldname.startsWith("#");
+    }
+
+    /**
+     * A transformation step with its parsed source and target fields.
+     */
+    public static final class PlannedStep {
+        private final TransformationStep step;
+        private final List<FieldPath> sourceFields;
+        private final TargetField targetField;
+
+        private PlannedStep(TransformationStep step) {
+            this.step = step;
+            List<FieldPath> sources = new ArrayList<FieldPath>();
+            for (String sourceField : step.getSourceFields()) {
+                sources.add(new FieldPath(sourceField));
+            }
+            sourceFields = Collections.unmodifiableList(sources);
+            targetField = new TargetField(step.getTargetField());
+        }
+
+        public TransformationStep getStep() {
+            return step;
+        }
+
+        public List<FieldPath> getSourceFields() {
+            return sourceFields;
+        }
+
+        public TargetField getTargetField() {
+            return targetField;
+        }
+    }
+
+    /**
+     * A dot separated path of field names, where each part may name a temporary field.
+     */
+    public static final class FieldPath {
+        private final String path;
+        private final String[] names;
+        private final boolean[] temporary;
+
+        private FieldPath(String path) {
+            this.path = path;
+            names = StringUtils.split(path, ".");
+            temporary = new boolean[names.length];
+            for (int i = 0; i < names.length; i++) {
+                if (isTemporaryField(names[i])) {
+                    temporary[i] = true;
+                    names[i] = names[i].substring(1);
+                }
+            }
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public int size() {
+            return names.length;
+        }
+
+        /**
+         * Returns the name of the part with the given index, without the leading '#' of temporary fields.
+         */
+        public String getName(int index) {
+            return names[index];
+        }
+
+        public boolean isTemporary(int index) {
+            return temporary[index];
+        }
+    }
+
+    /**
+     * The field a transformation step writes its result to. It consists of the path to the object which contains the
+     * field, if the field is nested, and the name of the field itself.
+     */
+    public static final class TargetField {
+        private final FieldPath parent;
+        private final String fieldName;
+        private final String temporaryKey;
+
+        private TargetField(String fieldname) {
+            if (fieldname.contains(".")) {
+                parent = new FieldPath(StringUtils.substringBeforeLast(fieldname, "."));
+                fieldName = StringUtils.substringAfterLast(fieldname, ".");
+            } else {
+                parent = null;
+                fieldName = fieldname;
+            }
+            if (isTemporaryField(fieldname)) {
+                temporaryKey = StringUtils.substringBefore(StringUtils.substringAfter(fieldname, "#"), ".");
+            } else {
+                temporaryKey = null;
+            }
+        }
+
+        /**
+         * Returns the path to the object which contains the field, or null if the field isn't nested.
+         */
+        public FieldPath getParent() {
+            return parent;
+        }
+
+        public String getFieldName() {
+            return fieldName;
+        }
+
+        /**
+         * Returns the key under which the value is stored if the field is temporary and its parent is not set, or null
+         * if the field isn't temporary.
+         */
+        public String getTemporaryKey() {
+            return temporaryKey;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.ekb.transformation.wonderland;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openengsb.core.ekb.api.ModelGraph;
+import org.openengsb.core.ekb.api.ModelRegistry;
+import org.openengsb.core.ekb.api.transformation.TransformationDescription;
+import org.openengsb.core.ekb.api.transformation.TransformationOperationLoader;
+import org.openengsb.core.ekb.transformation.wonderland.internal.TransformationEngineService;
+import org.openengsb.core.ekb.transformation.wonderland.internal.performer.TransformationPerformer;
+import org.openengsb.core.ekb.transformation.wonderland.models.ModelA;
+import org.openengsb.core.ekb.transformation.wonderland.models.ModelB;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures repeated transformations of one model. The engine runs the plan it compiled on the first use of the
+ * description. For comparison, a performer gets the description itself and compiles it for every transformation.
+ * Both run the same fixed number of transformations after a warm-up, and the throughput of each is logged. Runs only
+ * with the benchmarks profile.
+ */
+public class TransformationBenchmark extends TransformationEngineTests {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransformationBenchmark.class);
+
+    private static final int WARMUP_TRANSFORMATIONS = 5000;
+    private static final int TRANSFORMATIONS = 50000;
+
+    private TransformationEngineService service;
+    private ModelRegistry registry;
+    private TransformationOperationLoader operationLoader;
+    private TransformationDescription description;
+    private ModelA model;
+
+    @Before
+    public void init() {
+        service = new TransformationEngineService();
+        ModelGraph graph = mock(ModelGraph.class);
+        registry = new TestModelRegistry();
+        operationLoader = new TestTransformationOperationLoader();
+        service.setModelRegistry(registry);
+        service.setGraphDb(graph);
+        service.setOperationLoader(operationLoader);
+
+        description = new TransformationDescription(getModelADescription(), getModelBDescription());
+        description.setId("benchmark");
+        description.forwardField("idA", "idB");
+        description.toUpperField("testA", "testB");
+        description.concatField("blubB", "#", "blubA", "blaA");
+        service.saveDescription(description);
+        when(graph.getTransformationPath(getModelADescription(), getModelBDescription(), new ArrayList<String>()))
+            .thenReturn(Arrays.asList(description));
+
+        model = new ModelA();
+        model.setIdA("id");
+        model.setTestA("test");
+        model.setBlubA("blub");
+        model.setBlaA("bla");
+    }
+
+    @Test
+    public void testRepeatedTransformations_shouldTransformAllModels() throws Exception {
+        run(WARMUP_TRANSFORMATIONS, false);
+        run(WARMUP_TRANSFORMATIONS, true);
+
+        long compiledPerCall = run(TRANSFORMATIONS, false);
+        long compiledOnce = run(TRANSFORMATIONS, true);
+
+        LOGGER.info("description compiled per transformation: {} transformations/s", throughput(compiledPerCall));
+        LOGGER.info("plan compiled once: {} transformations/s", throughput(compiledOnce));
+    }
+
+    private long run(int transformations, boolean cachedPlan) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < transformations; i++) {
+            ModelB result = cachedPlan
+                ? (ModelB) service.performTransformation(getModelADescription(), getModelBDescription(), model)
+                : (ModelB) new TransformationPerformer(registry, operationLoader).transformObject(description, model);
+            assertThat(result.getTestB(), is("TEST"));
+            assertThat(result.getBlubB(), is("blub#bla"));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long throughput(long nanos) {
+        return TRANSFORMATIONS * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+}
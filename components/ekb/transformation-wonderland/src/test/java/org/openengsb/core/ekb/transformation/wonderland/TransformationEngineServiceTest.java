@@ -17,8 +17,11 @@
 
 package org.openengsb.core.ekb.transformation.wonderland;
 
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -36,6 +39,7 @@ import org.openengsb.core.common.transformations.TransformationUtils;
 import org.openengsb.core.ekb.api.ModelGraph;
 import org.openengsb.core.ekb.api.ModelRegistry;
 import org.openengsb.core.ekb.api.transformation.TransformationDescription;
+import org.openengsb.core.ekb.api.transformation.TransformationResult;
 import org.openengsb.core.ekb.transformation.wonderland.internal.TransformationEngineService;
 import org.openengsb.core.ekb.transformation.wonderland.models.ModelA;
 import org.openengsb.core.ekb.transformation.wonderland.models.ModelB;
@@ -627,6 +631,87 @@ public class TransformationEngineServiceTest extends TransformationEngineTests {
         assertThat(result.getBlubB(), is("test3"));
     }
 
+    @Test
+    public void testTransformationAfterDescriptionIsSavedAgain_shouldUseTheNewSteps() throws Exception {
+        TransformationDescription desc = getDescriptionForModelAToModelB();
+        desc.forwardField("idA", "idB");
+        installTransformation(desc);
+
+        ModelA model = new ModelA();
+        model.setIdA("test1");
+        model.setTestA("test2");
+
+        ModelB first = transformModelAToModelB(model);
+        ModelB second = transformModelAToModelB(model);
+        desc.forwardField("testA", "testB");
+        installTransformation(desc);
+        ModelB third = transformModelAToModelB(model);
+
+        assertThat(first.getIdB(), is("test1"));
+        assertThat(first.getTestB(), is(nullValue()));
+        assertThat(second.getIdB(), is("test1"));
+        assertThat(second.getTestB(), is(nullValue()));
+        assertThat(third.getIdB(), is("test1"));
+        assertThat(third.getTestB(), is("test2"));
+    }
+
+    @Test
+    public void testTransformationAfterDescriptionIsReplacedWithSameId_shouldUseTheNewDescription() throws Exception {
+        TransformationDescription desc = getDescriptionForModelAToModelB();
+        desc.setId("aTob");
+        desc.forwardField("idA", "idB");
+        installTransformation(desc);
+
+        ModelA model = new ModelA();
+        model.setIdA("test1");
+        model.setTestA("test2");
+
+        ModelB first = transformModelAToModelB(model);
+        TransformationDescription replacement = getDescriptionForModelAToModelB();
+        replacement.setId("aTob");
+        replacement.forwardField("testA", "testB");
+        installTransformation(replacement);
+        ModelB second = transformModelAToModelB(model);
+
+        assertThat(first.getIdB(), is("test1"));
+        assertThat(first.getTestB(), is(nullValue()));
+        assertThat(second.getIdB(), is(nullValue()));
+        assertThat(second.getTestB(), is("test2"));
+    }
+
+    @Test
+    public void testBatchTransformation_shouldKeepOrderAndReportFailedObjects() throws Exception {
+        TransformationDescription desc = getDescriptionForModelAToModelB();
+        desc.forwardField("idA", "idB");
+        installTransformation(desc);
+        service.setParallelThreshold(10);
+
+        List<Object> sources = new ArrayList<Object>();
+        for (int i = 0; i < 500; i++) {
+            ModelA model = new ModelA();
+            model.setIdA("test" + i);
+            sources.add(model);
+        }
+        sources.set(250, new ModelB());
+
+        List<TransformationResult> results =
+            service.performTransformations(getModelADescription(), getModelBDescription(), sources);
+        service.shutdown();
+
+        assertThat(results.size(), is(500));
+        for (int i = 0; i < 500; i++) {
+            TransformationResult result = results.get(i);
+            assertThat(result.getSource(), sameInstance(sources.get(i)));
+            if (i == 250) {
+                assertThat(result.isSuccessful(), is(false));
+                assertThat(result.getError(), instanceOf(IllegalArgumentException.class));
+            } else {
+                assertThat(result.isSuccessful(), is(true));
+                assertThat(((ModelB) result.getResult()).getIdB(), is("test" + i));
+            }
+        }
+    }
+
     private void installTransformation(TransformationDescription description) {
         service.saveDescription(description);
         when(graph.getTransformationPath(description.getSourceModel(), description.getTargetModel(),
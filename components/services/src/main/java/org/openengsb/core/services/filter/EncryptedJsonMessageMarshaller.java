@@ -51,16 +51,16 @@ public class EncryptedJsonMessageMarshaller extends AbstractFilterChainElement<S
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EncryptedJsonMessageMarshaller.class);
 
-    private FilterAction next;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
 
-    private ObjectMapper objectMapper = new ObjectMapper();
+    private FilterAction next;
 
     @Override
     protected String doFilter(String input, Map<String, Object> metaData) {
         EncryptedMessage message;
         try {
             LOGGER.debug("attempting to parse encrypted json message");
-            message = objectMapper.readValue(input, EncryptedMessage.class);
+            message = MAPPER.readValue(input, EncryptedMessage.class);
         } catch (IOException e) {
             throw new FilterException(e);
         }
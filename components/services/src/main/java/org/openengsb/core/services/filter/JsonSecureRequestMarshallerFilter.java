@@ -51,16 +51,16 @@ public class JsonSecureRequestMarshallerFilter extends AbstractFilterChainElemen
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JsonSecureRequestMarshallerFilter.class);
 
-    private FilterAction next;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    private FilterAction next;
 
     @Override
     protected byte[] doFilter(byte[] input, Map<String, Object> metaData) {
         MethodCallMessage request;
         try {
             LOGGER.trace("attempt to read SecureRequest from inputData");
-            request = mapper.readValue(input, MethodCallMessage.class);
+            request = MAPPER.readValue(input, MethodCallMessage.class);
         } catch (IOException e) {
             throw new FilterException(e);
         }
@@ -73,7 +73,7 @@ public class JsonSecureRequestMarshallerFilter extends AbstractFilterChainElemen
         MethodResultMessage response = (MethodResultMessage) next.filter(request, metaData);
         LOGGER.debug("response received for callId {}: {}. serializing to json", callId, response);
         try {
-            return mapper.writeValueAsBytes(response);
+            return MAPPER.writeValueAsBytes(response);
         } catch (IOException e) {
             throw new FilterException(e);
         }
@@ -51,16 +51,16 @@ public class JsonSecureRequestStringMarshallerFilter extends AbstractFilterChain
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JsonSecureRequestStringMarshallerFilter.class);
 
-    private FilterAction next;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
 
-    private ObjectMapper mapper = new ObjectMapper();
+    private FilterAction next;
 
     @Override
     protected String doFilter(String input, Map<String, Object> metaData) {
         MethodCallMessage request;
         try {
             LOGGER.trace("attempt to read SecureRequest from inputData");
-            request = mapper.readValue(input, MethodCallMessage.class);
+            request = MAPPER.readValue(input, MethodCallMessage.class);
         } catch (IOException e) {
             throw new FilterException(e);
         }
@@ -73,7 +73,7 @@ public class JsonSecureRequestStringMarshallerFilter extends AbstractFilterChain
         MethodResultMessage response = (MethodResultMessage) next.filter(request, metaData);
         LOGGER.debug("response received for callId {}: {}. serializing to json", callId, response);
         try {
-            return mapper.writeValueAsString(response);
+            return MAPPER.writeValueAsString(response);
         } catch (IOException e) {
             throw new FilterException(e);
         }
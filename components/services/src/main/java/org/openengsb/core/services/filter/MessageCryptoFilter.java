@@ -17,7 +17,10 @@
 
 package org.openengsb.core.services.filter;
 
+import java.nio.ByteBuffer;
+import java.security.PrivateKey;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.SecretKey;
 
@@ -33,6 +36,9 @@ import org.openengsb.core.util.CipherUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * This filter takes an {@link EncryptedMessage} and decrypts it. This is done by decrypting the contained encrypted
  * session key with the servers {@link java.security.PrivateKey}. The resulting byte[] is then processed by the next
@@ -49,6 +55,9 @@ import org.slf4j.LoggerFactory;
  *      [encrypted Response as byte[]] < Filter < [byte[] with serialized result]    < ...
  * </pre>
  * </code>
+ *
+ * Since the decryption of the session key with the private key is expensive, the decrypted session keys are cached
+ * for clients which send the same encrypted session key with several messages.
  */
 public class MessageCryptoFilter extends AbstractFilterChainElement<EncryptedMessage, byte[]> {
 
@@ -59,9 +68,25 @@ public class MessageCryptoFilter extends AbstractFilterChainElement<EncryptedMes
     private PrivateKeySource privateKeySource;
     private String secretKeyAlgorithm;
 
+    private final Cache<ByteBuffer, CachedSessionKey> sessionKeys;
+
     public MessageCryptoFilter(PrivateKeySource privateKeySource, String secretKeyAlgorithm) {
+        this(privateKeySource, secretKeyAlgorithm, MessageCryptoFilterFactory.DEFAULT_SESSION_KEY_CACHE_SIZE,
+            MessageCryptoFilterFactory.DEFAULT_SESSION_KEY_TIMEOUT);
+    }
+
+    /**
+     * Creates a filter which caches up to the given number of session keys for the given time in milliseconds after
+     * they were decrypted.
+     */
+    public MessageCryptoFilter(PrivateKeySource privateKeySource, String secretKeyAlgorithm,
+            long sessionKeyCacheSize, long sessionKeyTimeout) {
         this.privateKeySource = privateKeySource;
         this.secretKeyAlgorithm = secretKeyAlgorithm;
+        sessionKeys = CacheBuilder.newBuilder()
+            .maximumSize(sessionKeyCacheSize)
+            .expireAfterWrite(sessionKeyTimeout, TimeUnit.MILLISECONDS)
+            .build();
     }
 
     @Override
@@ -71,9 +96,7 @@ public class MessageCryptoFilter extends AbstractFilterChainElement<EncryptedMes
         SecretKey sessionKey;
         LOGGER.debug("decrypting encryptedMessage");
         try {
-            LOGGER.trace("decrypting session-key");
-            byte[] sessionKeyData = CipherUtils.decrypt(encryptedKey, privateKeySource.getPrivateKey());
-            sessionKey = CipherUtils.deserializeSecretKey(sessionKeyData, secretKeyAlgorithm);
+            sessionKey = retrieveSessionKey(encryptedKey);
             LOGGER.trace("decrypting message using session-key");
             decryptedMessage = CipherUtils.decrypt(input.getEncryptedContent(), sessionKey);
         } catch (DecryptionException e) {
@@ -89,10 +112,36 @@ public class MessageCryptoFilter extends AbstractFilterChainElement<EncryptedMes
         }
     }
 
+    private SecretKey retrieveSessionKey(byte[] encryptedKey) throws DecryptionException {
+        PrivateKey privateKey = privateKeySource.getPrivateKey();
+        ByteBuffer cacheKey = ByteBuffer.wrap(encryptedKey);
+        CachedSessionKey cached = sessionKeys.getIfPresent(cacheKey);
+        // the key is only valid as long as the private key it was encrypted for is used
+        if (cached != null && cached.privateKey.equals(privateKey)) {
+            LOGGER.trace("using cached session-key");
+            return cached.sessionKey;
+        }
+        LOGGER.trace("decrypting session-key");
+        byte[] sessionKeyData = CipherUtils.decrypt(encryptedKey, privateKey);
+        SecretKey sessionKey = CipherUtils.deserializeSecretKey(sessionKeyData, secretKeyAlgorithm);
+        sessionKeys.put(cacheKey, new CachedSessionKey(privateKey, sessionKey));
+        return sessionKey;
+    }
+
     @Override
     public void setNext(FilterAction next) throws FilterConfigurationException {
         checkNextInputAndOutputTypes(next, byte[].class, byte[].class);
         this.next = next;
     }
 
+    private static final class CachedSessionKey {
+        private final PrivateKey privateKey;
+        private final SecretKey sessionKey;
+
+        private CachedSessionKey(PrivateKey privateKey, SecretKey sessionKey) {
+            this.privateKey = privateKey;
+            this.sessionKey = sessionKey;
+        }
+    }
+
 }
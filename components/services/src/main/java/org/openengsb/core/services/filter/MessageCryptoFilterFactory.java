@@ -24,8 +24,13 @@ import org.openengsb.core.api.security.PrivateKeySource;
 
 public class MessageCryptoFilterFactory implements FilterChainElementFactory {
 
+    public static final long DEFAULT_SESSION_KEY_CACHE_SIZE = 1000;
+    public static final long DEFAULT_SESSION_KEY_TIMEOUT = 10 * 60 * 1000;
+
     private PrivateKeySource privateKeySource;
     private String secretKeyAlgorithm;
+    private long sessionKeyCacheSize = DEFAULT_SESSION_KEY_CACHE_SIZE;
+    private long sessionKeyTimeout = DEFAULT_SESSION_KEY_TIMEOUT;
 
     public MessageCryptoFilterFactory() {
     }
@@ -37,7 +42,7 @@ public class MessageCryptoFilterFactory implements FilterChainElementFactory {
 
     @Override
     public FilterChainElement newInstance() throws FilterConfigurationException {
-        return new MessageCryptoFilter(privateKeySource, secretKeyAlgorithm);
+        return new MessageCryptoFilter(privateKeySource, secretKeyAlgorithm, sessionKeyCacheSize, sessionKeyTimeout);
     }
 
     public void setPrivateKeySource(PrivateKeySource privateKeySource) {
@@ -48,4 +53,18 @@ public class MessageCryptoFilterFactory implements FilterChainElementFactory {
         this.secretKeyAlgorithm = secretKeyAlgorithm;
     }
 
+    /**
+     * Sets the maximum number of decrypted session keys each filter keeps.
+     */
+    public void setSessionKeyCacheSize(long sessionKeyCacheSize) {
+        this.sessionKeyCacheSize = sessionKeyCacheSize;
+    }
+
+    /**
+     * Sets the time in milliseconds a decrypted session key is kept. A timeout of 0 disables the cache.
+     */
+    public void setSessionKeyTimeout(long sessionKeyTimeout) {
+        this.sessionKeyTimeout = sessionKeyTimeout;
+    }
+
 }
@@ -18,8 +18,8 @@
 package org.openengsb.core.services.filter;
 
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.openengsb.core.api.remote.FilterAction;
 import org.openengsb.core.api.remote.FilterConfigurationException;
@@ -59,12 +59,17 @@ public class MessageVerifierFilter extends AbstractFilterChainElement<MethodCall
     private FilterAction next;
 
     private long timeout = 10 * 60 * 1000; // 10 minutes
-    private LoadingCache<String, Long> lastMessageTimestamp = CacheBuilder.newBuilder()
-        .expireAfterWrite(timeout, TimeUnit.MILLISECONDS)
-        .build(new CacheLoader<String, Long>() {
+
+    /**
+     * The timestamp of the last accepted message of each principal. An entry may expire once it wasn't accessed for
+     * the timeout, since any message which is not newer is older than the timeout by then and rejected anyway.
+     */
+    private LoadingCache<String, AtomicLong> lastMessageTimestamp = CacheBuilder.newBuilder()
+        .expireAfterAccess(timeout, TimeUnit.MILLISECONDS)
+        .build(new CacheLoader<String, AtomicLong>() {
             @Override
-            public Long load(String key) throws Exception {
-                return 0L;
+            public AtomicLong load(String key) throws Exception {
+                return new AtomicLong();
             };
         });
 
@@ -96,19 +101,18 @@ public class MessageVerifierFilter extends AbstractFilterChainElement<MethodCall
 
     private void checkForReplayedMessage(MethodCallMessage request) throws MessageVerificationFailedException {
         String authenticationInfo = request.getPrincipal();
-        synchronized (lastMessageTimestamp) {
-            try {
-                if (lastMessageTimestamp.get(authenticationInfo) >= request.getTimestamp()) {
-                    throw new MessageVerificationFailedException(
-                        "Message's timestamp was too old. Message with higher timestamp already receiverd."
-                                + "Possible replay detected.");
-                }
-            } catch (ExecutionException e) {
-                LOGGER.error("error when accessing cache", e);
+        AtomicLong lastTimestamp = lastMessageTimestamp.getUnchecked(authenticationInfo);
+        long timestamp = request.getTimestamp();
+        long previous;
+        do {
+            previous = lastTimestamp.get();
+            if (previous >= timestamp) {
+                throw new MessageVerificationFailedException(
+                    "Message's timestamp was too old. Message with higher timestamp already receiverd."
+                            + "Possible replay detected.");
             }
-            lastMessageTimestamp.put(authenticationInfo, request.getTimestamp());
-            LOGGER.debug("updated lastMessageTimestamp for {} to {}", authenticationInfo, request.getTimestamp());
-        }
+        } while (!lastTimestamp.compareAndSet(previous, timestamp));
+        LOGGER.debug("updated lastMessageTimestamp for {} to {}", authenticationInfo, timestamp);
     }
 
     private void checkOverallAgeOfRequest(MethodCallMessage request) throws MessageVerificationFailedException {
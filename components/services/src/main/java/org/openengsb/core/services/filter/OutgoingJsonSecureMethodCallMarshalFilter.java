@@ -53,7 +53,7 @@ public class OutgoingJsonSecureMethodCallMarshalFilter extends
     @Override
     public MethodResultMessage doFilter(MethodCallMessage input, Map<String, Object> metadata) throws FilterException {
 
-        ObjectMapper objectMapper = JsonUtils.createObjectMapperWithIntroSpectors();
+        ObjectMapper objectMapper = JsonUtils.getObjectMapperWithIntroSpectors();
         MethodResultMessage resultMessage;
         try {
             String jsonString = objectMapper.writeValueAsString(input);
@@ -72,7 +72,7 @@ public class OutgoingJsonSecureMethodCallMarshalFilter extends
         } else {
             Class<?> resultType;
             try {
-                resultType = Class.forName(result.getClassName());
+                resultType = JsonUtils.findClass(result.getClassName(), getClass().getClassLoader());
             } catch (ClassNotFoundException e) {
                 throw new FilterException(e);
             }
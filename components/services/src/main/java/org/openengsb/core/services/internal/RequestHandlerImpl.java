@@ -23,6 +23,8 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.ClassUtils;
@@ -36,15 +38,61 @@ import org.openengsb.core.api.remote.MethodResult;
 import org.openengsb.core.api.remote.MethodResult.ReturnType;
 import org.openengsb.core.api.remote.RequestHandler;
 import org.openengsb.core.api.remote.UseCustomJasonMarshaller;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Objects;
 import com.google.common.base.Throwables;
 
+/**
+ * Invokes the methods of OpenEngSB services requested by remote calls.
+ *
+ * If a bundle context is set, the resolved services and the methods with the marshallers of their arguments are kept
+ * in a dispatch table, so the lookup and the reflection are done only once per service filter, method name and
+ * argument types. Every service event drops the whole table, since a registered, modified or unregistered service may
+ * change the service a filter resolves to.
+ */
 public class RequestHandlerImpl implements RequestHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RequestHandlerImpl.class);
     private OsgiUtilsService utilsService;
+    private BundleContext bundleContext;
+
+    /**
+     * Replaced by a new table on every service event, so lookups which were started before the event only fill the
+     * discarded table.
+     */
+    private volatile DispatchTable dispatchTable;
+
+    private final ServiceListener invalidator = new ServiceListener() {
+        @Override
+        public void serviceChanged(ServiceEvent event) {
+            if (dispatchTable != null) {
+                dispatchTable = new DispatchTable();
+            }
+        }
+    };
+
+    /**
+     * Starts caching the dispatch information, if a bundle context is set whose service events can invalidate it.
+     */
+    public void init() {
+        if (bundleContext == null) {
+            return;
+        }
+        bundleContext.addServiceListener(invalidator, null);
+        dispatchTable = new DispatchTable();
+    }
+
+    public void destroy() {
+        if (bundleContext != null) {
+            bundleContext.removeServiceListener(invalidator);
+        }
+        dispatchTable = null;
+    }
 
     @Override
     public MethodResult handleCall(MethodCall call) {
@@ -53,26 +101,57 @@ public class RequestHandlerImpl implements RequestHandler {
         if (contextId != null) {
             ContextHolder.get().setCurrentContextId(contextId);
         }
-        Object service = retrieveOpenEngSBService(call);
-        Method method = findMethod(service, call.getMethodName(), getArgTypes(call));
-        Object[] args = retrieveArguments(call, method);
-        MethodResult methodResult = invokeMethod(service, method, args);
+        Dispatch dispatch = retrieveDispatch(call);
+        Object[] args = retrieveArguments(call, dispatch.marshallers);
+        MethodResult methodResult = invokeMethod(dispatch.service, dispatch.method, args);
         methodResult.setMetaData(call.getMetaData());
         return methodResult;
     }
 
-    private Object[] retrieveArguments(MethodCall call, Method method) {
+    private Dispatch retrieveDispatch(MethodCall call) {
+        String filterString = createFilterString(call);
+        DispatchTable table = dispatchTable;
+        if (table == null) {
+            return createDispatch(utilsService.getService(filterString), call);
+        }
+        DispatchKey key = new DispatchKey(filterString, call.getMethodName(), call.getClasses());
+        Dispatch dispatch = table.dispatches.get(key);
+        if (dispatch == null) {
+            Object service = table.services.get(filterString);
+            if (service == null) {
+                service = utilsService.getService(filterString);
+                table.services.put(filterString, service);
+            }
+            dispatch = createDispatch(service, call);
+            table.dispatches.put(key, dispatch);
+        }
+        return dispatch;
+    }
+
+    private Dispatch createDispatch(Object service, MethodCall call) {
+        Method method = findMethod(service, call.getMethodName(), getArgTypes(call));
+        return new Dispatch(service, method, createMarshallers(method));
+    }
+
+    private CustomJsonMarshaller<?>[] createMarshallers(Method method) {
         Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        CustomJsonMarshaller<?>[] marshallers = new CustomJsonMarshaller<?>[parameterAnnotations.length];
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            Class<? extends CustomJsonMarshaller<?>> transformationAnnotation =
+                searchForTransformationAnnotation(parameterAnnotations[i]);
+            if (transformationAnnotation != null) {
+                marshallers[i] = createTransformationInstance(transformationAnnotation);
+            }
+        }
+        return marshallers;
+    }
+
+    private Object[] retrieveArguments(MethodCall call, CustomJsonMarshaller<?>[] marshallers) {
         Object[] originalArgs = call.getArgs();
         for (int i = 0; i < originalArgs.length; i++) {
-            Annotation[] currentArgAnnotations = parameterAnnotations[i];
-            Class<? extends CustomJsonMarshaller<?>> transformationAnnotation =
-                searchForTransformationAnnotation(currentArgAnnotations);
-            if (transformationAnnotation == null) {
-                continue;
+            if (marshallers[i] != null) {
+                originalArgs[i] = marshallers[i].transformArg(originalArgs[i]);
             }
-            CustomJsonMarshaller<?> transformationInstance = createTransformationInstance(transformationAnnotation);
-            originalArgs[i] = transformationInstance.transformArg(originalArgs[i]);
         }
         return originalArgs;
     }
@@ -97,12 +176,11 @@ public class RequestHandlerImpl implements RequestHandler {
         return null;
     }
 
-    private Object retrieveOpenEngSBService(MethodCall call) {
+    private String createFilterString(MethodCall call) {
         Map<String, String> metaData = call.getMetaData();
         String serviceId = metaData.get("serviceId");
         String filter = metaData.get("serviceFilter");
-        String filterString = createFilterString(filter, serviceId);
-        return utilsService.getService(filterString);
+        return createFilterString(filter, serviceId);
     }
 
     private String createFilterString(String filter, String serviceId) {
@@ -200,4 +278,56 @@ public class RequestHandlerImpl implements RequestHandler {
         this.utilsService = utilsService;
     }
 
+    public void setBundleContext(BundleContext bundleContext) {
+        this.bundleContext = bundleContext;
+    }
+
+    private static final class DispatchTable {
+        private final ConcurrentMap<String, Object> services = new ConcurrentHashMap<String, Object>();
+        private final ConcurrentMap<DispatchKey, Dispatch> dispatches = new ConcurrentHashMap<DispatchKey, Dispatch>();
+    }
+
+    /**
+     * The resolved service and method for a call, with the marshallers of the arguments (null for arguments without
+     * custom marshaller).
+     */
+    private static final class Dispatch {
+        private final Object service;
+        private final Method method;
+        private final CustomJsonMarshaller<?>[] marshallers;
+
+        private Dispatch(Object service, Method method, CustomJsonMarshaller<?>[] marshallers) {
+            this.service = service;
+            this.method = method;
+            this.marshallers = marshallers;
+        }
+    }
+
+    private static final class DispatchKey {
+        private final String filter;
+        private final String methodName;
+        private final List<String> argTypes;
+
+        private DispatchKey(String filter, String methodName, List<String> argTypes) {
+            this.filter = filter;
+            this.methodName = methodName;
+            this.argTypes = new ArrayList<String>(argTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(filter, methodName, argTypes);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof DispatchKey)) {
+                return false;
+            }
+            DispatchKey other = (DispatchKey) obj;
+            return Objects.equal(filter, other.filter) && Objects.equal(methodName, other.methodName)
+                    && Objects.equal(argTypes, other.argTypes);
+        }
+    }
+
 }
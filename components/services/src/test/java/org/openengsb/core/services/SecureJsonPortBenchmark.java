@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import org.junit.Test;
+import org.openengsb.core.api.remote.MethodCallMessage;
+import org.openengsb.core.util.CipherUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the throughput of the secure JSON filter chain. One run uses a new session key for every call, so every call
+ * needs the RSA decryption of its key, the other run reuses one encrypted session key, which is served by the key
+ * cache. The calls are encrypted before the timing starts, each run has a warm-up and the calls per second of both
+ * runs are logged. Runs only with the benchmarks profile, together with the tests it inherits.
+ */
+public class SecureJsonPortBenchmark extends SecureJsonPortTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SecureJsonPortBenchmark.class);
+
+    private static final int WARMUP_CALLS = 50;
+    private static final int CALLS = 200;
+
+    private long nextTimestamp = System.currentTimeMillis() - 60000;
+
+    @Test
+    public void testSecureCallsWithNewAndSharedSessionKeys_shouldProcessAllCalls() throws Exception {
+        runCalls(WARMUP_CALLS, false);
+        runCalls(WARMUP_CALLS, true);
+
+        long newSessionKeys = runCalls(CALLS, false);
+        long sharedSessionKey = runCalls(CALLS, true);
+
+        LOGGER.info("new session key per call: {} calls/s", CALLS * TimeUnit.SECONDS.toNanos(1) / newSessionKeys);
+        LOGGER.info("shared session key: {} calls/s", CALLS * TimeUnit.SECONDS.toNanos(1) / sharedSessionKey);
+    }
+
+    /**
+     * Encrypts the given number of calls up front and returns the time it takes to pass all of them through the
+     * secure request handler.
+     */
+    private long runCalls(int count, boolean shareSessionKey) throws Exception {
+        SecretKey sessionKey = CipherUtils.generateKey("AES", 128);
+        byte[] encryptedKey = CipherUtils.encrypt(sessionKey.getEncoded(), serverPublicKey);
+        List<String> requests = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            if (!shareSessionKey) {
+                sessionKey = CipherUtils.generateKey("AES", 128);
+                encryptedKey = CipherUtils.encrypt(sessionKey.getEncoded(), serverPublicKey);
+            }
+            MethodCallMessage request = prepareSecureRequest();
+            request.setCallId("call" + i);
+            request.setTimestamp(nextTimestamp++);
+            requests.add(encryptRequest(request, sessionKey, encryptedKey));
+        }
+        long start = System.nanoTime();
+        for (String request : requests) {
+            secureRequestHandler.filter(request, new HashMap<String, Object>());
+        }
+        return System.nanoTime() - start;
+    }
+}
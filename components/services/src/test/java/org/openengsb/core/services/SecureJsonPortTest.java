@@ -17,12 +17,17 @@
 
 package org.openengsb.core.services;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 
 import javax.crypto.SecretKey;
 
 import org.apache.commons.codec.binary.Base64;
+import org.junit.Test;
 import org.openengsb.core.api.remote.MethodCallMessage;
 import org.openengsb.core.api.remote.MethodResultMessage;
 import org.openengsb.core.api.security.model.EncryptedMessage;
@@ -55,11 +60,23 @@ public class SecureJsonPortTest extends GenericSecurePortTest<String> {
     protected String encodeAndEncrypt(MethodCallMessage secureRequest, SecretKey sessionKey) throws Exception {
         byte[] content = mapper.writeValueAsBytes(secureRequest);
         LOGGER.info("encrypting: " + new String(content));
+        byte[] encryptedKey = CipherUtils.encrypt(sessionKey.getEncoded(), serverPublicKey);
+        return encrypt(content, sessionKey, encryptedKey);
+    }
+
+    /**
+     * Encrypts the given request with the given session key, which is sent along in the given encrypted form.
+     */
+    protected String encryptRequest(MethodCallMessage request, SecretKey sessionKey, byte[] encryptedKey)
+        throws Exception {
+        return encrypt(mapper.writeValueAsBytes(request), sessionKey, encryptedKey);
+    }
+
+    private String encrypt(byte[] content, SecretKey sessionKey, byte[] encryptedKey) throws Exception {
         byte[] encryptedContent = CipherUtils.encrypt(content, sessionKey);
 
         EncryptedMessage encryptedMessage = new EncryptedMessage();
         encryptedMessage.setEncryptedContent(encryptedContent);
-        byte[] encryptedKey = CipherUtils.encrypt(sessionKey.getEncoded(), serverPublicKey);
         encryptedMessage.setEncryptedKey(encryptedKey);
         return mapper.writeValueAsString(encryptedMessage);
     }
@@ -82,4 +99,21 @@ public class SecureJsonPortTest extends GenericSecurePortTest<String> {
         factory.setFilters(asList);
         return factory.create();
     }
+
+    @Test
+    public void testCallsWithSameEncryptedSessionKey_shouldAllBeProcessed() throws Exception {
+        SecretKey sessionKey = CipherUtils.generateKey("AES", 128);
+        byte[] encryptedKey = CipherUtils.encrypt(sessionKey.getEncoded(), serverPublicKey);
+        long timestamp = System.currentTimeMillis() - 1000;
+        for (String callId : Arrays.asList("c1", "c2")) {
+            MethodCallMessage request = prepareSecureRequest();
+            request.setCallId(callId);
+            request.setTimestamp(timestamp++);
+            String encryptedRequest = encryptRequest(request, sessionKey, encryptedKey);
+
+            String response = (String) secureRequestHandler.filter(encryptedRequest, new HashMap<String, Object>());
+
+            assertThat(decryptAndDecode(response, sessionKey).getCallId(), is(callId));
+        }
+    }
 }
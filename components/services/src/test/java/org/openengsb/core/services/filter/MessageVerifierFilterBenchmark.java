@@ -0,0 +1,151 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.services.filter;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openengsb.core.api.remote.FilterAction;
+import org.openengsb.core.api.remote.FilterException;
+import org.openengsb.core.api.remote.MethodCallMessage;
+import org.openengsb.core.api.remote.MethodResult;
+import org.openengsb.core.api.remote.MethodResultMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the contention of the replay check with 64 principals, each submitting its messages from a thread of its
+ * own. The messages are passed once through the filter and once with every call wrapped in one shared monitor, which
+ * is how the replay check was serialized before, and the messages per second of both runs are logged. Runs only with
+ * the benchmarks profile.
+ */
+public class MessageVerifierFilterBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MessageVerifierFilterBenchmark.class);
+
+    private static final int PRINCIPALS = 64;
+    private static final int MESSAGES_PER_PRINCIPAL = 5000;
+
+    private MessageVerifierFilter filter;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        filter = new MessageVerifierFilter();
+        filter.setNext(new FilterAction() {
+            @Override
+            public Object filter(Object input, Map<String, Object> metaData) throws FilterException {
+                return new MethodResultMessage(new MethodResult(), ((MethodCallMessage) input).getCallId());
+            }
+
+            @Override
+            public Class<?> getSupportedInputType() {
+                return MethodCallMessage.class;
+            }
+
+            @Override
+            public Class<?> getSupportedOutputType() {
+                return MethodResultMessage.class;
+            }
+        });
+        executor = Executors.newFixedThreadPool(PRINCIPALS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testContentionOfConcurrentPrincipals_shouldAcceptAllMessages() throws Exception {
+        final Object globalLock = new Object();
+        FilterAction lockedFilter = new FilterAction() {
+            @Override
+            public Object filter(Object input, Map<String, Object> metaData) throws FilterException {
+                synchronized (globalLock) {
+                    return filter.filter(input, metaData);
+                }
+            }
+
+            @Override
+            public Class<?> getSupportedInputType() {
+                return MethodCallMessage.class;
+            }
+
+            @Override
+            public Class<?> getSupportedOutputType() {
+                return MethodResultMessage.class;
+            }
+        };
+        long start = System.currentTimeMillis() - 60000;
+        runConcurrentPrincipals(filter, "warmup", start);
+
+        long locked = runConcurrentPrincipals(lockedFilter, "locked", start);
+        long lockFree = runConcurrentPrincipals(filter, "lockFree", start);
+
+        long messages = (long) PRINCIPALS * MESSAGES_PER_PRINCIPAL;
+        LOGGER.info("{} principals with one global lock: {} messages/s", PRINCIPALS,
+            messages * TimeUnit.SECONDS.toNanos(1) / locked);
+        LOGGER.info("{} principals without a global lock: {} messages/s", PRINCIPALS,
+            messages * TimeUnit.SECONDS.toNanos(1) / lockFree);
+    }
+
+    /**
+     * Lets every principal submit its messages from a thread of its own, all starting at the same time. Returns the
+     * time until all messages were accepted.
+     */
+    private long runConcurrentPrincipals(final FilterAction target, String name, final long start) throws Exception {
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+        for (int i = 0; i < PRINCIPALS; i++) {
+            final String principal = name + i;
+            results.add(executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    startSignal.await();
+                    int accepted = 0;
+                    for (int j = 0; j < MESSAGES_PER_PRINCIPAL; j++) {
+                        target.filter(MessageVerifierFilterTest.createMessage(principal, start + j),
+                            new HashMap<String, Object>());
+                        accepted++;
+                    }
+                    return accepted;
+                }
+            }));
+        }
+        long begin = System.nanoTime();
+        startSignal.countDown();
+        for (Future<Integer> result : results) {
+            assertThat(result.get(), is(MESSAGES_PER_PRINCIPAL));
+        }
+        return System.nanoTime() - begin;
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.services.filter;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openengsb.core.api.remote.FilterAction;
+import org.openengsb.core.api.remote.FilterException;
+import org.openengsb.core.api.remote.MethodCall;
+import org.openengsb.core.api.remote.MethodCallMessage;
+import org.openengsb.core.api.remote.MethodResult;
+import org.openengsb.core.api.remote.MethodResultMessage;
+
+public class MessageVerifierFilterTest {
+
+    private static final int PRINCIPALS = 64;
+    private static final int MESSAGES_PER_PRINCIPAL = 100;
+
+    private MessageVerifierFilter filter;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        filter = new MessageVerifierFilter();
+        filter.setNext(new FilterAction() {
+            @Override
+            public Object filter(Object input, Map<String, Object> metaData) throws FilterException {
+                return new MethodResultMessage(new MethodResult(), ((MethodCallMessage) input).getCallId());
+            }
+
+            @Override
+            public Class<?> getSupportedInputType() {
+                return MethodCallMessage.class;
+            }
+
+            @Override
+            public Class<?> getSupportedOutputType() {
+                return MethodResultMessage.class;
+            }
+        });
+        executor = Executors.newFixedThreadPool(PRINCIPALS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentPrincipals_shouldAcceptAllNewerMessages() throws Exception {
+        final long start = System.currentTimeMillis() - 1000;
+        List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+        for (int i = 0; i < PRINCIPALS; i++) {
+            final String principal = "user" + i;
+            results.add(executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    int accepted = 0;
+                    for (int j = 0; j < MESSAGES_PER_PRINCIPAL; j++) {
+                        filter.filter(createMessage(principal, start + j), new HashMap<String, Object>());
+                        accepted++;
+                    }
+                    return accepted;
+                }
+            }));
+        }
+        for (Future<Integer> result : results) {
+            assertThat(result.get(), is(MESSAGES_PER_PRINCIPAL));
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentReplays_shouldAcceptMessageOnlyOnce() throws Exception {
+        final MethodCallMessage message = createMessage("user", System.currentTimeMillis() - 1000);
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < PRINCIPALS; i++) {
+            results.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    startSignal.await();
+                    try {
+                        filter.filter(message, new HashMap<String, Object>());
+                        return true;
+                    } catch (FilterException e) {
+                        return false;
+                    }
+                }
+            }));
+        }
+        startSignal.countDown();
+        int accepted = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                accepted++;
+            }
+        }
+        assertThat(accepted, is(1));
+    }
+
+    static MethodCallMessage createMessage(String principal, long timestamp) {
+        MethodCallMessage message = new MethodCallMessage(new MethodCall("test", new Object[0]), "c" + timestamp);
+        message.setPrincipal(principal);
+        message.setTimestamp(timestamp);
+        return message;
+    }
+}
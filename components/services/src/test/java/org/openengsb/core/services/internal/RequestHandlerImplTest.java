@@ -41,6 +41,7 @@ import org.openengsb.core.api.remote.UseCustomJasonMarshaller;
 import org.openengsb.core.test.AbstractOsgiMockServiceTest;
 import org.openengsb.core.util.DefaultOsgiUtilsService;
 import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceRegistration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
@@ -68,6 +69,8 @@ public class RequestHandlerImplTest extends AbstractOsgiMockServiceTest {
     public void setup() throws Exception {
         RequestHandlerImpl requestHandlerImpl = new RequestHandlerImpl();
         requestHandlerImpl.setUtilsService(new DefaultOsgiUtilsService(bundleContext));
+        requestHandlerImpl.setBundleContext(bundleContext);
+        requestHandlerImpl.init();
         requestHandler = requestHandlerImpl;
     }
 
@@ -175,4 +178,36 @@ public class RequestHandlerImplTest extends AbstractOsgiMockServiceTest {
             verifyZeroInteractions(mockService);
         }
     }
+
+    @Test
+    public void testCallAfterServiceWasReplaced_shouldCallNewService() throws Exception {
+        TestInterface oldService = mock(TestInterface.class);
+        Dictionary<String, Object> props = new Hashtable<String, Object>();
+        props.put(Constants.SERVICE_PID, "testid");
+        ServiceRegistration<?> registration =
+            bundleContext.registerService(TestInterface.class.getName(), oldService, props);
+        Map<String, String> metaData = ImmutableMap.of("serviceId", "testid");
+        requestHandler.handleCall(new MethodCall("test", new Object[]{ 42 }, metaData));
+
+        registration.unregister();
+        TestInterface newService = mockService(TestInterface.class, "testid");
+        requestHandler.handleCall(new MethodCall("test", new Object[]{ 42 }, metaData));
+
+        verify(oldService).test(42);
+        verify(newService).test(42);
+    }
+
+    @Test
+    public void testRepeatedCalls_shouldCallServiceEveryTime() throws Exception {
+        TestInterface mockService = mockService(TestInterface.class, "testid");
+        when(mockService.test(anyInt())).thenReturn(21);
+
+        Map<String, String> metaData = ImmutableMap.of("serviceId", "testid");
+        requestHandler.handleCall(new MethodCall("test", new Object[]{ 42 }, metaData));
+        MethodResult result = requestHandler.handleCall(new MethodCall("test", new Object[]{ 43 }, metaData));
+
+        verify(mockService).test(42);
+        verify(mockService).test(43);
+        assertThat((Integer) result.getArg(), is(21));
+    }
 }
@@ -29,6 +29,10 @@ import java.security.Signature;
 import java.security.SignatureException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
@@ -50,6 +54,13 @@ public final class CipherUtils {
     public static final String DEFAULT_ASYMMETRIC_ALGORITHM = "RSA";
     public static final int DEFAULT_ASYMMETRIC_KEYSIZE = 2048;
 
+    /**
+     * Cipher instances are not thread safe, but expensive to look up, so idle instances are pooled per algorithm. An
+     * instance is taken from the pool for one operation, initialized with the key and returned afterwards, so the pool
+     * holds at most as many instances per algorithm as operations ran concurrently.
+     */
+    private static final ConcurrentMap<String, Queue<Cipher>> CIPHERS = new ConcurrentHashMap<>();
+
     /**
      * Decrypts the given data using the given key. The key holds the algorithm used for decryption. If you are
      * decrypting data that is supposed to be a string, consider that it might be Base64-encoded.
@@ -68,19 +79,22 @@ public final class CipherUtils {
      * @throws IllegalArgumentException if the algorithm is not supported.
      */
     public static byte[] decrypt(byte[] text, Key key, String algorithm) throws DecryptionException {
-        Cipher cipher;
+        LOGGER.trace("start decrypting text using {} cipher", algorithm);
+        Cipher cipher = acquireCipher(algorithm);
         try {
-            LOGGER.trace("start decrypting text using {} cipher", algorithm);
-            cipher = Cipher.getInstance(algorithm);
-            cipher.init(Cipher.DECRYPT_MODE, key);
-            LOGGER.trace("initialized decryption with key of type {}", key.getClass());
-        } catch (GeneralSecurityException e) {
-            throw new IllegalArgumentException("unable to initialize cipher for algorithm " + algorithm, e);
-        }
-        try {
-            return cipher.doFinal(text);
-        } catch (GeneralSecurityException e) {
-            throw new DecryptionException("unable to decrypt data using algorithm " + algorithm, e);
+            try {
+                cipher.init(Cipher.DECRYPT_MODE, key);
+                LOGGER.trace("initialized decryption with key of type {}", key.getClass());
+            } catch (GeneralSecurityException e) {
+                throw new IllegalArgumentException("unable to initialize cipher for algorithm " + algorithm, e);
+            }
+            try {
+                return cipher.doFinal(text);
+            } catch (GeneralSecurityException e) {
+                throw new DecryptionException("unable to decrypt data using algorithm " + algorithm, e);
+            }
+        } finally {
+            releaseCipher(algorithm, cipher);
         }
     }
 
@@ -102,20 +116,45 @@ public final class CipherUtils {
      * @throws IllegalArgumentException if the algorithm is not supported.
      */
     public static byte[] encrypt(byte[] text, Key key, String algorithm) throws EncryptionException {
-        Cipher cipher;
+        LOGGER.trace("start encrypting text using {} cipher", algorithm);
+        Cipher cipher = acquireCipher(algorithm);
         try {
-            LOGGER.trace("start encrypting text using {} cipher", algorithm);
-            cipher = Cipher.getInstance(algorithm);
-            cipher.init(Cipher.ENCRYPT_MODE, key);
-            LOGGER.trace("initialized encryption with key of type {}", key.getClass());
-        } catch (GeneralSecurityException e) {
-            throw new IllegalArgumentException("unable to initialize cipher for algorithm " + algorithm, e);
+            try {
+                cipher.init(Cipher.ENCRYPT_MODE, key);
+                LOGGER.trace("initialized encryption with key of type {}", key.getClass());
+            } catch (GeneralSecurityException e) {
+                throw new IllegalArgumentException("unable to initialize cipher for algorithm " + algorithm, e);
+            }
+            try {
+                return cipher.doFinal(text);
+            } catch (GeneralSecurityException e) {
+                throw new EncryptionException("unable to encrypt data using algorithm " + algorithm, e);
+            }
+        } finally {
+            releaseCipher(algorithm, cipher);
+        }
+    }
+
+    private static Cipher acquireCipher(String algorithm) {
+        Queue<Cipher> pool = CIPHERS.get(algorithm);
+        Cipher cipher = pool == null ? null : pool.poll();
+        if (cipher != null) {
+            return cipher;
         }
         try {
-            return cipher.doFinal(text);
+            return Cipher.getInstance(algorithm);
         } catch (GeneralSecurityException e) {
-            throw new EncryptionException("unable to encrypt data using algorithm " + algorithm, e);
+            throw new IllegalArgumentException("unable to initialize cipher for algorithm " + algorithm, e);
+        }
+    }
+
+    private static void releaseCipher(String algorithm, Cipher cipher) {
+        Queue<Cipher> pool = CIPHERS.get(algorithm);
+        if (pool == null) {
+            CIPHERS.putIfAbsent(algorithm, new ConcurrentLinkedQueue<Cipher>());
+            pool = CIPHERS.get(algorithm);
         }
+        pool.offer(cipher);
     }
 
     /**
@@ -18,9 +18,10 @@
 package org.openengsb.core.util;
 
 import java.io.IOException;
-import java.lang.reflect.Array;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import org.apache.commons.lang.reflect.MethodUtils;
 import org.openengsb.core.api.model.OpenEngSBModelEntry;
@@ -44,6 +45,10 @@ import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.module.jaxb.JaxbAnnotationIntrospector;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 
 public final class JsonUtils {
 
@@ -52,6 +57,21 @@ public final class JsonUtils {
     private static final ObjectMapper MAPPER = new ObjectMapper();
     private static final ObjectMapper MODEL_MAPPER = new ObjectMapper();
 
+    private static final ObjectMapper INTROSPECTOR_MAPPER = createObjectMapperWithIntroSpectors();
+
+    /**
+     * The classes resolved by each class loader. Since the class loaders are held only weakly, the entries of an
+     * uninstalled bundle don't keep its class loader alive. This also holds for the loaders of the inner caches, which
+     * only keep a weak reference to their class loader. Classes which could not be found are not cached.
+     */
+    private static final LoadingCache<ClassLoader, LoadingCache<String, Class<?>>> CLASSES = CacheBuilder.newBuilder()
+        .weakKeys().build(new CacheLoader<ClassLoader, LoadingCache<String, Class<?>>>() {
+            @Override
+            public LoadingCache<String, Class<?>> load(ClassLoader classLoader) {
+                return CacheBuilder.newBuilder().weakValues().build(new ClassLoadingCacheLoader(classLoader));
+            }
+        });
+
     static {
         // adding the additional deserializer needed to deserialize models
         MODEL_MAPPER.registerModule(new SimpleModule().addDeserializer(Object.class,
@@ -89,11 +109,20 @@ public final class JsonUtils {
     }
 
     private static Class<?> findType(String className) throws ClassNotFoundException {
-        if (className.startsWith("[L")) {
-            Class<?> componentType = findType(className.substring(2, className.length() - 1));
-            return Array.newInstance(componentType, 0).getClass();
+        return findClass(className, JsonUtils.class.getClassLoader());
+    }
+
+    /**
+     * Returns the class with the given name (which may also denote an array class like "[Lfoo.Bar;") as resolved by
+     * the given class loader. Resolved classes are cached, so every class is looked up only once per class loader.
+     */
+    public static Class<?> findClass(String className, ClassLoader classLoader) throws ClassNotFoundException {
+        try {
+            return CLASSES.getUnchecked(classLoader).get(className);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfInstanceOf(e.getCause(), ClassNotFoundException.class);
+            throw Throwables.propagate(e.getCause());
         }
-        return JsonUtils.class.getClassLoader().loadClass(className);
     }
 
     public static void convertAllArgs(MethodCall call) {
@@ -118,6 +147,14 @@ public final class JsonUtils {
         convertResult(message.getResult());
     }
 
+    /**
+     * Returns a shared mapper configured like the ones created by {@link #createObjectMapperWithIntroSpectors()}. The
+     * mapper is thread safe and keeps its serializer caches between calls, but it must not be reconfigured.
+     */
+    public static ObjectMapper getObjectMapperWithIntroSpectors() {
+        return INTROSPECTOR_MAPPER;
+    }
+
     public static ObjectMapper createObjectMapperWithIntroSpectors() {
         ObjectMapper mapper = new ObjectMapper();
         AnnotationIntrospector primaryIntrospector = new JacksonAnnotationIntrospector();
@@ -205,4 +242,25 @@ public final class JsonUtils {
             return element;
         }
     }
+
+    /**
+     * Loads classes through a class loader which is only referenced weakly, so that the cache of a class loader
+     * doesn't keep it reachable from the outer cache.
+     */
+    private static final class ClassLoadingCacheLoader extends CacheLoader<String, Class<?>> {
+        private final WeakReference<ClassLoader> classLoader;
+
+        private ClassLoadingCacheLoader(ClassLoader classLoader) {
+            this.classLoader = new WeakReference<>(classLoader);
+        }
+
+        @Override
+        public Class<?> load(String className) throws ClassNotFoundException {
+            ClassLoader loader = classLoader.get();
+            if (loader == null) {
+                throw new ClassNotFoundException(className + " (the class loader has been collected)");
+            }
+            return Class.forName(className, true, loader);
+        }
+    }
 }
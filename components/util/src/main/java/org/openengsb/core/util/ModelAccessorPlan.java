@@ -0,0 +1,267 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.util;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.ClassUtils;
+import org.openengsb.core.api.model.FileWrapper;
+import org.openengsb.core.api.model.OpenEngSBModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Contains the reflection information needed to read and write the properties of a model class: the writable bean
+ * properties with their resolved generic types, the declared fields and the public setters. The information is
+ * resolved once per class, the declared fields are made accessible at this point, and the plan is attached to the
+ * class through a {@link ClassValue}, so the plans of classes from an uninstalled bundle are collected together with
+ * its class loader.
+ */
+public final class ModelAccessorPlan {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModelAccessorPlan.class);
+
+    private static final ClassValue<ModelAccessorPlan> PLANS = new ClassValue<ModelAccessorPlan>() {
+        @Override
+        protected ModelAccessorPlan computeValue(Class<?> model) {
+            return new ModelAccessorPlan(model);
+        }
+    };
+
+    /**
+     * The kind of a model property, which defines how the value of the property is stored.
+     */
+    public enum PropertyKind {
+        MAP, LIST, ARRAY, MODEL, FILE_WRAPPER, FILE, ENUM, SIMPLE
+    }
+
+    private final List<Property> properties;
+    private final Map<String, Field> fields;
+    private final Map<String, Map<Class<?>, Method>> setters;
+
+    private ModelAccessorPlan(Class<?> model) {
+        properties = Collections.unmodifiableList(loadProperties(model));
+        fields = loadFields(model);
+        setters = loadSetters(model);
+    }
+
+    /**
+     * Returns the plan for the given model class.
+     */
+    public static ModelAccessorPlan forClass(Class<?> model) {
+        return PLANS.get(model);
+    }
+
+    /**
+     * Returns all writable bean properties of the model class, except the model tail.
+     */
+    public List<Property> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Returns true if the model class declares a field with the given name which can be set through
+     * {@link #setFieldValue}.
+     */
+    public boolean hasField(String name) {
+        return fields.containsKey(name);
+    }
+
+    /**
+     * Sets the declared field with the given name of the instance to the given value. Returns false if there is no
+     * such field or a security manager didn't allow to make it accessible when the plan was built.
+     */
+    public boolean setFieldValue(Object instance, String name, Object value) throws IllegalAccessException {
+        Field field = fields.get(name);
+        if (field == null) {
+            return false;
+        }
+        field.set(instance, value);
+        return true;
+    }
+
+    /**
+     * Returns the public setter of the model class for the property with the given name which takes exactly the given
+     * type, or null if there is no such setter.
+     */
+    public Method getSetter(String propertyName, Class<?> type) {
+        Map<Class<?>, Method> candidates = setters.get(propertyName);
+        return candidates == null ? null : candidates.get(type);
+    }
+
+    private static List<Property> loadProperties(Class<?> model) {
+        List<Property> result = new ArrayList<>();
+        BeanInfo beanInfo;
+        try {
+            beanInfo = Introspector.getBeanInfo(model);
+        } catch (IntrospectionException e) {
+            LOGGER.error("unable to introspect the class {}", model.getName());
+            return result;
+        }
+        for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+            if (descriptor.getWriteMethod() == null
+                    || descriptor.getName().equals(ModelUtils.MODEL_TAIL_FIELD_NAME)) {
+                continue;
+            }
+            result.add(new Property(descriptor));
+        }
+        return result;
+    }
+
+    private static Map<String, Field> loadFields(Class<?> model) {
+        Map<String, Field> result = new HashMap<>();
+        for (Field field : model.getDeclaredFields()) {
+            try {
+                field.setAccessible(true);
+            } catch (SecurityException e) {
+                // if a security manager is installed which don't allow this change of a field value, the
+                // corresponding setter is used
+                continue;
+            }
+            result.put(field.getName(), field);
+        }
+        return result;
+    }
+
+    private static Map<String, Map<Class<?>, Method>> loadSetters(Class<?> model) {
+        Map<String, Map<Class<?>, Method>> result = new HashMap<>();
+        for (Method method : model.getMethods()) {
+            String name = method.getName();
+            if (!name.startsWith("set") || name.length() == 3 || method.getParameterTypes().length != 1) {
+                continue;
+            }
+            String suffix = name.substring(3);
+            if (!suffix.substring(0, 1).equals(suffix.substring(0, 1).toUpperCase())) {
+                continue;
+            }
+            // both "fooBar" and "FooBar" are set through setFooBar
+            addSetter(result, suffix, method);
+            addSetter(result, suffix.substring(0, 1).toLowerCase() + suffix.substring(1), method);
+        }
+        return result;
+    }
+
+    private static void addSetter(Map<String, Map<Class<?>, Method>> setters, String propertyName, Method method) {
+        if (!setters.containsKey(propertyName)) {
+            setters.put(propertyName, new HashMap<Class<?>, Method>());
+        }
+        setters.get(propertyName).put(method.getParameterTypes()[0], method);
+    }
+
+    /**
+     * A writable property of a model class with its resolved types.
+     */
+    public static final class Property {
+        private final String name;
+        private final Method setter;
+        private final Class<?> parameterType;
+        private final Class<?> entryType;
+        private final PropertyKind kind;
+        private final List<Class<?>> genericClasses;
+
+        private Property(PropertyDescriptor descriptor) {
+            name = descriptor.getName();
+            setter = descriptor.getWriteMethod();
+            parameterType = setter.getParameterTypes()[0];
+            Class<?> propertyClass = descriptor.getPropertyType();
+            entryType = propertyClass.isPrimitive() ? ClassUtils.primitiveToWrapper(propertyClass) : propertyClass;
+            if (Map.class.isAssignableFrom(parameterType)) {
+                kind = PropertyKind.MAP;
+                genericClasses = getGenericParameterClasses(2);
+            } else if (List.class.isAssignableFrom(parameterType)) {
+                kind = PropertyKind.LIST;
+                genericClasses = getGenericParameterClasses(1);
+            } else if (parameterType.isArray()) {
+                kind = PropertyKind.ARRAY;
+                genericClasses = Collections.<Class<?>> singletonList(parameterType.getComponentType());
+            } else {
+                kind = getSimpleKind(parameterType);
+                genericClasses = Collections.emptyList();
+            }
+        }
+
+        private static PropertyKind getSimpleKind(Class<?> type) {
+            if (OpenEngSBModel.class.isAssignableFrom(type)) {
+                return PropertyKind.MODEL;
+            } else if (type.equals(FileWrapper.class)) {
+                return PropertyKind.FILE_WRAPPER;
+            } else if (type.equals(File.class)) {
+                return PropertyKind.FILE;
+            } else if (type.isEnum()) {
+                return PropertyKind.ENUM;
+            }
+            return PropertyKind.SIMPLE;
+        }
+
+        /**
+         * Loads the generic parameter classes of the setter up to the given depth (1 for lists, 2 for maps)
+         */
+        private List<Class<?>> getGenericParameterClasses(int depth) {
+            ParameterizedType pType = (ParameterizedType) setter.getGenericParameterTypes()[0];
+            List<Class<?>> classes = new ArrayList<>();
+            for (int i = 0; i < depth; i++) {
+                classes.add((Class<?>) pType.getActualTypeArguments()[i]);
+            }
+            return Collections.unmodifiableList(classes);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Method getSetter() {
+            return setter;
+        }
+
+        /**
+         * Returns the parameter type of the setter.
+         */
+        public Class<?> getParameterType() {
+            return parameterType;
+        }
+
+        /**
+         * Returns the type of the property, where primitive types are replaced by their wrapper types.
+         */
+        public Class<?> getEntryType() {
+            return entryType;
+        }
+
+        public PropertyKind getKind() {
+            return kind;
+        }
+
+        /**
+         * Returns the element class for list and array properties and the key and value classes for map properties.
+         */
+        public List<Class<?>> getGenericClasses() {
+            return genericClasses;
+        }
+    }
+}
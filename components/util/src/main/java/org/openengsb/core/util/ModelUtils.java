@@ -17,7 +17,6 @@
 
 package org.openengsb.core.util;
 
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.List;
@@ -40,19 +39,21 @@ public final class ModelUtils {
     }
 
     /**
-     * Creates a model of the given type and uses the list of OpenEngSBModelEntries as initialization data.
+     * Creates a model of the given type and uses the list of OpenEngSBModelEntries as initialization data. The fields
+     * and setters of the model class are taken from its cached {@link ModelAccessorPlan}.
      */
     public static <T> T createModel(Class<T> model, List<OpenEngSBModelEntry> entries) {
         if (!ModelWrapper.isModel(model)) {
             throw new IllegalArgumentException("The given class is no model");
         }
+        ModelAccessorPlan plan = ModelAccessorPlan.forClass(model);
         try {
             T instance = model.newInstance();
             for (OpenEngSBModelEntry entry : entries) {
-                if (tryToSetValueThroughField(entry, instance)) {
+                if (setValueThroughField(plan, entry, instance)) {
                     continue;
                 }
-                if (tryToSetValueThroughSetter(entry, instance)) {
+                if (setValueThroughSetter(plan, entry, instance)) {
                     continue;
                 }
                 ((OpenEngSBModel) instance).addOpenEngSBModelEntry(entry);
@@ -69,39 +70,27 @@ public final class ModelUtils {
     }
 
     /**
-     * Tries to set the value of an OpenEngSBModelEntry to its corresponding field of the model. Returns true if the
-     * field can be set, returns false if not.
+     * Sets the value of an OpenEngSBModelEntry to its corresponding field of the model. Returns false if the model
+     * has no field with the name of the entry which can be set.
      */
-    private static boolean tryToSetValueThroughField(OpenEngSBModelEntry entry, Object instance)
+    private static boolean setValueThroughField(ModelAccessorPlan plan, OpenEngSBModelEntry entry, Object instance)
         throws IllegalAccessException {
-        try {
-            Field field = instance.getClass().getDeclaredField(entry.getKey());
-            field.setAccessible(true);
-            field.set(instance, entry.getValue());
-            field.setAccessible(false);
-            return true;
-        } catch (NoSuchFieldException e) {
-            // if no field with this name exist, try to use the corresponding setter
-        } catch (SecurityException e) {
-            // if a security manager is installed which don't allow this change of a field value, try
-            // to use the corresponding setter
-        }
-        return false;
+        return plan.setFieldValue(instance, entry.getKey(), entry.getValue());
     }
 
     /**
-     * Tries to set the value of an OpenEngSBModelEntry to its corresponding setter of the model. Returns true if the
-     * setter can be called, returns false if not.
+     * Calls the setter of the model which corresponds to the OpenEngSBModelEntry. Returns false if there is no such
+     * setter, which means that the entry is meant for the model tail, or if the setter can't be called.
      */
-    private static boolean tryToSetValueThroughSetter(OpenEngSBModelEntry entry, Object instance)
+    private static boolean setValueThroughSetter(ModelAccessorPlan plan, OpenEngSBModelEntry entry, Object instance)
         throws IllegalAccessException {
+        Method method = plan.getSetter(entry.getKey(), entry.getType());
+        if (method == null) {
+            return false;
+        }
         try {
-            String setterName = getSetterName(entry.getKey());
-            Method method = instance.getClass().getMethod(setterName, entry.getType());
             method.invoke(instance, entry.getValue());
             return true;
-        } catch (NoSuchMethodException e) {
-            // if there exist no such method, then it is an entry meant for the model tail
         } catch (IllegalArgumentException e) {
             LOGGER.error("IllegalArgumentException while trying to set values for the new model.", e);
         } catch (InvocationTargetException e) {
@@ -109,8 +98,4 @@ public final class ModelUtils {
         }
         return false;
     }
-
-    private static String getSetterName(String propertyName) {
-        return String.format("%s%s%s", "set", (propertyName.charAt(0) + "").toUpperCase(), propertyName.substring(1));
-    }
 }
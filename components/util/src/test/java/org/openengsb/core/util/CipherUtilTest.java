@@ -35,6 +35,7 @@ import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.openengsb.core.api.security.DecryptionException;
 import org.openengsb.core.test.AbstractOpenEngSBTest;
 
 public class CipherUtilTest extends AbstractOpenEngSBTest {
@@ -168,4 +169,17 @@ public class CipherUtilTest extends AbstractOpenEngSBTest {
 
         assertThat(new String(decrypt), is(TEST_STRING));
     }
+
+    @Test
+    public void testEncryptAfterFailedDecryption_shouldNotBeAffected() throws Exception {
+        SecretKey secretKey = CipherUtils.generateKey("AES", 128);
+        try {
+            CipherUtils.decrypt(new byte[]{ 1, 2, 3 }, secretKey);
+        } catch (DecryptionException e) {
+            // expected, since the data is no valid cipher text
+        }
+        byte[] data = TEST_STRING.getBytes(DEFAULT_ENCODING);
+        byte[] encrypted = CipherUtils.encrypt(data, secretKey);
+        assertThat(new String(CipherUtils.decrypt(encrypted, secretKey), DEFAULT_ENCODING), is(TEST_STRING));
+    }
 }
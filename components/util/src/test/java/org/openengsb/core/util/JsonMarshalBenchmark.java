@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.util;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openengsb.core.api.remote.MethodCall;
+import org.openengsb.core.util.JsonUtilTest.TestBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Measures the marshal/unmarshal round trip of a method call as done by the JSON filters, once with a mapper and a
+ * class lookup per message as before, and once with the shared mapper and {@link JsonUtils#findClass}. Both variants
+ * run the same fixed number of messages after a warm-up, and the throughput of each is logged. Runs only with the
+ * benchmarks profile.
+ */
+public class JsonMarshalBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JsonMarshalBenchmark.class);
+
+    private static final int WARMUP_MESSAGES = 500;
+    private static final int MESSAGES = 2000;
+
+    private final MethodCall methodCall = new MethodCall("test",
+        new Object[]{ new TestBean("foo"), new TestBean[]{ new TestBean("bar") } },
+        Arrays.asList(TestBean.class.getName(), TestBean[].class.getName()));
+
+    @Test
+    public void testRoundTripWithSharedMapper_shouldUnmarshalTheArguments() throws Exception {
+        run(WARMUP_MESSAGES, false);
+        run(WARMUP_MESSAGES, true);
+
+        long perMessage = run(MESSAGES, false);
+        long shared = run(MESSAGES, true);
+
+        LOGGER.info("mapper per message: {} messages/s", throughput(perMessage));
+        LOGGER.info("shared mapper: {} messages/s", throughput(shared));
+    }
+
+    private long run(int messages, boolean shared) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            ObjectMapper mapper =
+                shared ? JsonUtils.getObjectMapperWithIntroSpectors() : JsonUtils.createObjectMapperWithIntroSpectors();
+            MethodCall call = mapper.readValue(mapper.writeValueAsString(methodCall), MethodCall.class);
+            List<String> classes = call.getClasses();
+            Object[] args = call.getArgs();
+            for (int j = 0; j < args.length; j++) {
+                Class<?> type = shared
+                    ? JsonUtils.findClass(classes.get(j), getClass().getClassLoader())
+                    : Class.forName(classes.get(j), true, getClass().getClassLoader());
+                args[j] = mapper.convertValue(args[j], type);
+            }
+            assertThat(args[0], instanceOf(TestBean.class));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long throughput(long nanos) {
+        return MESSAGES * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+}
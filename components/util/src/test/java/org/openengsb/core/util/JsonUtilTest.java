@@ -18,6 +18,7 @@ package org.openengsb.core.util;
 
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 
 import java.util.Arrays;
@@ -78,4 +79,21 @@ public class JsonUtilTest {
         TestBean[] arg = (TestBean[]) object;
         assertThat(arg[0].x, is("foo"));
     }
+
+    @Test
+    public void testFindClass_shouldResolveArrayClasses() throws Exception {
+        Class<?> arrayClass = JsonUtils.findClass(TestBean[].class.getName(), getClass().getClassLoader());
+        assertThat(arrayClass, sameInstance((Object) TestBean[].class));
+    }
+
+    @Test(expected = ClassNotFoundException.class)
+    public void testFindUnknownClass_shouldThrowClassNotFoundException() throws Exception {
+        JsonUtils.findClass("org.openengsb.core.util.DoesNotExist", getClass().getClassLoader());
+    }
+
+    @Test
+    public void testGetObjectMapperWithIntroSpectors_shouldReturnSharedInstance() throws Exception {
+        assertThat(JsonUtils.getObjectMapperWithIntroSpectors(),
+            sameInstance(JsonUtils.getObjectMapperWithIntroSpectors()));
+    }
 }
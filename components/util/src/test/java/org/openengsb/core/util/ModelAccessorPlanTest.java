@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.core.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.openengsb.core.util.ModelAccessorPlan.Property;
+import org.openengsb.core.util.ModelAccessorPlan.PropertyKind;
+import org.openengsb.core.util.beans.BeanWithMultiValues;
+
+public class ModelAccessorPlanTest {
+
+    @Test
+    public void testGetPlanTwice_shouldReturnCachedPlan() throws Exception {
+        assertThat(ModelAccessorPlan.forClass(BeanWithMultiValues.class),
+            sameInstance(ModelAccessorPlan.forClass(BeanWithMultiValues.class)));
+    }
+
+    @Test
+    public void testGetProperties_shouldResolveKindsAndGenericTypes() throws Exception {
+        Map<String, Property> properties = new HashMap<>();
+        for (Property property : ModelAccessorPlan.forClass(BeanWithMultiValues.class).getProperties()) {
+            properties.put(property.getName(), property);
+        }
+
+        assertThat(properties.size(), is(3));
+        assertThat(properties.get("id").getKind(), is(PropertyKind.SIMPLE));
+        assertThat(properties.get("id").getEntryType().equals(Long.class), is(true));
+        assertThat(properties.get("numbers").getKind(), is(PropertyKind.LIST));
+        List<Class<?>> classes = properties.get("numbers").getGenericClasses();
+        assertThat(classes.get(0).equals(Double.class), is(true));
+    }
+
+    @Test
+    public void testGetFieldsAndSetters_shouldReturnExistingMembers() throws Exception {
+        ModelAccessorPlan plan = ModelAccessorPlan.forClass(BeanWithMultiValues.class);
+
+        assertThat(plan.hasField("strings"), is(true));
+        assertThat(plan.hasField("notExisting"), is(false));
+        assertThat(plan.getSetter("id", Long.class), notNullValue());
+        assertThat(plan.getSetter("Id", Long.class), notNullValue());
+        assertThat(plan.getSetter("id", String.class), nullValue());
+    }
+
+    @Test
+    public void testSetFieldValue_shouldSetExistingFields() throws Exception {
+        ModelAccessorPlan plan = ModelAccessorPlan.forClass(BeanWithMultiValues.class);
+        BeanWithMultiValues bean = new BeanWithMultiValues();
+
+        assertThat(plan.setFieldValue(bean, "id", 42L), is(true));
+        assertThat(plan.setFieldValue(bean, "notExisting", 42L), is(false));
+        assertThat(bean.getId(), is(42L));
+    }
+}
@@ -32,11 +32,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.drools.KnowledgeBase;
@@ -98,11 +101,13 @@ public class WorkflowServiceImpl extends AbstractOpenEngSBService implements Wor
     private BundleContext bundleContext;
     private TaskboxService taskbox;
 
-    private Map<String, StatefulKnowledgeSession> sessions = new HashMap<String, StatefulKnowledgeSession>();
+    /**
+     * The session of each context. Each context session fires its rules under its own lock, so events of unrelated
+     * contexts are processed in parallel.
+     */
+    private ConcurrentMap<String, ContextSession> sessions = new ConcurrentHashMap<String, ContextSession>();
     private ExecutorService executor = ThreadLocalUtil.contextAwareExecutor(Executors.newCachedThreadPool());
 
-    private Lock workflowLock = new ReentrantLock();
-
     private DefaultOsgiUtilsService utilsService;
 
     private Collection<AuditingDomain> auditingConnectors;
@@ -115,17 +120,42 @@ public class WorkflowServiceImpl extends AbstractOpenEngSBService implements Wor
         for (AuditingDomain connector : auditingConnectors) {
             connector.onEvent(event);
         }
-        StatefulKnowledgeSession session = getSessionForCurrentContext();
+        processEventInCurrentContext(event);
+    }
+
+    /**
+     * Inserts the event into the session of the current context and fires its rules. If waiting for the context would
+     * deadlock, because a rule consequence of an other thread holding the context waits for a context held by this
+     * thread, the event is processed in a separate thread as soon as the context is released instead.
+     */
+    private void processEventInCurrentContext(final Event event) throws WorkflowException {
+        ContextSession contextSession = getContextSessionForCurrentContext();
+        if (!contextSession.lock()) {
+            LOGGER.warn("processing Event {} in context {} now would deadlock, it is processed as soon as the "
+                    + "context is released", event, contextSession.contextId);
+            executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    try {
+                        processEventInCurrentContext(event);
+                    } catch (Exception e) {
+                        LOGGER.error("unable to process the deferred Event " + event, e);
+                    }
+                    return null;
+                }
+            });
+            return;
+        }
+        StatefulKnowledgeSession session = contextSession.getSession();
         FactHandle factHandle = null;
         try {
-            factHandle = session.insert(event);
-            workflowLock.lock();
             try {
-                session.fireAllRules();
+                factHandle = session.insert(event);
+                contextSession.fireAllRules();
             } catch (ConsequenceException e) {
                 throw new WorkflowException("ConsequenceException occured while processing event", e.getCause());
             } finally {
-                workflowLock.unlock();
+                contextSession.unlock();
             }
 
             Set<Long> processIds = retrieveRelevantProcessInstanceIds(event, session);
@@ -346,21 +376,65 @@ public class WorkflowServiceImpl extends AbstractOpenEngSBService implements Wor
     }
 
     private StatefulKnowledgeSession getSessionForCurrentContext() throws WorkflowException {
+        return getContextSessionForCurrentContext().getSession();
+    }
+
+    private ContextSession getContextSessionForCurrentContext() throws WorkflowException {
         String currentContextId = ContextHolder.get().getCurrentContextId();
         if (currentContextId == null) {
             throw new IllegalStateException("contextID must not be null");
         }
-        if (sessions.containsKey(currentContextId)) {
-            return sessions.get(currentContextId);
+        ContextSession contextSession = sessions.get(currentContextId);
+        if (contextSession != null) {
+            return contextSession;
         }
-        StatefulKnowledgeSession session;
-        try {
-            session = createSession();
-        } catch (RuleBaseException e) {
-            throw new WorkflowException(e);
+        synchronized (sessions) {
+            contextSession = sessions.get(currentContextId);
+            if (contextSession == null) {
+                try {
+                    contextSession = new ContextSession(currentContextId, createSession());
+                } catch (RuleBaseException e) {
+                    throw new WorkflowException(e);
+                }
+                sessions.put(currentContextId, contextSession);
+            }
+            return contextSession;
         }
-        sessions.put(currentContextId, session);
-        return session;
+    }
+
+    /**
+     * Returns the number of events of the given context which are waiting for the rules of an other event to be fired.
+     */
+    public int getQueuedEventCount(String contextId) {
+        ContextSession contextSession = sessions.get(contextId);
+        return contextSession == null ? 0 : contextSession.lock.getQueueLength();
+    }
+
+    /**
+     * Returns the number of events for which the rules of the given context have been fired.
+     */
+    public long getRuleFiringCount(String contextId) {
+        ContextSession contextSession = sessions.get(contextId);
+        return contextSession == null ? 0 : contextSession.firings.get();
+    }
+
+    /**
+     * Returns the average time in milliseconds it took to fire the rules for an event of the given context.
+     */
+    public long getAverageRuleFiringTime(String contextId) {
+        ContextSession contextSession = sessions.get(contextId);
+        if (contextSession == null || contextSession.firings.get() == 0) {
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(contextSession.totalFiringTime.get() / contextSession.firings.get());
+    }
+
+    /**
+     * Returns the longest time in milliseconds it took to fire the rules for an event of the given context.
+     */
+    public long getMaxRuleFiringTime(String contextId) {
+        ContextSession contextSession = sessions.get(contextId);
+        return contextSession == null ? 0 : TimeUnit.NANOSECONDS.toMillis(contextSession.maxFiringTime.get());
     }
 
     protected StatefulKnowledgeSession createSession() throws RuleBaseException, WorkflowException {
@@ -475,4 +549,114 @@ public class WorkflowServiceImpl extends AbstractOpenEngSBService implements Wor
     public void setEventReceivers(Collection<EventSupport> eventReceivers) {
         this.eventReceivers = eventReceivers;
     }
+
+    /**
+     * The knowledge session of one context together with the lock under which its rules are fired and the statistics
+     * of the rule firings.
+     */
+    private static final class ContextSession {
+        /**
+         * The context session each thread is waiting for. Used to detect threads which wait for each other's context
+         * locks because rule consequences process events of other contexts.
+         */
+        private static final Map<Thread, ContextSession> WAITING = new HashMap<Thread, ContextSession>();
+
+        private final String contextId;
+        private final StatefulKnowledgeSession session;
+        private final ContextLock lock = new ContextLock();
+        private final AtomicLong firings = new AtomicLong();
+        private final AtomicLong totalFiringTime = new AtomicLong();
+        private final AtomicLong maxFiringTime = new AtomicLong();
+
+        private ContextSession(String contextId, StatefulKnowledgeSession session) {
+            this.contextId = contextId;
+            this.session = session;
+        }
+
+        public StatefulKnowledgeSession getSession() {
+            return session;
+        }
+
+        /**
+         * Acquires the lock of the context. Rule consequences may process further events of the same context, so the
+         * lock is reentrant. Rule consequences may also process events of other contexts. If waiting for the lock would
+         * make this thread and the thread holding the lock wait for each other's context, the lock is not acquired and
+         * false is returned instead of letting both threads wait forever.
+         */
+        public boolean lock() {
+            if (lock.tryLock()) {
+                return true;
+            }
+            Thread current = Thread.currentThread();
+            synchronized (WAITING) {
+                if (isWaitingFor(lock.getOwner(), current)) {
+                    return false;
+                }
+                WAITING.put(current, this);
+            }
+            try {
+                lock.lock();
+            } finally {
+                synchronized (WAITING) {
+                    WAITING.remove(current);
+                }
+            }
+            return true;
+        }
+
+        public void unlock() {
+            lock.unlock();
+        }
+
+        /**
+         * Fires all rules of the session. Must only be called while holding the lock of the context.
+         */
+        public void fireAllRules() {
+            long start = System.nanoTime();
+            try {
+                session.fireAllRules();
+            } finally {
+                recordFiringTime(System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Returns true if the given owner thread waits, directly or through other threads, for a context lock held by
+         * the given thread. Must only be called while holding the monitor of WAITING.
+         */
+        private static boolean isWaitingFor(Thread owner, Thread thread) {
+            Set<Thread> visited = new HashSet<Thread>();
+            while (owner != null && visited.add(owner)) {
+                if (owner == thread) {
+                    return true;
+                }
+                ContextSession awaited = WAITING.get(owner);
+                if (awaited == null) {
+                    return false;
+                }
+                owner = awaited.lock.getOwner();
+            }
+            return false;
+        }
+
+        private void recordFiringTime(long time) {
+            firings.incrementAndGet();
+            totalFiringTime.addAndGet(time);
+            long max = maxFiringTime.get();
+            while (time > max && !maxFiringTime.compareAndSet(max, time)) {
+                max = maxFiringTime.get();
+            }
+        }
+    }
+
+    /**
+     * A reentrant lock which exposes its owner for the deadlock detection of the context sessions.
+     */
+    @SuppressWarnings("serial")
+    private static final class ContextLock extends ReentrantLock {
+        @Override
+        protected Thread getOwner() {
+            return super.getOwner();
+        }
+    }
 }
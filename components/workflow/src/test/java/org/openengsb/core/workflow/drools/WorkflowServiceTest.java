@@ -36,9 +36,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -54,10 +57,16 @@ import org.openengsb.core.workflow.api.model.InternalWorkflowEvent;
 import org.openengsb.core.workflow.api.model.ProcessBag;
 import org.openengsb.core.workflow.api.model.RuleBaseElementId;
 import org.openengsb.core.workflow.api.model.RuleBaseElementType;
+import org.openengsb.core.workflow.drools.internal.WorkflowServiceImpl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class WorkflowServiceTest extends AbstractWorkflowServiceTest {
+    private static volatile CountDownLatch slowRuleStarted;
+    private static volatile CountDownLatch slowRuleReleased;
+    private static volatile CyclicBarrier crossContextBarrier;
+    private static volatile WorkflowServiceImpl crossContextService;
+    private static volatile CountDownLatch nestedEventsProcessed;
 
     private DummyExampleDomain logService;
     private DummyNotificationDomain notification;
@@ -306,6 +315,98 @@ public class WorkflowServiceTest extends AbstractWorkflowServiceTest {
         verify(logService).doSomething("concurrent");
     }
 
+    @Test(timeout = 30000)
+    public void testProcessEventsOfDifferentContexts_shouldNotWaitForEachOther() throws Exception {
+        slowRuleStarted = new CountDownLatch(1);
+        slowRuleReleased = new CountDownLatch(1);
+        manager.addImport(TestEvent.class.getName());
+        manager.addImport(WorkflowServiceTest.class.getName());
+        manager.add(new RuleBaseElementId(RuleBaseElementType.Rule, "slow test"), "when\n"
+                + "TestEvent(value == \"slow\")\n"
+                + "then\n"
+                + "WorkflowServiceTest.runSlowRule();");
+        ExecutorService executor = Executors.newCachedThreadPool();
+        executor.submit(makeProcessEventTask(new TestEvent("fast"), "fastContext")).get();
+        Future<Void> slow = executor.submit(makeProcessEventTask(new TestEvent("slow"), "slowContext"));
+        slowRuleStarted.await();
+        Future<Void> fast = executor.submit(makeProcessEventTask(new TestEvent("fast"), "fastContext"));
+        fast.get(10, TimeUnit.SECONDS);
+        assertThat(slow.isDone(), is(false));
+        slowRuleReleased.countDown();
+        slow.get();
+        assertThat(service.getRuleFiringCount("slowContext"), is(1L));
+        assertThat(service.getRuleFiringCount("fastContext"), is(2L));
+        assertThat(service.getQueuedEventCount("slowContext"), is(0));
+    }
+
+    @Test(timeout = 30000)
+    public void testProcessEventsOfEachOthersContextInRules_shouldDeferOneInsteadOfDeadlocking() throws Exception {
+        crossContextService = service;
+        crossContextBarrier = new CyclicBarrier(2);
+        nestedEventsProcessed = new CountDownLatch(2);
+        manager.addImport(TestEvent.class.getName());
+        manager.addImport(WorkflowServiceTest.class.getName());
+        manager.add(new RuleBaseElementId(RuleBaseElementType.Rule, "to context B"), "when\n"
+                + "TestEvent(value == \"toB\")\n"
+                + "then\n"
+                + "WorkflowServiceTest.processEventInContext(\"contextB\");");
+        manager.add(new RuleBaseElementId(RuleBaseElementType.Rule, "to context A"), "when\n"
+                + "TestEvent(value == \"toA\")\n"
+                + "then\n"
+                + "WorkflowServiceTest.processEventInContext(\"contextA\");");
+        manager.add(new RuleBaseElementId(RuleBaseElementType.Rule, "nested event"), "when\n"
+                + "TestEvent(value == \"nested\")\n"
+                + "then\n"
+                + "WorkflowServiceTest.nestedEventProcessed();");
+        ExecutorService executor = Executors.newCachedThreadPool();
+        Future<Void> first = executor.submit(makeProcessEventTask(new TestEvent("toB"), "contextA"));
+        Future<Void> second = executor.submit(makeProcessEventTask(new TestEvent("toA"), "contextB"));
+
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+        assertThat(nestedEventsProcessed.await(10, TimeUnit.SECONDS), is(true));
+    }
+
+    /**
+     * Called by the rules of the slow context. Blocks until the test releases it.
+     */
+    public static void runSlowRule() throws Exception {
+        slowRuleStarted.countDown();
+        slowRuleReleased.await(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Called by the rules when the event processed in an other context fires.
+     */
+    public static void nestedEventProcessed() {
+        nestedEventsProcessed.countDown();
+    }
+
+    /**
+     * Called by rule consequences to process an event in an other context, once both test threads are firing rules.
+     */
+    public static void processEventInContext(String contextId) throws Exception {
+        crossContextBarrier.await(10, TimeUnit.SECONDS);
+        String previous = ContextHolder.get().getCurrentContextId();
+        ContextHolder.get().setCurrentContextId(contextId);
+        try {
+            crossContextService.processEvent(new TestEvent("nested"));
+        } finally {
+            ContextHolder.get().setCurrentContextId(previous);
+        }
+    }
+
+    private Callable<Void> makeProcessEventTask(final Event event, final String contextId) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                ContextHolder.get().setCurrentContextId(contextId);
+                service.processEvent(event);
+                return null;
+            }
+        };
+    }
+
     private Callable<Void> makeProcessEventTask(final Event event) {
         Callable<Void> task = new Callable<Void>() {
             @Override
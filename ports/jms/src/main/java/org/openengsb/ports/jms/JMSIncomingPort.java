@@ -18,23 +18,39 @@
 package org.openengsb.ports.jms;
 
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.jms.ConnectionFactory;
 import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.Message;
-import javax.jms.MessageListener;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
 import javax.jms.TextMessage;
 
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.openengsb.core.common.remote.FilterChain;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.jms.core.JmsTemplate;
-import org.springframework.jms.core.MessagePostProcessor;
+import org.springframework.jms.listener.SessionAwareMessageListener;
 import org.springframework.jms.listener.SimpleMessageListenerContainer;
 
-public class JMSIncomingPort {
+/**
+ * Receives method calls from the receive queue and answers them on their reply-to destination.
+ *
+ * Messages are consumed by a configurable number of concurrent consumers, each of which runs the filter chain and
+ * sends the reply itself. The reply is sent on the transacted session the message was received on, so the reply and
+ * the acknowledgement of the message are committed together. A message which was received but not answered, because
+ * the port was stopped, sending the reply failed or the process died, is rolled back and redelivered by the broker
+ * instead of being lost. Exceptions of the filter chain are not rolled back but answered with their stack trace, as
+ * calling the service again would fail the same way. Since every consumer processes one message at a time, no more
+ * messages are taken from the broker than can be processed, and messages waiting for a consumer stay in the receive
+ * queue of the broker.
+ */
+public class JMSIncomingPort implements JMSIncomingPortMBean {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JMSIncomingPort.class);
 
@@ -50,84 +66,153 @@ public class JMSIncomingPort {
 
     private String receive = "receive";
 
+    private int concurrentConsumers = 1;
+
+    /** The producer sending the replies of each consumer session, which is created on the first reply */
+    private final ConcurrentMap<Session, MessageProducer> replyProducers =
+        new ConcurrentHashMap<Session, MessageProducer>();
+
+    private final AtomicInteger activeMessages = new AtomicInteger();
+
+    private final AtomicLong processedMessages = new AtomicLong();
+
+    private final AtomicLong totalProcessingTime = new AtomicLong();
+
+    private final AtomicLong maxProcessingTime = new AtomicLong();
+
     /*
      * TODO OPENENGSB-1575 this property is kind of a hack and should be replaced by proper dynamic port configuration
      */
     private FilterChain unsecureFilterChain;
 
     public void start() {
-        simpleMessageListenerContainer = createListenerContainer(receive, new MessageListener() {
+        simpleMessageListenerContainer = createListenerContainer(receive, new SessionAwareMessageListener<Message>() {
             @Override
-            public void onMessage(Message message) {
+            public void onMessage(Message message, Session session) throws JMSException {
                 LOGGER.trace("JMS-message recieved. Checking if the type is supported");
                 if (!(message instanceof TextMessage)) {
                     LOGGER.debug("Received JMS-message is not type of text message.");
                     return;
                 }
-                LOGGER.trace("Received a text message and start parsing");
-                TextMessage textMessage = (TextMessage) message;
-                String textContent = extractTextFromMessage(textMessage);
-                HashMap<String, Object> metadata = new HashMap<String, Object>();
-                String result = null;
+                activeMessages.incrementAndGet();
+                long start = System.currentTimeMillis();
                 try {
-                    LOGGER.debug("starting filterchain for incoming message");
-                    result = (String) getFilterChainToUse().filter(textContent, metadata);
-                } catch (Exception e) {
-                    LOGGER.error("an error occured when processing the filterchain", e);
-                    result = ExceptionUtils.getStackTrace(e);
-                }
-                Destination replyQueue;
-                final String correlationID;
-                try {
-                    if (message.getJMSCorrelationID()  == null) {
-                        correlationID = message.getJMSMessageID();
-                    } else {
-                        correlationID = message.getJMSCorrelationID();
-                    }
-                    replyQueue = message.getJMSReplyTo();
-                } catch (JMSException e) {
-                    LOGGER.warn("error when getting destination queue or correlationid from client message: {}", e);
-                    return;
+                    handleMessage((TextMessage) message, session);
+                } finally {
+                    activeMessages.decrementAndGet();
+                    recordProcessingTime(System.currentTimeMillis() - start);
                 }
-                if (replyQueue == null) {
-                    LOGGER.warn("no replyTo destination specifyed could not send response");
-                    return;
-                }
-
-                new JmsTemplate(connectionFactory).convertAndSend(replyQueue, result, new MessagePostProcessor() {
-                    @Override
-                    public Message postProcessMessage(Message message) throws JMSException {
-                        message.setJMSCorrelationID(correlationID);
-                        return message;
-                    }
-                });
             }
+        });
+        simpleMessageListenerContainer.start();
+    }
 
-            private String extractTextFromMessage(TextMessage textMessage) {
-                try {
-                    return textMessage.getText();
-                } catch (JMSException e) {
-                    throw new IllegalStateException("Couldn't extract text from jms message", e);
-                }
+    private void handleMessage(TextMessage message, Session session) throws JMSException {
+        LOGGER.trace("Received a text message and start parsing");
+        String textContent = extractTextFromMessage(message);
+        HashMap<String, Object> metadata = new HashMap<String, Object>();
+        String result = null;
+        try {
+            LOGGER.debug("starting filterchain for incoming message");
+            result = (String) getFilterChainToUse().filter(textContent, metadata);
+        } catch (Exception e) {
+            LOGGER.error("an error occured when processing the filterchain", e);
+            result = ExceptionUtils.getStackTrace(e);
+        }
+        Destination replyQueue;
+        String correlationID;
+        try {
+            if (message.getJMSCorrelationID() == null) {
+                correlationID = message.getJMSMessageID();
+            } else {
+                correlationID = message.getJMSCorrelationID();
             }
+            replyQueue = message.getJMSReplyTo();
+        } catch (JMSException e) {
+            LOGGER.warn("error when getting destination queue or correlationid from client message: {}", e);
+            return;
+        }
+        if (replyQueue == null) {
+            LOGGER.warn("no replyTo destination specifyed could not send response");
+            return;
+        }
 
-        });
-        simpleMessageListenerContainer.start();
+        TextMessage reply = session.createTextMessage(result);
+        reply.setJMSCorrelationID(correlationID);
+        getReplyProducer(session).send(replyQueue, reply);
+    }
+
+    private MessageProducer getReplyProducer(Session session) throws JMSException {
+        MessageProducer producer = replyProducers.get(session);
+        if (producer == null) {
+            // a session is only used by the consumer it belongs to, so no other producer is created concurrently
+            producer = session.createProducer(null);
+            replyProducers.put(session, producer);
+        }
+        return producer;
+    }
+
+    private String extractTextFromMessage(TextMessage textMessage) {
+        try {
+            return textMessage.getText();
+        } catch (JMSException e) {
+            throw new IllegalStateException("Couldn't extract text from jms message", e);
+        }
+    }
+
+    private void recordProcessingTime(long time) {
+        processedMessages.incrementAndGet();
+        totalProcessingTime.addAndGet(time);
+        long max = maxProcessingTime.get();
+        while (time > max && !maxProcessingTime.compareAndSet(max, time)) {
+            max = maxProcessingTime.get();
+        }
     }
 
-    private SimpleMessageListenerContainer createListenerContainer(String destination, MessageListener listener) {
+    private SimpleMessageListenerContainer createListenerContainer(String destination,
+            SessionAwareMessageListener<Message> listener) {
         SimpleMessageListenerContainer messageListenerContainer = factory.createMessageListenerContainer();
         messageListenerContainer.setPubSubNoLocal(true);
         messageListenerContainer.setConnectionFactory(connectionFactory);
         messageListenerContainer.setDestinationName(destination);
+        messageListenerContainer.setConcurrentConsumers(concurrentConsumers);
+        messageListenerContainer.setSessionTransacted(true);
         messageListenerContainer.setMessageListener(listener);
         return messageListenerContainer;
     }
 
+    /**
+     * Stops consuming messages. Messages which are still being processed are not committed and therefore redelivered
+     * once the port, or another consumer of the receive queue, is started.
+     */
     public void stop() {
         if (simpleMessageListenerContainer != null) {
             simpleMessageListenerContainer.stop();
+            simpleMessageListenerContainer.shutdown();
         }
+        // the producers are closed together with the sessions of the container
+        replyProducers.clear();
+    }
+
+    @Override
+    public int getActiveMessageCount() {
+        return activeMessages.get();
+    }
+
+    @Override
+    public long getProcessedMessageCount() {
+        return processedMessages.get();
+    }
+
+    @Override
+    public long getAverageProcessingTime() {
+        long count = processedMessages.get();
+        return count == 0 ? 0 : totalProcessingTime.get() / count;
+    }
+
+    @Override
+    public long getMaxProcessingTime() {
+        return maxProcessingTime.get();
     }
 
     /*
@@ -160,4 +245,11 @@ public class JMSIncomingPort {
         this.receive = receive;
     }
 
+    /**
+     * Sets the number of sessions consuming the receive queue, which is the number of messages processed in parallel.
+     */
+    public void setConcurrentConsumers(int concurrentConsumers) {
+        this.concurrentConsumers = concurrentConsumers;
+    }
+
 }
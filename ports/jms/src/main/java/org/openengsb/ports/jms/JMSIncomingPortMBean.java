@@ -0,0 +1,49 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.ports.jms;
+
+/**
+ * Management interface of the {@link JMSIncomingPort}. The port is registered with this interface and a
+ * {@code jmx.objectname} service property, so the JMX whiteboard exposes its statistics as MBean.
+ *
+ * The port keeps no queue of its own, messages wait in the receive queue of the broker until a consumer is free.
+ * Their number is therefore the queue size which the broker exposes for the receive queue, e.g. the
+ * {@code QueueSize} attribute of the ActiveMQ queue MBean.
+ */
+public interface JMSIncomingPortMBean {
+
+    /**
+     * Returns the number of messages which are processed at the moment.
+     */
+    int getActiveMessageCount();
+
+    /**
+     * Returns the number of messages which have been processed since the port was created.
+     */
+    long getProcessedMessageCount();
+
+    /**
+     * Returns the average time in milliseconds it took to process a message and send its reply.
+     */
+    long getAverageProcessingTime();
+
+    /**
+     * Returns the longest time in milliseconds it took to process a message and send its reply.
+     */
+    long getMaxProcessingTime();
+}
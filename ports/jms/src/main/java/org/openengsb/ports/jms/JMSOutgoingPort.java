@@ -17,50 +17,180 @@
 
 package org.openengsb.ports.jms;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.command.ActiveMQQueue;
 import org.apache.commons.lang.ObjectUtils;
 import org.openengsb.core.common.remote.AbstractFilterAction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessagePostProcessor;
+import org.springframework.jms.listener.SimpleMessageListenerContainer;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.SettableFuture;
 
+/**
+ * Sends method calls to a JMS destination. Calls expecting an answer carry their call id as correlation id and name a
+ * reply queue that is shared by all calls of this node. One listener per broker consumes the reply queue and completes
+ * the future of the call the reply belongs to, so waiting calls don't need a consumer of their own. The name of the
+ * reply queue is derived from an id which is generated once per node and kept in its data directory, so a restarted
+ * node reuses its queue instead of leaving an abandoned one on the broker.
+ */
 public class JMSOutgoingPort extends AbstractFilterAction<String, String> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JMSOutgoingPort.class);
 
+    private static final String NODE_ID_FILE = "openengsb/jms-node.id";
+
     private JMSTemplateFactory factory;
     private int timeout;
+    private String replyQueue = "openengsb.reply." + loadNodeId();
+
+    private final ConcurrentMap<String, SettableFuture<String>> pendingCalls =
+        new ConcurrentHashMap<String, SettableFuture<String>>();
+    private final Map<String, SimpleMessageListenerContainer> replyListeners =
+        new ConcurrentHashMap<String, SimpleMessageListenerContainer>();
 
     @Override
     protected String doFilter(String input, Map<String, Object> metaData) {
         String destination = (String) metaData.get("destination");
         String callId = (String) metaData.get("callId");
         LOGGER.info("sending message with callId {} to destination {}", callId, destination);
-        sendMessage(destination, input);
+        DestinationUrl destinationUrl = DestinationUrl.createDestinationUrl(destination);
+        JmsTemplate template = factory.createJMSTemplate(destinationUrl);
 
         if (ObjectUtils.notEqual(metaData.get("answer"), true)) {
+            template.convertAndSend(input);
             LOGGER.debug("no answer expected, just returning null");
             return null;
         }
-        LOGGER.info("waiting {}ms for response on call with id {}", timeout, callId);
-        JmsTemplate createJMSTemplate = createJMSTemplate(destination);
-        createJMSTemplate.setReceiveTimeout(timeout);
-        Object receiveAndConvert = createJMSTemplate.receiveAndConvert(callId);
-        if (receiveAndConvert == null) {
+
+        SettableFuture<String> response = SettableFuture.create();
+        pendingCalls.put(callId, response);
+        try {
+            startReplyListener(destinationUrl.getHost(), template);
+            template.convertAndSend((Object) input, new ReplyToPostProcessor(callId));
+            LOGGER.info("waiting {}ms for response on call with id {}", timeout, callId);
+            String result = response.get(timeout, TimeUnit.MILLISECONDS);
+            LOGGER.info("response for call with id {} received", callId);
+            return result;
+        } catch (TimeoutException e) {
             throw new RuntimeException("JMS Receive Timeout reached");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for response on call with id " + callId, e);
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } finally {
+            pendingCalls.remove(callId);
+        }
+    }
+
+    private void startReplyListener(String host, JmsTemplate template) {
+        if (replyListeners.containsKey(host)) {
+            return;
+        }
+        synchronized (replyListeners) {
+            if (!replyListeners.containsKey(host)) {
+                createReplyListener(host, template);
+            }
+        }
+    }
+
+    private void createReplyListener(String host, JmsTemplate template) {
+        LOGGER.info("listening for responses from {} on queue {}", host, replyQueue);
+        SimpleMessageListenerContainer container = factory.createMessageListenerContainer();
+        container.setConnectionFactory(template.getConnectionFactory());
+        container.setDestinationName(replyQueue);
+        container.setMessageListener(new MessageListener() {
+            @Override
+            public void onMessage(Message message) {
+                completeCall(message);
+            }
+        });
+        container.start();
+        replyListeners.put(host, container);
+    }
+
+    private void completeCall(Message message) {
+        try {
+            String callId = message.getJMSCorrelationID();
+            SettableFuture<String> response = callId == null ? null : pendingCalls.remove(callId);
+            if (response == null) {
+                LOGGER.warn("received response for unknown or timed out call with id {}", callId);
+                return;
+            }
+            if (message instanceof TextMessage) {
+                response.set(((TextMessage) message).getText());
+            } else {
+                response.setException(new IllegalStateException("Received JMS response is not a text message"));
+            }
+        } catch (JMSException e) {
+            LOGGER.error("could not read response message", e);
         }
-        LOGGER.info("response for call with id {} received", callId);
-        return (String) receiveAndConvert;
     }
 
-    private JmsTemplate createJMSTemplate(String destination) {
-        return factory.createJMSTemplate(DestinationUrl.createDestinationUrl(destination));
+    /**
+     * Stops the reply listeners and fails all calls that are still waiting for a response.
+     */
+    public void stop() {
+        synchronized (replyListeners) {
+            for (SimpleMessageListenerContainer container : replyListeners.values()) {
+                container.shutdown();
+            }
+            replyListeners.clear();
+        }
+        for (SettableFuture<String> response : pendingCalls.values()) {
+            response.setException(new IllegalStateException("JMS outgoing port stopped"));
+        }
+        pendingCalls.clear();
     }
 
-    private void sendMessage(String destination, String message) {
-        JmsTemplate createJMSTemplate = createJMSTemplate(destination);
-        createJMSTemplate.convertAndSend(message);
+    /**
+     * Returns the id of this node. It is generated on the first start and kept in the data directory of the Karaf
+     * instance, since the names of the instances are not unique. Without a data directory, e.g. outside of Karaf, a
+     * random id is used. Fails if the id can neither be read nor written.
+     */
+    private static String loadNodeId() {
+        String dataDirectory = System.getProperty("karaf.data");
+        if (dataDirectory == null) {
+            return UUID.randomUUID().toString();
+        }
+        Path file = Paths.get(dataDirectory, NODE_ID_FILE);
+        try {
+            if (Files.exists(file)) {
+                String nodeId = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+                if (!nodeId.isEmpty()) {
+                    return nodeId;
+                }
+            }
+            String nodeId = UUID.randomUUID().toString();
+            Files.createDirectories(file.getParent());
+            Files.write(file, nodeId.getBytes(StandardCharsets.UTF_8));
+            LOGGER.info("generated JMS node id {} in {}", nodeId, file);
+            return nodeId;
+        } catch (IOException e) {
+            throw new IllegalStateException("could not read or write the JMS node id " + file, e);
+        }
     }
 
     public void setFactory(JMSTemplateFactory factory) {
@@ -70,4 +200,28 @@ public class JMSOutgoingPort extends AbstractFilterAction<String, String> {
     public void setTimeout(int timeout) {
         this.timeout = timeout;
     }
+
+    /**
+     * Sets the name of the queue responses are sent to. It has to be unique for each node sharing a broker and should
+     * stay the same when the node is restarted. Defaults to openengsb.reply. followed by the id of the node.
+     */
+    public void setReplyQueue(String replyQueue) {
+        this.replyQueue = replyQueue;
+    }
+
+    private final class ReplyToPostProcessor implements MessagePostProcessor {
+        private final String callId;
+
+        private ReplyToPostProcessor(String callId) {
+            this.callId = callId;
+        }
+
+        @Override
+        public Message postProcessMessage(Message message) throws JMSException {
+            Destination destination = new ActiveMQQueue(replyQueue);
+            message.setJMSCorrelationID(callId);
+            message.setJMSReplyTo(destination);
+            return message;
+        }
+    }
 }
@@ -17,13 +17,11 @@
 
 package org.openengsb.ports.jms;
 
-import java.util.HashMap;
-import java.util.Map;
-
-import javax.jms.ConnectionFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.activemq.ActiveMQConnectionFactory;
-import org.springframework.jms.connection.SingleConnectionFactory;
+import org.springframework.jms.connection.CachingConnectionFactory;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.listener.SimpleMessageListenerContainer;
 
@@ -32,24 +30,49 @@ public class JMSTemplateFactoryImpl implements JMSTemplateFactory {
     /** This one can be overwritten whenever required */
     private static final Long DEFAULT_TIMEOUT = 3000L;
 
-    /** Shares single connection factories to avoid the extended effort of creating one */
-    private Map<String, ConnectionFactory> connections = new HashMap<String, ConnectionFactory>();
+    /** Number of sessions (with their producers) kept open per host */
+    private static final int DEFAULT_SESSION_CACHE_SIZE = 10;
+
+    /**
+     * Shares one connection per host, whose sessions and producers are pooled, to avoid the extended effort of creating
+     * them for every message
+     */
+    private ConcurrentMap<String, CachingConnectionFactory> connections =
+        new ConcurrentHashMap<String, CachingConnectionFactory>();
+
+    /** Templates are thread safe, so there is one per destination */
+    private ConcurrentMap<String, JmsTemplate> templates = new ConcurrentHashMap<String, JmsTemplate>();
+
+    private int sessionCacheSize = DEFAULT_SESSION_CACHE_SIZE;
 
     @Override
     public JmsTemplate createJMSTemplate(DestinationUrl destination) {
-        ConnectionFactory connectionFactory = retrieveJmsConnectionFactory(destination.getHost());
-        JmsTemplate template = retrieveJmsTemplate(destination.getJmsDestination(), connectionFactory);
+        String key = destination.getHost() + "?" + destination.getJmsDestination();
+        JmsTemplate template = templates.get(key);
+        if (template == null) {
+            CachingConnectionFactory connectionFactory = retrieveJmsConnectionFactory(destination.getHost());
+            template = retrieveJmsTemplate(destination.getJmsDestination(), connectionFactory);
+            JmsTemplate existing = templates.putIfAbsent(key, template);
+            if (existing != null) {
+                template = existing;
+            }
+        }
         return template;
     }
 
-    private synchronized ConnectionFactory retrieveJmsConnectionFactory(String host) {
+    private synchronized CachingConnectionFactory retrieveJmsConnectionFactory(String host) {
         if (!connections.containsKey(host)) {
-            connections.put(host, new SingleConnectionFactory(new ActiveMQConnectionFactory(host)));
+            CachingConnectionFactory connectionFactory =
+                new CachingConnectionFactory(new ActiveMQConnectionFactory(host));
+            connectionFactory.setSessionCacheSize(sessionCacheSize);
+            // consumers are long-lived in listener containers and must not be shared
+            connectionFactory.setCacheConsumers(false);
+            connections.put(host, connectionFactory);
         }
         return connections.get(host);
     }
 
-    private JmsTemplate retrieveJmsTemplate(String jmsDestination, ConnectionFactory connectionFactory) {
+    private JmsTemplate retrieveJmsTemplate(String jmsDestination, CachingConnectionFactory connectionFactory) {
         JmsTemplate template = new JmsTemplate(connectionFactory);
         template.setDefaultDestinationName(jmsDestination);
         template.setReceiveTimeout(DEFAULT_TIMEOUT);
@@ -61,4 +84,19 @@ public class JMSTemplateFactoryImpl implements JMSTemplateFactory {
         return new SimpleMessageListenerContainer();
     }
 
+    /**
+     * Closes the shared connections with their pooled sessions.
+     */
+    public synchronized void destroy() {
+        templates.clear();
+        for (CachingConnectionFactory connectionFactory : connections.values()) {
+            connectionFactory.destroy();
+        }
+        connections.clear();
+    }
+
+    public void setSessionCacheSize(int sessionCacheSize) {
+        this.sessionCacheSize = sessionCacheSize;
+    }
+
 }
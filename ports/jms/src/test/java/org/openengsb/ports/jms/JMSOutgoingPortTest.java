@@ -22,10 +22,22 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
-import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
 
 import org.hamcrest.Matchers;
 import org.junit.Before;
@@ -41,6 +53,7 @@ import org.openengsb.core.common.remote.FilterChainFactory;
 import org.openengsb.core.services.filter.OutgoingJsonSecureMethodCallMarshalFilter;
 import org.openengsb.core.test.AbstractOsgiMockServiceTest;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.MessagePostProcessor;
 import org.springframework.jms.listener.SimpleMessageListenerContainer;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -121,17 +134,92 @@ public class JMSOutgoingPortTest extends AbstractOsgiMockServiceTest {
         assertThat(readTree.get("metaData").toString(), Matchers.equalTo("{\"serviceId\":\"test\"}"));
     }
 
-    @Test
-    public void testCallSendSync_shouldSendMessageListenToReturnQueueAndSerialize() throws Exception {
-        ArgumentCaptor<String> sendIdCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> destinationCaptor = ArgumentCaptor.forClass(String.class);
-        Mockito.when(jmsTemplate.receiveAndConvert(destinationCaptor.capture())).thenReturn(METHOD_RESULT_MESSAGE);
-        outgoingPort.sendSync(call);
-        Mockito.verify(jmsTemplate).convertAndSend(sendIdCaptor.capture());
-
-        String destination =
-            new ObjectMapper().readValue(new StringReader(sendIdCaptor.getValue()), JsonNode.class).get("callId")
-                .asText();
-        assertThat(destinationCaptor.getValue(), Matchers.equalTo(destination));
+    @Test(timeout = 30000)
+    public void testCallSendSync_shouldCorrelateResponsesOnSharedReplyQueue() throws Exception {
+        String brokerName = "outgoing" + UUID.randomUUID();
+        BrokerService broker = new BrokerService();
+        broker.setBrokerName(brokerName);
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.start();
+        JMSTemplateFactoryImpl templateFactory = new JMSTemplateFactoryImpl();
+        JMSOutgoingPort jmsOutgoingPort = new JMSOutgoingPort();
+        try {
+            String host = "vm://" + brokerName;
+            jmsOutgoingPort.setFactory(templateFactory);
+            jmsOutgoingPort.setTimeout(10000);
+            final OutgoingPort port = createOutgoingPort(jmsOutgoingPort);
+
+            Future<?> responder = Executors.newSingleThreadExecutor().submit(new Responder(host, 2));
+
+            ExecutorService callers = Executors.newFixedThreadPool(2);
+            List<Future<MethodResultMessage>> results = new ArrayList<Future<MethodResultMessage>>();
+            for (String callId : Arrays.asList("1", "2")) {
+                final MethodCallMessage message = new MethodCallMessage(call.getMethodCall(), callId);
+                message.setDestination(host + "?receive");
+                results.add(callers.submit(new Callable<MethodResultMessage>() {
+                    @Override
+                    public MethodResultMessage call() throws Exception {
+                        return port.sendSync(message);
+                    }
+                }));
+            }
+
+            responder.get();
+            assertThat(results.get(0).get().getResult().getArg(), Matchers.<Object>equalTo("1"));
+            assertThat(results.get(1).get().getResult().getArg(), Matchers.<Object>equalTo("2"));
+            callers.shutdown();
+        } finally {
+            jmsOutgoingPort.stop();
+            templateFactory.destroy();
+            broker.stop();
+        }
+    }
+
+    private OutgoingPort createOutgoingPort(JMSOutgoingPort jmsOutgoingPort) {
+        FilterChainFactory<MethodCallMessage, MethodResultMessage> factory =
+            new FilterChainFactory<MethodCallMessage, MethodResultMessage>(MethodCallMessage.class,
+                MethodResultMessage.class);
+        factory.setFilters(Arrays.asList(OutgoingJsonSecureMethodCallMarshalFilter.class,
+            jmsOutgoingPort));
+        OutgoingPortImpl port = new OutgoingPortImpl();
+        port.setFilterChain(factory.create());
+        return port;
+    }
+
+    /**
+     * Waits for the given number of calls and answers them in reverse order, with the call id as result.
+     */
+    private static final class Responder implements Callable<Void> {
+        private final JmsTemplate jmsTemplate;
+        private final int calls;
+
+        private Responder(String host, int calls) {
+            jmsTemplate = new JmsTemplate(new ActiveMQConnectionFactory(host));
+            jmsTemplate.setReceiveTimeout(10000);
+            this.calls = calls;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            List<Message> requests = new ArrayList<Message>();
+            for (int i = 0; i < calls; i++) {
+                Message request = jmsTemplate.receive("receive");
+                assertThat(request, Matchers.notNullValue());
+                requests.add(0, request);
+            }
+            for (Message request : requests) {
+                final String callId = request.getJMSCorrelationID();
+                String response = METHOD_RESULT_MESSAGE.replace("42", callId).replace("12345", callId);
+                jmsTemplate.convertAndSend(request.getJMSReplyTo(), response, new MessagePostProcessor() {
+                    @Override
+                    public Message postProcessMessage(Message message) throws JMSException {
+                        message.setJMSCorrelationID(callId);
+                        return message;
+                    }
+                });
+            }
+            return null;
+        }
     }
 }
@@ -32,11 +32,19 @@ import static org.mockito.Mockito.when;
 import java.io.StringWriter;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Dictionary;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.SecretKey;
 import javax.jms.ConnectionFactory;
@@ -63,6 +71,8 @@ import org.junit.rules.TemporaryFolder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.openengsb.connector.usernamepassword.Password;
+import org.openengsb.core.api.remote.FilterAction;
+import org.openengsb.core.api.remote.FilterException;
 import org.openengsb.core.api.remote.MethodCall;
 import org.openengsb.core.api.remote.MethodCallMessage;
 import org.openengsb.core.api.remote.MethodResult;
@@ -368,6 +378,54 @@ public class JMSPortTest extends AbstractOsgiMockServiceTest {
         assertThat(resultString, containsString("<test>test</test>"));
     }
 
+    @Test(timeout = 30000)
+    public void testConcurrentCalls_shouldBeProcessedByDifferentConsumers() throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        FilterChainFactory<String, String> factory = new FilterChainFactory<String, String>(String.class, String.class);
+        factory.setFilters(Arrays.asList(new FilterAction() {
+            @Override
+            public Object filter(Object input, Map<String, Object> metaData) throws FilterException {
+                try {
+                    // only returns if the other call is processed at the same time
+                    barrier.await(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new FilterException(e);
+                }
+                return "answer to " + input;
+            }
+
+            @Override
+            public Class<?> getSupportedInputType() {
+                return String.class;
+            }
+
+            @Override
+            public Class<?> getSupportedOutputType() {
+                return String.class;
+            }
+        }));
+        incomingPort.setFilterChain(factory.create());
+        incomingPort.setConcurrentConsumers(2);
+        incomingPort.start();
+
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        List<Future<String>> results = new ArrayList<Future<String>>();
+        for (final String request : Arrays.asList("first", "second")) {
+            results.add(clients.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return sendWithTempQueue(request);
+                }
+            }));
+        }
+
+        assertThat(results.get(0).get(), equalTo("answer to first"));
+        assertThat(results.get(1).get(), equalTo("answer to second"));
+        clients.shutdown();
+        incomingPort.stop();
+        assertThat(incomingPort.getProcessedMessageCount(), is(2L));
+    }
+
     @Test
     public void testStop_shouldNotReactToIncomingCalls() throws Exception {
         SimpleMessageListenerContainer orig = simpleMessageListenerConainer;
@@ -18,15 +18,37 @@
 package org.openengsb.ports.ws;
 
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.ws.BindingProvider;
 
 import org.apache.cxf.Bus;
 import org.apache.cxf.bus.spring.SpringBusFactory;
+import org.apache.cxf.endpoint.Client;
+import org.apache.cxf.frontend.ClientProxy;
 import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transports.http.configuration.ConnectionType;
+import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
 import org.openengsb.core.common.remote.AbstractFilterAction;
 import org.osgi.framework.BundleContext;
-import org.springframework.context.ApplicationContext;
 import org.springframework.osgi.context.support.OsgiBundleXmlApplicationContext;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Sends messages to the {@link PortReceiver} web service at the destination of the call. All clients share one CXF
+ * bus, and the client proxy of each destination is cached, so the WSDL is only fetched and the service model only
+ * built when a destination is called the first time or its proxy was evicted after being idle. The proxies keep their
+ * HTTP connections alive between calls. An evicted proxy which is still used by a call is only destroyed when the
+ * last of its calls has finished.
+ */
 public class WSOutgoingPort extends AbstractFilterAction<String, String> {
 
     private static final String[] CXF_CONFIG = new String[]{
@@ -34,31 +56,116 @@ public class WSOutgoingPort extends AbstractFilterAction<String, String> {
     };
     private BundleContext bundleContext;
 
+    private long maxCachedReceivers = 64;
+    private long receiverIdleTimeout = TimeUnit.MINUTES.toMillis(10);
+
+    private OsgiBundleXmlApplicationContext cxfContext;
+    private Bus bus;
+    private volatile LoadingCache<String, CachedReceiver> receivers;
+    private boolean destroyed;
+
     @Override
     protected String doFilter(String input, Map<String, Object> metaData) {
         String destination = (String) metaData.get("destination");
-        PortReceiver service = retrieveProxyReceiverForDestination(destination);
-        return service.receive(input);
+        CachedReceiver receiver = acquireReceiver(destination);
+        try {
+            return receiver.service.receive(input);
+        } finally {
+            receiver.release();
+        }
+    }
+
+    /**
+     * Returns the cached receiver of the destination and registers a call on it, so that it isn't destroyed while the
+     * call is running. Receivers which have been evicted concurrently are replaced.
+     */
+    private CachedReceiver acquireReceiver(String destination) {
+        LoadingCache<String, CachedReceiver> cache = getReceivers();
+        while (true) {
+            CachedReceiver receiver;
+            try {
+                receiver = cache.getUnchecked(destination);
+            } catch (UncheckedExecutionException e) {
+                throw Throwables.propagate(e.getCause());
+            }
+            if (receiver.acquire()) {
+                return receiver;
+            }
+            cache.asMap().remove(destination, receiver);
+        }
+    }
+
+    private LoadingCache<String, CachedReceiver> getReceivers() {
+        if (receivers == null) {
+            synchronized (this) {
+                checkNotDestroyed();
+                if (receivers == null) {
+                    receivers = CacheBuilder.newBuilder()
+                        .maximumSize(maxCachedReceivers)
+                        .expireAfterAccess(receiverIdleTimeout, TimeUnit.MILLISECONDS)
+                        .removalListener(new RemovalListener<String, CachedReceiver>() {
+                            @Override
+                            public void onRemoval(RemovalNotification<String, CachedReceiver> notification) {
+                                notification.getValue().evict();
+                            }
+                        })
+                        .build(new CacheLoader<String, CachedReceiver>() {
+                            @Override
+                            public CachedReceiver load(String destination) {
+                                return new CachedReceiver(createProxyReceiver(destination));
+                            }
+                        });
+                }
+            }
+        }
+        return receivers;
     }
 
-    private PortReceiver retrieveProxyReceiverForDestination(String destination) {
-        Bus bus = createCxfBus();
+    private void checkNotDestroyed() {
+        if (destroyed) {
+            throw new IllegalStateException("the WS outgoing port has been destroyed");
+        }
+    }
+
+    /**
+     * Creates the client proxy for the PortReceiver service at the given destination.
+     */
+    protected PortReceiver createProxyReceiver(String destination) {
         JaxWsProxyFactoryBean jaxWsProxyFactoryBean = new JaxWsProxyFactoryBean();
-        jaxWsProxyFactoryBean.setBus(bus);
+        jaxWsProxyFactoryBean.setBus(getCxfBus());
         jaxWsProxyFactoryBean.setServiceClass(PortReceiver.class);
         jaxWsProxyFactoryBean.setAddress(destination);
         jaxWsProxyFactoryBean.setWsdlURL(destination + "?wsdl");
         PortReceiver service = jaxWsProxyFactoryBean.create(PortReceiver.class);
+
+        // the proxy is shared by all threads calling the destination
+        ((BindingProvider) service).getRequestContext().put("thread.local.request.context", "true");
+
+        Client client = ClientProxy.getClient(service);
+        HTTPClientPolicy policy = new HTTPClientPolicy();
+        policy.setConnection(ConnectionType.KEEP_ALIVE);
+        ((HTTPConduit) client.getConduit()).setClient(policy);
         return service;
     }
 
-    private Bus createCxfBus() {
-        ApplicationContext ctx = createSpringCxfContext();
-        SpringBusFactory fact = new SpringBusFactory(ctx);
-        return fact.createBus();
+    /**
+     * Destroys the client proxy of a destination, which is no longer cached and no longer used by any call.
+     */
+    protected void destroyProxyReceiver(PortReceiver service) {
+        ClientProxy.getClient(service).destroy();
     }
 
-    private ApplicationContext createSpringCxfContext() {
+    private synchronized Bus getCxfBus() {
+        checkNotDestroyed();
+        if (bus == null) {
+            cxfContext = createSpringCxfContext();
+            SpringBusFactory fact = new SpringBusFactory(cxfContext);
+            bus = fact.createBus();
+        }
+        return bus;
+    }
+
+    private OsgiBundleXmlApplicationContext createSpringCxfContext() {
         OsgiBundleXmlApplicationContext ctx = new OsgiBundleXmlApplicationContext(CXF_CONFIG);
         ctx.setPublishContextAsService(false);
         ctx.setBundleContext(bundleContext);
@@ -66,8 +173,78 @@ public class WSOutgoingPort extends AbstractFilterAction<String, String> {
         return ctx;
     }
 
+    /**
+     * Destroys all cached client proxies and shuts down the shared bus. The port can't be used anymore afterwards.
+     */
+    public synchronized void destroy() {
+        destroyed = true;
+        if (receivers != null) {
+            receivers.invalidateAll();
+            receivers = null;
+        }
+        if (bus != null) {
+            bus.shutdown(true);
+            bus = null;
+        }
+        if (cxfContext != null) {
+            cxfContext.close();
+            cxfContext = null;
+        }
+    }
+
     public void setBundleContext(BundleContext bundleContext) {
         this.bundleContext = bundleContext;
     }
 
+    /**
+     * Sets the maximum number of destinations whose client proxies are cached.
+     */
+    public void setMaxCachedReceivers(long maxCachedReceivers) {
+        this.maxCachedReceivers = maxCachedReceivers;
+    }
+
+    /**
+     * Sets the time in milliseconds after which the client proxy of a destination that was not called is destroyed.
+     */
+    public void setReceiverIdleTimeout(long receiverIdleTimeout) {
+        this.receiverIdleTimeout = receiverIdleTimeout;
+    }
+
+    /**
+     * A cached client proxy together with the number of calls which are currently using it.
+     */
+    private final class CachedReceiver {
+        private final PortReceiver service;
+        private int calls;
+        private boolean evicted;
+
+        private CachedReceiver(PortReceiver service) {
+            this.service = service;
+        }
+
+        /**
+         * Registers a call on the proxy. Returns false if the proxy has already been evicted.
+         */
+        private synchronized boolean acquire() {
+            if (evicted) {
+                return false;
+            }
+            calls++;
+            return true;
+        }
+
+        private synchronized void release() {
+            calls--;
+            if (evicted && calls == 0) {
+                destroyProxyReceiver(service);
+            }
+        }
+
+        private synchronized void evict() {
+            evicted = true;
+            if (calls == 0) {
+                destroyProxyReceiver(service);
+            }
+        }
+    }
 }
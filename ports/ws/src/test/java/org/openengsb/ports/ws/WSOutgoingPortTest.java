@@ -0,0 +1,139 @@
+/**
+ * Licensed to the Austrian Association for Software Tool Integration (AASTI)
+ * under one or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information regarding copyright
+ * ownership. The AASTI licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openengsb.ports.ws;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class WSOutgoingPortTest {
+    private TestOutgoingPort port;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        port = new TestOutgoingPort();
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        port.destroy();
+    }
+
+    @Test
+    public void testRepeatedCallsToOneDestination_shouldCreateTheProxyOnlyOnce() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            assertThat(call("http://localhost/a", "message"), is("received message"));
+        }
+
+        assertThat(port.created.size(), is(1));
+    }
+
+    @Test(timeout = 10000)
+    public void testEvictionOfProxyInUse_shouldDestroyItAfterTheCall() throws Exception {
+        port.setMaxCachedReceivers(1);
+        final CountDownLatch callStarted = new CountDownLatch(1);
+        final CountDownLatch finishCall = new CountDownLatch(1);
+        port.blockingDestination = "http://localhost/a";
+        port.callStarted = callStarted;
+        port.finishCall = finishCall;
+        Future<String> running = executor.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return WSOutgoingPortTest.this.call("http://localhost/a", "message");
+            }
+        });
+        callStarted.await();
+
+        call("http://localhost/b", "message");
+        assertThat(port.destroyed.isEmpty(), is(true));
+        finishCall.countDown();
+
+        assertThat(running.get(), is("received message"));
+        assertThat(port.destroyed.size(), is(1));
+        assertThat(port.destroyed.get(0), is(port.created.get(0)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCallAfterDestroy_shouldFail() throws Exception {
+        call("http://localhost/a", "message");
+        port.destroy();
+
+        call("http://localhost/a", "message");
+    }
+
+    private String call(String destination, String message) {
+        Map<String, Object> metaData = new HashMap<String, Object>();
+        metaData.put("destination", destination);
+        return port.doFilter(message, metaData);
+    }
+
+    /**
+     * Creates mocked receivers instead of CXF client proxies.
+     */
+    private static final class TestOutgoingPort extends WSOutgoingPort {
+        private final List<PortReceiver> created = Collections.synchronizedList(new ArrayList<PortReceiver>());
+        private final List<PortReceiver> destroyed = Collections.synchronizedList(new ArrayList<PortReceiver>());
+        private volatile String blockingDestination;
+        private volatile CountDownLatch callStarted;
+        private volatile CountDownLatch finishCall;
+
+        @Override
+        protected PortReceiver createProxyReceiver(final String destination) {
+            PortReceiver receiver = mock(PortReceiver.class);
+            when(receiver.receive(anyString())).thenAnswer(new Answer<String>() {
+                @Override
+                public String answer(InvocationOnMock invocation) throws Throwable {
+                    if (destination.equals(blockingDestination)) {
+                        callStarted.countDown();
+                        finishCall.await();
+                    }
+                    return "received " + invocation.getArguments()[0];
+                }
+            });
+            created.add(receiver);
+            return receiver;
+        }
+
+        @Override
+        protected void destroyProxyReceiver(PortReceiver service) {
+            destroyed.add(service);
+        }
+    }
+}